@@ -0,0 +1,107 @@
+package ae.etisalat.cisapp.benchmark;
+
+import ae.etisalat.cisapp.config.JsonConfig;
+import ae.etisalat.cisapp.config.WebServiceConfig;
+import ae.etisalat.cisapp.support.SampleData;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.oxm.jaxb.Jaxb2Marshaller;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.ws.WebServiceMessage;
+import org.springframework.ws.soap.saaj.SaajSoapMessageFactory;
+import org.springframework.ws.support.MarshallingUtils;
+import sem.cis.pull.cbcm.GetSubscriptionDtls;
+import sem.cis.pull.cbcm.GetSubscriptionDtlsResponse;
+
+import javax.xml.namespace.QName;
+import jakarta.xml.bind.JAXBElement;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+/**
+ * Builds the same marshaller, message factory and payloads the application uses, outside a Spring
+ * context so that benchmark setup stays cheap and the measured code is exactly the production code.
+ */
+final class CisBenchmarkFixtures {
+
+    static final String NAMESPACE = "http://cbcm.pull.cis.sem/";
+
+    private CisBenchmarkFixtures() {
+    }
+
+    static Jaxb2Marshaller marshaller() throws Exception {
+        return marshaller(false);
+    }
+
+    /**
+     * @param jaxbPool as {@code webservice.cis.marshalling.jaxb-pool.enabled}
+     */
+    static Jaxb2Marshaller marshaller(boolean jaxbPool) throws Exception {
+        WebServiceConfig config = new WebServiceConfig();
+        ReflectionTestUtils.setField(config, "contextPath", "sem.cis.pull.cbcm");
+        ReflectionTestUtils.setField(config, "jaxbPool", jaxbPool);
+        ReflectionTestUtils.setField(config, "jaxbPoolMaxIdle", 64);
+        Jaxb2Marshaller marshaller = config.marshaller();
+        marshaller.afterPropertiesSet();
+        return marshaller;
+    }
+
+    /**
+     * @param tuned as {@code webservice.cis.json.lambda-accessors.enabled} and {@code buffer-pool.enabled}
+     */
+    static ObjectMapper objectMapper(boolean tuned) {
+        Jackson2ObjectMapperBuilder builder = Jackson2ObjectMapperBuilder.json();
+        if (tuned) {
+            JsonConfig config = new JsonConfig();
+            ReflectionTestUtils.setField(config, "contextPath", "sem.cis.pull.cbcm");
+            ReflectionTestUtils.setField(config, "bufferPoolMaxIdle", 64);
+            builder.modulesToInstall(config.lambdaAccessorModule());
+            config.pooledBufferJsonFactory().customize(builder);
+        }
+        return builder.build();
+    }
+
+    static SaajSoapMessageFactory messageFactory() {
+        SaajSoapMessageFactory messageFactory = new SaajSoapMessageFactory();
+        messageFactory.afterPropertiesSet();
+        return messageFactory;
+    }
+
+    /**
+     * The request element exactly as {@code CisPullService} wraps it.
+     */
+    static JAXBElement<GetSubscriptionDtls> requestElement() {
+        return new JAXBElement<>(new QName(NAMESPACE, "getSubscriptionDtls"), GetSubscriptionDtls.class,
+                SampleData.populate(GetSubscriptionDtls.class, 1));
+    }
+
+    /**
+     * @param items number of entries generated for each list in the response
+     */
+    static GetSubscriptionDtlsResponse response(int items) {
+        return SampleData.populate(GetSubscriptionDtlsResponse.class, items);
+    }
+
+    static JAXBElement<GetSubscriptionDtlsResponse> responseElement(int items) {
+        return new JAXBElement<>(new QName(NAMESPACE, "getSubscriptionDtlsResponse"), GetSubscriptionDtlsResponse.class,
+                response(items));
+    }
+
+    static WebServiceMessage message(SaajSoapMessageFactory messageFactory, Jaxb2Marshaller marshaller, Object payload)
+            throws IOException {
+        WebServiceMessage message = messageFactory.createWebServiceMessage();
+        MarshallingUtils.marshal(marshaller, payload, message);
+        return message;
+    }
+
+    /**
+     * Serialized SOAP envelope carrying a populated response, as the CIS backend would send it.
+     */
+    static byte[] responseEnvelope(SaajSoapMessageFactory messageFactory, Jaxb2Marshaller marshaller, int items)
+            throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        message(messageFactory, marshaller, responseElement(items)).writeTo(out);
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,130 @@
+package ae.etisalat.cisapp.benchmark;
+
+import ae.etisalat.cisapp.config.CapturedHttpHeaders;
+import ae.etisalat.cisapp.config.HttpHeaderCapture;
+import ae.etisalat.cisapp.config.LoggingWebServiceMessageSender;
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.LoggerContext;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.slf4j.LoggerFactory;
+import org.springframework.ws.transport.WebServiceConnection;
+import org.springframework.ws.transport.WebServiceMessageSender;
+import org.springframework.ws.transport.http.HttpUrlConnection;
+import org.springframework.ws.transport.http.HttpUrlConnectionMessageSender;
+
+import java.lang.reflect.Field;
+import java.net.HttpURLConnection;
+import java.net.URI;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-call cost of reading request headers from a Spring WS connection: the per-call
+ * {@code getDeclaredField("connection")} + {@code setAccessible} lookups the logging classes used
+ * to do, versus {@link HttpHeaderCapture} into a reused {@link CapturedHttpHeaders}. The sender
+ * benchmarks show that the logging decorator adds nothing when DEBUG is off.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class HeaderCaptureBenchmark {
+
+    private static final URI CIS_URI = URI.create("http://127.0.0.1:9/cis");
+
+    private WebServiceConnection connection;
+    private CapturedHttpHeaders headers;
+    private WebServiceMessageSender rawSender;
+    private WebServiceMessageSender loggingSender;
+
+    @Setup
+    public void setUp() throws Exception {
+        LoggerContext loggerContext = (LoggerContext) LoggerFactory.getILoggerFactory();
+        loggerContext.getLogger(LoggingWebServiceMessageSender.class).setLevel(Level.INFO);
+
+        // Unconnected, so request headers stay readable and no I/O happens
+        connection = new HttpUrlConnectionMessageSender().createConnection(CIS_URI);
+        HttpURLConnection urlConnection = ((HttpUrlConnection) connection).getConnection();
+        urlConnection.addRequestProperty("Content-Type", "text/xml; charset=utf-8");
+        urlConnection.addRequestProperty("SOAPAction", "\"\"");
+        urlConnection.addRequestProperty("Accept", "text/xml, text/html, image/gif, image/jpeg, *; q=.2, */*; q=.2");
+        urlConnection.addRequestProperty("Accept-Encoding", "gzip");
+        headers = new CapturedHttpHeaders();
+
+        WebServiceConnection sharedConnection = connection;
+        rawSender = new WebServiceMessageSender() {
+            @Override
+            public WebServiceConnection createConnection(URI uri) {
+                return sharedConnection;
+            }
+
+            @Override
+            public boolean supports(URI uri) {
+                return true;
+            }
+        };
+        loggingSender = new LoggingWebServiceMessageSender(rawSender);
+    }
+
+    @Benchmark
+    public void reflectiveFieldAccess(Blackhole blackhole) throws Exception {
+        readReflectively(blackhole);
+    }
+
+    /**
+     * The interceptor additionally probed for a {@code getHeaders()} method first, which always
+     * failed with a {@link NoSuchMethodException} before falling back to the field.
+     */
+    @Benchmark
+    public void reflectiveMethodProbeThenFieldAccess(Blackhole blackhole) throws Exception {
+        try {
+            blackhole.consume(connection.getClass().getMethod("getHeaders"));
+        } catch (NoSuchMethodException expected) {
+            blackhole.consume(expected);
+        }
+        readReflectively(blackhole);
+    }
+
+    private void readReflectively(Blackhole blackhole) throws Exception {
+        Field connectionField = connection.getClass().getDeclaredField("connection");
+        connectionField.setAccessible(true);
+        HttpURLConnection urlConnection = (HttpURLConnection) connectionField.get(connection);
+        blackhole.consume(urlConnection.getRequestMethod());
+        blackhole.consume(urlConnection.getURL().toString());
+        for (Map.Entry<String, List<String>> header : urlConnection.getRequestProperties().entrySet()) {
+            for (String value : header.getValue()) {
+                blackhole.consume(header.getKey());
+                blackhole.consume(value);
+            }
+        }
+    }
+
+    @Benchmark
+    public CapturedHttpHeaders cachedCapture() throws Exception {
+        HttpHeaderCapture.captureRequest(connection, headers);
+        return headers;
+    }
+
+    @Benchmark
+    public WebServiceConnection senderWithoutDecorator() throws Exception {
+        return rawSender.createConnection(CIS_URI);
+    }
+
+    @Benchmark
+    public WebServiceConnection senderWithDecoratorDebugOff() throws Exception {
+        return loggingSender.createConnection(CIS_URI);
+    }
+}
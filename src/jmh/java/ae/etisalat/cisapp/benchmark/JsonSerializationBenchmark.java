@@ -0,0 +1,88 @@
+package ae.etisalat.cisapp.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import sem.cis.pull.cbcm.GetSubscriptionDtlsResponse;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Jackson serialization of the response body returned by {@code CisPullController}, using an
+ * {@link ObjectMapper} configured the way Spring Boot builds its default one, with and without the
+ * {@code webservice.cis.json} tuning. The body is written to a stream as the HTTP message converter
+ * writes it, once on the benchmark thread and once on a new virtual thread per call, as requests run.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JsonSerializationBenchmark {
+
+    @Param({"1", "20", "500"})
+    public int responseItems;
+
+    @Param({"false", "true"})
+    public boolean tuned;
+
+    private ObjectMapper objectMapper;
+    private GetSubscriptionDtlsResponse response;
+    private final CountingSink sink = new CountingSink();
+
+    @Setup
+    public void setUp() {
+        objectMapper = CisBenchmarkFixtures.objectMapper(tuned);
+        response = CisBenchmarkFixtures.response(responseItems);
+    }
+
+    @Benchmark
+    public long serializeResponse() throws Exception {
+        objectMapper.writeValue(sink, response);
+        return sink.count;
+    }
+
+    @Benchmark
+    public long serializeResponseOnVirtualThread() throws Exception {
+        Thread thread = Thread.ofVirtual().start(() -> {
+            try {
+                objectMapper.writeValue(sink, response);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        thread.join();
+        return sink.count;
+    }
+
+    /**
+     * Stands in for the servlet output stream; closing it is a no-op so it can be written again.
+     */
+    private static final class CountingSink extends OutputStream {
+
+        private long count;
+
+        @Override
+        public void write(int b) {
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            count += len;
+        }
+    }
+}
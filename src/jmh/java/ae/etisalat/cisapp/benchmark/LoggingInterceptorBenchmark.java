@@ -0,0 +1,89 @@
+package ae.etisalat.cisapp.benchmark;
+
+import ae.etisalat.cisapp.interceptor.LoggingWebServiceInterceptor;
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.slf4j.LoggerFactory;
+import org.springframework.oxm.jaxb.Jaxb2Marshaller;
+import org.springframework.ws.context.DefaultMessageContext;
+import org.springframework.ws.context.MessageContext;
+import org.springframework.ws.soap.saaj.SaajSoapMessageFactory;
+import org.springframework.ws.transport.context.DefaultTransportContext;
+import org.springframework.ws.transport.context.TransportContext;
+import org.springframework.ws.transport.context.TransportContextHolder;
+import org.springframework.ws.transport.http.HttpUrlConnectionMessageSender;
+
+import java.net.URI;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-call cost of {@link LoggingWebServiceInterceptor} for one request/response pair, with its
+ * logger at DEBUG (full logging) versus INFO (disabled). Log events go to a logger with no appenders,
+ * so the numbers are the interceptor's own work rather than console I/O.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class LoggingInterceptorBenchmark {
+
+    @Param({"DEBUG", "INFO"})
+    public String level;
+
+    private LoggingWebServiceInterceptor interceptor;
+    private MessageContext messageContext;
+    private TransportContext transportContext;
+
+    @Setup
+    public void setUp() throws Exception {
+        LoggerContext loggerContext = (LoggerContext) LoggerFactory.getILoggerFactory();
+        loggerContext.getLogger(Logger.ROOT_LOGGER_NAME).setLevel(Level.WARN);
+        Logger interceptorLogger = loggerContext.getLogger(LoggingWebServiceInterceptor.class);
+        interceptorLogger.detachAndStopAllAppenders();
+        interceptorLogger.setAdditive(false);
+        interceptorLogger.setLevel(Level.valueOf(level));
+
+        interceptor = new LoggingWebServiceInterceptor();
+        Jaxb2Marshaller marshaller = CisBenchmarkFixtures.marshaller();
+        SaajSoapMessageFactory messageFactory = CisBenchmarkFixtures.messageFactory();
+        messageContext = new DefaultMessageContext(
+                CisBenchmarkFixtures.message(messageFactory, marshaller, CisBenchmarkFixtures.requestElement()),
+                messageFactory);
+        messageContext.setResponse(
+                CisBenchmarkFixtures.message(messageFactory, marshaller, CisBenchmarkFixtures.responseElement(1)));
+
+        // An unconnected HttpURLConnection-backed connection, so the request-side transport logging runs
+        // exactly as in production without any network I/O
+        HttpUrlConnectionMessageSender sender = new HttpUrlConnectionMessageSender();
+        transportContext = new DefaultTransportContext(sender.createConnection(URI.create("http://127.0.0.1:9/cis")));
+    }
+
+    @TearDown
+    public void tearDown() {
+        TransportContextHolder.setTransportContext(null);
+    }
+
+    @Benchmark
+    public boolean requestAndResponse() {
+        TransportContextHolder.setTransportContext(transportContext);
+        boolean proceed = interceptor.handleRequest(messageContext);
+        // Reading the response side of an unconnected connection would open a socket
+        TransportContextHolder.setTransportContext(null);
+        return proceed & interceptor.handleResponse(messageContext);
+    }
+}
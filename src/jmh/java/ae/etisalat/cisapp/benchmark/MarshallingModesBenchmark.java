@@ -0,0 +1,75 @@
+package ae.etisalat.cisapp.benchmark;
+
+import ae.etisalat.cisapp.config.StaxSoapMessageFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.oxm.jaxb.Jaxb2Marshaller;
+import org.springframework.ws.WebServiceMessage;
+import org.springframework.ws.WebServiceMessageFactory;
+import org.springframework.ws.soap.saaj.SaajSoapMessageFactory;
+import org.springframework.ws.support.MarshallingUtils;
+import sem.cis.pull.cbcm.GetSubscriptionDtls;
+
+import jakarta.xml.bind.JAXBElement;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One CIS exchange as the template performs it around the HTTP call (request marshalled and written,
+ * response parsed and unmarshalled) for each {@code webservice.cis.marshalling} mode.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MarshallingModesBenchmark {
+
+    @Param({"saaj", "stax"})
+    public String messageFactory;
+
+    @Param({"false", "true"})
+    public boolean jaxbPool;
+
+    @Param({"20", "200"})
+    public int responseItems;
+
+    private Jaxb2Marshaller marshaller;
+    private WebServiceMessageFactory factory;
+    private JAXBElement<GetSubscriptionDtls> requestElement;
+    private byte[] responseEnvelope;
+
+    @Setup
+    public void setUp() throws Exception {
+        marshaller = CisBenchmarkFixtures.marshaller(jaxbPool);
+        SaajSoapMessageFactory saajFactory = CisBenchmarkFixtures.messageFactory();
+        factory = "stax".equals(messageFactory) ? new StaxSoapMessageFactory(saajFactory) : saajFactory;
+        requestElement = CisBenchmarkFixtures.requestElement();
+        responseEnvelope = CisBenchmarkFixtures.responseEnvelope(saajFactory, marshaller, responseItems);
+    }
+
+    @Benchmark
+    public void exchange(Blackhole blackhole) throws Exception {
+        WebServiceMessage request = factory.createWebServiceMessage();
+        MarshallingUtils.marshal(marshaller, requestElement, request);
+        ByteArrayOutputStream out = new ByteArrayOutputStream(512);
+        request.writeTo(out);
+        blackhole.consume(out);
+
+        WebServiceMessage response = factory.createWebServiceMessage(new ByteArrayInputStream(responseEnvelope));
+        blackhole.consume(MarshallingUtils.unmarshal(marshaller, response));
+    }
+}
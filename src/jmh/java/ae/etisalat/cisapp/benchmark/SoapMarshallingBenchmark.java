@@ -0,0 +1,67 @@
+package ae.etisalat.cisapp.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.oxm.jaxb.Jaxb2Marshaller;
+import org.springframework.ws.WebServiceMessage;
+import org.springframework.ws.soap.saaj.SaajSoapMessageFactory;
+import org.springframework.ws.support.MarshallingUtils;
+import sem.cis.pull.cbcm.GetSubscriptionDtls;
+
+import jakarta.xml.bind.JAXBElement;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Request marshalling into a SOAP envelope and response parsing plus unmarshalling, as performed
+ * by {@code WebServiceTemplate.marshalSendAndReceive} around the HTTP exchange.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SoapMarshallingBenchmark {
+
+    @Param({"1", "20"})
+    public int responseItems;
+
+    private Jaxb2Marshaller marshaller;
+    private SaajSoapMessageFactory messageFactory;
+    private JAXBElement<GetSubscriptionDtls> requestElement;
+    private byte[] responseEnvelope;
+
+    @Setup
+    public void setUp() throws Exception {
+        marshaller = CisBenchmarkFixtures.marshaller();
+        messageFactory = CisBenchmarkFixtures.messageFactory();
+        requestElement = CisBenchmarkFixtures.requestElement();
+        responseEnvelope = CisBenchmarkFixtures.responseEnvelope(messageFactory, marshaller, responseItems);
+    }
+
+    @Benchmark
+    public byte[] marshalRequest() throws Exception {
+        WebServiceMessage message = CisBenchmarkFixtures.message(messageFactory, marshaller, requestElement);
+        ByteArrayOutputStream out = new ByteArrayOutputStream(512);
+        message.writeTo(out);
+        return out.toByteArray();
+    }
+
+    @Benchmark
+    public Object unmarshalResponse() throws Exception {
+        WebServiceMessage message = messageFactory.createWebServiceMessage(new ByteArrayInputStream(responseEnvelope));
+        return MarshallingUtils.unmarshal(marshaller, message);
+    }
+}
@@ -0,0 +1,349 @@
+package ae.etisalat.cisapp.config;
+
+import ae.etisalat.cisapp.logging.PayloadCapturePolicy;
+import ae.etisalat.cisapp.logging.PayloadExchange;
+import ae.etisalat.cisapp.metrics.CisClientMetrics;
+import ae.etisalat.cisapp.service.CisDeadline;
+import ae.etisalat.cisapp.service.CisEndpointBalancer;
+import ae.etisalat.cisapp.service.CisEndpointBalancer.Endpoint;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ws.FaultAwareWebServiceMessage;
+import org.springframework.ws.WebServiceMessage;
+import org.springframework.ws.WebServiceMessageFactory;
+import org.springframework.ws.client.WebServiceIOException;
+import org.springframework.ws.client.WebServiceTransportException;
+import org.springframework.ws.client.core.WebServiceTemplate;
+import org.springframework.ws.client.support.interceptor.ClientInterceptor;
+import org.springframework.ws.context.DefaultMessageContext;
+import org.springframework.ws.context.MessageContext;
+import org.springframework.ws.soap.SoapMessage;
+import org.springframework.ws.soap.client.SoapFaultClientException;
+import org.springframework.ws.support.MarshallingUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Supplier;
+
+/**
+ * Non-blocking counterpart of {@link WebServiceTemplate#marshalSendAndReceive(Object)} built on
+ * {@link HttpClient#sendAsync}. Marshalling, message factory, default URI and client interceptors
+ * are taken from the given template, so both paths produce the same SOAP envelopes and logging.
+ * No thread is held while the response is outstanding.
+ */
+public class AsyncSoapClient {
+
+    private static final Logger logger = LoggerFactory.getLogger(AsyncSoapClient.class);
+
+    private final WebServiceTemplate webServiceTemplate;
+    private final HttpClient httpClient;
+    private final Duration readTimeout;
+    private PayloadCapturePolicy payloadCapturePolicy;
+    private CisClientMetrics clientMetrics;
+    private Supplier<Duration> readTimeoutSupplier;
+    private boolean acceptGzipEncoding;
+    private int requestCompressionThreshold = -1;
+    private CisEndpointBalancer endpointBalancer;
+
+    public AsyncSoapClient(WebServiceTemplate webServiceTemplate, HttpClient httpClient, Duration readTimeout) {
+        this.webServiceTemplate = webServiceTemplate;
+        this.httpClient = httpClient;
+        this.readTimeout = readTimeout;
+    }
+
+    /**
+     * Tees raw request/response bytes for exchanges the policy captures; {@code null} disables payload capture.
+     */
+    public void setPayloadCapturePolicy(PayloadCapturePolicy payloadCapturePolicy) {
+        this.payloadCapturePolicy = payloadCapturePolicy;
+    }
+
+    /**
+     * Records time-to-first-byte (which here includes connect and send), body receive, and wire and
+     * uncompressed byte counts; {@code null} disables them.
+     */
+    public void setClientMetrics(CisClientMetrics clientMetrics) {
+        this.clientMetrics = clientMetrics;
+    }
+
+    /**
+     * Supplies the request timeout per call instead of the fixed constructor value; {@code null} keeps
+     * the fixed value.
+     */
+    public void setReadTimeoutSupplier(Supplier<Duration> readTimeoutSupplier) {
+        this.readTimeoutSupplier = readTimeoutSupplier;
+    }
+
+    /**
+     * Advertises gzip and deflate and decodes compressed responses. The JDK client does neither by
+     * itself, so this is off by default.
+     */
+    public void setAcceptGzipEncoding(boolean acceptGzipEncoding) {
+        this.acceptGzipEncoding = acceptGzipEncoding;
+    }
+
+    /**
+     * Request bodies of at least this many bytes are sent gzipped; negative (the default) sends all
+     * bodies as they are.
+     */
+    public void setRequestCompressionThreshold(int requestCompressionThreshold) {
+        this.requestCompressionThreshold = requestCompressionThreshold;
+    }
+
+    /**
+     * Spreads calls over the balancer's endpoints, moving a call that fails to connect to another one, as
+     * {@link LoadBalancingMessageSender} does for the blocking path; {@code null} sends every call to the
+     * template's default URI.
+     */
+    public void setEndpointBalancer(CisEndpointBalancer endpointBalancer) {
+        this.endpointBalancer = endpointBalancer;
+    }
+
+    /**
+     * Sends the payload to the template's default URI, or to the endpoint the balancer picks. The returned future completes with the
+     * unmarshalled response payload, or {@code null} when the backend returned an empty body.
+     */
+    public CompletableFuture<Object> marshalSendAndReceiveAsync(Object requestPayload) {
+        return marshalSendAndReceiveAsync(requestPayload, null);
+    }
+
+    /**
+     * As {@link #marshalSendAndReceiveAsync(Object)}, with the request timeout capped at the
+     * deadline's remaining budget.
+     */
+    public CompletableFuture<Object> marshalSendAndReceiveAsync(Object requestPayload, CisDeadline deadline) {
+        WebServiceMessageFactory messageFactory = webServiceTemplate.getMessageFactory();
+        MessageContext messageContext;
+        HttpRequest httpRequest;
+        try {
+            WebServiceMessage request = messageFactory.createWebServiceMessage();
+            MarshallingUtils.marshal(webServiceTemplate.getMarshaller(), requestPayload, request);
+            messageContext = new DefaultMessageContext(request, messageFactory);
+            for (ClientInterceptor interceptor : interceptors()) {
+                if (!interceptor.handleRequest(messageContext)) {
+                    // As WebServiceTemplate does: nothing is sent, and any response the interceptor set is handled
+                    return intercepted(messageContext);
+                }
+            }
+            Duration timeout = readTimeoutSupplier != null ? readTimeoutSupplier.get() : readTimeout;
+            httpRequest = buildHttpRequest(request, messageContext, deadline != null ? deadline.cap(timeout) : timeout);
+        } catch (IOException e) {
+            return CompletableFuture.failedFuture(new WebServiceIOException("I/O error: " + e.getMessage(), e));
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+
+        return send(httpRequest)
+                .thenApply(httpResponse -> handleResponse(messageContext, httpResponse))
+                .whenComplete((response, ex) -> afterCompletion(messageContext, ex));
+    }
+
+    private CompletableFuture<Object> intercepted(MessageContext messageContext) {
+        CompletableFuture<Object> result;
+        try {
+            result = CompletableFuture.completedFuture(
+                    messageContext.hasResponse() ? extract(messageContext, messageContext.getResponse()) : null);
+        } catch (RuntimeException e) {
+            result = CompletableFuture.failedFuture(e);
+        }
+        return result.whenComplete((response, ex) -> afterCompletion(messageContext, ex));
+    }
+
+    private CompletableFuture<HttpResponse<byte[]>> send(HttpRequest httpRequest) {
+        if (endpointBalancer == null) {
+            return httpClient.sendAsync(httpRequest, bodyHandler(httpRequest));
+        }
+        return send(httpRequest, endpointBalancer.choose(List.of()), new ArrayList<>());
+    }
+
+    private CompletableFuture<HttpResponse<byte[]>> send(HttpRequest httpRequest, Endpoint endpoint, List<Endpoint> tried) {
+        HttpRequest routed = HttpRequest.newBuilder(httpRequest, (name, value) -> true).uri(endpoint.getUri()).build();
+        long start = endpoint.begin();
+        return httpClient.sendAsync(routed, bodyHandler(routed))
+                .whenComplete((httpResponse, ex) -> {
+                    // A 500 is a SOAP fault, an answer like any other
+                    if (ex == null && (httpResponse.statusCode() / 100 == 2 || httpResponse.statusCode() == 500)) {
+                        endpoint.succeeded(start);
+                    } else {
+                        endpoint.failed();
+                    }
+                })
+                .exceptionallyCompose(ex -> {
+                    Throwable cause = ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex;
+                    if (!CisEndpointBalancer.isSafeToRetry(cause)) {
+                        return CompletableFuture.failedFuture(cause);
+                    }
+                    tried.add(endpoint);
+                    Endpoint next = endpointBalancer.choose(tried);
+                    if (next == null) {
+                        return CompletableFuture.failedFuture(cause);
+                    }
+                    endpointBalancer.recordFailover(endpoint, next, cause);
+                    return send(httpRequest, next, tried);
+                });
+    }
+
+    private HttpRequest buildHttpRequest(WebServiceMessage request, MessageContext messageContext,
+                                         Duration timeout) throws IOException {
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        request.writeTo(body);
+        if (clientMetrics != null) {
+            clientMetrics.recordPayloadBytesOut(body.size());
+        }
+        byte[] payload = body.toByteArray();
+        boolean compressed = ContentCoding.shouldCompress(payload.length, requestCompressionThreshold);
+        byte[] bodyBytes = compressed ? ContentCoding.gzip(payload, 0, payload.length) : payload;
+        String contentEncoding = compressed ? ContentCoding.GZIP : null;
+        if (payloadCapturePolicy != null && payloadCapturePolicy.isActive()) {
+            // The policy matches the allowlist against, and logs, the SOAP envelope rather than the gzipped body
+            PayloadExchange exchange = payloadCapturePolicy.begin(
+                    maxBytes -> Arrays.copyOf(payload, Math.min(payload.length, maxBytes)), payload.length, null);
+            if (exchange != null) {
+                messageContext.setProperty(PayloadExchange.MESSAGE_CONTEXT_PROPERTY, exchange);
+            }
+        }
+
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(webServiceTemplate.getDefaultUri()))
+                .timeout(timeout)
+                .POST(HttpRequest.BodyPublishers.ofByteArray(bodyBytes));
+        if (compressed) {
+            builder.header("Content-Encoding", contentEncoding);
+        }
+        if (acceptGzipEncoding) {
+            builder.header("Accept-Encoding", ContentCoding.ACCEPT_ENCODING);
+        }
+        if (request instanceof SoapMessage soapMessage) {
+            builder.header("Content-Type", soapMessage.getVersion().getContentType() + "; charset=utf-8");
+            // SOAP 1.1 requires the header even when the action is empty
+            String soapAction = soapMessage.getSoapAction();
+            builder.header("SOAPAction", soapAction != null ? soapAction : "\"\"");
+        } else if (request instanceof PrecompiledRequestMessageFactory.PrecompiledRequestMessage precompiled) {
+            builder.header("Content-Type", precompiled.getHeader("Content-Type"));
+            builder.header("SOAPAction", precompiled.getHeader("SOAPAction"));
+        }
+        return builder.build();
+    }
+
+    private HttpResponse.BodyHandler<byte[]> bodyHandler(HttpRequest httpRequest) {
+        if (clientMetrics == null) {
+            return HttpResponse.BodyHandlers.ofByteArray();
+        }
+        clientMetrics.recordBytesOut(httpRequest.bodyPublisher().map(HttpRequest.BodyPublisher::contentLength).orElse(-1L));
+        long sendStart = System.nanoTime();
+        // The handler is applied when the status line and headers arrive; the mapping runs once the body is complete
+        return responseInfo -> {
+            long headersReceived = System.nanoTime();
+            clientMetrics.record(CisClientMetrics.Phase.TIME_TO_FIRST_BYTE, headersReceived - sendStart);
+            return HttpResponse.BodySubscribers.mapping(HttpResponse.BodySubscribers.ofByteArray(), body -> {
+                clientMetrics.record(CisClientMetrics.Phase.BODY_RECEIVE, System.nanoTime() - headersReceived);
+                clientMetrics.recordBytesIn(body.length);
+                return body;
+            });
+        };
+    }
+
+    private Object handleResponse(MessageContext messageContext, HttpResponse<byte[]> httpResponse) {
+        int statusCode = httpResponse.statusCode();
+        byte[] wireBody = httpResponse.body();
+        String contentEncoding = httpResponse.headers().firstValue("Content-Encoding").orElse(null);
+        logger.debug("Received async SOAP response: status={}, bytes={}, encoding={}", statusCode, wireBody.length,
+                contentEncoding);
+        if (messageContext.getProperty(PayloadExchange.MESSAGE_CONTEXT_PROPERTY) instanceof PayloadExchange exchange
+                && exchange.onResponse(statusCode)) {
+            exchange.captureResponse(wireBody, wireBody.length, contentEncoding);
+        }
+        byte[] body = decode(wireBody, contentEncoding);
+        if (clientMetrics != null) {
+            clientMetrics.recordPayloadBytesIn(body.length);
+        }
+
+        // Like the blocking senders, a 500 may still carry a SOAP fault worth reporting
+        boolean success = statusCode / 100 == 2;
+        if (!success && statusCode != 500) {
+            throw new WebServiceTransportException("HTTP status " + statusCode);
+        }
+        if (body.length == 0) {
+            if (!success) {
+                throw new WebServiceTransportException("HTTP status " + statusCode);
+            }
+            return null;
+        }
+
+        WebServiceMessage response;
+        try {
+            response = webServiceTemplate.getMessageFactory().createWebServiceMessage(new ByteArrayInputStream(body));
+        } catch (IOException e) {
+            throw new WebServiceIOException("I/O error: " + e.getMessage(), e);
+        }
+        messageContext.setResponse(response);
+        if (!success && !(response instanceof FaultAwareWebServiceMessage faultMessage && faultMessage.hasFault())) {
+            throw new WebServiceTransportException("HTTP status " + statusCode);
+        }
+        return extract(messageContext, response);
+    }
+
+    private Object extract(MessageContext messageContext, WebServiceMessage response) {
+        if (response instanceof FaultAwareWebServiceMessage faultMessage && faultMessage.hasFault()) {
+            for (ClientInterceptor interceptor : interceptors()) {
+                if (!interceptor.handleFault(messageContext)) {
+                    break;
+                }
+            }
+            if (response instanceof SoapMessage soapMessage) {
+                throw new SoapFaultClientException(soapMessage);
+            }
+            throw new WebServiceTransportException("SOAP fault received");
+        }
+
+        for (ClientInterceptor interceptor : interceptors()) {
+            if (!interceptor.handleResponse(messageContext)) {
+                break;
+            }
+        }
+        try {
+            return MarshallingUtils.unmarshal(webServiceTemplate.getUnmarshaller(), response);
+        } catch (IOException e) {
+            throw new WebServiceIOException("I/O error: " + e.getMessage(), e);
+        }
+    }
+
+    private static byte[] decode(byte[] body, String contentEncoding) {
+        if (!ContentCoding.isEncoded(contentEncoding) || body.length == 0) {
+            return body;
+        }
+        try (InputStream decoded = ContentCoding.decode(new ByteArrayInputStream(body), contentEncoding)) {
+            return decoded.readAllBytes();
+        } catch (IOException e) {
+            throw new WebServiceIOException("Could not decode " + contentEncoding + " response: " + e.getMessage(), e);
+        }
+    }
+
+    private void afterCompletion(MessageContext messageContext, Throwable ex) {
+        Throwable cause = ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex;
+        Exception exception = cause == null || cause instanceof Exception ? (Exception) cause : new RuntimeException(cause);
+        for (ClientInterceptor interceptor : interceptors()) {
+            try {
+                interceptor.afterCompletion(messageContext, exception);
+            } catch (Exception e) {
+                logger.warn("Client interceptor afterCompletion failed: {}", e.getMessage());
+            }
+        }
+    }
+
+    private ClientInterceptor[] interceptors() {
+        ClientInterceptor[] interceptors = webServiceTemplate.getInterceptors();
+        return interceptors != null ? interceptors : new ClientInterceptor[0];
+    }
+}
@@ -0,0 +1,95 @@
+package ae.etisalat.cisapp.config;
+
+import java.util.Arrays;
+import java.util.function.BiConsumer;
+
+/**
+ * Flat, reusable holder for one side (request or response) of an HTTP exchange. Header names and
+ * values live in parallel arrays that grow once and are kept across {@link #clear()} calls, so a
+ * single instance can capture both sides of a call without further allocation.
+ */
+public class CapturedHttpHeaders {
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    private String method;
+    private String url;
+    private int statusCode = -1;
+    private String reasonPhrase;
+    private String[] names = new String[INITIAL_CAPACITY];
+    private String[] values = new String[INITIAL_CAPACITY];
+    private int size;
+
+    public void clear() {
+        method = null;
+        url = null;
+        statusCode = -1;
+        reasonPhrase = null;
+        Arrays.fill(names, 0, size, null);
+        Arrays.fill(values, 0, size, null);
+        size = 0;
+    }
+
+    public void add(String name, String value) {
+        if (size == names.length) {
+            names = Arrays.copyOf(names, size * 2);
+            values = Arrays.copyOf(values, size * 2);
+        }
+        names[size] = name;
+        values[size] = value;
+        size++;
+    }
+
+    public void forEach(BiConsumer<String, String> action) {
+        for (int i = 0; i < size; i++) {
+            action.accept(names[i], values[i]);
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public String getName(int index) {
+        return names[index];
+    }
+
+    public String getValue(int index) {
+        return values[index];
+    }
+
+    public String getMethod() {
+        return method;
+    }
+
+    public void setMethod(String method) {
+        this.method = method;
+    }
+
+    public String getUrl() {
+        return url;
+    }
+
+    public void setUrl(String url) {
+        this.url = url;
+    }
+
+    /**
+     * HTTP status code, or {@code -1} when no response has been captured.
+     */
+    public int getStatusCode() {
+        return statusCode;
+    }
+
+    public void setStatusCode(int statusCode) {
+        this.statusCode = statusCode;
+    }
+
+    public String getReasonPhrase() {
+        return reasonPhrase;
+    }
+
+    public void setReasonPhrase(String reasonPhrase) {
+        this.reasonPhrase = reasonPhrase;
+    }
+}
@@ -0,0 +1,99 @@
+package ae.etisalat.cisapp.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.xml.bind.JAXBElement;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.oxm.jaxb.Jaxb2Marshaller;
+import org.springframework.stereotype.Component;
+import org.springframework.ws.WebServiceMessage;
+import org.springframework.ws.WebServiceMessageFactory;
+import org.springframework.ws.client.core.WebServiceTemplate;
+import org.springframework.ws.support.MarshallingUtils;
+import sem.cis.pull.cbcm.GetSubscriptionDtls;
+
+import javax.xml.namespace.QName;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+
+/**
+ * Runs synthetic SOAP marshal/unmarshal and JSON round-trips before the application reports itself
+ * ready, so the first real requests do not pay for lazy SAAJ, JAXB and Jackson initialization, class
+ * loading and interpreted code. Spring Boot only switches readiness to {@code ACCEPTING_TRAFFIC} once
+ * all application runners have returned. Nothing is sent to CIS, and the unmetered marshaller is used
+ * so warm-up does not show up in the client metrics.
+ */
+@Component
+public class CisWarmupRunner implements ApplicationRunner {
+
+    private static final Logger logger = LoggerFactory.getLogger(CisWarmupRunner.class);
+
+    private static final QName REQUEST_QNAME = new QName("http://cbcm.pull.cis.sem/", "getSubscriptionDtls");
+
+    private static final byte[] SAMPLE_RESPONSE = (
+            "<soap:Envelope xmlns:soap=\"http://schemas.xmlsoap.org/soap/envelope/\">" +
+            "<soap:Body>" +
+            "<ns2:getSubscriptionDtlsResponse xmlns:ns2=\"http://cbcm.pull.cis.sem/\"/>" +
+            "</soap:Body>" +
+            "</soap:Envelope>").getBytes(StandardCharsets.UTF_8);
+
+    private final Jaxb2Marshaller marshaller;
+    private final WebServiceTemplate webServiceTemplate;
+    private final ObjectMapper objectMapper;
+    private final boolean enabled;
+    private final int iterations;
+    private final Duration maxDuration;
+
+    @Autowired
+    public CisWarmupRunner(Jaxb2Marshaller marshaller, WebServiceTemplate webServiceTemplate, ObjectMapper objectMapper,
+                           @Value("${webservice.cis.warmup.enabled:true}") boolean enabled,
+                           @Value("${webservice.cis.warmup.iterations:500}") int iterations,
+                           @Value("${webservice.cis.warmup.max-duration:3s}") Duration maxDuration) {
+        this.marshaller = marshaller;
+        this.webServiceTemplate = webServiceTemplate;
+        this.objectMapper = objectMapper;
+        this.enabled = enabled;
+        this.iterations = iterations;
+        this.maxDuration = maxDuration;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (!enabled) {
+            return;
+        }
+        long start = System.nanoTime();
+        long deadline = start + maxDuration.toNanos();
+        try {
+            int completed = 0;
+            // Bounded by time as well, so a slow or CPU-starved pod does not delay readiness indefinitely
+            while (completed < iterations && System.nanoTime() - deadline < 0) {
+                roundTrip();
+                completed++;
+            }
+            logger.info("CIS warm-up completed {} round-trips in {} ms", completed, (System.nanoTime() - start) / 1_000_000);
+        } catch (Exception e) {
+            // A failed warm-up only costs first-request latency; never block startup on it
+            logger.warn("CIS warm-up failed after {} ms: {}", (System.nanoTime() - start) / 1_000_000, e.getMessage());
+        }
+    }
+
+    private void roundTrip() throws Exception {
+        WebServiceMessageFactory messageFactory = webServiceTemplate.getMessageFactory();
+
+        WebServiceMessage request = messageFactory.createWebServiceMessage();
+        MarshallingUtils.marshal(marshaller, new JAXBElement<>(REQUEST_QNAME, GetSubscriptionDtls.class,
+                objectMapper.readValue("{}", GetSubscriptionDtls.class)), request);
+        request.writeTo(new ByteArrayOutputStream());
+
+        WebServiceMessage response = messageFactory.createWebServiceMessage(new ByteArrayInputStream(SAMPLE_RESPONSE));
+        Object payload = MarshallingUtils.unmarshal(marshaller, response);
+        objectMapper.writeValueAsBytes(payload instanceof JAXBElement<?> element ? element.getValue() : payload);
+    }
+}
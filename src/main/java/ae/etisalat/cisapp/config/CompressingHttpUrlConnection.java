@@ -0,0 +1,103 @@
+package ae.etisalat.cisapp.config;
+
+import ae.etisalat.cisapp.metrics.CisClientMetrics;
+import org.springframework.ws.WebServiceMessage;
+import org.springframework.ws.transport.http.HttpTransportConstants;
+import org.springframework.ws.transport.http.HttpUrlConnection;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * {@link HttpUrlConnection} that gzips request bodies above a threshold and decodes gzip and deflate
+ * responses as they are read. Spring WS only decodes gzip itself, so the response's
+ * {@code Content-Encoding} is hidden once this connection has taken over decoding, as HttpClient does
+ * for the pooled transport. Wire and uncompressed byte counts go to {@link CisClientMetrics} when set.
+ */
+class CompressingHttpUrlConnection extends HttpUrlConnection {
+
+    private final int requestCompressionThreshold;
+    private final CisClientMetrics clientMetrics;
+    private ByteArrayOutputStream requestBuffer;
+
+    CompressingHttpUrlConnection(HttpURLConnection connection, int requestCompressionThreshold,
+                                 CisClientMetrics clientMetrics) {
+        super(connection);
+        this.requestCompressionThreshold = requestCompressionThreshold;
+        this.clientMetrics = clientMetrics;
+    }
+
+    @Override
+    protected OutputStream getRequestOutputStream() throws IOException {
+        if (requestCompressionThreshold < 0 && clientMetrics == null) {
+            return super.getRequestOutputStream();
+        }
+        // HttpURLConnection buffers the body to set Content-Length anyway, so holding it here costs one copy
+        requestBuffer = new ByteArrayOutputStream();
+        return requestBuffer;
+    }
+
+    @Override
+    protected void onSendAfterWrite(WebServiceMessage message) throws IOException {
+        if (requestBuffer != null) {
+            byte[] body = requestBuffer.toByteArray();
+            int payloadLength = body.length;
+            if (ContentCoding.shouldCompress(payloadLength, requestCompressionThreshold)) {
+                body = ContentCoding.gzip(body, 0, payloadLength);
+                getConnection().setRequestProperty(HttpTransportConstants.HEADER_CONTENT_ENCODING, ContentCoding.GZIP);
+            }
+            try (OutputStream out = getConnection().getOutputStream()) {
+                out.write(body);
+            }
+            requestBuffer = null;
+            if (clientMetrics != null) {
+                clientMetrics.recordPayloadBytesOut(payloadLength);
+                clientMetrics.recordBytesOut(body.length);
+            }
+        }
+        super.onSendAfterWrite(message);
+    }
+
+    @Override
+    protected InputStream getRawResponseInputStream() throws IOException {
+        InputStream raw = super.getRawResponseInputStream();
+        if (raw == null) {
+            return null;
+        }
+        if (clientMetrics != null) {
+            raw = new CountingInputStream(raw, clientMetrics::recordBytesIn);
+        }
+        InputStream decoded = ContentCoding.decode(raw, getConnection().getContentEncoding());
+        return clientMetrics != null ? new CountingInputStream(decoded, clientMetrics::recordPayloadBytesIn) : decoded;
+    }
+
+    @Override
+    public Iterator<String> getResponseHeaderNames() throws IOException {
+        if (!isEncodedResponse()) {
+            return super.getResponseHeaderNames();
+        }
+        List<String> names = new ArrayList<>();
+        super.getResponseHeaderNames().forEachRemaining(names::add);
+        names.removeIf(HttpTransportConstants.HEADER_CONTENT_ENCODING::equalsIgnoreCase);
+        return names.iterator();
+    }
+
+    @Override
+    public Iterator<String> getResponseHeaders(String name) throws IOException {
+        if (HttpTransportConstants.HEADER_CONTENT_ENCODING.equalsIgnoreCase(name) && isEncodedResponse()) {
+            return Collections.emptyIterator();
+        }
+        return super.getResponseHeaders(name);
+    }
+
+    private boolean isEncodedResponse() {
+        return ContentCoding.isEncoded(getConnection().getContentEncoding());
+    }
+}
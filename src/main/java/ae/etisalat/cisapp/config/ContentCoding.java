@@ -0,0 +1,68 @@
+package ae.etisalat.cisapp.config;
+
+import org.apache.hc.client5.http.entity.DeflateInputStream;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * HTTP content codings shared by the transports that do not get them from Apache HttpClient: the
+ * {@code Accept-Encoding} value they advertise, streaming decoders for what the backend may answer
+ * with, and gzip for request bodies.
+ */
+final class ContentCoding {
+
+    /**
+     * Same codings HttpClient decodes for the pooled transport.
+     */
+    static final String ACCEPT_ENCODING = "gzip, deflate";
+
+    static final String GZIP = "gzip";
+
+    private ContentCoding() {
+    }
+
+    /**
+     * @return whether the content coding is set and is not {@code identity}
+     */
+    static boolean isEncoded(String contentEncoding) {
+        return contentEncoding != null && !contentEncoding.isBlank() && !"identity".equalsIgnoreCase(contentEncoding.trim());
+    }
+
+    /**
+     * Wraps the stream so that it is decoded as it is read.
+     *
+     * @throws IOException if the coding is not one of {@link #ACCEPT_ENCODING}
+     */
+    static InputStream decode(InputStream in, String contentEncoding) throws IOException {
+        if (!isEncoded(contentEncoding)) {
+            return in;
+        }
+        String coding = contentEncoding.trim().toLowerCase();
+        return switch (coding) {
+            case "gzip", "x-gzip" -> new GZIPInputStream(in);
+            // Raw and zlib-wrapped deflate are both seen in the wild; HttpClient's stream detects which
+            case "deflate" -> new DeflateInputStream(in);
+            default -> throw new IOException("Unsupported Content-Encoding: " + contentEncoding);
+        };
+    }
+
+    /**
+     * @return whether a request body of this length is gzipped under the given threshold, negative
+     * thresholds disabling request compression
+     */
+    static boolean shouldCompress(long length, int threshold) {
+        return threshold >= 0 && length >= threshold;
+    }
+
+    static byte[] gzip(byte[] body, int offset, int length) throws IOException {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream(Math.max(64, length / 4));
+        try (GZIPOutputStream gzip = new GZIPOutputStream(compressed, 8192)) {
+            gzip.write(body, offset, length);
+        }
+        return compressed.toByteArray();
+    }
+}
@@ -0,0 +1,59 @@
+package ae.etisalat.cisapp.config;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.function.LongConsumer;
+
+/**
+ * Reports the number of bytes read once, at end of stream or close.
+ */
+final class CountingInputStream extends FilterInputStream {
+
+    private final LongConsumer onEnd;
+    private long count;
+    private boolean recorded;
+
+    CountingInputStream(InputStream in, LongConsumer onEnd) {
+        super(in);
+        this.onEnd = onEnd;
+    }
+
+    @Override
+    public int read() throws IOException {
+        int b = super.read();
+        if (b < 0) {
+            record();
+        } else {
+            count++;
+        }
+        return b;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        int n = super.read(b, off, len);
+        if (n < 0) {
+            record();
+        } else {
+            count += n;
+        }
+        return n;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            super.close();
+        } finally {
+            record();
+        }
+    }
+
+    private void record() {
+        if (!recorded) {
+            recorded = true;
+            onEnd.accept(count);
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package ae.etisalat.cisapp.config;
+
+import org.springframework.ws.transport.WebServiceConnection;
+
+/**
+ * Connection decorator that exposes the connection it wraps, so callers that need the transport's own
+ * connection class (header capture, payload capture) can look through it.
+ */
+interface DelegatingConnection extends WebServiceConnection {
+
+    WebServiceConnection getDelegate();
+
+    /**
+     * @return the innermost connection behind any number of decorators
+     */
+    static WebServiceConnection unwrap(WebServiceConnection connection) {
+        while (connection instanceof DelegatingConnection delegating) {
+            connection = delegating.getDelegate();
+        }
+        return connection;
+    }
+}
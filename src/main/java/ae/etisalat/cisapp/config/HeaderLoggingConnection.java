@@ -0,0 +1,127 @@
+package ae.etisalat.cisapp.config;
+
+import org.slf4j.Logger;
+import org.springframework.ws.WebServiceMessage;
+import org.springframework.ws.WebServiceMessageFactory;
+import org.springframework.ws.transport.FaultAwareWebServiceConnection;
+import org.springframework.ws.transport.WebServiceConnection;
+
+import javax.xml.namespace.QName;
+import java.io.IOException;
+import java.net.URI;
+
+/**
+ * Connection wrapper that logs HTTP method, status and headers at DEBUG via {@link HttpHeaderCapture}.
+ * Senders only create it when DEBUG is enabled; one {@link CapturedHttpHeaders} is reused for both
+ * directions of the call.
+ */
+class HeaderLoggingConnection implements FaultAwareWebServiceConnection, DelegatingConnection {
+
+    private final WebServiceConnection delegate;
+    private final Logger logger;
+    private final CapturedHttpHeaders headers = new CapturedHttpHeaders();
+
+    HeaderLoggingConnection(WebServiceConnection delegate, Logger logger) {
+        this.delegate = delegate;
+        this.logger = logger;
+    }
+
+    @Override
+    public WebServiceConnection getDelegate() {
+        return delegate;
+    }
+
+    @Override
+    public void send(WebServiceMessage message) throws IOException {
+        logger.debug("=== SENDING HTTP REQUEST ===");
+        delegate.send(message);
+        logOutgoingHeaders();
+        logger.debug("=== HTTP REQUEST SENT ===");
+    }
+
+    @Override
+    public WebServiceMessage receive(WebServiceMessageFactory messageFactory) throws IOException {
+        logger.debug("=== RECEIVING HTTP RESPONSE ===");
+        WebServiceMessage response = delegate.receive(messageFactory);
+        logIncomingHeaders();
+        logger.debug("=== HTTP RESPONSE RECEIVED ===");
+        return response;
+    }
+
+    private void logOutgoingHeaders() {
+        try {
+            HttpHeaderCapture.captureRequest(delegate, headers);
+            logger.debug("Outgoing HTTP Method: {}", headers.getMethod());
+            logger.debug("Outgoing HTTP URL: {}", headers.getUrl());
+            logHeaders("Outgoing HTTP Headers:");
+        } catch (Exception e) {
+            logger.debug("Could not log outgoing headers: {}", e.getMessage());
+        }
+    }
+
+    private void logIncomingHeaders() {
+        try {
+            HttpHeaderCapture.captureResponse(delegate, headers);
+            if (headers.getStatusCode() >= 0) {
+                logger.debug("Incoming HTTP Response Code: {}", headers.getStatusCode());
+                logger.debug("Incoming HTTP Response Message: {}", headers.getReasonPhrase());
+            }
+            logHeaders("Incoming HTTP Headers:");
+        } catch (Exception e) {
+            logger.debug("Could not log incoming headers: {}", e.getMessage());
+        }
+    }
+
+    private void logHeaders(String title) {
+        if (headers.size() > 0) {
+            logger.debug(title);
+            for (int i = 0; i < headers.size(); i++) {
+                logger.debug("  {}: {}", headers.getName(i), headers.getValue(i));
+            }
+        }
+    }
+
+    @Override
+    public URI getUri() {
+        try {
+            return delegate.getUri();
+        } catch (Exception e) {
+            logger.debug("Error getting URI: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    @Override
+    public boolean hasError() throws IOException {
+        return delegate.hasError();
+    }
+
+    @Override
+    public String getErrorMessage() throws IOException {
+        return delegate.getErrorMessage();
+    }
+
+    @Override
+    public boolean hasFault() throws IOException {
+        return delegate instanceof FaultAwareWebServiceConnection faultAware && faultAware.hasFault();
+    }
+
+    @Override
+    public void setFault(boolean fault) throws IOException {
+        if (delegate instanceof FaultAwareWebServiceConnection faultAware) {
+            faultAware.setFault(fault);
+        }
+    }
+
+    @Override
+    public void setFaultCode(QName faultCode) throws IOException {
+        if (delegate instanceof FaultAwareWebServiceConnection faultAware) {
+            faultAware.setFaultCode(faultCode);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        delegate.close();
+    }
+}
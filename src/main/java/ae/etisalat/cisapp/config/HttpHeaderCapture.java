@@ -0,0 +1,164 @@
+package ae.etisalat.cisapp.config;
+
+import org.apache.hc.client5.http.classic.methods.HttpPost;
+import org.apache.hc.core5.http.Header;
+import org.apache.hc.core5.http.HttpResponse;
+import org.springframework.ws.transport.WebServiceConnection;
+import org.springframework.ws.transport.http.HttpComponents5Connection;
+import org.springframework.ws.transport.http.HttpUrlConnection;
+
+import java.io.IOException;
+import java.net.HttpURLConnection;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reads HTTP method, URI, status and headers from Spring WS connections through their public
+ * accessors. The accessor for each connection class is resolved once and cached, so capturing
+ * involves no reflection and no per-call lookups; callers only pay for it when they ask.
+ */
+public final class HttpHeaderCapture {
+
+    private static final ClassValue<HeaderAccessor> ACCESSORS = new ClassValue<>() {
+        @Override
+        protected HeaderAccessor computeValue(Class<?> connectionClass) {
+            if (DelegatingConnection.class.isAssignableFrom(connectionClass)) {
+                return DELEGATING;
+            }
+            if (HttpComponents5Connection.class.isAssignableFrom(connectionClass)) {
+                return HTTP_COMPONENTS_5;
+            }
+            if (HttpUrlConnection.class.isAssignableFrom(connectionClass)) {
+                return HTTP_URL_CONNECTION;
+            }
+            return URI_ONLY;
+        }
+    };
+
+    private HttpHeaderCapture() {
+    }
+
+    /**
+     * Captures the outgoing side of the exchange into {@code into}, which is cleared first.
+     */
+    public static void captureRequest(WebServiceConnection connection, CapturedHttpHeaders into) throws IOException {
+        into.clear();
+        ACCESSORS.get(connection.getClass()).captureRequest(connection, into);
+    }
+
+    /**
+     * Captures the incoming side of the exchange into {@code into}, which is cleared first.
+     */
+    public static void captureResponse(WebServiceConnection connection, CapturedHttpHeaders into) throws IOException {
+        into.clear();
+        ACCESSORS.get(connection.getClass()).captureResponse(connection, into);
+    }
+
+    private interface HeaderAccessor {
+        void captureRequest(WebServiceConnection connection, CapturedHttpHeaders into) throws IOException;
+
+        void captureResponse(WebServiceConnection connection, CapturedHttpHeaders into) throws IOException;
+    }
+
+    private static final HeaderAccessor DELEGATING = new HeaderAccessor() {
+        @Override
+        public void captureRequest(WebServiceConnection connection, CapturedHttpHeaders into) throws IOException {
+            WebServiceConnection delegate = ((DelegatingConnection) connection).getDelegate();
+            ACCESSORS.get(delegate.getClass()).captureRequest(delegate, into);
+        }
+
+        @Override
+        public void captureResponse(WebServiceConnection connection, CapturedHttpHeaders into) throws IOException {
+            WebServiceConnection delegate = ((DelegatingConnection) connection).getDelegate();
+            ACCESSORS.get(delegate.getClass()).captureResponse(delegate, into);
+        }
+    };
+
+    private static final HeaderAccessor HTTP_COMPONENTS_5 = new HeaderAccessor() {
+        @Override
+        public void captureRequest(WebServiceConnection connection, CapturedHttpHeaders into) throws IOException {
+            HttpPost httpPost = ((HttpComponents5Connection) connection).getHttpPost();
+            into.setMethod(httpPost.getMethod());
+            into.setUrl(url(httpPost));
+            addAll(httpPost.getHeaders(), into);
+        }
+
+        @Override
+        public void captureResponse(WebServiceConnection connection, CapturedHttpHeaders into) throws IOException {
+            HttpComponents5Connection httpConnection = (HttpComponents5Connection) connection;
+            into.setUrl(url(httpConnection.getHttpPost()));
+            HttpResponse response = httpConnection.getHttpResponse();
+            if (response != null) {
+                into.setStatusCode(response.getCode());
+                into.setReasonPhrase(response.getReasonPhrase());
+                addAll(response.getHeaders(), into);
+            }
+        }
+
+        // Built from the parts HttpPost already holds; getUri() would re-parse a java.net.URI on every call
+        private String url(HttpPost httpPost) {
+            return httpPost.getScheme() + "://" + httpPost.getAuthority() + httpPost.getPath();
+        }
+
+        private void addAll(Header[] headers, CapturedHttpHeaders into) {
+            for (Header header : headers) {
+                into.add(header.getName(), header.getValue());
+            }
+        }
+    };
+
+    private static final HeaderAccessor HTTP_URL_CONNECTION = new HeaderAccessor() {
+        @Override
+        public void captureRequest(WebServiceConnection connection, CapturedHttpHeaders into) throws IOException {
+            HttpURLConnection urlConnection = ((HttpUrlConnection) connection).getConnection();
+            into.setMethod(urlConnection.getRequestMethod());
+            into.setUrl(urlConnection.getURL().toString());
+            try {
+                addAll(urlConnection.getRequestProperties(), into);
+            } catch (IllegalStateException alreadyConnected) {
+                // HttpURLConnection hides request headers once the request has been written
+            }
+        }
+
+        @Override
+        public void captureResponse(WebServiceConnection connection, CapturedHttpHeaders into) throws IOException {
+            HttpURLConnection urlConnection = ((HttpUrlConnection) connection).getConnection();
+            into.setUrl(urlConnection.getURL().toString());
+            into.setStatusCode(urlConnection.getResponseCode());
+            into.setReasonPhrase(urlConnection.getResponseMessage());
+            addAll(urlConnection.getHeaderFields(), into);
+        }
+
+        private void addAll(Map<String, List<String>> headers, CapturedHttpHeaders into) {
+            headers.forEach((name, values) -> {
+                // The status line is reported under a null key
+                if (name != null) {
+                    values.forEach(value -> into.add(name, value));
+                }
+            });
+        }
+    };
+
+    private static final HeaderAccessor URI_ONLY = new HeaderAccessor() {
+        @Override
+        public void captureRequest(WebServiceConnection connection, CapturedHttpHeaders into) {
+            captureUrl(connection, into);
+        }
+
+        @Override
+        public void captureResponse(WebServiceConnection connection, CapturedHttpHeaders into) {
+            captureUrl(connection, into);
+        }
+
+        private void captureUrl(WebServiceConnection connection, CapturedHttpHeaders into) {
+            try {
+                URI uri = connection.getUri();
+                into.setUrl(uri != null ? uri.toString() : null);
+            } catch (URISyntaxException e) {
+                // Leave the URL unset
+            }
+        }
+    };
+}
@@ -0,0 +1,39 @@
+package ae.etisalat.cisapp.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jackson.Jackson2ObjectMapperBuilderCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.StringUtils;
+
+import java.util.Set;
+
+/**
+ * Tunes the ObjectMapper Boot builds, which serves the REST responses, the response cache and the
+ * transcoder alike. Module beans are picked up by Boot's Jackson auto-configuration.
+ */
+@Configuration
+public class JsonConfig {
+
+    @Value("${webservice.cis.context-path:sem.cis.pull.cbcm}")
+    private String contextPath;
+
+    @Value("${webservice.cis.json.buffer-pool.max-idle:64}")
+    private int bufferPoolMaxIdle;
+
+    /**
+     * Lambda accessors for the generated CIS classes, the bulk of every response body.
+     */
+    @Bean
+    @ConditionalOnProperty(name = "webservice.cis.json.lambda-accessors.enabled", havingValue = "true", matchIfMissing = true)
+    public LambdaAccessorModule lambdaAccessorModule() {
+        return new LambdaAccessorModule(Set.of(StringUtils.tokenizeToStringArray(contextPath, ":")));
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "webservice.cis.json.buffer-pool.enabled", havingValue = "true", matchIfMissing = true)
+    public Jackson2ObjectMapperBuilderCustomizer pooledBufferJsonFactory() {
+        return builder -> builder.factory(new PooledBufferJsonFactory(bufferPoolMaxIdle));
+    }
+}
@@ -0,0 +1,60 @@
+package ae.etisalat.cisapp.config;
+
+import com.fasterxml.jackson.databind.BeanDescription;
+import com.fasterxml.jackson.databind.SerializationConfig;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.databind.ser.BeanPropertyWriter;
+import com.fasterxml.jackson.databind.ser.BeanSerializerModifier;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Serializes the beans of the given packages through {@link LambdaPropertyWriter}s, in the way
+ * jackson-module-blackbird does for every bean. Serializers are still the ones Jackson builds and
+ * caches per type; only the per-call property reads stop going through reflection. A property whose
+ * getter cannot be bound keeps its reflective writer.
+ */
+public class LambdaAccessorModule extends SimpleModule {
+
+    private static final Logger logger = LoggerFactory.getLogger(LambdaAccessorModule.class);
+
+    private final Set<String> packageNames;
+
+    /**
+     * @param packageNames packages whose classes get lambda accessors, e.g. the JAXB context path
+     */
+    public LambdaAccessorModule(Set<String> packageNames) {
+        super("cis-lambda-accessors");
+        this.packageNames = Set.copyOf(packageNames);
+        setSerializerModifier(new BeanSerializerModifier() {
+            @Override
+            public List<BeanPropertyWriter> changeProperties(SerializationConfig config, BeanDescription beanDesc,
+                                                             List<BeanPropertyWriter> beanProperties) {
+                if (applies(beanDesc.getBeanClass())) {
+                    beanProperties.replaceAll(LambdaAccessorModule::lambdaWriter);
+                }
+                return beanProperties;
+            }
+        });
+    }
+
+    private boolean applies(Class<?> beanClass) {
+        return packageNames.contains(beanClass.getPackageName());
+    }
+
+    private static BeanPropertyWriter lambdaWriter(BeanPropertyWriter writer) {
+        if (writer.getClass() != BeanPropertyWriter.class) {
+            return writer;
+        }
+        try {
+            LambdaPropertyWriter lambdaWriter = LambdaPropertyWriter.of(writer);
+            return lambdaWriter != null ? lambdaWriter : writer;
+        } catch (Throwable e) {
+            logger.debug("Keeping reflective access for {}: {}", writer.getFullName(), e.toString());
+            return writer;
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package ae.etisalat.cisapp.config;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.BeanPropertyWriter;
+import com.fasterxml.jackson.databind.ser.impl.PropertySerializerMap;
+
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.util.function.Function;
+
+/**
+ * {@link BeanPropertyWriter} that reads the property through a getter compiled with
+ * {@link LambdaMetafactory} instead of {@link Method#invoke}. Everything else (serializer lookup,
+ * null and suppression handling, self-references, type information) is the superclass's, so the
+ * output is unchanged.
+ */
+class LambdaPropertyWriter extends BeanPropertyWriter {
+
+    private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+
+    private final Function<Object, Object> getter;
+
+    private LambdaPropertyWriter(BeanPropertyWriter base, Function<Object, Object> getter) {
+        super(base);
+        this.getter = getter;
+    }
+
+    /**
+     * @return a writer for the getter, or {@code null} if the property is not read through a public
+     * no-argument method the lambda can be bound to
+     */
+    static LambdaPropertyWriter of(BeanPropertyWriter base) throws Throwable {
+        if (!(base.getMember().getMember() instanceof Method method) || method.getParameterCount() != 0) {
+            return null;
+        }
+        MethodHandle handle = LOOKUP.unreflect(method);
+        CallSite site = LambdaMetafactory.metafactory(LOOKUP, "apply", MethodType.methodType(Function.class),
+                MethodType.methodType(Object.class, Object.class), handle, handle.type().wrap());
+        @SuppressWarnings("unchecked")
+        Function<Object, Object> getter = (Function<Object, Object>) site.getTarget().invokeExact();
+        return new LambdaPropertyWriter(base, getter);
+    }
+
+    @Override
+    public void serializeAsField(Object bean, JsonGenerator gen, SerializerProvider prov) throws Exception {
+        Object value = getter.apply(bean);
+        if (value == null) {
+            if (_suppressableValue != null && prov.includeFilterSuppressNulls(_suppressableValue)) {
+                return;
+            }
+            if (_nullSerializer != null) {
+                gen.writeFieldName(_name);
+                _nullSerializer.serialize(null, gen, prov);
+            }
+            return;
+        }
+        JsonSerializer<Object> ser = _serializer;
+        if (ser == null) {
+            Class<?> type = value.getClass();
+            PropertySerializerMap serializers = _dynamicSerializers;
+            ser = serializers.serializerFor(type);
+            if (ser == null) {
+                ser = _findAndAddDynamic(serializers, type, prov);
+            }
+        }
+        if (_suppressableValue != null) {
+            if (_suppressableValue == MARKER_FOR_EMPTY ? ser.isEmpty(prov, value) : _suppressableValue.equals(value)) {
+                return;
+            }
+        }
+        if (value == bean && _handleSelfReference(bean, gen, prov, ser)) {
+            return;
+        }
+        gen.writeFieldName(_name);
+        if (_typeSerializer == null) {
+            ser.serialize(value, gen, prov);
+        } else {
+            ser.serializeWithType(value, gen, prov, _typeSerializer);
+        }
+    }
+}
@@ -0,0 +1,222 @@
+package ae.etisalat.cisapp.config;
+
+import ae.etisalat.cisapp.service.CisEndpointBalancer;
+import ae.etisalat.cisapp.service.CisEndpointBalancer.Endpoint;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.ws.WebServiceMessage;
+import org.springframework.ws.WebServiceMessageFactory;
+import org.springframework.ws.transport.FaultAwareWebServiceConnection;
+import org.springframework.ws.transport.WebServiceConnection;
+import org.springframework.ws.transport.WebServiceMessageSender;
+
+import javax.xml.namespace.QName;
+import java.io.IOException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Sends each call to the endpoint picked by a {@link CisEndpointBalancer}, through a transport of its
+ * own per endpoint, so every node has a separate connection pool and a slow node cannot exhaust the
+ * connections the others need. The URI the template asks for is ignored; the balancer's endpoints stand
+ * in for it.
+ * <p>
+ * A call that fails before the request could have reached the node (see
+ * {@link CisEndpointBalancer#isSafeToRetry}) is sent again on another endpoint, at most once per endpoint.
+ * Anything else, a read timeout included, is reported to the caller as it is: the node may already have
+ * acted on the request.
+ */
+public class LoadBalancingMessageSender implements WebServiceMessageSender, InitializingBean, DisposableBean {
+
+    private static final Logger logger = LoggerFactory.getLogger(LoadBalancingMessageSender.class);
+
+    private final CisEndpointBalancer balancer;
+    private final Map<Endpoint, WebServiceMessageSender> transports = new LinkedHashMap<>();
+
+    /**
+     * @param transportFactory creates the transport for the endpoint URI it is given; called once per endpoint
+     */
+    public LoadBalancingMessageSender(CisEndpointBalancer balancer,
+                                      Function<URI, ? extends WebServiceMessageSender> transportFactory) {
+        this.balancer = balancer;
+        for (Endpoint endpoint : balancer.getEndpoints()) {
+            transports.put(endpoint, transportFactory.apply(endpoint.getUri()));
+        }
+    }
+
+    @Override
+    public void afterPropertiesSet() throws Exception {
+        for (WebServiceMessageSender transport : transports.values()) {
+            if (transport instanceof InitializingBean initializingBean) {
+                initializingBean.afterPropertiesSet();
+            }
+        }
+    }
+
+    @Override
+    public void destroy() throws Exception {
+        for (WebServiceMessageSender transport : transports.values()) {
+            if (transport instanceof DisposableBean disposableBean) {
+                disposableBean.destroy();
+            }
+        }
+    }
+
+    @Override
+    public WebServiceConnection createConnection(URI uri) throws IOException {
+        return new BalancedConnection(balancer.choose(List.of()));
+    }
+
+    @Override
+    public boolean supports(URI uri) {
+        return transports.values().iterator().next().supports(uri);
+    }
+
+    /**
+     * Tracks the call on its endpoint from creation to close and reports the outcome to the balancer.
+     * The delegate is replaced when the call fails over.
+     */
+    private final class BalancedConnection implements FaultAwareWebServiceConnection, DelegatingConnection {
+
+        private Endpoint endpoint;
+        private WebServiceConnection delegate;
+        private long startNanos;
+        private List<Endpoint> tried;
+        private boolean sent;
+        private boolean done;
+
+        BalancedConnection(Endpoint endpoint) throws IOException {
+            open(endpoint);
+        }
+
+        private void open(Endpoint endpoint) throws IOException {
+            this.delegate = transports.get(endpoint).createConnection(endpoint.getUri());
+            this.endpoint = endpoint;
+            this.startNanos = endpoint.begin();
+            this.done = false;
+        }
+
+        @Override
+        public WebServiceConnection getDelegate() {
+            return delegate;
+        }
+
+        @Override
+        public void send(WebServiceMessage message) throws IOException {
+            while (true) {
+                try {
+                    delegate.send(message);
+                    sent = true;
+                    return;
+                } catch (IOException e) {
+                    finish(false);
+                    if (!CisEndpointBalancer.isSafeToRetry(e)) {
+                        throw e;
+                    }
+                    if (tried == null) {
+                        tried = new ArrayList<>(transports.size());
+                    }
+                    tried.add(endpoint);
+                    Endpoint next = balancer.choose(tried);
+                    if (next == null) {
+                        throw e;
+                    }
+                    balancer.recordFailover(endpoint, next, e);
+                    closeQuietly(delegate);
+                    open(next);
+                }
+            }
+        }
+
+        @Override
+        public WebServiceMessage receive(WebServiceMessageFactory messageFactory) throws IOException {
+            try {
+                WebServiceMessage response = delegate.receive(messageFactory);
+                finish(true);
+                return response;
+            } catch (IOException e) {
+                finish(false);
+                throw e;
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                // Sent but never received: the template found an HTTP error, or gave up on the response
+                if (!done && sent) {
+                    finish(!delegate.hasError() || hasFault());
+                }
+            } catch (IOException e) {
+                finish(false);
+            } finally {
+                if (!done) {
+                    done = true;
+                    endpoint.released();
+                }
+                delegate.close();
+            }
+        }
+
+        private void finish(boolean healthy) {
+            if (done) {
+                return;
+            }
+            done = true;
+            if (healthy) {
+                endpoint.succeeded(startNanos);
+            } else {
+                endpoint.failed();
+            }
+        }
+
+        private void closeQuietly(WebServiceConnection connection) {
+            try {
+                connection.close();
+            } catch (IOException e) {
+                logger.debug("Error closing connection to {}: {}", endpoint.getUri(), e.getMessage());
+            }
+        }
+
+        @Override
+        public URI getUri() throws URISyntaxException {
+            return delegate.getUri();
+        }
+
+        @Override
+        public boolean hasError() throws IOException {
+            return delegate.hasError();
+        }
+
+        @Override
+        public String getErrorMessage() throws IOException {
+            return delegate.getErrorMessage();
+        }
+
+        @Override
+        public boolean hasFault() throws IOException {
+            return delegate instanceof FaultAwareWebServiceConnection faultAware && faultAware.hasFault();
+        }
+
+        @Override
+        public void setFault(boolean fault) throws IOException {
+            if (delegate instanceof FaultAwareWebServiceConnection faultAware) {
+                faultAware.setFault(fault);
+            }
+        }
+
+        @Override
+        public void setFaultCode(QName faultCode) throws IOException {
+            if (delegate instanceof FaultAwareWebServiceConnection faultAware) {
+                faultAware.setFaultCode(faultCode);
+            }
+        }
+    }
+}
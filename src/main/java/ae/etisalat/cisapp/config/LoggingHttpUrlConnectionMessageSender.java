@@ -1,13 +1,20 @@
 package ae.etisalat.cisapp.config;
 
+import ae.etisalat.cisapp.metrics.CisClientMetrics;
+import ae.etisalat.cisapp.service.CisDeadline;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.ws.transport.WebServiceConnection;
+import org.springframework.ws.transport.http.HttpTransportConstants;
+import org.springframework.ws.transport.http.HttpTransportException;
 import org.springframework.ws.transport.http.HttpUrlConnectionMessageSender;
 
 import java.io.IOException;
 import java.net.HttpURLConnection;
 import java.net.URI;
+import java.net.URLConnection;
+import java.time.Duration;
+import java.util.function.Supplier;
 
 /**
  * Custom message sender that provides enhanced logging capabilities including HTTP headers
@@ -16,142 +23,74 @@ public class LoggingHttpUrlConnectionMessageSender extends HttpUrlConnectionMess
 
     private static final Logger logger = LoggerFactory.getLogger(LoggingHttpUrlConnectionMessageSender.class);
 
-    @Override
-    public WebServiceConnection createConnection(URI uri) throws IOException {
-        WebServiceConnection connection = super.createConnection(uri);
+    private Supplier<Duration> readTimeoutSupplier;
+    private int requestCompressionThreshold = -1;
+    private CisClientMetrics clientMetrics;
 
-        // Wrap the connection to enable header logging
-        return new LoggingWebServiceConnectionWrapper(connection);
+    /**
+     * Supplies the read timeout per connection instead of the fixed {@link #setReadTimeout} value;
+     * {@code null} keeps the fixed value.
+     */
+    public void setReadTimeoutSupplier(Supplier<Duration> readTimeoutSupplier) {
+        this.readTimeoutSupplier = readTimeoutSupplier;
     }
 
-    private static class LoggingWebServiceConnectionWrapper implements WebServiceConnection {
-        private final WebServiceConnection delegate;
-        private final Logger wrapperLogger = LoggerFactory.getLogger(LoggingWebServiceConnectionWrapper.class);
-
-        public LoggingWebServiceConnectionWrapper(WebServiceConnection delegate) {
-            this.delegate = delegate;
-        }
-
-        @Override
-        public void send(org.springframework.ws.WebServiceMessage message) throws IOException {
-            wrapperLogger.debug("=== SENDING HTTP REQUEST ===");
-
-            // Try to extract and log HTTP headers before sending
-            logOutgoingHeaders();
-
-            delegate.send(message);
-
-            wrapperLogger.debug("=== HTTP REQUEST SENT ===");
-        }
-
-        @Override
-        public org.springframework.ws.WebServiceMessage receive(org.springframework.ws.WebServiceMessageFactory messageFactory) throws IOException {
-            wrapperLogger.debug("=== RECEIVING HTTP RESPONSE ===");
-
-            org.springframework.ws.WebServiceMessage response = delegate.receive(messageFactory);
-
-            // Log incoming headers after receiving
-            logIncomingHeaders();
+    /**
+     * Request bodies of at least this many bytes are sent gzipped; negative (the default) sends all
+     * bodies as they are.
+     */
+    public void setRequestCompressionThreshold(int requestCompressionThreshold) {
+        this.requestCompressionThreshold = requestCompressionThreshold;
+    }
 
-            wrapperLogger.debug("=== HTTP RESPONSE RECEIVED ===");
+    /**
+     * Records wire and uncompressed byte counts; {@code null} disables them. This transport records no
+     * phase timings.
+     */
+    public void setClientMetrics(CisClientMetrics clientMetrics) {
+        this.clientMetrics = clientMetrics;
+    }
 
-            return response;
+    @Override
+    public WebServiceConnection createConnection(URI uri) throws IOException {
+        URLConnection urlConnection = uri.toURL().openConnection();
+        if (!(urlConnection instanceof HttpURLConnection httpURLConnection)) {
+            throw new HttpTransportException("URI [" + uri + "] is not an HTTP URL");
         }
-
-        private void logOutgoingHeaders() {
-            try {
-                // Access the underlying HttpURLConnection if possible
-                if (delegate instanceof org.springframework.ws.transport.http.HttpUrlConnection) {
-                    org.springframework.ws.transport.http.HttpUrlConnection httpConn =
-                        (org.springframework.ws.transport.http.HttpUrlConnection) delegate;
-
-                    // Use reflection to access the underlying connection
-                    java.lang.reflect.Field connectionField = httpConn.getClass().getDeclaredField("connection");
-                    connectionField.setAccessible(true);
-                    Object underlyingConn = connectionField.get(httpConn);
-
-                    if (underlyingConn instanceof HttpURLConnection) {
-                        HttpURLConnection urlConn = (HttpURLConnection) underlyingConn;
-
-                        wrapperLogger.debug("Outgoing HTTP Method: {}", urlConn.getRequestMethod());
-                        wrapperLogger.debug("Outgoing HTTP URL: {}", urlConn.getURL());
-
-                        // Log request properties (headers)
-                        var requestProperties = urlConn.getRequestProperties();
-                        if (!requestProperties.isEmpty()) {
-                            wrapperLogger.debug("Outgoing HTTP Headers:");
-                            requestProperties.forEach((key, values) ->
-                                values.forEach(value -> wrapperLogger.debug("  {}: {}", key, value))
-                            );
-                        }
-                    }
-                }
-            } catch (Exception e) {
-                wrapperLogger.debug("Could not log outgoing headers: {}", e.getMessage());
-            }
+        prepareConnection(httpURLConnection);
+        WebServiceConnection connection =
+                new CompressingHttpUrlConnection(httpURLConnection, requestCompressionThreshold, clientMetrics);
+        if (!logger.isDebugEnabled()) {
+            return connection;
         }
 
-        private void logIncomingHeaders() {
-            try {
-                // Access the underlying HttpURLConnection if possible
-                if (delegate instanceof org.springframework.ws.transport.http.HttpUrlConnection) {
-                    org.springframework.ws.transport.http.HttpUrlConnection httpConn =
-                        (org.springframework.ws.transport.http.HttpUrlConnection) delegate;
-
-                    // Use reflection to access the underlying connection
-                    java.lang.reflect.Field connectionField = httpConn.getClass().getDeclaredField("connection");
-                    connectionField.setAccessible(true);
-                    Object underlyingConn = connectionField.get(httpConn);
-
-                    if (underlyingConn instanceof HttpURLConnection) {
-                        HttpURLConnection urlConn = (HttpURLConnection) underlyingConn;
-
-                        wrapperLogger.debug("Incoming HTTP Response Code: {}", urlConn.getResponseCode());
-                        wrapperLogger.debug("Incoming HTTP Response Message: {}", urlConn.getResponseMessage());
-
-                        // Log response headers
-                        var headerFields = urlConn.getHeaderFields();
-                        if (!headerFields.isEmpty()) {
-                            wrapperLogger.debug("Incoming HTTP Headers:");
-                            headerFields.forEach((key, values) -> {
-                                if (key != null) {
-                                    values.forEach(value -> wrapperLogger.debug("  {}: {}", key, value));
-                                } else {
-                                    // Status line
-                                    wrapperLogger.debug("  Status: {}", values.get(0));
-                                }
-                            });
-                        }
-                    }
-                }
-            } catch (Exception e) {
-                wrapperLogger.debug("Could not log incoming headers: {}", e.getMessage());
-            }
-        }
+        // Wrap the connection to enable header logging
+        return new HeaderLoggingConnection(connection, logger);
+    }
 
-        @Override
-        public URI getUri() {
-            try {
-                return delegate.getUri();
-            } catch (Exception e) {
-                wrapperLogger.debug("Error getting URI: {}", e.getMessage());
-                return null;
-            }
+    /**
+     * Advertises gzip and deflate, applies the supplied read timeout and, within a {@link CisDeadline},
+     * caps the connect and read timeouts at the remaining budget.
+     */
+    @Override
+    protected void prepareConnection(HttpURLConnection connection) throws IOException {
+        super.prepareConnection(connection);
+        if (isAcceptGzipEncoding()) {
+            connection.setRequestProperty(HttpTransportConstants.HEADER_ACCEPT_ENCODING, ContentCoding.ACCEPT_ENCODING);
         }
-
-        @Override
-        public boolean hasError() throws IOException {
-            return delegate.hasError();
+        if (readTimeoutSupplier != null) {
+            connection.setReadTimeout((int) Math.min(Integer.MAX_VALUE, readTimeoutSupplier.get().toMillis()));
         }
-
-        @Override
-        public String getErrorMessage() throws IOException {
-            return delegate.getErrorMessage();
+        CisDeadline deadline = CisDeadline.current();
+        if (deadline != null) {
+            connection.setConnectTimeout(capMillis(deadline, connection.getConnectTimeout()));
+            connection.setReadTimeout(capMillis(deadline, connection.getReadTimeout()));
         }
+    }
 
-        @Override
-        public void close() throws IOException {
-            delegate.close();
-        }
+    private int capMillis(CisDeadline deadline, int timeoutMillis) {
+        // Zero means no timeout, so the remaining budget is the only bound
+        Duration timeout = timeoutMillis == 0 ? deadline.getBudget() : Duration.ofMillis(timeoutMillis);
+        return (int) Math.min(Integer.MAX_VALUE, deadline.cap(timeout).toMillis());
     }
 }
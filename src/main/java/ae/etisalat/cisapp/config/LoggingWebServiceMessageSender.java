@@ -0,0 +1,38 @@
+package ae.etisalat.cisapp.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ws.transport.WebServiceConnection;
+import org.springframework.ws.transport.WebServiceMessageSender;
+
+import java.io.IOException;
+import java.net.URI;
+
+/**
+ * Decorator that adds HTTP header logging to any {@link WebServiceMessageSender}.
+ * Connections are only wrapped when DEBUG logging is enabled for this class.
+ */
+public class LoggingWebServiceMessageSender implements WebServiceMessageSender {
+
+    private static final Logger logger = LoggerFactory.getLogger(LoggingWebServiceMessageSender.class);
+
+    private final WebServiceMessageSender delegate;
+
+    public LoggingWebServiceMessageSender(WebServiceMessageSender delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public WebServiceConnection createConnection(URI uri) throws IOException {
+        WebServiceConnection connection = delegate.createConnection(uri);
+        if (!logger.isDebugEnabled()) {
+            return connection;
+        }
+        return new HeaderLoggingConnection(connection, logger);
+    }
+
+    @Override
+    public boolean supports(URI uri) {
+        return delegate.supports(uri);
+    }
+}
@@ -0,0 +1,22 @@
+package ae.etisalat.cisapp.config;
+
+import ae.etisalat.cisapp.metrics.CisClientMetrics;
+import ae.etisalat.cisapp.metrics.MeteredJackson2HttpMessageConverter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+
+@Configuration
+public class MetricsConfig {
+
+    /**
+     * Replaces Boot's default Jackson converter (it backs off when one is defined) so response
+     * serialization is timed.
+     */
+    @Bean
+    public MappingJackson2HttpMessageConverter mappingJackson2HttpMessageConverter(ObjectMapper objectMapper,
+                                                                                   CisClientMetrics metrics) {
+        return new MeteredJackson2HttpMessageConverter(objectMapper, metrics);
+    }
+}
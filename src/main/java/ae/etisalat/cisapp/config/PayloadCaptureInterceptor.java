@@ -0,0 +1,173 @@
+package ae.etisalat.cisapp.config;
+
+import ae.etisalat.cisapp.logging.PayloadCapturePolicy;
+import ae.etisalat.cisapp.logging.PayloadExchange;
+import org.apache.hc.core5.http.ClassicHttpRequest;
+import org.apache.hc.core5.http.ClassicHttpResponse;
+import org.apache.hc.core5.http.EntityDetails;
+import org.apache.hc.core5.http.HttpEntity;
+import org.apache.hc.core5.http.HttpRequest;
+import org.apache.hc.core5.http.HttpRequestInterceptor;
+import org.apache.hc.core5.http.HttpResponse;
+import org.apache.hc.core5.http.HttpResponseInterceptor;
+import org.apache.hc.core5.http.io.entity.HttpEntityWrapper;
+import org.apache.hc.core5.http.protocol.HttpContext;
+import org.springframework.ws.transport.WebServiceConnection;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+
+/**
+ * Tees raw SOAP bytes off the Apache HttpClient exchange for {@link PayloadCapturePolicy}. The request
+ * body stays in its (repeatable, in-memory) entity and is only read if the exchange is captured; the
+ * response entity is wrapped so bytes are copied as Spring WS consumes them, and only for captured
+ * exchanges. The {@link PayloadExchange} is kept in the {@link HttpContext} so Spring WS interceptors
+ * can promote it on faults via {@link #findExchange(WebServiceConnection)}.
+ */
+public class PayloadCaptureInterceptor implements HttpRequestInterceptor, HttpResponseInterceptor {
+
+    private static final String EXCHANGE_ATTRIBUTE = PayloadExchange.class.getName();
+
+    private final PayloadCapturePolicy capturePolicy;
+
+    public PayloadCaptureInterceptor(PayloadCapturePolicy capturePolicy) {
+        this.capturePolicy = capturePolicy;
+    }
+
+    /**
+     * @return the exchange sent over the given pooled connection, or {@code null} if none was started
+     */
+    public static PayloadExchange findExchange(WebServiceConnection connection) {
+        connection = DelegatingConnection.unwrap(connection);
+        if (connection instanceof PooledHttpConnection pooledConnection && pooledConnection.getHttpContext() != null
+                && pooledConnection.getHttpContext().getAttribute(EXCHANGE_ATTRIBUTE) instanceof PayloadExchange exchange) {
+            return exchange;
+        }
+        return null;
+    }
+
+    @Override
+    public void process(HttpRequest request, EntityDetails entityDetails, HttpContext context) {
+        if (!capturePolicy.isActive() || !(request instanceof ClassicHttpRequest classicRequest)) {
+            return;
+        }
+        // Capture the SOAP envelope, not the gzipped body on the wire
+        HttpEntity entity = context.getAttribute(RequestCompressionInterceptor.UNCOMPRESSED_ENTITY_ATTRIBUTE)
+                instanceof HttpEntity uncompressed ? uncompressed : classicRequest.getEntity();
+        if (entity == null || !entity.isRepeatable()) {
+            return;
+        }
+        PayloadExchange exchange = capturePolicy.begin(maxBytes -> {
+            try (InputStream content = entity.getContent()) {
+                return content.readNBytes(maxBytes);
+            }
+        }, entity.getContentLength(), entity.getContentEncoding());
+        if (exchange != null) {
+            context.setAttribute(EXCHANGE_ATTRIBUTE, exchange);
+        }
+    }
+
+    @Override
+    public void process(HttpResponse response, EntityDetails entityDetails, HttpContext context) {
+        if (context.getAttribute(EXCHANGE_ATTRIBUTE) instanceof PayloadExchange exchange
+                && exchange.onResponse(response.getCode())
+                && response instanceof ClassicHttpResponse classicResponse && classicResponse.getEntity() != null) {
+            classicResponse.setEntity(new TeeEntity(classicResponse.getEntity(), exchange));
+        }
+    }
+
+    private class TeeEntity extends HttpEntityWrapper {
+        private final PayloadExchange exchange;
+
+        TeeEntity(HttpEntity wrappedEntity, PayloadExchange exchange) {
+            super(wrappedEntity);
+            this.exchange = exchange;
+        }
+
+        @Override
+        public InputStream getContent() throws IOException {
+            return new TeeInputStream(super.getContent(), exchange, getContentEncoding());
+        }
+    }
+
+    /**
+     * Copies up to {@code max-bytes} of what is read and submits it once, at end of stream or close.
+     */
+    private class TeeInputStream extends FilterInputStream {
+        private final PayloadExchange exchange;
+        private final String contentEncoding;
+        private byte[] captured = new byte[0];
+        private int capturedLength;
+        private long totalLength;
+        private boolean submitted;
+
+        TeeInputStream(InputStream in, PayloadExchange exchange, String contentEncoding) {
+            super(in);
+            this.exchange = exchange;
+            this.contentEncoding = contentEncoding;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b < 0) {
+                submit();
+            } else {
+                totalLength++;
+                if (capturedLength < capturePolicy.getMaxBytes()) {
+                    ensureCapacity(capturedLength + 1);
+                    captured[capturedLength++] = (byte) b;
+                }
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = super.read(b, off, len);
+            if (n < 0) {
+                submit();
+            } else {
+                copy(b, off, n);
+            }
+            return n;
+        }
+
+        private void copy(byte[] b, int off, int n) {
+            totalLength += n;
+            int room = capturePolicy.getMaxBytes() - capturedLength;
+            int toCopy = Math.min(room, n);
+            if (toCopy <= 0) {
+                return;
+            }
+            ensureCapacity(capturedLength + toCopy);
+            System.arraycopy(b, off, captured, capturedLength, toCopy);
+            capturedLength += toCopy;
+        }
+
+        private void ensureCapacity(int required) {
+            if (required > captured.length) {
+                captured = Arrays.copyOf(captured,
+                        Math.min(capturePolicy.getMaxBytes(), Math.max(captured.length * 2, required)));
+            }
+        }
+
+        private void submit() {
+            if (!submitted) {
+                submitted = true;
+                exchange.submitResponse(captured, capturedLength, totalLength, contentEncoding);
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                super.close();
+            } finally {
+                submit();
+            }
+        }
+    }
+}
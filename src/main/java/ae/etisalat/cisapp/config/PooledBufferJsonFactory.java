@@ -0,0 +1,106 @@
+package ae.etisalat.cisapp.config;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.util.BufferRecycler;
+import com.fasterxml.jackson.databind.MappingJsonFactory;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+
+/**
+ * {@link MappingJsonFactory} whose parsers and generators take their read, encoding and text buffers
+ * from one shared pool. Jackson keeps a {@link BufferRecycler} per thread, which only pays off when
+ * threads are reused: with virtual threads every request starts on a new thread and allocates its
+ * buffers from scratch. Buffers go back to the pool when the parser or generator is closed; up to
+ * {@code maxIdle} of each kind are kept, more are allocated when needed.
+ */
+public class PooledBufferJsonFactory extends MappingJsonFactory {
+
+    private final transient PooledBufferRecycler bufferRecycler;
+
+    public PooledBufferJsonFactory(int maxIdle) {
+        this.bufferRecycler = new PooledBufferRecycler(maxIdle);
+    }
+
+    private PooledBufferJsonFactory(PooledBufferJsonFactory src, ObjectMapper mapper) {
+        super(src, mapper);
+        this.bufferRecycler = src.bufferRecycler;
+    }
+
+    @Override
+    public BufferRecycler _getBufferRecycler() {
+        return bufferRecycler != null ? bufferRecycler : super._getBufferRecycler();
+    }
+
+    @Override
+    public JsonFactory copy() {
+        return new PooledBufferJsonFactory(this, null);
+    }
+
+    /**
+     * @return number of idle buffers currently pooled
+     */
+    int idleCount() {
+        return bufferRecycler.idleCount();
+    }
+
+    /**
+     * Thread-safe {@link BufferRecycler} that hands out each buffer to one caller at a time, so
+     * concurrent parsers and generators never share one.
+     */
+    private static final class PooledBufferRecycler extends BufferRecycler {
+
+        private final Queue<byte[]>[] byteBuffers;
+        private final Queue<char[]>[] charBuffers;
+
+        @SuppressWarnings("unchecked")
+        PooledBufferRecycler(int maxIdle) {
+            // The superclass's own single-slot arrays stay empty
+            super(0, 0);
+            byteBuffers = new Queue[BYTE_BASE64_CODEC_BUFFER + 1];
+            for (int i = 0; i < byteBuffers.length; i++) {
+                byteBuffers[i] = new ArrayBlockingQueue<>(maxIdle);
+            }
+            charBuffers = new Queue[CHAR_NAME_COPY_BUFFER + 1];
+            for (int i = 0; i < charBuffers.length; i++) {
+                charBuffers[i] = new ArrayBlockingQueue<>(maxIdle);
+            }
+        }
+
+        @Override
+        public byte[] allocByteBuffer(int ix, int minSize) {
+            int size = Math.max(minSize, byteBufferLength(ix));
+            byte[] buffer = byteBuffers[ix].poll();
+            return buffer != null && buffer.length >= size ? buffer : balloc(size);
+        }
+
+        @Override
+        public void releaseByteBuffer(int ix, byte[] buffer) {
+            byteBuffers[ix].offer(buffer);
+        }
+
+        @Override
+        public char[] allocCharBuffer(int ix, int minSize) {
+            int size = Math.max(minSize, charBufferLength(ix));
+            char[] buffer = charBuffers[ix].poll();
+            return buffer != null && buffer.length >= size ? buffer : calloc(size);
+        }
+
+        @Override
+        public void releaseCharBuffer(int ix, char[] buffer) {
+            charBuffers[ix].offer(buffer);
+        }
+
+        int idleCount() {
+            int count = 0;
+            for (Queue<byte[]> buffers : byteBuffers) {
+                count += buffers.size();
+            }
+            for (Queue<char[]> buffers : charBuffers) {
+                count += buffers.size();
+            }
+            return count;
+        }
+    }
+}
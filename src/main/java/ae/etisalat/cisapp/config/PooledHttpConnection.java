@@ -0,0 +1,24 @@
+package ae.etisalat.cisapp.config;
+
+import org.apache.hc.client5.http.classic.HttpClient;
+import org.apache.hc.client5.http.classic.methods.HttpPost;
+import org.apache.hc.core5.http.protocol.HttpContext;
+import org.springframework.ws.transport.http.HttpComponents5Connection;
+
+/**
+ * {@link HttpComponents5Connection} that exposes its per-call {@link HttpContext}, so state set by
+ * HttpClient interceptors can be read back from the Spring WS side of the exchange.
+ */
+class PooledHttpConnection extends HttpComponents5Connection {
+
+    private final HttpContext httpContext;
+
+    PooledHttpConnection(HttpClient httpClient, HttpPost httpPost, HttpContext httpContext) {
+        super(httpClient, httpPost, httpContext);
+        this.httpContext = httpContext;
+    }
+
+    HttpContext getHttpContext() {
+        return httpContext;
+    }
+}
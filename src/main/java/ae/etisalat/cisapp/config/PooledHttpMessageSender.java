@@ -0,0 +1,270 @@
+package ae.etisalat.cisapp.config;
+
+import ae.etisalat.cisapp.logging.PayloadCapturePolicy;
+import ae.etisalat.cisapp.metrics.CisClientMetrics;
+import ae.etisalat.cisapp.service.CisDeadline;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.hc.client5.http.classic.methods.HttpPost;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.ChainElement;
+import org.apache.hc.client5.http.impl.DefaultConnectionKeepAliveStrategy;
+import org.apache.hc.client5.http.impl.classic.HttpClientBuilder;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.client5.http.protocol.HttpClientContext;
+import org.apache.hc.core5.http.protocol.HttpContext;
+import org.apache.hc.core5.pool.PoolStats;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ws.transport.WebServiceConnection;
+import org.springframework.ws.transport.http.HttpComponents5MessageSender;
+import org.springframework.ws.transport.http.HttpTransportConstants;
+
+import java.io.IOException;
+import java.net.URI;
+import java.time.Duration;
+import java.util.function.Supplier;
+import java.util.function.ToIntFunction;
+
+/**
+ * Message sender backed by a pooled, keep-alive Apache HttpClient 5 connection manager.
+ * Connections are reused across calls, idle and expired connections are evicted in the
+ * background, and stale connections are re-validated after a period of inactivity.
+ */
+public class PooledHttpMessageSender extends HttpComponents5MessageSender {
+
+    private static final Logger logger = LoggerFactory.getLogger(PooledHttpMessageSender.class);
+
+    private Duration connectionTimeout = Duration.ofSeconds(30);
+    private Duration readTimeout = Duration.ofSeconds(60);
+    private Duration connectionRequestTimeout = Duration.ofSeconds(5);
+    private int maxTotalConnections = 200;
+    private int maxConnectionsPerRoute = 50;
+    private Duration idleEvictionTimeout = Duration.ofSeconds(30);
+    private Duration connectionTimeToLive = Duration.ofMinutes(5);
+    private Duration validateAfterInactivity = Duration.ofSeconds(2);
+
+    private PayloadCapturePolicy payloadCapturePolicy;
+    private CisClientMetrics clientMetrics;
+    private Supplier<Duration> readTimeoutSupplier;
+    private int requestCompressionThreshold = -1;
+    private MeterRegistry meterRegistry;
+    private String endpointName = "default";
+
+    private PoolingHttpClientConnectionManager connectionManager;
+    private RequestConfig requestConfig;
+
+    @Override
+    public void setConnectionTimeout(Duration connectionTimeout) {
+        this.connectionTimeout = connectionTimeout;
+    }
+
+    @Override
+    public void setReadTimeout(Duration readTimeout) {
+        this.readTimeout = readTimeout;
+    }
+
+    /**
+     * Maximum time to wait for a connection to be leased from the pool.
+     */
+    public void setConnectionRequestTimeout(Duration connectionRequestTimeout) {
+        this.connectionRequestTimeout = connectionRequestTimeout;
+    }
+
+    @Override
+    public void setMaxTotalConnections(int maxTotalConnections) {
+        this.maxTotalConnections = maxTotalConnections;
+    }
+
+    public void setMaxConnectionsPerRoute(int maxConnectionsPerRoute) {
+        this.maxConnectionsPerRoute = maxConnectionsPerRoute;
+    }
+
+    /**
+     * Connections idle for longer than this are closed by the background evictor.
+     */
+    public void setIdleEvictionTimeout(Duration idleEvictionTimeout) {
+        this.idleEvictionTimeout = idleEvictionTimeout;
+    }
+
+    /**
+     * Upper bound on the lifetime of a pooled connection, regardless of activity.
+     */
+    public void setConnectionTimeToLive(Duration connectionTimeToLive) {
+        this.connectionTimeToLive = connectionTimeToLive;
+    }
+
+    /**
+     * Connections idle for longer than this are checked for staleness before being leased.
+     */
+    public void setValidateAfterInactivity(Duration validateAfterInactivity) {
+        this.validateAfterInactivity = validateAfterInactivity;
+    }
+
+    /**
+     * Tees raw request/response bytes for exchanges the policy captures; {@code null} disables payload capture.
+     */
+    public void setPayloadCapturePolicy(PayloadCapturePolicy payloadCapturePolicy) {
+        this.payloadCapturePolicy = payloadCapturePolicy;
+    }
+
+    /**
+     * Records per-phase transport timings and wire byte counts; {@code null} disables them.
+     */
+    public void setClientMetrics(CisClientMetrics clientMetrics) {
+        this.clientMetrics = clientMetrics;
+    }
+
+    /**
+     * Supplies the read timeout per exchange instead of the fixed {@link #setReadTimeout} value;
+     * {@code null} keeps the fixed value.
+     */
+    public void setReadTimeoutSupplier(Supplier<Duration> readTimeoutSupplier) {
+        this.readTimeoutSupplier = readTimeoutSupplier;
+    }
+
+    /**
+     * Request bodies of at least this many bytes are sent gzipped; negative (the default) sends all
+     * bodies as they are.
+     */
+    public void setRequestCompressionThreshold(int requestCompressionThreshold) {
+        this.requestCompressionThreshold = requestCompressionThreshold;
+    }
+
+    /**
+     * Publishes the pool's leased, pending, available and max connections as {@code cis.client.pool.*}
+     * gauges; {@code null} disables them.
+     */
+    public void setMeterRegistry(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Host and port the pool connects to, the {@code endpoint} tag of its gauges.
+     */
+    public void setEndpointName(String endpointName) {
+        this.endpointName = endpointName;
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        ConnectionConfig connectionConfig = ConnectionConfig.custom()
+                .setConnectTimeout(Timeout.of(connectionTimeout))
+                .setSocketTimeout(Timeout.of(readTimeout))
+                .setTimeToLive(TimeValue.of(connectionTimeToLive))
+                .setValidateAfterInactivity(TimeValue.of(validateAfterInactivity))
+                .build();
+
+        connectionManager = PoolingHttpClientConnectionManagerBuilder.create()
+                .setMaxConnTotal(maxTotalConnections)
+                .setMaxConnPerRoute(maxConnectionsPerRoute)
+                .setDefaultConnectionConfig(connectionConfig)
+                .build();
+
+        requestConfig = RequestConfig.custom()
+                .setConnectionRequestTimeout(Timeout.of(connectionRequestTimeout))
+                .setResponseTimeout(Timeout.of(readTimeout))
+                .build();
+
+        HttpClientBuilder httpClientBuilder = HttpClients.custom()
+                .setConnectionManager(connectionManager)
+                .setDefaultRequestConfig(requestConfig)
+                .setKeepAliveStrategy(DefaultConnectionKeepAliveStrategy.INSTANCE)
+                .evictExpiredConnections()
+                .evictIdleConnections(TimeValue.of(idleEvictionTimeout))
+                // SAAJ writes its own Content-Length/Transfer-Encoding headers, which HttpClient rejects
+                .addRequestInterceptorFirst(new RemoveSoapHeadersInterceptor());
+        if (!isAcceptGzipEncoding()) {
+            // HttpClient would otherwise advertise and decode compressed responses on its own
+            httpClientBuilder.disableContentCompression();
+        }
+        if (requestCompressionThreshold >= 0) {
+            httpClientBuilder.addExecInterceptorBefore(ChainElement.PROTOCOL.name(), "cis-request-compression",
+                    new RequestCompressionInterceptor(requestCompressionThreshold));
+        }
+        if (payloadCapturePolicy != null) {
+            PayloadCaptureInterceptor payloadCapture = new PayloadCaptureInterceptor(payloadCapturePolicy);
+            httpClientBuilder.addRequestInterceptorLast(payloadCapture);
+            httpClientBuilder.addResponseInterceptorLast(payloadCapture);
+        }
+        if (clientMetrics != null) {
+            TransportMetricsInterceptor transportMetrics = new TransportMetricsInterceptor(clientMetrics);
+            httpClientBuilder.addExecInterceptorFirst("cis-metrics-payload", transportMetrics.beforeCompression());
+            httpClientBuilder.addExecInterceptorBefore(ChainElement.CONNECT.name(), "cis-metrics-connect",
+                    transportMetrics.beforeConnect());
+            httpClientBuilder.addExecInterceptorBefore(ChainElement.MAIN_TRANSPORT.name(), "cis-metrics-transport",
+                    transportMetrics.beforeTransport());
+        }
+
+        setHttpClient(httpClientBuilder.build());
+        if (meterRegistry != null) {
+            registerPoolGauge("leased", "Pooled CIS connections in use", PoolStats::getLeased);
+            registerPoolGauge("pending", "Callers waiting to lease a pooled CIS connection", PoolStats::getPending);
+            registerPoolGauge("available", "Idle pooled CIS connections", PoolStats::getAvailable);
+            registerPoolGauge("max", "Maximum pooled CIS connections", PoolStats::getMax);
+        }
+
+        logger.info("Initialized pooled HTTP transport: maxTotal={}, maxPerRoute={}, idleEviction={}, ttl={}, "
+                        + "acceptCompressed={}, requestCompressionThreshold={}", maxTotalConnections, maxConnectionsPerRoute,
+                idleEvictionTimeout, connectionTimeToLive, isAcceptGzipEncoding(), requestCompressionThreshold);
+    }
+
+    private void registerPoolGauge(String name, String description, ToIntFunction<PoolStats> value) {
+        Gauge.builder("cis.client.pool." + name, this, sender -> value.applyAsInt(sender.getPoolStats()))
+                .description(description)
+                .tag("endpoint", endpointName)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Same request as the superclass builds, on a connection that keeps its {@link HttpContext}
+     * reachable for {@link PayloadCaptureInterceptor#findExchange}. Deflate is advertised next to gzip,
+     * as HttpClient decodes both before Spring WS reads the response.
+     */
+    @Override
+    public WebServiceConnection createConnection(URI uri) throws IOException {
+        HttpPost httpPost = new HttpPost(uri);
+        if (isAcceptGzipEncoding()) {
+            httpPost.addHeader(HttpTransportConstants.HEADER_ACCEPT_ENCODING, ContentCoding.ACCEPT_ENCODING);
+        }
+        return new PooledHttpConnection(getHttpClient(), httpPost, createContext(uri));
+    }
+
+    /**
+     * Applies the supplied read timeout to this exchange and, within a {@link CisDeadline}, caps the
+     * pool lease, connect and response timeouts at the remaining budget.
+     */
+    @Override
+    @SuppressWarnings("deprecation") // per-request connect timeout is still honoured by the classic exec runtime
+    protected HttpContext createContext(URI uri) {
+        HttpClientContext context = HttpClientContext.create();
+        CisDeadline deadline = CisDeadline.current();
+        if (requestConfig == null || (deadline == null && readTimeoutSupplier == null)) {
+            return context;
+        }
+        Duration responseTimeout = readTimeoutSupplier != null ? readTimeoutSupplier.get() : readTimeout;
+        RequestConfig.Builder exchangeConfig = RequestConfig.copy(requestConfig);
+        if (deadline != null) {
+            responseTimeout = deadline.cap(responseTimeout);
+            exchangeConfig.setConnectionRequestTimeout(Timeout.of(deadline.cap(connectionRequestTimeout)))
+                    .setConnectTimeout(Timeout.of(deadline.cap(connectionTimeout)));
+        }
+        context.setRequestConfig(exchangeConfig.setResponseTimeout(Timeout.of(responseTimeout)).build());
+        return context;
+    }
+
+    /**
+     * Live totals for the pool: leased, pending (callers waiting for a lease), available and max.
+     */
+    public PoolStats getPoolStats() {
+        if (connectionManager == null) {
+            return new PoolStats(0, 0, 0, maxTotalConnections);
+        }
+        return connectionManager.getTotalStats();
+    }
+}
@@ -0,0 +1,100 @@
+package ae.etisalat.cisapp.config;
+
+import jakarta.xml.bind.JAXBException;
+import jakarta.xml.bind.Marshaller;
+import jakarta.xml.bind.Unmarshaller;
+import org.springframework.oxm.XmlMappingException;
+import org.springframework.oxm.jaxb.Jaxb2Marshaller;
+import org.springframework.oxm.mime.MimeContainer;
+import org.springframework.util.xml.StaxUtils;
+
+import javax.xml.transform.Result;
+import javax.xml.transform.Source;
+import javax.xml.transform.dom.DOMResult;
+import javax.xml.transform.dom.DOMSource;
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.function.Supplier;
+
+/**
+ * {@link Jaxb2Marshaller} that reuses JAXB {@link Marshaller} and {@link Unmarshaller} instances instead
+ * of creating them for every operation. Instances are not thread-safe, so each is borrowed for one
+ * operation and handed back afterwards; up to {@code maxIdle} of each are kept, more are created when
+ * needed. An instance whose operation failed is dropped rather than reused.
+ * <p>
+ * Only DOM results and DOM or StAX sources, without MTOM attachments, are pooled. Anything else goes
+ * through the superclass, which also applies its XML parser settings to stream and SAX sources.
+ */
+public class PooledJaxb2Marshaller extends Jaxb2Marshaller {
+
+    private final Queue<Marshaller> marshallers;
+    private final Queue<Unmarshaller> unmarshallers;
+    private boolean mappedClass;
+    private boolean mtomEnabled;
+
+    public PooledJaxb2Marshaller(int maxIdle) {
+        this.marshallers = new ArrayBlockingQueue<>(maxIdle);
+        this.unmarshallers = new ArrayBlockingQueue<>(maxIdle);
+    }
+
+    @Override
+    public void setMappedClass(Class<?> mappedClass) {
+        super.setMappedClass(mappedClass);
+        this.mappedClass = mappedClass != null;
+    }
+
+    @Override
+    public void setMtomEnabled(boolean mtomEnabled) {
+        super.setMtomEnabled(mtomEnabled);
+        this.mtomEnabled = mtomEnabled;
+    }
+
+    @Override
+    public void marshal(Object graph, Result result, MimeContainer mimeContainer) throws XmlMappingException {
+        if (usesAttachments(mimeContainer) || !(result instanceof DOMResult)) {
+            super.marshal(graph, result, mimeContainer);
+            return;
+        }
+        Marshaller marshaller = borrow(marshallers, this::createMarshaller);
+        try {
+            marshaller.marshal(graph, result);
+        } catch (JAXBException ex) {
+            throw convertJaxbException(ex);
+        }
+        marshallers.offer(marshaller);
+    }
+
+    @Override
+    public Object unmarshal(Source source, MimeContainer mimeContainer) throws XmlMappingException {
+        boolean staxSource = StaxUtils.isStaxSource(source);
+        if (usesAttachments(mimeContainer) || mappedClass || !(staxSource || source instanceof DOMSource)) {
+            return super.unmarshal(source, mimeContainer);
+        }
+        Unmarshaller unmarshaller = borrow(unmarshallers, this::createUnmarshaller);
+        Object result;
+        try {
+            result = staxSource ? unmarshalStaxSource(unmarshaller, source) : unmarshaller.unmarshal(source);
+        } catch (JAXBException ex) {
+            throw convertJaxbException(ex);
+        }
+        unmarshallers.offer(unmarshaller);
+        return result;
+    }
+
+    /**
+     * @return number of idle marshallers and unmarshallers currently pooled
+     */
+    int idleCount() {
+        return marshallers.size() + unmarshallers.size();
+    }
+
+    // Without MTOM the superclass ignores the container that SOAP messages come with
+    private boolean usesAttachments(MimeContainer mimeContainer) {
+        return mtomEnabled && mimeContainer != null;
+    }
+
+    private static <T> T borrow(Queue<T> pool, Supplier<T> factory) {
+        T instance = pool.poll();
+        return instance != null ? instance : factory.get();
+    }
+}
@@ -0,0 +1,42 @@
+package ae.etisalat.cisapp.config;
+
+import org.springframework.oxm.Marshaller;
+import org.springframework.oxm.Unmarshaller;
+import org.springframework.oxm.XmlMappingException;
+
+import javax.xml.transform.Result;
+import javax.xml.transform.Source;
+import java.io.IOException;
+
+/**
+ * Offers each payload to the precompiled envelope when marshalling into a message of a
+ * {@link PrecompiledRequestMessageFactory}, and marshals with the delegate otherwise.
+ */
+public class PrecompiledEnvelopeMarshaller implements Marshaller, Unmarshaller {
+
+    private final Marshaller marshaller;
+    private final Unmarshaller unmarshaller;
+
+    public <T extends Marshaller & Unmarshaller> PrecompiledEnvelopeMarshaller(T delegate) {
+        this.marshaller = delegate;
+        this.unmarshaller = delegate;
+    }
+
+    @Override
+    public boolean supports(Class<?> clazz) {
+        return marshaller.supports(clazz);
+    }
+
+    @Override
+    public void marshal(Object graph, Result result) throws IOException, XmlMappingException {
+        if (result instanceof PrecompiledRequestMessageFactory.PayloadResult payloadResult && payloadResult.write(graph)) {
+            return;
+        }
+        marshaller.marshal(graph, result);
+    }
+
+    @Override
+    public Object unmarshal(Source source) throws IOException, XmlMappingException {
+        return unmarshaller.unmarshal(source);
+    }
+}
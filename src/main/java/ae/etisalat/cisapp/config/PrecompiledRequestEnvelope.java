@@ -0,0 +1,396 @@
+package ae.etisalat.cisapp.config;
+
+import jakarta.xml.bind.JAXBElement;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.oxm.Marshaller;
+import org.springframework.ws.WebServiceMessage;
+import org.springframework.ws.WebServiceMessageFactory;
+import org.springframework.ws.support.MarshallingUtils;
+import org.springframework.ws.transport.TransportOutputStream;
+
+import javax.xml.namespace.QName;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Writes the complete SOAP request envelope for a flat request type whose fields are all strings,
+ * without JAXB or SAAJ. The template is not hand-written: at construction a request is marshalled
+ * through the given factory and marshaller with a marker in every field, and the output is cut into
+ * byte segments around the markers. Element names, order, namespace prefixes and the transport headers
+ * therefore come from the same code that produces the fallback output. The template is then checked
+ * against that code for a set of probe requests and is only used if every probe matches byte for byte.
+ * <p>
+ * Values outside printable ASCII (plus tab and newline) are left to JAXB, whose serializer escapes
+ * them in ways not worth reproducing here.
+ */
+public class PrecompiledRequestEnvelope {
+
+    private static final Logger logger = LoggerFactory.getLogger(PrecompiledRequestEnvelope.class);
+
+    private static final String CONTENT_LENGTH = "Content-Length";
+    private static final String MARKER = "PRECOMPILED_FIELD_";
+    private static final String PROBE_VALUE = "a&b<c>d\"e'f]]>\t\n x";
+
+    private static final byte[] AMP = "&amp;".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] LT = "&lt;".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] GT = "&gt;".getBytes(StandardCharsets.US_ASCII);
+
+    private final QName rootElement;
+    private final Class<?> payloadType;
+    private boolean supported;
+
+    // Fields in document order, with the segments surrounding their values
+    private Field[] fields;
+    private byte[][] openTags;
+    private byte[][] closeTags;
+    private byte[][] emptyTags;
+    private byte[] prefix;
+    private byte[] suffix;
+    private byte[] emptyEnvelope;
+    private int payloadStart;
+    private int payloadEndFromSuffix;
+    private String[][] headers;
+
+    /**
+     * @param messageFactory the factory whose output is reproduced, typically SAAJ
+     * @param marshaller     the JAXB marshaller used by the fallback path
+     */
+    public PrecompiledRequestEnvelope(WebServiceMessageFactory messageFactory, Marshaller marshaller,
+                                      QName rootElement, Class<?> payloadType) {
+        this.rootElement = rootElement;
+        this.payloadType = payloadType;
+        try {
+            supported = compile(messageFactory, marshaller) && verify(messageFactory, marshaller);
+        } catch (Exception e) {
+            logger.warn("Could not precompile the {} request envelope: {}", payloadType.getSimpleName(), e.getMessage());
+        }
+    }
+
+    public boolean isSupported() {
+        return supported;
+    }
+
+    /**
+     * @return the envelope bytes, or {@code null} if the payload must go through JAXB: it is not a
+     * {@code JAXBElement} of exactly the precompiled root element and type, or a value contains
+     * characters the template does not handle
+     */
+    public byte[] write(Object graph) {
+        return supported ? writeCompiled(graph) : null;
+    }
+
+    private byte[] writeCompiled(Object graph) {
+        if (!(graph instanceof JAXBElement<?> element) || element.isNil()
+                || element.getDeclaredType() != payloadType || !rootElement.equals(element.getName())) {
+            return null;
+        }
+        Object payload = element.getValue();
+        if (payload == null || payload.getClass() != payloadType) {
+            return null;
+        }
+
+        String[] values = new String[fields.length];
+        int length = prefix.length + suffix.length;
+        boolean empty = true;
+        for (int i = 0; i < fields.length; i++) {
+            String value = read(fields[i], payload);
+            if (value == null) {
+                continue;
+            }
+            int escapedLength = escapedLength(value);
+            if (escapedLength < 0) {
+                return null;
+            }
+            values[i] = value;
+            length += value.isEmpty() ? emptyTags[i].length : openTags[i].length + escapedLength + closeTags[i].length;
+            empty = false;
+        }
+        if (empty) {
+            return emptyEnvelope.clone();
+        }
+
+        byte[] envelope = new byte[length];
+        int position = append(prefix, envelope, 0);
+        for (int i = 0; i < fields.length; i++) {
+            String value = values[i];
+            if (value == null) {
+                continue;
+            }
+            if (value.isEmpty()) {
+                position = append(emptyTags[i], envelope, position);
+            } else {
+                position = append(openTags[i], envelope, position);
+                position = appendEscaped(value, envelope, position);
+                position = append(closeTags[i], envelope, position);
+            }
+        }
+        append(suffix, envelope, position);
+        return envelope;
+    }
+
+    /**
+     * Adds the headers the fallback message would add, when writing to a transport.
+     */
+    public void writeHeaders(OutputStream outputStream, int contentLength) throws IOException {
+        if (outputStream instanceof TransportOutputStream transportOutputStream) {
+            for (String[] header : headers) {
+                transportOutputStream.addHeader(header[0],
+                        CONTENT_LENGTH.equalsIgnoreCase(header[0]) ? Integer.toString(contentLength) : header[1]);
+            }
+        }
+    }
+
+    /**
+     * @return the value of a header the fallback message would add, or {@code null}
+     */
+    public String getHeader(String name) {
+        for (String[] header : headers) {
+            if (header[0].equalsIgnoreCase(name)) {
+                return header[1];
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return offset of the payload root element in an envelope returned by {@link #write}
+     */
+    public int payloadOffset() {
+        return payloadStart;
+    }
+
+    /**
+     * @return length of the payload root element in an envelope returned by {@link #write}
+     */
+    public int payloadLength(byte[] envelope) {
+        return envelope.length - payloadEndFromSuffix - payloadStart;
+    }
+
+    private boolean compile(WebServiceMessageFactory messageFactory, Marshaller marshaller) throws Exception {
+        List<Field> candidates = new ArrayList<>();
+        for (Field field : payloadType.getDeclaredFields()) {
+            if (Modifier.isStatic(field.getModifiers()) || Modifier.isTransient(field.getModifiers())) {
+                continue;
+            }
+            if (field.getType() != String.class) {
+                logger.info("Request envelope not precompiled: {}.{} is not a string", payloadType.getSimpleName(), field.getName());
+                return false;
+            }
+            field.setAccessible(true);
+            candidates.add(field);
+        }
+        if (candidates.isEmpty() || payloadType.getSuperclass() != Object.class) {
+            logger.info("Request envelope not precompiled: {} is not a flat bean", payloadType.getSimpleName());
+            return false;
+        }
+
+        Object marked = payloadType.getDeclaredConstructor().newInstance();
+        for (int i = 0; i < candidates.size(); i++) {
+            candidates.get(i).set(marked, MARKER + i + "_");
+        }
+        HeaderCapture capture = new HeaderCapture();
+        byte[] template = render(messageFactory, marshaller, marked, capture);
+        String text = new String(template, StandardCharsets.UTF_8);
+
+        int[] markerAt = new int[candidates.size()];
+        for (int i = 0; i < candidates.size(); i++) {
+            String marker = MARKER + i + "_";
+            markerAt[i] = text.indexOf(marker);
+            if (markerAt[i] < 0 || text.indexOf(marker, markerAt[i] + 1) >= 0) {
+                logger.info("Request envelope not precompiled: {} is not written once as element text", candidates.get(i).getName());
+                return false;
+            }
+        }
+        Integer[] order = new Integer[candidates.size()];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, Comparator.comparingInt(i -> markerAt[i]));
+
+        fields = new Field[order.length];
+        openTags = new byte[order.length][];
+        closeTags = new byte[order.length][];
+        emptyTags = new byte[order.length][];
+        int previousEnd = -1;
+        int firstStart = -1;
+        for (int k = 0; k < order.length; k++) {
+            int i = order[k];
+            int valueStart = markerAt[i];
+            int valueEnd = valueStart + (MARKER + i + "_").length();
+            int openStart = text.lastIndexOf('<', valueStart);
+            int closeEnd = text.indexOf('>', valueEnd) + 1;
+            // Element tags must sit directly around the value, and elements directly after each other
+            if (openStart < 0 || closeEnd <= 0 || text.charAt(valueStart - 1) != '>' || text.charAt(valueEnd) != '<'
+                    || (previousEnd >= 0 && openStart != previousEnd)) {
+                logger.info("Request envelope not precompiled: unexpected markup around {}", candidates.get(i).getName());
+                return false;
+            }
+            fields[k] = candidates.get(i);
+            String openTag = text.substring(openStart, valueStart);
+            openTags[k] = bytes(openTag);
+            closeTags[k] = bytes(text.substring(valueEnd, closeEnd));
+            emptyTags[k] = bytes(openTag.substring(0, openTag.length() - 1) + "/>");
+            if (firstStart < 0) {
+                firstStart = openStart;
+            }
+            previousEnd = closeEnd;
+        }
+        String prefixText = text.substring(0, firstStart);
+        String suffixText = text.substring(previousEnd);
+        prefix = bytes(prefixText);
+        suffix = bytes(suffixText);
+
+        // With no fields set the root element closes itself
+        payloadStart = prefix.length - bytes(prefixText.substring(prefixText.lastIndexOf('<'))).length;
+        int rootCloseEnd = suffixText.indexOf('>') + 1;
+        payloadEndFromSuffix = suffix.length - rootCloseEnd;
+        String emptyRoot = prefixText.substring(prefixText.lastIndexOf('<'), prefixText.length() - 1) + "/>";
+        emptyEnvelope = bytes(prefixText.substring(0, prefixText.lastIndexOf('<')) + emptyRoot + suffixText.substring(rootCloseEnd));
+
+        headers = capture.headers.toArray(new String[0][]);
+        return true;
+    }
+
+    private boolean verify(WebServiceMessageFactory messageFactory, Marshaller marshaller) throws Exception {
+        List<Object> probes = new ArrayList<>();
+        probes.add(probe());
+        probes.add(probe(""));
+        probes.add(probe(PROBE_VALUE));
+        for (int i = 0; i < fields.length; i++) {
+            Object single = probe();
+            fields[i].set(single, "v" + i);
+            probes.add(single);
+            Object allBut = probe(PROBE_VALUE);
+            fields[i].set(allBut, i % 2 == 0 ? null : "");
+            probes.add(allBut);
+        }
+        for (Object probe : probes) {
+            HeaderCapture capture = new HeaderCapture();
+            byte[] expected = render(messageFactory, marshaller, probe, capture);
+            byte[] actual = writeCompiled(new JAXBElement<>(rootElement, castType(), probe));
+            if (!Arrays.equals(expected, actual) || !sameHeaders(capture.headers, expected.length)) {
+                logger.warn("Request envelope not precompiled: template output differs from JAXB for a probe request; expected {}, got {}",
+                        new String(expected, StandardCharsets.UTF_8),
+                        actual != null ? new String(actual, StandardCharsets.UTF_8) : null);
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean sameHeaders(List<String[]> expected, int contentLength) {
+        if (expected.size() != headers.length) {
+            return false;
+        }
+        for (int i = 0; i < headers.length; i++) {
+            String value = CONTENT_LENGTH.equalsIgnoreCase(headers[i][0]) ? Integer.toString(contentLength) : headers[i][1];
+            if (!headers[i][0].equals(expected.get(i)[0]) || !value.equals(expected.get(i)[1])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private Object probe(String... value) throws Exception {
+        Object probe = payloadType.getDeclaredConstructor().newInstance();
+        for (Field field : fields) {
+            field.set(probe, value.length > 0 ? value[0] : null);
+        }
+        return probe;
+    }
+
+    @SuppressWarnings("unchecked")
+    private Class<Object> castType() {
+        return (Class<Object>) payloadType;
+    }
+
+    private byte[] render(WebServiceMessageFactory messageFactory, Marshaller marshaller, Object payload,
+                          HeaderCapture capture) throws IOException {
+        WebServiceMessage message = messageFactory.createWebServiceMessage();
+        MarshallingUtils.marshal(marshaller, new JAXBElement<>(rootElement, castType(), payload), message);
+        message.writeTo(capture);
+        return capture.body.toByteArray();
+    }
+
+    private static String read(Field field, Object payload) {
+        try {
+            return (String) field.get(payload);
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException("Cannot read " + field.getName(), e);
+        }
+    }
+
+    /**
+     * @return the UTF-8 length of the escaped value, or -1 if it contains a character left to JAXB
+     */
+    private static int escapedLength(String value) {
+        int length = 0;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '&') {
+                length += AMP.length;
+            } else if (c == '<') {
+                length += LT.length;
+            } else if (c == '>') {
+                length += GT.length;
+            } else if ((c >= 0x20 && c < 0x7f) || c == '\t' || c == '\n') {
+                length++;
+            } else {
+                return -1;
+            }
+        }
+        return length;
+    }
+
+    private static int appendEscaped(String value, byte[] into, int position) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '&') {
+                position = append(AMP, into, position);
+            } else if (c == '<') {
+                position = append(LT, into, position);
+            } else if (c == '>') {
+                position = append(GT, into, position);
+            } else {
+                into[position++] = (byte) c;
+            }
+        }
+        return position;
+    }
+
+    private static int append(byte[] bytes, byte[] into, int position) {
+        System.arraycopy(bytes, 0, into, position, bytes.length);
+        return position + bytes.length;
+    }
+
+    private static byte[] bytes(String text) {
+        return text.getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Records the headers a message adds when written to a transport, and the body.
+     */
+    private static final class HeaderCapture extends TransportOutputStream {
+        private final List<String[]> headers = new ArrayList<>();
+        private final ByteArrayOutputStream body = new ByteArrayOutputStream();
+
+        @Override
+        public void addHeader(String name, String value) {
+            headers.add(new String[]{name, value});
+        }
+
+        @Override
+        protected OutputStream createOutputStream() {
+            return body;
+        }
+    }
+}
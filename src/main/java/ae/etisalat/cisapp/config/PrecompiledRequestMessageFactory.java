@@ -0,0 +1,175 @@
+package ae.etisalat.cisapp.config;
+
+import org.springframework.ws.FaultAwareWebServiceMessage;
+import org.springframework.ws.WebServiceMessage;
+import org.springframework.ws.WebServiceMessageFactory;
+import org.w3c.dom.Node;
+
+import javax.xml.namespace.QName;
+import javax.xml.transform.Result;
+import javax.xml.transform.Source;
+import javax.xml.transform.dom.DOMResult;
+import javax.xml.transform.stream.StreamSource;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * Creates request messages that are written from a {@link PrecompiledRequestEnvelope} when the
+ * marshaller hands them a payload the envelope can write, and otherwise behave like a message of the
+ * delegate factory, which is then created on first use. Responses are created by the delegate.
+ *
+ * @see PrecompiledEnvelopeMarshaller
+ */
+public class PrecompiledRequestMessageFactory implements WebServiceMessageFactory {
+
+    private final WebServiceMessageFactory delegate;
+    private final PrecompiledRequestEnvelope envelope;
+
+    public PrecompiledRequestMessageFactory(WebServiceMessageFactory delegate, PrecompiledRequestEnvelope envelope) {
+        this.delegate = delegate;
+        this.envelope = envelope;
+    }
+
+    @Override
+    public WebServiceMessage createWebServiceMessage() {
+        return new PrecompiledRequestMessage();
+    }
+
+    @Override
+    public WebServiceMessage createWebServiceMessage(InputStream inputStream) throws IOException {
+        return delegate.createWebServiceMessage(inputStream);
+    }
+
+    /**
+     * Request message holding either precompiled envelope bytes or a delegate message. It is fault
+     * aware because the template only reads an HTTP 500 response as a SOAP fault for such requests.
+     */
+    public final class PrecompiledRequestMessage implements FaultAwareWebServiceMessage {
+        private byte[] bytes;
+        private WebServiceMessage fallback;
+
+        private PrecompiledRequestMessage() {
+        }
+
+        /**
+         * @return whether the message will be written from the precompiled envelope
+         */
+        public boolean isPrecompiled() {
+            return bytes != null;
+        }
+
+        /**
+         * @return the value of a transport header the message adds, such as {@code Content-Type}
+         */
+        public String getHeader(String name) {
+            return envelope.getHeader(name);
+        }
+
+        @Override
+        public Source getPayloadSource() {
+            if (bytes != null) {
+                return new StreamSource(new ByteArrayInputStream(bytes, envelope.payloadOffset(), envelope.payloadLength(bytes)));
+            }
+            return fallback().getPayloadSource();
+        }
+
+        /**
+         * Replaces the payload. The result is a {@link DOMResult} over the delegate message's body, so
+         * any marshaller can write to it; the delegate is only created once its node is asked for.
+         */
+        @Override
+        public Result getPayloadResult() {
+            bytes = null;
+            return new PayloadResult(this);
+        }
+
+        @Override
+        public boolean hasFault() {
+            return bytes == null && fallback instanceof FaultAwareWebServiceMessage message && message.hasFault();
+        }
+
+        @Override
+        public QName getFaultCode() {
+            return bytes == null && fallback instanceof FaultAwareWebServiceMessage message ? message.getFaultCode() : null;
+        }
+
+        @Override
+        public String getFaultReason() {
+            return bytes == null && fallback instanceof FaultAwareWebServiceMessage message ? message.getFaultReason() : null;
+        }
+
+        @Override
+        public void writeTo(OutputStream outputStream) throws IOException {
+            if (bytes == null) {
+                fallback().writeTo(outputStream);
+                return;
+            }
+            envelope.writeHeaders(outputStream, bytes.length);
+            outputStream.write(bytes);
+            outputStream.flush();
+        }
+
+        private WebServiceMessage fallback() {
+            if (fallback == null) {
+                fallback = delegate.createWebServiceMessage();
+            }
+            return fallback;
+        }
+
+        private DOMResult fallbackPayloadResult() {
+            if (!(fallback().getPayloadResult() instanceof DOMResult result)) {
+                throw new IllegalStateException("Delegate message does not accept a DOM payload");
+            }
+            return result;
+        }
+    }
+
+    /**
+     * Payload result of a {@link PrecompiledRequestMessage}. Marshalling into it through the
+     * {@link DOMResult} methods creates the delegate message; {@link #write} takes the precompiled path.
+     */
+    public final class PayloadResult extends DOMResult {
+        private final PrecompiledRequestMessage message;
+        private DOMResult target;
+
+        private PayloadResult(PrecompiledRequestMessage message) {
+            this.message = message;
+        }
+
+        /**
+         * @return {@code true} if the payload was written from the precompiled envelope, {@code false}
+         * if it must be marshalled into this result instead
+         */
+        public boolean write(Object graph) {
+            if (target != null) {
+                return false;
+            }
+            byte[] bytes = envelope.write(graph);
+            if (bytes == null) {
+                return false;
+            }
+            message.bytes = bytes;
+            return true;
+        }
+
+        @Override
+        public Node getNode() {
+            return target().getNode();
+        }
+
+        @Override
+        public Node getNextSibling() {
+            return target().getNextSibling();
+        }
+
+        private DOMResult target() {
+            if (target == null) {
+                message.bytes = null;
+                target = message.fallbackPayloadResult();
+            }
+            return target;
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package ae.etisalat.cisapp.config;
+
+import org.apache.hc.client5.http.classic.ExecChain;
+import org.apache.hc.client5.http.classic.ExecChainHandler;
+import org.apache.hc.core5.http.ClassicHttpRequest;
+import org.apache.hc.core5.http.ClassicHttpResponse;
+import org.apache.hc.core5.http.ContentType;
+import org.apache.hc.core5.http.HttpEntity;
+import org.apache.hc.core5.http.HttpException;
+import org.apache.hc.core5.http.HttpHeaders;
+import org.apache.hc.core5.http.io.entity.ByteArrayEntity;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Gzips request bodies of at least {@code threshold} bytes. Registered before
+ * {@code ChainElement.PROTOCOL}, so that the protocol interceptors set {@code Content-Length} and
+ * {@code Content-Encoding} for the compressed body. The original entity is kept in the exchange
+ * context so payload capture still sees the SOAP envelope. The compressed entity stays repeatable,
+ * and a retried request is not compressed twice.
+ */
+public class RequestCompressionInterceptor implements ExecChainHandler {
+
+    /**
+     * Context attribute holding the request entity as it was before compression.
+     */
+    static final String UNCOMPRESSED_ENTITY_ATTRIBUTE = RequestCompressionInterceptor.class.getName() + ".uncompressed";
+
+    private final int threshold;
+
+    public RequestCompressionInterceptor(int threshold) {
+        this.threshold = threshold;
+    }
+
+    @Override
+    public ClassicHttpResponse execute(ClassicHttpRequest request, ExecChain.Scope scope, ExecChain chain)
+            throws IOException, HttpException {
+        HttpEntity entity = request.getEntity();
+        if (entity != null && entity.isRepeatable() && !ContentCoding.isEncoded(entity.getContentEncoding())
+                && !request.containsHeader(HttpHeaders.CONTENT_ENCODING)
+                && ContentCoding.shouldCompress(entity.getContentLength(), threshold)) {
+            byte[] body;
+            try (InputStream content = entity.getContent()) {
+                body = content.readAllBytes();
+            }
+            ContentType contentType = entity.getContentType() != null ? ContentType.parse(entity.getContentType()) : null;
+            request.setEntity(new ByteArrayEntity(ContentCoding.gzip(body, 0, body.length), contentType, ContentCoding.GZIP));
+            scope.clientContext.setAttribute(UNCOMPRESSED_ENTITY_ATTRIBUTE, entity);
+        }
+        return chain.proceed(request, scope);
+    }
+}
@@ -0,0 +1,236 @@
+package ae.etisalat.cisapp.config;
+
+import org.springframework.ws.WebServiceMessage;
+import org.springframework.ws.WebServiceMessageFactory;
+import org.springframework.ws.transport.TransportInputStream;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.transform.Result;
+import javax.xml.transform.Source;
+import javax.xml.transform.stax.StAXSource;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.SequenceInputStream;
+import java.util.Iterator;
+
+/**
+ * Message factory that reads plain SOAP 1.1 responses with a StAX parser instead of building a DOM.
+ * The envelope is read up to the start of the body's payload element, and the payload is then handed
+ * out as a {@link StAXSource} for the unmarshaller to pull from the connection. Nothing is cached, so
+ * the payload source can be read exactly once.
+ * <p>
+ * Requests, and responses that are anything else (faults, SOAP 1.2, attachments, unexpected markup),
+ * are created by the delegate. Those responses are replayed to it from the bytes read so far, so
+ * fault handling and error reporting stay the delegate's.
+ */
+public class StaxSoapMessageFactory implements WebServiceMessageFactory {
+
+    private static final String SOAP_11_NAMESPACE = "http://schemas.xmlsoap.org/soap/envelope/";
+
+    private final WebServiceMessageFactory delegate;
+    private final XMLInputFactory inputFactory;
+
+    public StaxSoapMessageFactory(WebServiceMessageFactory delegate) {
+        this.delegate = delegate;
+        this.inputFactory = XMLInputFactory.newFactory();
+        inputFactory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        inputFactory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+    }
+
+    @Override
+    public WebServiceMessage createWebServiceMessage() {
+        return delegate.createWebServiceMessage();
+    }
+
+    @Override
+    public WebServiceMessage createWebServiceMessage(InputStream inputStream) throws IOException {
+        if (!isPlainSoap11(inputStream)) {
+            return delegate.createWebServiceMessage(inputStream);
+        }
+        RecordingInputStream recording = new RecordingInputStream(inputStream);
+        XMLStreamReader reader = null;
+        try {
+            reader = inputFactory.createXMLStreamReader(recording);
+            if (isSoap11(reader.nextTag(), reader, "Envelope")) {
+                int event = reader.nextTag();
+                if (isSoap11(event, reader, "Header")) {
+                    skipElement(reader);
+                    event = reader.nextTag();
+                }
+                if (isSoap11(event, reader, "Body")) {
+                    event = reader.nextTag();
+                    if (event == XMLStreamConstants.END_ELEMENT) {
+                        recording.stopRecording();
+                        return new StaxPayloadMessage(null);
+                    }
+                    if (!SOAP_11_NAMESPACE.equals(reader.getNamespaceURI())) {
+                        recording.stopRecording();
+                        return new StaxPayloadMessage(reader);
+                    }
+                }
+            }
+        } catch (XMLStreamException e) {
+            // Left to the delegate, which reports malformed messages its own way
+        }
+        close(reader);
+        return delegate.createWebServiceMessage(recording.replay());
+    }
+
+    private static boolean isPlainSoap11(InputStream inputStream) throws IOException {
+        if (!(inputStream instanceof TransportInputStream transportInputStream)) {
+            return true;
+        }
+        Iterator<String> contentTypes = transportInputStream.getHeaders("Content-Type");
+        if (!contentTypes.hasNext()) {
+            return true;
+        }
+        String contentType = contentTypes.next().toLowerCase();
+        return contentType.startsWith("text/xml");
+    }
+
+    private static boolean isSoap11(int event, XMLStreamReader reader, String localName) {
+        return event == XMLStreamConstants.START_ELEMENT && localName.equals(reader.getLocalName())
+                && SOAP_11_NAMESPACE.equals(reader.getNamespaceURI());
+    }
+
+    private static void skipElement(XMLStreamReader reader) throws XMLStreamException {
+        for (int depth = 1; depth > 0; ) {
+            int event = reader.next();
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                depth++;
+            } else if (event == XMLStreamConstants.END_ELEMENT) {
+                depth--;
+            }
+        }
+    }
+
+    private static void close(XMLStreamReader reader) {
+        if (reader != null) {
+            try {
+                reader.close();
+            } catch (XMLStreamException e) {
+                // Does not close the underlying stream, which is replayed
+            }
+        }
+    }
+
+    /**
+     * Response whose payload element has not been read yet.
+     */
+    static final class StaxPayloadMessage implements WebServiceMessage {
+        private XMLStreamReader reader;
+        private final boolean hasPayload;
+
+        StaxPayloadMessage(XMLStreamReader reader) {
+            this.reader = reader;
+            this.hasPayload = reader != null;
+        }
+
+        /**
+         * @return the payload, or {@code null} for an empty body
+         * @throws IllegalStateException if the payload has already been handed out
+         */
+        @Override
+        public Source getPayloadSource() {
+            if (!hasPayload) {
+                return null;
+            }
+            if (reader == null) {
+                throw new IllegalStateException("Streamed SOAP payload can only be read once");
+            }
+            StAXSource source = new StAXSource(reader);
+            reader = null;
+            return source;
+        }
+
+        @Override
+        public Result getPayloadResult() {
+            throw new UnsupportedOperationException("Streamed SOAP response is read-only");
+        }
+
+        @Override
+        public void writeTo(OutputStream outputStream) {
+            throw new UnsupportedOperationException("Streamed SOAP response is not kept and cannot be written");
+        }
+    }
+
+    /**
+     * Keeps what the parser has read until the message type is known, so that it can be replayed.
+     */
+    private static final class RecordingInputStream extends FilterInputStream {
+        private ByteArrayOutputStream recorded = new ByteArrayOutputStream();
+
+        RecordingInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = in.read();
+            if (b >= 0 && recorded != null) {
+                recorded.write(b);
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int read = in.read(b, off, len);
+            if (read > 0 && recorded != null) {
+                recorded.write(b, off, read);
+            }
+            return read;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            // Skipped bytes must be recorded too
+            return n > 0 ? Math.max(0, read(new byte[(int) Math.min(n, 8192)])) : 0;
+        }
+
+        void stopRecording() {
+            recorded = null;
+        }
+
+        InputStream replay() {
+            InputStream replayed = new SequenceInputStream(new ByteArrayInputStream(recorded.toByteArray()), in);
+            return in instanceof TransportInputStream transportInputStream
+                    ? new ReplayedTransportInputStream(replayed, transportInputStream) : replayed;
+        }
+    }
+
+    /**
+     * Replayed bytes with the transport headers of the original stream, which SAAJ reads.
+     */
+    private static final class ReplayedTransportInputStream extends TransportInputStream {
+        private final InputStream replayed;
+        private final TransportInputStream original;
+
+        ReplayedTransportInputStream(InputStream replayed, TransportInputStream original) {
+            this.replayed = replayed;
+            this.original = original;
+        }
+
+        @Override
+        protected InputStream createInputStream() {
+            return replayed;
+        }
+
+        @Override
+        public Iterator<String> getHeaderNames() throws IOException {
+            return original.getHeaderNames();
+        }
+
+        @Override
+        public Iterator<String> getHeaders(String name) throws IOException {
+            return original.getHeaders(name);
+        }
+    }
+}
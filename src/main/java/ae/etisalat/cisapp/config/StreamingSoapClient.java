@@ -0,0 +1,101 @@
+package ae.etisalat.cisapp.config;
+
+import org.springframework.ws.WebServiceMessage;
+import org.springframework.ws.WebServiceMessageFactory;
+import org.springframework.ws.client.core.WebServiceMessageCallback;
+import org.springframework.ws.client.core.WebServiceMessageExtractor;
+import org.springframework.ws.client.core.WebServiceTemplate;
+import org.springframework.ws.support.MarshallingUtils;
+
+import javax.xml.transform.Result;
+import javax.xml.transform.Source;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * Counterpart of {@link WebServiceTemplate#marshalSendAndReceive(Object)} for callers that read the
+ * response with a pull parser. Requests are built by the given template's message factory and
+ * marshaller; the response is not parsed at all, and its raw stream is handed to a
+ * {@link ResponseBodyHandler} while the connection is still open. Senders, default URI and client
+ * interceptors are shared with the template, so transport settings, metrics and logging are the same.
+ * <p>
+ * Responses never look like SOAP faults to the template, so faults (HTTP 500 with an XML body) reach
+ * the handler too.
+ */
+public class StreamingSoapClient {
+
+    /**
+     * Reads the response body. The stream is only valid until the handler returns.
+     */
+    @FunctionalInterface
+    public interface ResponseBodyHandler<T> {
+        T handle(InputStream body) throws IOException;
+    }
+
+    private final WebServiceTemplate streamingTemplate;
+
+    public StreamingSoapClient(WebServiceTemplate webServiceTemplate) {
+        this.streamingTemplate = new WebServiceTemplate(new RawResponseMessageFactory(webServiceTemplate.getMessageFactory()));
+        streamingTemplate.setMarshaller(webServiceTemplate.getMarshaller());
+        streamingTemplate.setMessageSenders(webServiceTemplate.getMessageSenders());
+        streamingTemplate.setInterceptors(webServiceTemplate.getInterceptors());
+        streamingTemplate.setDestinationProvider(webServiceTemplate.getDestinationProvider());
+    }
+
+    /**
+     * Sends the payload to the template's default URI.
+     *
+     * @return the handler's result, or {@code null} when the backend returned an empty body
+     */
+    public <T> T marshalSendAndStream(Object requestPayload, ResponseBodyHandler<T> handler) {
+        WebServiceMessageCallback requestCallback =
+                request -> MarshallingUtils.marshal(streamingTemplate.getMarshaller(), requestPayload, request);
+        WebServiceMessageExtractor<T> responseExtractor = response -> handler.handle(((RawResponseMessage) response).body);
+        return streamingTemplate.sendAndReceive(requestCallback, responseExtractor);
+    }
+
+    /**
+     * Delegates request messages and wraps response streams without reading them.
+     */
+    private static final class RawResponseMessageFactory implements WebServiceMessageFactory {
+        private final WebServiceMessageFactory delegate;
+
+        RawResponseMessageFactory(WebServiceMessageFactory delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public WebServiceMessage createWebServiceMessage() {
+            return delegate.createWebServiceMessage();
+        }
+
+        @Override
+        public WebServiceMessage createWebServiceMessage(InputStream inputStream) {
+            return new RawResponseMessage(inputStream);
+        }
+    }
+
+    private static final class RawResponseMessage implements WebServiceMessage {
+        private final InputStream body;
+
+        RawResponseMessage(InputStream body) {
+            this.body = body;
+        }
+
+        @Override
+        public Source getPayloadSource() {
+            throw new UnsupportedOperationException("Streamed response has no payload source");
+        }
+
+        @Override
+        public Result getPayloadResult() {
+            throw new UnsupportedOperationException("Streamed response has no payload result");
+        }
+
+        @Override
+        public void writeTo(OutputStream outputStream) throws IOException {
+            body.transferTo(outputStream);
+        }
+    }
+}
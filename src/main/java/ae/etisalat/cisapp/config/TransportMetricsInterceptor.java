@@ -0,0 +1,129 @@
+package ae.etisalat.cisapp.config;
+
+import ae.etisalat.cisapp.metrics.CisClientMetrics;
+import org.apache.hc.client5.http.classic.ExecChain;
+import org.apache.hc.client5.http.classic.ExecChainHandler;
+import org.apache.hc.core5.http.ClassicHttpResponse;
+import org.apache.hc.core5.http.HttpEntity;
+import org.apache.hc.core5.http.io.entity.HttpEntityWrapper;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.function.LongConsumer;
+
+/**
+ * Splits a pooled HttpClient call into connection acquisition, send, time-to-first-byte and body
+ * receive. Two exec chain handlers bracket the connect step: the first marks the start, the second
+ * runs once a connection is leased (and connected) and wraps both entities to see when the request
+ * has been written and the response fully read. Byte counts are taken below content decompression,
+ * so they are wire sizes. A third handler, registered ahead of all of them, counts the same bodies
+ * uncompressed.
+ */
+public class TransportMetricsInterceptor {
+
+    private static final String TIMINGS_ATTRIBUTE = TransportMetricsInterceptor.class.getName() + ".timings";
+
+    private final CisClientMetrics metrics;
+
+    public TransportMetricsInterceptor(CisClientMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    /**
+     * To be registered first, so that it sees the request before it is compressed and the response
+     * after it is decompressed.
+     */
+    public ExecChainHandler beforeCompression() {
+        return (request, scope, chain) -> {
+            if (request.getEntity() != null) {
+                metrics.recordPayloadBytesOut(request.getEntity().getContentLength());
+            }
+            ClassicHttpResponse response = chain.proceed(request, scope);
+            if (response.getEntity() != null) {
+                response.setEntity(new CountedResponseEntity(response.getEntity(), metrics::recordPayloadBytesIn));
+            }
+            return response;
+        };
+    }
+
+    /**
+     * To be registered before {@code ChainElement.CONNECT}.
+     */
+    public ExecChainHandler beforeConnect() {
+        return (request, scope, chain) -> {
+            scope.clientContext.setAttribute(TIMINGS_ATTRIBUTE, new Timings(System.nanoTime()));
+            return chain.proceed(request, scope);
+        };
+    }
+
+    /**
+     * To be registered before {@code ChainElement.MAIN_TRANSPORT}.
+     */
+    public ExecChainHandler beforeTransport() {
+        return (request, scope, chain) -> {
+            if (!(scope.clientContext.getAttribute(TIMINGS_ATTRIBUTE) instanceof Timings timings)) {
+                return chain.proceed(request, scope);
+            }
+            timings.acquired = System.nanoTime();
+            metrics.record(CisClientMetrics.Phase.CONNECTION_ACQUIRE, timings.acquired - timings.start);
+            if (request.getEntity() != null) {
+                request.setEntity(new TimedRequestEntity(request.getEntity(), timings));
+            }
+
+            ClassicHttpResponse response = chain.proceed(request, scope);
+
+            long headersReceived = System.nanoTime();
+            long sent = timings.sent != 0 ? timings.sent : timings.acquired;
+            metrics.record(CisClientMetrics.Phase.TIME_TO_FIRST_BYTE, headersReceived - sent);
+            if (response.getEntity() != null) {
+                response.setEntity(new CountedResponseEntity(response.getEntity(), count -> {
+                    metrics.record(CisClientMetrics.Phase.BODY_RECEIVE, System.nanoTime() - headersReceived);
+                    metrics.recordBytesIn(count);
+                }));
+            }
+            return response;
+        };
+    }
+
+    private static final class Timings {
+        private final long start;
+        private long acquired;
+        private long sent;
+
+        Timings(long start) {
+            this.start = start;
+        }
+    }
+
+    private class TimedRequestEntity extends HttpEntityWrapper {
+        private final Timings timings;
+
+        TimedRequestEntity(HttpEntity wrappedEntity, Timings timings) {
+            super(wrappedEntity);
+            this.timings = timings;
+        }
+
+        @Override
+        public void writeTo(OutputStream outStream) throws IOException {
+            super.writeTo(outStream);
+            timings.sent = System.nanoTime();
+            metrics.record(CisClientMetrics.Phase.SEND, timings.sent - timings.acquired);
+            metrics.recordBytesOut(getContentLength());
+        }
+    }
+
+    private static final class CountedResponseEntity extends HttpEntityWrapper {
+        private final LongConsumer onEnd;
+
+        CountedResponseEntity(HttpEntity wrappedEntity, LongConsumer onEnd) {
+            super(wrappedEntity);
+            this.onEnd = onEnd;
+        }
+
+        @Override
+        public InputStream getContent() throws IOException {
+            return new CountingInputStream(super.getContent(), onEnd);
+        }
+    }
+}
@@ -1,35 +1,113 @@
 package ae.etisalat.cisapp.config;
 
 import ae.etisalat.cisapp.interceptor.LoggingWebServiceInterceptor;
+import ae.etisalat.cisapp.interceptor.MetricsClientInterceptor;
+import ae.etisalat.cisapp.logging.PayloadCapturePolicy;
+import ae.etisalat.cisapp.metrics.CisClientMetrics;
+import ae.etisalat.cisapp.metrics.MeteredMarshaller;
+import ae.etisalat.cisapp.service.CisAdaptiveTimeout;
+import ae.etisalat.cisapp.service.CisEndpointBalancer;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.oxm.jaxb.Jaxb2Marshaller;
+import org.springframework.util.ClassUtils;
 import org.springframework.ws.client.core.WebServiceTemplate;
 import org.springframework.ws.client.support.interceptor.ClientInterceptor;
-import org.springframework.ws.transport.http.HttpUrlConnectionMessageSender;
+import org.springframework.ws.transport.WebServiceMessageSender;
+import sem.cis.pull.cbcm.GetSubscriptionDtls;
 
+import javax.xml.namespace.QName;
+
+import java.net.URI;
+import java.net.http.HttpClient;
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
 
 @Configuration
 public class WebServiceConfig {
 
-    @Value("${webservice.cis.url:http://localhost:8080/soap/cis}")
-    private String defaultUri;
+    private static final Logger logger = LoggerFactory.getLogger(WebServiceConfig.class);
+
+    private static final QName REQUEST_QNAME = new QName("http://cbcm.pull.cis.sem/", "getSubscriptionDtls");
 
     @Value("${webservice.cis.context-path:sem.cis.pull.cbcm}")
     private String contextPath;
 
+    @Value("${webservice.cis.http.connect-timeout:30s}")
+    private Duration connectTimeout;
+
+    // Replaced by CisAdaptiveTimeout when webservice.cis.adaptive-timeout.enabled=true
+    @Value("${webservice.cis.http.read-timeout:60s}")
+    private Duration readTimeout;
+
+    @Value("${webservice.cis.http.pool.enabled:true}")
+    private boolean poolEnabled;
+
+    @Value("${webservice.cis.http.log-headers:true}")
+    private boolean logHeaders;
+
+    @Value("${webservice.cis.http.compression.enabled:true}")
+    private boolean compression;
+
+    @Value("${webservice.cis.http.compression.request-min-bytes:-1}")
+    private int requestCompressionMinBytes;
+
+    @Value("${webservice.cis.http.pool.max-total:200}")
+    private int poolMaxTotal;
+
+    @Value("${webservice.cis.http.pool.max-per-route:50}")
+    private int poolMaxPerRoute;
+
+    @Value("${webservice.cis.http.pool.connection-request-timeout:5s}")
+    private Duration poolConnectionRequestTimeout;
+
+    @Value("${webservice.cis.http.pool.idle-eviction:30s}")
+    private Duration poolIdleEviction;
+
+    @Value("${webservice.cis.http.pool.time-to-live:5m}")
+    private Duration poolTimeToLive;
+
+    @Value("${webservice.cis.http.pool.validate-after-inactivity:2s}")
+    private Duration poolValidateAfterInactivity;
+
+    @Value("${webservice.cis.marshalling.precompiled-envelope.enabled:true}")
+    private boolean precompiledEnvelope;
+
+    @Value("${webservice.cis.marshalling.jaxb-pool.enabled:true}")
+    private boolean jaxbPool;
+
+    @Value("${webservice.cis.marshalling.jaxb-pool.max-idle:64}")
+    private int jaxbPoolMaxIdle;
+
+    // saaj builds a DOM per response; stax unmarshals the payload straight off the connection
+    @Value("${webservice.cis.marshalling.message-factory:saaj}")
+    private String messageFactory;
+
     @Bean
     public Jaxb2Marshaller marshaller() {
-        Jaxb2Marshaller marshaller = new Jaxb2Marshaller();
+        Jaxb2Marshaller marshaller = jaxbPool ? new PooledJaxb2Marshaller(jaxbPoolMaxIdle) : new Jaxb2Marshaller();
 
         // Use explicit class binding instead of context path since the JAR structure
         // might not have the required JAXB metadata files (ObjectFactory or jaxb.index)
-        marshaller.setClassesToBeBound(
+        List<Class<?>> classesToBeBound = new ArrayList<>(List.of(
                 sem.cis.pull.cbcm.GetSubscriptionDtls.class,
                 sem.cis.pull.cbcm.GetSubscriptionDtlsResponse.class
-        );
+        ));
+        // When the JAR does ship an ObjectFactory, bind it too: its @XmlElementDecl entries are what
+        // let JAXB unmarshal the getSubscriptionDtlsResponse root element into a JAXBElement
+        String objectFactoryClass = contextPath + ".ObjectFactory";
+        if (ClassUtils.isPresent(objectFactoryClass, getClass().getClassLoader())) {
+            classesToBeBound.add(ClassUtils.resolveClassName(objectFactoryClass, getClass().getClassLoader()));
+        }
+        marshaller.setClassesToBeBound(classesToBeBound.toArray(new Class<?>[0]));
 
         // Enable support for classes without @XmlRootElement annotation
         marshaller.setSupportJaxbElementClass(true);
@@ -37,22 +115,152 @@ public class WebServiceConfig {
         return marshaller;
     }
 
+    /**
+     * Pooled keep-alive transport, used unless {@code webservice.cis.http.pool.enabled=false}. With
+     * several {@code webservice.cis.endpoints}, each endpoint gets a pool of its own.
+     */
     @Bean
-    public WebServiceTemplate webServiceTemplate(Jaxb2Marshaller marshaller, LoggingWebServiceInterceptor loggingInterceptor) {
+    @ConditionalOnProperty(name = "webservice.cis.http.pool.enabled", havingValue = "true", matchIfMissing = true)
+    public WebServiceMessageSender pooledHttpMessageSender(PayloadCapturePolicy payloadCapturePolicy,
+                                                           CisClientMetrics clientMetrics,
+                                                           CisAdaptiveTimeout adaptiveTimeout,
+                                                           CisEndpointBalancer endpointBalancer,
+                                                           MeterRegistry meterRegistry) {
+        return perEndpoint(endpointBalancer, endpoint -> {
+            PooledHttpMessageSender messageSender = new PooledHttpMessageSender();
+            messageSender.setConnectionTimeout(connectTimeout);
+            messageSender.setReadTimeout(readTimeout);
+            if (adaptiveTimeout.isEnabled()) {
+                messageSender.setReadTimeoutSupplier(adaptiveTimeout::getReadTimeout);
+            }
+            messageSender.setConnectionRequestTimeout(poolConnectionRequestTimeout);
+            messageSender.setMaxTotalConnections(poolMaxTotal);
+            messageSender.setMaxConnectionsPerRoute(poolMaxPerRoute);
+            messageSender.setIdleEvictionTimeout(poolIdleEviction);
+            messageSender.setConnectionTimeToLive(poolTimeToLive);
+            messageSender.setValidateAfterInactivity(poolValidateAfterInactivity);
+            messageSender.setAcceptGzipEncoding(compression);
+            messageSender.setRequestCompressionThreshold(requestCompressionMinBytes);
+            messageSender.setPayloadCapturePolicy(payloadCapturePolicy);
+            messageSender.setClientMetrics(clientMetrics);
+            messageSender.setMeterRegistry(meterRegistry);
+            messageSender.setEndpointName(endpoint.getAuthority());
+            return messageSender;
+        });
+    }
+
+    /**
+     * Legacy per-call {@link java.net.HttpURLConnection} transport, kept for environments
+     * where the pooled client cannot be used.
+     */
+    @Bean
+    @ConditionalOnProperty(name = "webservice.cis.http.pool.enabled", havingValue = "false")
+    public WebServiceMessageSender httpUrlConnectionMessageSender(CisAdaptiveTimeout adaptiveTimeout,
+                                                                  CisClientMetrics clientMetrics,
+                                                                  CisEndpointBalancer endpointBalancer) {
+        return perEndpoint(endpointBalancer, endpoint -> {
+            LoggingHttpUrlConnectionMessageSender messageSender = new LoggingHttpUrlConnectionMessageSender();
+            messageSender.setConnectionTimeout(connectTimeout);
+            messageSender.setReadTimeout(readTimeout);
+            if (adaptiveTimeout.isEnabled()) {
+                messageSender.setReadTimeoutSupplier(adaptiveTimeout::getReadTimeout);
+            }
+            messageSender.setAcceptGzipEncoding(compression);
+            messageSender.setRequestCompressionThreshold(requestCompressionMinBytes);
+            messageSender.setClientMetrics(clientMetrics);
+            return messageSender;
+        });
+    }
+
+    // One transport as before, or one per endpoint behind the balancer
+    private WebServiceMessageSender perEndpoint(CisEndpointBalancer endpointBalancer,
+                                                Function<URI, WebServiceMessageSender> transportFactory) {
+        if (!endpointBalancer.isEnabled()) {
+            return transportFactory.apply(endpointBalancer.getEndpoints().get(0).getUri());
+        }
+        return new LoadBalancingMessageSender(endpointBalancer, transportFactory);
+    }
+
+    @Bean
+    public WebServiceTemplate webServiceTemplate(Jaxb2Marshaller marshaller, LoggingWebServiceInterceptor loggingInterceptor,
+                                                 MetricsClientInterceptor metricsInterceptor,
+                                                 WebServiceMessageSender transportMessageSender,
+                                                 CisClientMetrics clientMetrics,
+                                                 CisEndpointBalancer endpointBalancer) {
         WebServiceTemplate webServiceTemplate = new WebServiceTemplate();
-        webServiceTemplate.setMarshaller(marshaller);
-        webServiceTemplate.setUnmarshaller(marshaller);
-        webServiceTemplate.setDefaultUri(defaultUri);
-
-        // Use custom message sender with enhanced logging capabilities
-        LoggingHttpUrlConnectionMessageSender messageSender = new LoggingHttpUrlConnectionMessageSender();
-        messageSender.setConnectionTimeout(Duration.ofSeconds(30)); // 30 seconds
-        messageSender.setReadTimeout(Duration.ofSeconds(60)); // 60 seconds
+        MeteredMarshaller meteredMarshaller = new MeteredMarshaller(marshaller, clientMetrics);
+        if ("stax".equalsIgnoreCase(messageFactory)) {
+            webServiceTemplate.setMessageFactory(new StaxSoapMessageFactory(webServiceTemplate.getMessageFactory()));
+        } else if (!"saaj".equalsIgnoreCase(messageFactory)) {
+            throw new IllegalArgumentException("Unknown webservice.cis.marshalling.message-factory: " + messageFactory);
+        }
+        if (precompiledEnvelope) {
+            // Built from, and checked against, the SAAJ factory and JAXB marshaller it stands in for
+            PrecompiledRequestEnvelope envelope = new PrecompiledRequestEnvelope(
+                    webServiceTemplate.getMessageFactory(), marshaller, REQUEST_QNAME, GetSubscriptionDtls.class);
+            if (envelope.isSupported()) {
+                webServiceTemplate.setMessageFactory(
+                        new PrecompiledRequestMessageFactory(webServiceTemplate.getMessageFactory(), envelope));
+                meteredMarshaller = new MeteredMarshaller(new PrecompiledEnvelopeMarshaller(marshaller), clientMetrics);
+            } else {
+                logger.warn("Precompiled request envelope unavailable; all CIS requests are marshalled with JAXB");
+            }
+        }
+        webServiceTemplate.setMarshaller(meteredMarshaller);
+        webServiceTemplate.setUnmarshaller(meteredMarshaller);
+        // Only used as is with a single endpoint; the balancer routes calls otherwise
+        webServiceTemplate.setDefaultUri(endpointBalancer.getEndpoints().get(0).getUri().toString());
+
+        // Header logging is an optional decorator around the pooled transport; the URL connection one logs them itself
+        WebServiceMessageSender messageSender = transportMessageSender;
+        if (logHeaders && poolEnabled) {
+            messageSender = new LoggingWebServiceMessageSender(transportMessageSender);
+        }
         webServiceTemplate.setMessageSender(messageSender);
 
-        // Add logging interceptor
-        webServiceTemplate.setInterceptors(new ClientInterceptor[]{loggingInterceptor});
+        // Add logging and metrics interceptors
+        webServiceTemplate.setInterceptors(new ClientInterceptor[]{loggingInterceptor, metricsInterceptor});
 
         return webServiceTemplate;
     }
+
+    /**
+     * Transport for the streaming pull path, which reads responses with StAX instead of SAAJ/JAXB.
+     */
+    @Bean
+    @ConditionalOnProperty(name = "webservice.cis.streaming.enabled", havingValue = "true")
+    public StreamingSoapClient streamingSoapClient(WebServiceTemplate webServiceTemplate) {
+        return new StreamingSoapClient(webServiceTemplate);
+    }
+
+    /**
+     * Non-blocking JDK client for the async pull path. Response handling runs on virtual threads.
+     */
+    @Bean
+    public HttpClient cisAsyncHttpClient() {
+        return HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(connectTimeout)
+                .executor(Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("cis-async-", 0).factory()))
+                .build();
+    }
+
+    @Bean
+    public AsyncSoapClient asyncSoapClient(WebServiceTemplate webServiceTemplate, HttpClient cisAsyncHttpClient,
+                                           PayloadCapturePolicy payloadCapturePolicy,
+                                           CisClientMetrics clientMetrics, CisAdaptiveTimeout adaptiveTimeout,
+                                           CisEndpointBalancer endpointBalancer) {
+        AsyncSoapClient asyncSoapClient = new AsyncSoapClient(webServiceTemplate, cisAsyncHttpClient, readTimeout);
+        asyncSoapClient.setPayloadCapturePolicy(payloadCapturePolicy);
+        asyncSoapClient.setClientMetrics(clientMetrics);
+        asyncSoapClient.setAcceptGzipEncoding(compression);
+        asyncSoapClient.setRequestCompressionThreshold(requestCompressionMinBytes);
+        if (adaptiveTimeout.isEnabled()) {
+            asyncSoapClient.setReadTimeoutSupplier(adaptiveTimeout::getReadTimeout);
+        }
+        if (endpointBalancer.isEnabled()) {
+            asyncSoapClient.setEndpointBalancer(endpointBalancer);
+        }
+        return asyncSoapClient;
+    }
 }
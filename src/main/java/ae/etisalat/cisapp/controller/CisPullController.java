@@ -3,11 +3,33 @@ package ae.etisalat.cisapp.controller;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import sem.cis.pull.cbcm.GetSubscriptionDtls;
 import sem.cis.pull.cbcm.GetSubscriptionDtlsResponse;
+import ae.etisalat.cisapp.dto.CisBatchItemResult;
+import ae.etisalat.cisapp.dto.CisErrorResponseDto;
+import ae.etisalat.cisapp.service.CisAdmissionController;
+import ae.etisalat.cisapp.service.CisBackendUnavailableException;
+import ae.etisalat.cisapp.service.CisBatchService;
+import ae.etisalat.cisapp.service.CisCaller;
+import ae.etisalat.cisapp.service.CisCallerRegistry;
+import ae.etisalat.cisapp.service.CisClientAbortException;
+import ae.etisalat.cisapp.service.CisDeadline;
+import ae.etisalat.cisapp.service.CisDeadlineExceededException;
+import ae.etisalat.cisapp.service.CisDeadlineResolver;
+import ae.etisalat.cisapp.service.CisPullAsyncService;
 import ae.etisalat.cisapp.service.CisPullService;
+import ae.etisalat.cisapp.service.CisQuotaExceededException;
+import ae.etisalat.cisapp.service.CisStreamingPullService;
+import jakarta.servlet.http.HttpServletResponse;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 @RestController
 @RequestMapping("/api/cis")
@@ -16,20 +38,62 @@ public class CisPullController {
     private static final Logger logger = LoggerFactory.getLogger(CisPullController.class);
 
     private final CisPullService cisPullService;
+    private final CisPullAsyncService cisPullAsyncService;
+    private final CisBatchService cisBatchService;
+    private final CisStreamingPullService cisStreamingPullService;
+    private final CisDeadlineResolver deadlineResolver;
+    private final CisAdmissionController admissionController;
+    private final CisCallerRegistry callerRegistry;
 
     @Autowired
-    public CisPullController(CisPullService cisPullService) {
+    public CisPullController(CisPullService cisPullService, CisPullAsyncService cisPullAsyncService,
+                             CisBatchService cisBatchService, CisStreamingPullService cisStreamingPullService,
+                             CisDeadlineResolver deadlineResolver, CisAdmissionController admissionController,
+                             CisCallerRegistry callerRegistry) {
         this.cisPullService = cisPullService;
+        this.cisPullAsyncService = cisPullAsyncService;
+        this.cisBatchService = cisBatchService;
+        this.cisStreamingPullService = cisStreamingPullService;
+        this.deadlineResolver = deadlineResolver;
+        this.admissionController = admissionController;
+        this.callerRegistry = callerRegistry;
     }
 
     @PostMapping("/pull")
-    public ResponseEntity<GetSubscriptionDtlsResponse> pullCustomerInfo(@RequestBody GetSubscriptionDtls request) {
+    public ResponseEntity<?> pullCustomerInfo(
+            @RequestBody GetSubscriptionDtls request,
+            @RequestHeader(value = HttpHeaders.CACHE_CONTROL, required = false) String cacheControl,
+            @RequestHeader(value = CisDeadlineResolver.REQUEST_TIMEOUT_HEADER, required = false) String requestTimeout,
+            @RequestHeader(value = CisCallerRegistry.CALLER_HEADER, required = false) String callerId,
+            @RequestHeader(value = CisCallerRegistry.API_KEY_HEADER, required = false) String apiKey,
+            HttpServletResponse httpResponse) {
         logger.info("Received CIS pull request: {}", request);
 
+        CisDeadline deadline;
         try {
-            GetSubscriptionDtlsResponse response = cisPullService.processCisPullRequest(request);
+            deadline = deadlineResolver.resolve(CisDeadlineResolver.Endpoint.PULL, requestTimeout);
+        } catch (IllegalArgumentException e) {
+            return invalidRequestTimeout(e);
+        }
+
+        CisCaller caller = callerRegistry.resolve(callerId, apiKey);
+
+        if (cisStreamingPullService.isEnabled()) {
+            return streamCustomerInfo(request, deadline, caller, httpResponse);
+        }
+
+        try {
+            boolean bypassCache = cacheControl != null && cacheControl.toLowerCase().contains("no-cache");
+            GetSubscriptionDtlsResponse response = callerRegistry.execute(caller, 1, () -> admissionController.execute(
+                    () -> cisPullService.processCisPullRequest(request, bypassCache, deadline, caller)));
             logger.info("Successfully processed CIS pull request");
             return ResponseEntity.ok(response);
+        } catch (CisQuotaExceededException e) {
+            return quotaExceeded(e);
+        } catch (CisBackendUnavailableException e) {
+            return backendUnavailable(e);
+        } catch (CisDeadlineExceededException e) {
+            return deadlineExceeded(e);
         } catch (Exception e) {
             logger.error("Error processing CIS pull request: {}", e.getMessage(), e);
             // Return error response in the same format as the SOAP response
@@ -40,4 +104,151 @@ public class CisPullController {
             return ResponseEntity.internalServerError().body(errorResponse);
         }
     }
+
+    /**
+     * Streaming mode of {@link #pullCustomerInfo}: JSON is written to the servlet response as the SOAP
+     * response is read, and {@code null} is returned once it has been. Failures before anything was
+     * flushed are answered as on the unmarshalling path; after that the response can only be cut short.
+     */
+    private ResponseEntity<?> streamCustomerInfo(GetSubscriptionDtls request, CisDeadline deadline, CisCaller caller,
+                                                 HttpServletResponse httpResponse) {
+        try {
+            callerRegistry.execute(caller, 1, () -> admissionController.execute(() -> {
+                cisStreamingPullService.processCisPullRequest(request, deadline, caller, () -> {
+                    httpResponse.setStatus(HttpStatus.OK.value());
+                    httpResponse.setContentType(MediaType.APPLICATION_JSON_VALUE);
+                    return httpResponse.getOutputStream();
+                });
+                return null;
+            }));
+            logger.info("Successfully processed CIS pull request");
+            return null;
+        } catch (CisQuotaExceededException e) {
+            return quotaExceeded(e);
+        } catch (CisBackendUnavailableException e) {
+            return backendUnavailable(e);
+        } catch (CisClientAbortException e) {
+            logger.warn("Caller went away while the CIS pull response was streamed: {}", e.getMessage());
+            return null;
+        } catch (RuntimeException e) {
+            if (httpResponse.isCommitted()) {
+                logger.error("Error after the CIS pull response was partly sent: {}", e.getMessage(), e);
+                throw e;
+            }
+            httpResponse.reset();
+            if (e instanceof CisDeadlineExceededException exceeded) {
+                return deadlineExceeded(exceeded);
+            }
+            logger.error("Error processing CIS pull request: {}", e.getMessage(), e);
+            return ResponseEntity.internalServerError().body(new GetSubscriptionDtlsResponse());
+        }
+    }
+
+    /**
+     * Same contract as {@link #pullCustomerInfo}, but the servlet thread is released while the
+     * SOAP call is outstanding.
+     */
+    @PostMapping("/pull/async")
+    public CompletableFuture<ResponseEntity<?>> pullCustomerInfoAsync(
+            @RequestBody GetSubscriptionDtls request,
+            @RequestHeader(value = HttpHeaders.CACHE_CONTROL, required = false) String cacheControl,
+            @RequestHeader(value = CisDeadlineResolver.REQUEST_TIMEOUT_HEADER, required = false) String requestTimeout,
+            @RequestHeader(value = CisCallerRegistry.CALLER_HEADER, required = false) String callerId,
+            @RequestHeader(value = CisCallerRegistry.API_KEY_HEADER, required = false) String apiKey) {
+        logger.info("Received async CIS pull request: {}", request);
+
+        CisDeadline deadline;
+        try {
+            deadline = deadlineResolver.resolve(CisDeadlineResolver.Endpoint.PULL_ASYNC, requestTimeout);
+        } catch (IllegalArgumentException e) {
+            return CompletableFuture.completedFuture(invalidRequestTimeout(e));
+        }
+        boolean bypassCache = cacheControl != null && cacheControl.toLowerCase().contains("no-cache");
+        CisCaller caller = callerRegistry.resolve(callerId, apiKey);
+        return callerRegistry.executeAsync(caller, () -> admissionController.executeAsync(
+                        () -> cisPullAsyncService.processCisPullRequestAsync(request, bypassCache, deadline, caller)))
+                .<ResponseEntity<?>>thenApply(ResponseEntity::ok)
+                .exceptionally(e -> {
+                    Throwable failure = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+                    if (failure instanceof CisQuotaExceededException quotaExceeded) {
+                        return quotaExceeded(quotaExceeded);
+                    }
+                    if (failure instanceof CisBackendUnavailableException unavailable) {
+                        return backendUnavailable(unavailable);
+                    }
+                    if (failure instanceof CisDeadlineExceededException exceeded) {
+                        return deadlineExceeded(exceeded);
+                    }
+                    logger.error("Error processing async CIS pull request: {}", e.getMessage());
+                    return ResponseEntity.internalServerError().body(new GetSubscriptionDtlsResponse());
+                });
+    }
+
+    @PostMapping("/pull/batch")
+    public ResponseEntity<?> pullCustomerInfoBatch(
+            @RequestBody List<GetSubscriptionDtls> requests,
+            @RequestHeader(value = HttpHeaders.CACHE_CONTROL, required = false) String cacheControl,
+            @RequestHeader(value = CisDeadlineResolver.REQUEST_TIMEOUT_HEADER, required = false) String requestTimeout,
+            @RequestHeader(value = CisCallerRegistry.CALLER_HEADER, required = false) String callerId,
+            @RequestHeader(value = CisCallerRegistry.API_KEY_HEADER, required = false) String apiKey) {
+        logger.info("Received CIS pull batch request with {} items", requests.size());
+
+        if (requests.size() > cisBatchService.getMaxItems()) {
+            logger.warn("Rejecting CIS pull batch of {} items, limit is {}", requests.size(), cisBatchService.getMaxItems());
+            return ResponseEntity.badRequest().build();
+        }
+
+        CisDeadline deadline;
+        try {
+            deadline = deadlineResolver.resolve(CisDeadlineResolver.Endpoint.BATCH, requestTimeout);
+        } catch (IllegalArgumentException e) {
+            return invalidRequestTimeout(e);
+        }
+
+        // Per-item failures are reported in the body; the batch itself always succeeds unless over the rate limit
+        boolean bypassCache = cacheControl != null && cacheControl.toLowerCase().contains("no-cache");
+        CisCaller caller = callerRegistry.resolve(callerId, apiKey);
+        try {
+            return ResponseEntity.ok(callerRegistry.execute(caller, requests.size(),
+                    () -> cisBatchService.processBatch(requests, bypassCache, deadline, caller)));
+        } catch (CisQuotaExceededException e) {
+            return quotaExceeded(e);
+        }
+    }
+
+    /**
+     * Fast-fail response for calls rejected by the circuit breaker, bulkhead or admission control.
+     */
+    private ResponseEntity<CisErrorResponseDto> backendUnavailable(CisBackendUnavailableException e) {
+        logger.warn("CIS backend unavailable ({}): {}", e.getReason(), e.getMessage());
+        long retryAfterSeconds = Math.max(1, e.getRetryAfter().toSeconds());
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, Long.toString(retryAfterSeconds))
+                .body(new CisErrorResponseDto(e.getReason().name(), e.getMessage(), retryAfterSeconds));
+    }
+
+    /**
+     * The caller used up its rate limit; every item of a batch counts as one request.
+     */
+    private ResponseEntity<CisErrorResponseDto> quotaExceeded(CisQuotaExceededException e) {
+        logger.warn("CIS pull request over the rate limit of caller {}", e.getCaller());
+        long retryAfterSeconds = Math.max(1, (e.getRetryAfter().toMillis() + 999) / 1000);
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, Long.toString(retryAfterSeconds))
+                .body(new CisErrorResponseDto("QUOTA_EXCEEDED", e.getMessage(), retryAfterSeconds));
+    }
+
+    /**
+     * The caller's budget ran out before a response could be produced.
+     */
+    private ResponseEntity<CisErrorResponseDto> deadlineExceeded(CisDeadlineExceededException e) {
+        logger.warn("CIS pull request deadline exceeded: {}", e.getMessage());
+        return ResponseEntity.status(HttpStatus.GATEWAY_TIMEOUT)
+                .body(new CisErrorResponseDto("DEADLINE_EXCEEDED", e.getMessage(), null));
+    }
+
+    private ResponseEntity<CisErrorResponseDto> invalidRequestTimeout(IllegalArgumentException e) {
+        logger.warn("Rejecting CIS pull request: {}", e.getMessage());
+        return ResponseEntity.badRequest().body(new CisErrorResponseDto("INVALID_REQUEST_TIMEOUT", e.getMessage(), null));
+    }
 }
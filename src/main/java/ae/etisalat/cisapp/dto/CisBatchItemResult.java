@@ -0,0 +1,91 @@
+package ae.etisalat.cisapp.dto;
+
+import sem.cis.pull.cbcm.GetSubscriptionDtlsResponse;
+
+/**
+ * Outcome of one item in a batch CIS pull, reported at the same index as the input item.
+ */
+public class CisBatchItemResult {
+
+    public static final String STATUS_OK = "OK";
+    public static final String STATUS_ERROR = "ERROR";
+
+    private int index;
+    private String status;
+    private GetSubscriptionDtlsResponse response;
+    private String error;
+    private String message;
+
+    public CisBatchItemResult() {}
+
+    public static CisBatchItemResult success(int index, GetSubscriptionDtlsResponse response) {
+        CisBatchItemResult result = new CisBatchItemResult();
+        result.setIndex(index);
+        result.setStatus(STATUS_OK);
+        result.setResponse(response);
+        return result;
+    }
+
+    /**
+     * @param error   fixed code of the kind of failure, as in {@code CisErrorResponseDto}
+     * @param message fixed description of that kind; details are only logged
+     */
+    public static CisBatchItemResult failure(int index, String error, String message) {
+        CisBatchItemResult result = new CisBatchItemResult();
+        result.setIndex(index);
+        result.setStatus(STATUS_ERROR);
+        result.setError(error);
+        result.setMessage(message);
+        return result;
+    }
+
+    // Getters and Setters
+    public int getIndex() {
+        return index;
+    }
+
+    public void setIndex(int index) {
+        this.index = index;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public void setStatus(String status) {
+        this.status = status;
+    }
+
+    public GetSubscriptionDtlsResponse getResponse() {
+        return response;
+    }
+
+    public void setResponse(GetSubscriptionDtlsResponse response) {
+        this.response = response;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public void setError(String error) {
+        this.error = error;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public void setMessage(String message) {
+        this.message = message;
+    }
+
+    @Override
+    public String toString() {
+        return "CisBatchItemResult{" +
+                "index=" + index +
+                ", status='" + status + '\'' +
+                ", error='" + error + '\'' +
+                '}';
+    }
+}
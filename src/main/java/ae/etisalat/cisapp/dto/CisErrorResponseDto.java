@@ -0,0 +1,53 @@
+package ae.etisalat.cisapp.dto;
+
+/**
+ * Error body returned when a CIS call is rejected without reaching the backend.
+ */
+public class CisErrorResponseDto {
+
+    private String error;
+    private String message;
+    private Long retryAfterSeconds;
+
+    public CisErrorResponseDto() {}
+
+    public CisErrorResponseDto(String error, String message, Long retryAfterSeconds) {
+        this.error = error;
+        this.message = message;
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    // Getters and Setters
+    public String getError() {
+        return error;
+    }
+
+    public void setError(String error) {
+        this.error = error;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public void setMessage(String message) {
+        this.message = message;
+    }
+
+    public Long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+
+    public void setRetryAfterSeconds(Long retryAfterSeconds) {
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    @Override
+    public String toString() {
+        return "CisErrorResponseDto{" +
+                "error='" + error + '\'' +
+                ", message='" + message + '\'' +
+                ", retryAfterSeconds=" + retryAfterSeconds +
+                '}';
+    }
+}
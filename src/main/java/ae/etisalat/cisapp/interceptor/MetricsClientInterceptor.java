@@ -0,0 +1,45 @@
+package ae.etisalat.cisapp.interceptor;
+
+import ae.etisalat.cisapp.metrics.CisClientMetrics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.ws.client.WebServiceClientException;
+import org.springframework.ws.client.support.interceptor.ClientInterceptor;
+import org.springframework.ws.context.MessageContext;
+
+/**
+ * Counts SOAP faults and timed-out calls for both the blocking template and the async client.
+ */
+@Component
+public class MetricsClientInterceptor implements ClientInterceptor {
+
+    private final CisClientMetrics metrics;
+
+    @Autowired
+    public MetricsClientInterceptor(CisClientMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    @Override
+    public boolean handleRequest(MessageContext messageContext) throws WebServiceClientException {
+        return true;
+    }
+
+    @Override
+    public boolean handleResponse(MessageContext messageContext) throws WebServiceClientException {
+        return true;
+    }
+
+    @Override
+    public boolean handleFault(MessageContext messageContext) throws WebServiceClientException {
+        metrics.recordFault();
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(MessageContext messageContext, Exception ex) throws WebServiceClientException {
+        if (ex != null) {
+            metrics.recordFailure(ex);
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package ae.etisalat.cisapp.logging;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Decides once per exchange, before anything is copied, whether SOAP payloads are captured:
+ * <ul>
+ *   <li>1 in {@code sample-rate} exchanges are captured outright</li>
+ *   <li>requests containing an allowlisted subscriber value are captured outright</li>
+ *   <li>otherwise the exchange stays pending and is captured only if it faults, fails or is slower
+ *   than {@code slow-threshold}</li>
+ * </ul>
+ * When no rule could apply, no {@link PayloadExchange} is created at all.
+ */
+@Component
+public class PayloadCapturePolicy {
+
+    private static final Logger logger = LoggerFactory.getLogger(PayloadCapturePolicy.class);
+
+    private final PayloadLogWriter writer;
+    private final int sampleRate;
+    private final boolean captureFaults;
+    private final long slowThresholdNanos;
+    private final byte[][] allowlistPatterns;
+
+    /**
+     * @param sampleRate capture 1 in this many exchanges; {@code 1} captures all, {@code 0} disables sampling
+     * @param slowThreshold capture calls whose response takes at least this long; zero disables
+     * @param subscriberAllowlist values matched against element text in the raw request envelope
+     */
+    @Autowired
+    public PayloadCapturePolicy(PayloadLogWriter writer,
+                                @Value("${webservice.cis.payload-log.sample-rate:1000}") int sampleRate,
+                                @Value("${webservice.cis.payload-log.capture-faults:true}") boolean captureFaults,
+                                @Value("${webservice.cis.payload-log.slow-threshold:2s}") Duration slowThreshold,
+                                @Value("${webservice.cis.payload-log.subscriber-allowlist:}") String[] subscriberAllowlist) {
+        this.writer = writer;
+        this.sampleRate = sampleRate;
+        this.captureFaults = captureFaults;
+        this.slowThresholdNanos = slowThreshold.toNanos();
+        // Matching ">value<" keeps the check schema-agnostic while avoiding partial matches
+        this.allowlistPatterns = Arrays.stream(subscriberAllowlist)
+                .map(String::trim)
+                .filter(value -> !value.isEmpty())
+                .map(value -> (">" + value + "<").getBytes(StandardCharsets.UTF_8))
+                .toArray(byte[][]::new);
+    }
+
+    /**
+     * Cheap pre-check so transports can skip building a {@link PayloadExchange.RequestBody}.
+     */
+    public boolean isActive() {
+        return writer.isCapturing();
+    }
+
+    public int getMaxBytes() {
+        return writer.getMaxBytes();
+    }
+
+    /**
+     * Starts an exchange for a request about to be sent; the latency clock starts now.
+     *
+     * @return the exchange, or {@code null} when nothing about it can be captured
+     */
+    public PayloadExchange begin(PayloadExchange.RequestBody requestBody, long requestLength, String requestEncoding) {
+        if (!writer.isCapturing()) {
+            return null;
+        }
+
+        PayloadExchange.CaptureReason reason = null;
+        if (sampleRate == 1 || (sampleRate > 1 && ThreadLocalRandom.current().nextInt(sampleRate) == 0)) {
+            reason = PayloadExchange.CaptureReason.SAMPLED;
+        } else if (allowlistPatterns.length > 0) {
+            try {
+                byte[] data = requestBody.read(writer.getMaxBytes());
+                if (matchesAllowlist(data)) {
+                    reason = PayloadExchange.CaptureReason.ALLOWLIST;
+                }
+                requestBody = maxBytes -> data;
+            } catch (IOException e) {
+                logger.debug("Could not read request payload for allowlist check: {}", e.getMessage());
+            }
+        }
+
+        if (reason == null && !captureFaults && slowThresholdNanos <= 0) {
+            return null;
+        }
+        PayloadExchange exchange = new PayloadExchange(writer, writer.nextExchangeId(), captureFaults,
+                slowThresholdNanos, requestBody, requestLength, requestEncoding);
+        if (reason != null) {
+            exchange.promote(reason);
+        }
+        return exchange;
+    }
+
+    private boolean matchesAllowlist(byte[] data) {
+        for (byte[] pattern : allowlistPatterns) {
+            if (indexOf(data, pattern) >= 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static int indexOf(byte[] data, byte[] pattern) {
+        outer:
+        for (int i = 0; i <= data.length - pattern.length; i++) {
+            for (int j = 0; j < pattern.length; j++) {
+                if (data[i + j] != pattern[j]) {
+                    continue outer;
+                }
+            }
+            return i;
+        }
+        return -1;
+    }
+}
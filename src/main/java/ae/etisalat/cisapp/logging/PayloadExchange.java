@@ -0,0 +1,176 @@
+package ae.etisalat.cisapp.logging;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Capture state of one SOAP exchange. It is either captured from the start (sampled or allowlisted)
+ * or pending, in which case the request body is only referenced, not copied, until a fault, an
+ * exception or a slow response promotes it. Pending exchanges that complete normally cost nothing
+ * beyond this object.
+ */
+public final class PayloadExchange {
+
+    /**
+     * {@link org.springframework.ws.context.MessageContext} property under which transports that own
+     * the message context publish the exchange.
+     */
+    public static final String MESSAGE_CONTEXT_PROPERTY = PayloadExchange.class.getName();
+
+    public enum CaptureReason { SAMPLED, ALLOWLIST, FAULT, SLOW, EXCEPTION }
+
+    /**
+     * Produces the (truncated) request body on demand.
+     */
+    @FunctionalInterface
+    public interface RequestBody {
+        byte[] read(int maxBytes) throws IOException;
+    }
+
+    private static final Logger logger = LoggerFactory.getLogger(PayloadExchange.class);
+
+    private final PayloadLogWriter writer;
+    private final String id;
+    private final long startNanos;
+    private final boolean captureFaults;
+    private final long slowThresholdNanos;
+    private final long requestLength;
+    private final String requestEncoding;
+    private final ReentrantLock lock = new ReentrantLock();
+    private RequestBody requestBody;
+    private CaptureReason reason;
+
+    PayloadExchange(PayloadLogWriter writer, String id, boolean captureFaults, long slowThresholdNanos,
+                    RequestBody requestBody, long requestLength, String requestEncoding) {
+        this.writer = writer;
+        this.id = id;
+        this.startNanos = System.nanoTime();
+        this.captureFaults = captureFaults;
+        this.slowThresholdNanos = slowThresholdNanos;
+        this.requestBody = requestBody;
+        this.requestLength = requestLength;
+        this.requestEncoding = requestEncoding;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    /**
+     * @return why the exchange is captured, or {@code null} while it is still pending
+     */
+    public CaptureReason getReason() {
+        lock.lock();
+        try {
+            return reason;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public boolean isCapturing() {
+        lock.lock();
+        try {
+            return reason != null;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Called once the response status is known, before the body is read. Error statuses and calls
+     * slower than the threshold are promoted here.
+     *
+     * @return whether the response body should be captured
+     */
+    public boolean onResponse(int statusCode) {
+        lock.lock();
+        try {
+            if (reason == null) {
+                if (captureFaults && statusCode >= 400) {
+                    promote(CaptureReason.FAULT);
+                } else if (slowThresholdNanos > 0 && System.nanoTime() - startNanos >= slowThresholdNanos) {
+                    promote(CaptureReason.SLOW);
+                }
+            }
+            return reason != null;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Marks the exchange as captured and writes the request; no-op if it already is.
+     */
+    public void promote(CaptureReason captureReason) {
+        lock.lock();
+        try {
+            if (reason != null) {
+                return;
+            }
+            reason = captureReason;
+            if (requestBody != null) {
+                try {
+                    byte[] data = requestBody.read(writer.getMaxBytes());
+                    writer.submit(new PayloadLogEntry(id, PayloadLogEntry.Direction.REQUEST, data, data.length,
+                            requestLength, requestEncoding, reason));
+                } catch (IOException e) {
+                    logger.debug("Could not read request payload for exchange {}: {}", id, e.getMessage());
+                }
+                requestBody = null;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Copies at most {@code max-bytes} of the response body if the exchange is captured.
+     */
+    public void captureResponse(byte[] payload, int length, String contentEncoding) {
+        lock.lock();
+        try {
+            if (reason != null) {
+                int captured = Math.min(length, writer.getMaxBytes());
+                writer.submit(new PayloadLogEntry(id, PayloadLogEntry.Direction.RESPONSE,
+                        Arrays.copyOf(payload, captured), captured, length, contentEncoding, reason));
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Like {@link #captureResponse}, for data that is already truncated and owned by the caller.
+     */
+    public void submitResponse(byte[] data, int length, long totalLength, String contentEncoding) {
+        lock.lock();
+        try {
+            if (reason != null) {
+                writer.submit(new PayloadLogEntry(id, PayloadLogEntry.Direction.RESPONSE, data, length, totalLength,
+                        contentEncoding, reason));
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Ends the exchange; an exception promotes it when faults are captured. Pending request data is released.
+     */
+    public void complete(Exception ex) {
+        lock.lock();
+        try {
+            if (ex != null && captureFaults) {
+                promote(CaptureReason.EXCEPTION);
+            }
+            requestBody = null;
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package ae.etisalat.cisapp.logging;
+
+/**
+ * One captured SOAP payload, already truncated. The byte array is owned by the entry once submitted.
+ */
+public final class PayloadLogEntry {
+
+    public enum Direction { REQUEST, RESPONSE }
+
+    private final String exchangeId;
+    private final Direction direction;
+    private final byte[] data;
+    private final int length;
+    private final long totalLength;
+    private final String contentEncoding;
+    private final PayloadExchange.CaptureReason captureReason;
+    private final long timestamp;
+
+    /**
+     * @param totalLength full payload size, or {@code -1} if unknown
+     * @param contentEncoding HTTP content encoding of the captured bytes, {@code null} for identity
+     */
+    public PayloadLogEntry(String exchangeId, Direction direction, byte[] data, int length, long totalLength,
+                           String contentEncoding) {
+        this(exchangeId, direction, data, length, totalLength, contentEncoding, null);
+    }
+
+    /**
+     * @param captureReason why the exchange was captured, {@code null} when no policy applied
+     */
+    public PayloadLogEntry(String exchangeId, Direction direction, byte[] data, int length, long totalLength,
+                           String contentEncoding, PayloadExchange.CaptureReason captureReason) {
+        this.exchangeId = exchangeId;
+        this.direction = direction;
+        this.data = data;
+        this.length = length;
+        this.totalLength = totalLength;
+        this.contentEncoding = contentEncoding;
+        this.captureReason = captureReason;
+        this.timestamp = System.currentTimeMillis();
+    }
+
+    public String getExchangeId() {
+        return exchangeId;
+    }
+
+    public Direction getDirection() {
+        return direction;
+    }
+
+    public byte[] getData() {
+        return data;
+    }
+
+    public int getLength() {
+        return length;
+    }
+
+    public long getTotalLength() {
+        return totalLength;
+    }
+
+    public boolean isTruncated() {
+        return totalLength > length;
+    }
+
+    public String getContentEncoding() {
+        return contentEncoding;
+    }
+
+    public PayloadExchange.CaptureReason getCaptureReason() {
+        return captureReason;
+    }
+
+    public long getTimestamp() {
+        return timestamp;
+    }
+}
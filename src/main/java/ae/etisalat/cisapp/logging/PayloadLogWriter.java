@@ -0,0 +1,197 @@
+package ae.etisalat.cisapp.logging;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Background writer for SOAP payloads teed off the HTTP transport. Callers hand over raw bytes,
+ * truncated to {@code max-bytes}, through a bounded lock-free ring; a single daemon thread decodes
+ * and logs them. When the ring is full the entry is dropped and counted, so request threads never
+ * block or serialize anything on behalf of logging. Dropped and truncated entries are published as the
+ * {@code cis.payload.log.dropped} and {@code cis.payload.log.truncated} counters. The writer parks while the ring is empty and is
+ * unparked by the next submission, so an idle writer costs no CPU.
+ * <p>
+ * Capture is active only when enabled and this class's logger is at DEBUG; which exchanges are
+ * captured is decided by {@link PayloadCapturePolicy}.
+ */
+@Component
+public class PayloadLogWriter {
+
+    private static final Logger logger = LoggerFactory.getLogger(PayloadLogWriter.class);
+
+    private final boolean enabled;
+    private final int maxBytes;
+    private final BoundedRingBuffer<PayloadLogEntry> buffer;
+    private final Thread writerThread;
+    private volatile boolean running = true;
+    private volatile boolean idle;
+
+    private final AtomicLong exchangeIds = new AtomicLong();
+    private final AtomicLong submitted = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong truncated = new AtomicLong();
+    private final AtomicLong written = new AtomicLong();
+
+    @Autowired
+    public PayloadLogWriter(MeterRegistry meterRegistry,
+                            @Value("${webservice.cis.payload-log.enabled:true}") boolean enabled,
+                            @Value("${webservice.cis.payload-log.max-bytes:16384}") int maxBytes,
+                            @Value("${webservice.cis.payload-log.buffer-size:1024}") int bufferSize) {
+        this.enabled = enabled;
+        this.maxBytes = maxBytes;
+        this.buffer = new BoundedRingBuffer<>(bufferSize);
+        this.writerThread = Thread.ofPlatform().name("cis-payload-log").daemon().unstarted(this::drainLoop);
+
+        FunctionCounter.builder("cis.payload.log.dropped", dropped, AtomicLong::get)
+                .description("Captured SOAP payloads dropped because the log buffer was full")
+                .register(meterRegistry);
+        FunctionCounter.builder("cis.payload.log.truncated", truncated, AtomicLong::get)
+                .description("Captured SOAP payloads logged truncated to max-bytes")
+                .register(meterRegistry);
+        if (enabled) {
+            writerThread.start();
+        }
+    }
+
+    public boolean isCapturing() {
+        return enabled && logger.isDebugEnabled();
+    }
+
+    public int getMaxBytes() {
+        return maxBytes;
+    }
+
+    public String nextExchangeId() {
+        return "cis-" + exchangeIds.incrementAndGet();
+    }
+
+    /**
+     * Copies at most {@code max-bytes} of {@code payload} and queues it.
+     */
+    public void capture(String exchangeId, PayloadLogEntry.Direction direction, byte[] payload, int length,
+                        String contentEncoding) {
+        int captured = Math.min(length, maxBytes);
+        submit(new PayloadLogEntry(exchangeId, direction, Arrays.copyOf(payload, captured), captured, length,
+                contentEncoding));
+    }
+
+    /**
+     * Queues an entry whose data is already truncated; drops it if the ring is full.
+     */
+    public void submit(PayloadLogEntry entry) {
+        if (!enabled) {
+            return;
+        }
+        if (entry.isTruncated()) {
+            truncated.incrementAndGet();
+        }
+        if (buffer.offer(entry)) {
+            submitted.incrementAndGet();
+            if (idle) {
+                LockSupport.unpark(writerThread);
+            }
+        } else {
+            dropped.incrementAndGet();
+        }
+    }
+
+    private void drainLoop() {
+        while (running) {
+            if (!drain()) {
+                idle = true;
+                // Re-check after publishing idle: an entry offered before submit() could see it is drained
+                // here, and one offered after leaves an unpark permit, so park() never misses a wakeup
+                if (running && buffer.size() == 0) {
+                    LockSupport.park(this);
+                }
+                idle = false;
+            }
+        }
+        drain();
+    }
+
+    /**
+     * @return whether anything was written
+     */
+    private boolean drain() {
+        boolean wroteAny = false;
+        PayloadLogEntry entry;
+        while ((entry = buffer.poll()) != null) {
+            try {
+                write(entry);
+                written.incrementAndGet();
+            } catch (RuntimeException e) {
+                logger.warn("Failed to write SOAP payload log entry: {}", e.getMessage());
+            }
+            wroteAny = true;
+        }
+        return wroteAny;
+    }
+
+    private void write(PayloadLogEntry entry) {
+        String body;
+        String encoding = entry.getContentEncoding();
+        if (encoding != null && !"identity".equalsIgnoreCase(encoding)) {
+            body = "<" + encoding + "-encoded content, " + entry.getLength() + " bytes captured>";
+        } else {
+            body = new String(entry.getData(), 0, entry.getLength(), StandardCharsets.UTF_8);
+        }
+        String exchange = entry.getCaptureReason() != null
+                ? entry.getExchangeId() + ", " + entry.getCaptureReason() : entry.getExchangeId();
+        logger.debug("{} SOAP {} [{}] {} bytes{}:\n{}",
+                Instant.ofEpochMilli(entry.getTimestamp()), entry.getDirection(), exchange,
+                entry.getTotalLength() >= 0 ? entry.getTotalLength() : "?",
+                entry.isTruncated() ? " (truncated to " + entry.getLength() + ")" : "",
+                body);
+    }
+
+    /**
+     * Entries accepted into the ring.
+     */
+    public long getSubmittedCount() {
+        return submitted.get();
+    }
+
+    /**
+     * Entries rejected because the ring was full.
+     */
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+
+    public long getTruncatedCount() {
+        return truncated.get();
+    }
+
+    public long getWrittenCount() {
+        return written.get();
+    }
+
+    public int getQueuedCount() {
+        return buffer.size();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        running = false;
+        LockSupport.unpark(writerThread);
+        try {
+            writerThread.join(TimeUnit.SECONDS.toMillis(1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,159 @@
+package ae.etisalat.cisapp.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.io.InterruptedIOException;
+import java.net.http.HttpTimeoutException;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Meters for outbound CIS calls. Every phase is a {@code cis.client.phase} timer tagged with
+ * {@code phase}; percentiles and histograms are configured through the standard
+ * {@code management.metrics.distribution.*} properties. Meters are registered up front so the hot
+ * path does no registry lookups.
+ */
+@Component
+public class CisClientMetrics {
+
+    public static final String PHASE_TIMER = "cis.client.phase";
+
+    public enum Phase {
+        MARSHAL("marshal"),
+        CONNECTION_ACQUIRE("connection-acquire"),
+        SEND("send"),
+        TIME_TO_FIRST_BYTE("time-to-first-byte"),
+        BODY_RECEIVE("body-receive"),
+        UNMARSHAL("unmarshal"),
+        JSON_SERIALIZATION("json-serialization");
+
+        private final String tagValue;
+
+        Phase(String tagValue) {
+            this.tagValue = tagValue;
+        }
+
+        public String getTagValue() {
+            return tagValue;
+        }
+    }
+
+    private final Map<Phase, Timer> phaseTimers = new EnumMap<>(Phase.class);
+    private final Timer transcode;
+    private final Counter faults;
+    private final Counter timeouts;
+    private final Counter nullResponses;
+    private final Counter bytesOut;
+    private final Counter bytesIn;
+    private final Counter payloadBytesOut;
+    private final Counter payloadBytesIn;
+
+    @Autowired
+    public CisClientMetrics(MeterRegistry registry) {
+        for (Phase phase : Phase.values()) {
+            phaseTimers.put(phase, Timer.builder(PHASE_TIMER)
+                    .description("Duration of one phase of an outbound CIS call")
+                    .tag("phase", phase.getTagValue())
+                    .register(registry));
+        }
+        // Streaming mode only, so not a Phase: StAX-to-JSON overlaps body-receive since the body is read as it is written
+        transcode = Timer.builder(PHASE_TIMER)
+                .description("Duration of one phase of an outbound CIS call")
+                .tag("phase", "transcode")
+                .register(registry);
+        faults = Counter.builder("cis.client.faults")
+                .description("SOAP faults returned by CIS")
+                .register(registry);
+        timeouts = Counter.builder("cis.client.timeouts")
+                .description("CIS calls that failed with a connect, lease or read timeout")
+                .register(registry);
+        nullResponses = Counter.builder("cis.client.null.responses")
+                .description("CIS calls that returned no usable response body")
+                .register(registry);
+        bytesOut = Counter.builder("cis.client.bytes")
+                .description("Bytes written to or read from CIS on the wire")
+                .baseUnit("bytes")
+                .tag("direction", "out")
+                .register(registry);
+        bytesIn = Counter.builder("cis.client.bytes")
+                .description("Bytes written to or read from CIS on the wire")
+                .baseUnit("bytes")
+                .tag("direction", "in")
+                .register(registry);
+        // Divided by cis.client.bytes this is the compression ratio; the two are equal when nothing is compressed
+        payloadBytesOut = Counter.builder("cis.client.payload.bytes")
+                .description("SOAP bytes sent to or received from CIS before compression or after decompression")
+                .baseUnit("bytes")
+                .tag("direction", "out")
+                .register(registry);
+        payloadBytesIn = Counter.builder("cis.client.payload.bytes")
+                .description("SOAP bytes sent to or received from CIS before compression or after decompression")
+                .baseUnit("bytes")
+                .tag("direction", "in")
+                .register(registry);
+    }
+
+    public void record(Phase phase, long nanos) {
+        phaseTimers.get(phase).record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordTranscode(long nanos) {
+        transcode.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordFault() {
+        faults.increment();
+    }
+
+    /**
+     * Counts the failure as a timeout if one appears anywhere in its cause chain.
+     */
+    public void recordFailure(Throwable failure) {
+        if (isTimeout(failure)) {
+            timeouts.increment();
+        }
+    }
+
+    public static boolean isTimeout(Throwable failure) {
+        for (Throwable cause = failure; cause != null; cause = cause.getCause()) {
+            // SocketTimeoutException, ConnectTimeoutException and the pool's lease timeout are all InterruptedIOExceptions
+            if (cause instanceof InterruptedIOException || cause instanceof HttpTimeoutException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public void recordNullResponse() {
+        nullResponses.increment();
+    }
+
+    public void recordBytesOut(long bytes) {
+        if (bytes > 0) {
+            bytesOut.increment(bytes);
+        }
+    }
+
+    public void recordBytesIn(long bytes) {
+        if (bytes > 0) {
+            bytesIn.increment(bytes);
+        }
+    }
+
+    public void recordPayloadBytesOut(long bytes) {
+        if (bytes > 0) {
+            payloadBytesOut.increment(bytes);
+        }
+    }
+
+    public void recordPayloadBytesIn(long bytes) {
+        if (bytes > 0) {
+            payloadBytesIn.increment(bytes);
+        }
+    }
+}
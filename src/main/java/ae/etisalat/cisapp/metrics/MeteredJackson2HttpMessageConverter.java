@@ -0,0 +1,33 @@
+package ae.etisalat.cisapp.metrics;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.converter.HttpMessageNotWritableException;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+
+/**
+ * Jackson converter that times response serialization as the {@code json-serialization} phase.
+ */
+public class MeteredJackson2HttpMessageConverter extends MappingJackson2HttpMessageConverter {
+
+    private final CisClientMetrics metrics;
+
+    public MeteredJackson2HttpMessageConverter(ObjectMapper objectMapper, CisClientMetrics metrics) {
+        super(objectMapper);
+        this.metrics = metrics;
+    }
+
+    @Override
+    protected void writeInternal(Object object, Type type, HttpOutputMessage outputMessage)
+            throws IOException, HttpMessageNotWritableException {
+        long start = System.nanoTime();
+        try {
+            super.writeInternal(object, type, outputMessage);
+        } finally {
+            metrics.record(CisClientMetrics.Phase.JSON_SERIALIZATION, System.nanoTime() - start);
+        }
+    }
+}
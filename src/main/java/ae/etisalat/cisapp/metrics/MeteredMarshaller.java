@@ -0,0 +1,50 @@
+package ae.etisalat.cisapp.metrics;
+
+import org.springframework.oxm.Marshaller;
+import org.springframework.oxm.Unmarshaller;
+import org.springframework.oxm.XmlMappingException;
+
+import javax.xml.transform.Result;
+import javax.xml.transform.Source;
+import java.io.IOException;
+
+/**
+ * Times the marshal and unmarshal phases of a delegate that is both {@link Marshaller} and {@link Unmarshaller}.
+ */
+public class MeteredMarshaller implements Marshaller, Unmarshaller {
+
+    private final Marshaller marshaller;
+    private final Unmarshaller unmarshaller;
+    private final CisClientMetrics metrics;
+
+    public <T extends Marshaller & Unmarshaller> MeteredMarshaller(T delegate, CisClientMetrics metrics) {
+        this.marshaller = delegate;
+        this.unmarshaller = delegate;
+        this.metrics = metrics;
+    }
+
+    @Override
+    public boolean supports(Class<?> clazz) {
+        return marshaller.supports(clazz);
+    }
+
+    @Override
+    public void marshal(Object graph, Result result) throws IOException, XmlMappingException {
+        long start = System.nanoTime();
+        try {
+            marshaller.marshal(graph, result);
+        } finally {
+            metrics.record(CisClientMetrics.Phase.MARSHAL, System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public Object unmarshal(Source source) throws IOException, XmlMappingException {
+        long start = System.nanoTime();
+        try {
+            return unmarshaller.unmarshal(source);
+        } finally {
+            metrics.record(CisClientMetrics.Phase.UNMARSHAL, System.nanoTime() - start);
+        }
+    }
+}
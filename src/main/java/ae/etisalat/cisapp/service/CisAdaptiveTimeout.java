@@ -0,0 +1,98 @@
+package ae.etisalat.cisapp.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Read timeout for outbound CIS calls derived from recent backend latency: {@code multiplier} times
+ * the configured percentile, bounded by {@code min} and {@code max}. Until {@code min-samples} calls
+ * have been seen, or when disabled, the timeout is {@code max}. The applied value only moves when the
+ * computed one differs from it by at least a tenth, so it does not flap with every sample; each move
+ * is logged and published as the {@code cis.client.read.timeout} gauge, which is only registered when
+ * enabled; otherwise the fixed {@code webservice.cis.http.read-timeout} applies.
+ * <p>
+ * Calls that time out are recorded at their full duration. Otherwise a backend that slowed down past
+ * the current timeout would never be sampled, and the timeout could never grow to match it.
+ */
+@Component
+public class CisAdaptiveTimeout {
+
+    private static final Logger logger = LoggerFactory.getLogger(CisAdaptiveTimeout.class);
+
+    private final boolean enabled;
+    private final double percentile;
+    private final double multiplier;
+    private final long minNanos;
+    private final long maxNanos;
+    private final CisLatencyTracker latencyTracker;
+
+    private final AtomicLong currentNanos = new AtomicLong();
+
+    @Autowired
+    public CisAdaptiveTimeout(MeterRegistry meterRegistry,
+                              @Value("${webservice.cis.adaptive-timeout.enabled:false}") boolean enabled,
+                              @Value("${webservice.cis.adaptive-timeout.percentile:0.99}") double percentile,
+                              @Value("${webservice.cis.adaptive-timeout.multiplier:3}") double multiplier,
+                              @Value("${webservice.cis.adaptive-timeout.min:2s}") Duration min,
+                              @Value("${webservice.cis.adaptive-timeout.max:60s}") Duration max,
+                              @Value("${webservice.cis.adaptive-timeout.window-size:1000}") int windowSize,
+                              @Value("${webservice.cis.adaptive-timeout.min-samples:100}") int minSamples) {
+        this.enabled = enabled;
+        this.percentile = percentile;
+        this.multiplier = multiplier;
+        this.minNanos = min.toNanos();
+        this.maxNanos = max.toNanos();
+        this.latencyTracker = new CisLatencyTracker(windowSize, minSamples, TimeUnit.SECONDS.toNanos(1));
+        this.currentNanos.set(maxNanos);
+
+        if (enabled) {
+            TimeGauge.builder("cis.client.read.timeout", this, TimeUnit.NANOSECONDS, timeout -> timeout.currentNanos.get())
+                    .description("Read timeout currently applied to outbound CIS calls")
+                    .register(meterRegistry);
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Records the duration of a completed or timed-out CIS call.
+     */
+    public void record(long nanos) {
+        if (enabled) {
+            latencyTracker.record(nanos);
+        }
+    }
+
+    public Duration getReadTimeout() {
+        if (enabled) {
+            update();
+        }
+        return Duration.ofNanos(currentNanos.get());
+    }
+
+    private void update() {
+        long observed = latencyTracker.percentile(percentile);
+        if (observed < 0) {
+            return;
+        }
+        long computed = Math.min(maxNanos, Math.max(minNanos, (long) (observed * multiplier)));
+        long current = currentNanos.get();
+        // Only the thread that wins the swap reports the change
+        if (Math.abs(computed - current) * 10 >= current && currentNanos.compareAndSet(current, computed)) {
+            logger.info("CIS read timeout changed from {} ms to {} ms (p{} latency {} ms)",
+                    TimeUnit.NANOSECONDS.toMillis(current), TimeUnit.NANOSECONDS.toMillis(computed),
+                    Math.round(percentile * 100), TimeUnit.NANOSECONDS.toMillis(observed));
+        }
+    }
+}
@@ -0,0 +1,164 @@
+package ae.etisalat.cisapp.service;
+
+import ae.etisalat.cisapp.metrics.CisClientMetrics;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Load shedding for the pull endpoints. Requests are admitted while fewer than the current adaptive
+ * limit of {@link CisConcurrencyLimiter} are in progress, and rejected at once with
+ * {@link CisBackendUnavailableException.Reason#LOAD_SHED} otherwise, so that when CIS slows down the
+ * excess is turned away in microseconds instead of queueing behind the bulkhead until nobody wants the
+ * answer any more. Admitted and rejected requests are counted, and the limit, in-flight count and
+ * measured queueing delay are published as gauges. Each move of the limit by a tenth or more is logged.
+ * <p>
+ * Opt-in with {@code webservice.cis.admission.enabled=true}; when disabled every request is admitted
+ * and nothing is measured.
+ */
+@Component
+public class CisAdmissionController {
+
+    private static final Logger logger = LoggerFactory.getLogger(CisAdmissionController.class);
+
+    private final boolean enabled;
+    private final Duration retryAfter;
+    private final CisConcurrencyLimiter limiter;
+    private final Counter admitted;
+    private final Counter rejected;
+    private final AtomicInteger reportedLimit = new AtomicInteger();
+
+    @Autowired
+    public CisAdmissionController(MeterRegistry meterRegistry,
+                                  @Value("${webservice.cis.admission.enabled:false}") boolean enabled,
+                                  @Value("${webservice.cis.admission.initial-limit:50}") int initialLimit,
+                                  @Value("${webservice.cis.admission.min-limit:10}") int minLimit,
+                                  @Value("${webservice.cis.admission.max-limit:500}") int maxLimit,
+                                  @Value("${webservice.cis.admission.tolerance:1.5}") double tolerance,
+                                  @Value("${webservice.cis.admission.smoothing:0.2}") double smoothing,
+                                  @Value("${webservice.cis.admission.retry-after:1s}") Duration retryAfter) {
+        this.enabled = enabled;
+        this.retryAfter = retryAfter;
+        this.limiter = new CisConcurrencyLimiter(initialLimit, minLimit, maxLimit, tolerance, smoothing);
+        this.reportedLimit.set(limiter.getLimit());
+
+        this.admitted = Counter.builder("cis.admission.requests")
+                .description("Pull requests admitted or shed by the adaptive concurrency limit")
+                .tag("outcome", "admitted")
+                .register(meterRegistry);
+        this.rejected = Counter.builder("cis.admission.requests")
+                .description("Pull requests admitted or shed by the adaptive concurrency limit")
+                .tag("outcome", "rejected")
+                .register(meterRegistry);
+        Gauge.builder("cis.admission.limit", limiter, CisConcurrencyLimiter::getLimit)
+                .description("Current adaptive concurrency limit of the pull endpoints")
+                .register(meterRegistry);
+        Gauge.builder("cis.admission.in.flight", limiter, CisConcurrencyLimiter::getInFlight)
+                .description("Admitted pull requests still in progress")
+                .register(meterRegistry);
+        TimeGauge.builder("cis.admission.queueing.delay", limiter, TimeUnit.NANOSECONDS,
+                        CisConcurrencyLimiter::getQueueingDelayNanos)
+                .description("Recent latency of admitted pull requests above their long-term baseline")
+                .register(meterRegistry);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Runs the request if it is admitted.
+     *
+     * @throws CisBackendUnavailableException when the limit is reached
+     */
+    public <T> T execute(Supplier<T> request) {
+        if (!enabled) {
+            return request.get();
+        }
+        long start = admit();
+        try {
+            T result = request.get();
+            release(start, null);
+            return result;
+        } catch (RuntimeException | Error e) {
+            release(start, e);
+            throw e;
+        }
+    }
+
+    /**
+     * Non-blocking variant of {@link #execute}; a rejection fails the returned future.
+     */
+    public <T> CompletableFuture<T> executeAsync(Supplier<CompletableFuture<T>> request) {
+        if (!enabled) {
+            return request.get();
+        }
+        long start;
+        CompletableFuture<T> call;
+        try {
+            start = admit();
+        } catch (CisBackendUnavailableException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        try {
+            call = request.get();
+        } catch (RuntimeException e) {
+            call = CompletableFuture.failedFuture(e);
+        }
+        return call.whenComplete((result, ex) ->
+                release(start, ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex));
+    }
+
+    private long admit() {
+        if (!limiter.tryAcquire()) {
+            rejected.increment();
+            throw new CisBackendUnavailableException(CisBackendUnavailableException.Reason.LOAD_SHED,
+                    "Concurrency limit of " + limiter.getLimit() + " requests reached", retryAfter);
+        }
+        admitted.increment();
+        return System.nanoTime();
+    }
+
+    private void release(long start, Throwable failure) {
+        if (failure == null || CisSoapFaultException.isFault(failure)) {
+            // A fault is an answer like any other, and took as long as one
+            limiter.onSuccess(System.nanoTime() - start);
+        } else if (isOverload(failure)) {
+            limiter.onDropped();
+        } else {
+            limiter.onIgnored();
+        }
+        reportLimitChange();
+    }
+
+    private static boolean isOverload(Throwable failure) {
+        return failure instanceof CisDeadlineExceededException
+                || (failure instanceof CisBackendUnavailableException unavailable
+                    && unavailable.getReason() == CisBackendUnavailableException.Reason.BULKHEAD_FULL)
+                || CisClientMetrics.isTimeout(failure);
+    }
+
+    private void reportLimitChange() {
+        int current = limiter.getLimit();
+        int reported = reportedLimit.get();
+        // Only the thread that wins the swap reports the change
+        if (Math.abs(current - reported) * 10 >= reported && reportedLimit.compareAndSet(reported, current)) {
+            logger.info("CIS pull concurrency limit changed from {} to {} (queueing delay {} ms, {} in flight)",
+                    reported, current, TimeUnit.NANOSECONDS.toMillis(limiter.getQueueingDelayNanos()),
+                    limiter.getInFlight());
+        }
+    }
+}
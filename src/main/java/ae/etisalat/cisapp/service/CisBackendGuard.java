@@ -0,0 +1,246 @@
+package ae.etisalat.cisapp.service;
+
+import ae.etisalat.cisapp.metrics.CisClientMetrics;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.github.resilience4j.micrometer.tagged.TaggedCircuitBreakerMetrics;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Circuit breaker and bulkhead around every CIS backend call, each opt-in. The breaker opens on either a high
+ * failure rate or a high rate of slow calls, fails fast while open and lets a few probe calls through
+ * once half-open. The bulkhead then caps in-flight calls. Only time spent in the call itself counts
+ * towards the slow-call rate, not time queued for a bulkhead permit, and bulkhead rejections are not
+ * counted as backend failures. The same call durations feed {@link CisAdaptiveTimeout}. Calls made
+ * for a {@link CisCaller} queue for their permit in that caller's share of the bulkhead.
+ */
+@Component
+public class CisBackendGuard {
+
+    private static final Logger logger = LoggerFactory.getLogger(CisBackendGuard.class);
+
+    private final boolean circuitBreakerEnabled;
+    private final boolean bulkheadEnabled;
+    private final Duration openDuration;
+    private final CircuitBreaker circuitBreaker;
+    private final CisBulkhead bulkhead;
+    private final Counter bulkheadRejections;
+    private final CisAdaptiveTimeout adaptiveTimeout;
+
+    @Autowired
+    public CisBackendGuard(MeterRegistry meterRegistry, CisAdaptiveTimeout adaptiveTimeout,
+                           @Value("${webservice.cis.circuit-breaker.enabled:false}") boolean circuitBreakerEnabled,
+                           @Value("${webservice.cis.circuit-breaker.failure-rate-threshold:50}") float failureRateThreshold,
+                           @Value("${webservice.cis.circuit-breaker.slow-call-rate-threshold:80}") float slowCallRateThreshold,
+                           @Value("${webservice.cis.circuit-breaker.slow-call-duration:5s}") Duration slowCallDuration,
+                           @Value("${webservice.cis.circuit-breaker.sliding-window-size:50}") int slidingWindowSize,
+                           @Value("${webservice.cis.circuit-breaker.minimum-calls:20}") int minimumCalls,
+                           @Value("${webservice.cis.circuit-breaker.open-duration:30s}") Duration openDuration,
+                           @Value("${webservice.cis.circuit-breaker.half-open-calls:5}") int halfOpenCalls,
+                           @Value("${webservice.cis.bulkhead.enabled:false}") boolean bulkheadEnabled,
+                           @Value("${webservice.cis.bulkhead.max-concurrent:50}") int maxConcurrent,
+                           @Value("${webservice.cis.bulkhead.max-queue:100}") int maxQueue,
+                           @Value("${webservice.cis.bulkhead.max-wait:2s}") Duration maxWait) {
+        this.circuitBreakerEnabled = circuitBreakerEnabled;
+        this.bulkheadEnabled = bulkheadEnabled;
+        this.openDuration = openDuration;
+        this.adaptiveTimeout = adaptiveTimeout;
+
+        CircuitBreakerConfig config = CircuitBreakerConfig.custom()
+                .slidingWindowType(CircuitBreakerConfig.SlidingWindowType.COUNT_BASED)
+                .slidingWindowSize(slidingWindowSize)
+                .minimumNumberOfCalls(minimumCalls)
+                .failureRateThreshold(failureRateThreshold)
+                .slowCallRateThreshold(slowCallRateThreshold)
+                .slowCallDurationThreshold(slowCallDuration)
+                .waitDurationInOpenState(openDuration)
+                .permittedNumberOfCallsInHalfOpenState(halfOpenCalls)
+                .automaticTransitionFromOpenToHalfOpenEnabled(true)
+                // The caller ran out of time or went away; says nothing about backend health
+                .ignoreExceptions(CisDeadlineExceededException.class, CisClientAbortException.class)
+                .build();
+        CircuitBreakerRegistry registry = CircuitBreakerRegistry.of(config);
+        this.circuitBreaker = registry.circuitBreaker("cis");
+        circuitBreaker.getEventPublisher().onStateTransition(event ->
+                logger.warn("CIS circuit breaker {}", event.getStateTransition()));
+        TaggedCircuitBreakerMetrics.ofCircuitBreakerRegistry(registry).bindTo(meterRegistry);
+
+        this.bulkhead = new CisBulkhead(maxConcurrent, maxQueue, maxWait);
+        Gauge.builder("cis.bulkhead.in.flight", bulkhead, CisBulkhead::getInFlightCount)
+                .description("CIS calls holding a bulkhead permit")
+                .register(meterRegistry);
+        Gauge.builder("cis.bulkhead.queued", bulkhead, CisBulkhead::getQueuedCount)
+                .description("CIS calls waiting for a bulkhead permit")
+                .register(meterRegistry);
+        this.bulkheadRejections = Counter.builder("cis.bulkhead.rejections")
+                .description("CIS calls rejected because the bulkhead queue was full or the wait timed out")
+                .register(meterRegistry);
+    }
+
+    public <T> T execute(Supplier<T> backendCall) {
+        return execute(null, backendCall);
+    }
+
+    /**
+     * @param caller whose share of the bulkhead the call queues in, or {@code null} for the shared queue
+     */
+    public <T> T execute(CisCaller caller, Supplier<T> backendCall) {
+        acquirePermission();
+        if (bulkheadEnabled) {
+            long queuedAt = System.nanoTime();
+            try {
+                bulkhead.acquireBlocking(caller);
+            } catch (RuntimeException e) {
+                onRejected(e);
+                throw e;
+            }
+            onPermit(caller, queuedAt);
+        }
+
+        long start = System.nanoTime();
+        try {
+            T result = backendCall.get();
+            onSuccess(start);
+            return result;
+        } catch (RuntimeException | Error e) {
+            if (Thread.currentThread().isInterrupted()) {
+                // Cancelled by the caller (e.g. a hedged call's losing attempt), not a backend failure
+                onCancelled();
+            } else {
+                onError(start, e);
+            }
+            throw e;
+        } finally {
+            if (bulkheadEnabled) {
+                bulkhead.release();
+            }
+        }
+    }
+
+    /**
+     * Non-blocking variant of {@link #execute}; bulkhead queueing does not hold a thread.
+     */
+    public <T> CompletableFuture<T> executeAsync(Supplier<CompletableFuture<T>> backendCall) {
+        return executeAsync(null, backendCall);
+    }
+
+    /**
+     * Non-blocking variant of {@link #execute(CisCaller, Supplier)}.
+     */
+    public <T> CompletableFuture<T> executeAsync(CisCaller caller, Supplier<CompletableFuture<T>> backendCall) {
+        try {
+            acquirePermission();
+        } catch (CisBackendUnavailableException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        long queuedAt = System.nanoTime();
+        CompletableFuture<Void> permit = bulkheadEnabled ? bulkhead.acquire(caller) : CompletableFuture.completedFuture(null);
+
+        return permit
+                .whenComplete((ignored, ex) -> {
+                    if (ex != null) {
+                        onRejected(ex);
+                    } else if (bulkheadEnabled) {
+                        onPermit(caller, queuedAt);
+                    }
+                })
+                .thenCompose(ignored -> {
+                    long start = System.nanoTime();
+                    CompletableFuture<T> call;
+                    try {
+                        call = backendCall.get();
+                    } catch (RuntimeException e) {
+                        call = CompletableFuture.failedFuture(e);
+                    }
+                    return call.whenComplete((result, ex) -> {
+                        if (ex != null) {
+                            onError(start, ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex);
+                        } else {
+                            onSuccess(start);
+                        }
+                        if (bulkheadEnabled) {
+                            bulkhead.release();
+                        }
+                    });
+                });
+    }
+
+    private void acquirePermission() {
+        if (!circuitBreakerEnabled) {
+            return;
+        }
+        try {
+            circuitBreaker.acquirePermission();
+        } catch (CallNotPermittedException e) {
+            throw new CisBackendUnavailableException(CisBackendUnavailableException.Reason.CIRCUIT_OPEN,
+                    "CIS backend circuit breaker is " + circuitBreaker.getState(), openDuration);
+        }
+    }
+
+    private void onRejected(Throwable failure) {
+        bulkheadRejections.increment();
+        if (circuitBreakerEnabled) {
+            circuitBreaker.releasePermission();
+        }
+        logger.warn("Rejected CIS call: {}", failure instanceof CompletionException && failure.getCause() != null
+                ? failure.getCause().getMessage() : failure.getMessage());
+    }
+
+    private void onPermit(CisCaller caller, long queuedAt) {
+        if (caller != null) {
+            caller.recordQueueWait(System.nanoTime() - queuedAt);
+        }
+    }
+
+    private void onCancelled() {
+        if (circuitBreakerEnabled) {
+            circuitBreaker.releasePermission();
+        }
+    }
+
+    private void onSuccess(long start) {
+        long duration = System.nanoTime() - start;
+        adaptiveTimeout.record(duration);
+        if (circuitBreakerEnabled) {
+            circuitBreaker.onSuccess(duration, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private void onError(long start, Throwable failure) {
+        long duration = System.nanoTime() - start;
+        // A timeout cut short by the caller's own deadline says nothing about backend latency
+        if (!(failure instanceof CisDeadlineExceededException) && CisClientMetrics.isTimeout(failure)) {
+            adaptiveTimeout.record(duration);
+        }
+        if (circuitBreakerEnabled) {
+            circuitBreaker.onError(duration, TimeUnit.NANOSECONDS, failure);
+        }
+    }
+
+    public CircuitBreaker.State getCircuitBreakerState() {
+        return circuitBreaker.getState();
+    }
+
+    public boolean isBulkheadEnabled() {
+        return bulkheadEnabled;
+    }
+
+    public CisBulkhead getBulkhead() {
+        return bulkhead;
+    }
+}
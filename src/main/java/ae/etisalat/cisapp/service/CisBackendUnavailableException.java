@@ -0,0 +1,32 @@
+package ae.etisalat.cisapp.service;
+
+import java.time.Duration;
+
+/**
+ * Thrown without calling CIS when the backend is known to be unhealthy or saturated, or when admission
+ * control sheds the request, so callers can fail fast with a 503 instead of waiting on transport timeouts.
+ */
+public class CisBackendUnavailableException extends RuntimeException {
+
+    public enum Reason { CIRCUIT_OPEN, BULKHEAD_FULL, LOAD_SHED }
+
+    private final Reason reason;
+    private final Duration retryAfter;
+
+    public CisBackendUnavailableException(Reason reason, String message, Duration retryAfter) {
+        super(message);
+        this.reason = reason;
+        this.retryAfter = retryAfter;
+    }
+
+    public Reason getReason() {
+        return reason;
+    }
+
+    /**
+     * Suggested wait before retrying.
+     */
+    public Duration getRetryAfter() {
+        return retryAfter;
+    }
+}
@@ -0,0 +1,128 @@
+package ae.etisalat.cisapp.service;
+
+import ae.etisalat.cisapp.dto.CisBatchItemResult;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import sem.cis.pull.cbcm.GetSubscriptionDtls;
+import sem.cis.pull.cbcm.GetSubscriptionDtlsResponse;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Fans a batch of CIS pull requests out concurrently on virtual threads, bounded per batch by
+ * a maximum parallelism and an overall deadline. Each item succeeds or fails independently, and
+ * every item's SOAP call is held to whatever remains of the batch deadline. Items go through the
+ * {@link CisAdmissionController} one by one, so a batch is shed item by item like single pulls.
+ */
+@Service
+public class CisBatchService {
+
+    private static final Logger logger = LoggerFactory.getLogger(CisBatchService.class);
+
+    private final CisPullService cisPullService;
+    private final CisAdmissionController admissionController;
+    private final int maxParallelism;
+    private final int maxItems;
+
+    // Shared rather than per batch: closing a per-batch executor would wait for items abandoned at the deadline
+    private final ExecutorService executor = Executors.newThreadPerTaskExecutor(
+            Thread.ofVirtual().name("cis-batch-", 0).factory());
+
+    @Autowired
+    public CisBatchService(CisPullService cisPullService,
+                           CisAdmissionController admissionController,
+                           @Value("${webservice.cis.batch.max-parallelism:16}") int maxParallelism,
+                           @Value("${webservice.cis.batch.max-items:500}") int maxItems) {
+        this.cisPullService = cisPullService;
+        this.admissionController = admissionController;
+        this.maxParallelism = maxParallelism;
+        this.maxItems = maxItems;
+    }
+
+    public int getMaxItems() {
+        return maxItems;
+    }
+
+    /**
+     * @param deadline the whole batch's budget, from {@code X-Request-Timeout} or
+     *                 {@code webservice.cis.batch.deadline}
+     * @param caller   whose share of the bulkhead the items queue in, or {@code null} for the shared queue
+     */
+    public List<CisBatchItemResult> processBatch(List<GetSubscriptionDtls> requests, boolean bypassCache,
+                                                 CisDeadline deadline, CisCaller caller) {
+        logger.info("Processing CIS pull batch of {} items", requests.size());
+
+        Semaphore permits = new Semaphore(maxParallelism);
+        List<Future<GetSubscriptionDtlsResponse>> futures = new ArrayList<>(requests.size());
+        for (GetSubscriptionDtls request : requests) {
+            futures.add(executor.submit(() -> {
+                permits.acquire();
+                try {
+                    return admissionController.execute(
+                            () -> cisPullService.processCisPullRequest(request, bypassCache, deadline, caller));
+                } finally {
+                    permits.release();
+                }
+            }));
+        }
+
+        List<CisBatchItemResult> results = new ArrayList<>(requests.size());
+        int failures = 0;
+        for (int i = 0; i < futures.size(); i++) {
+            Future<GetSubscriptionDtlsResponse> future = futures.get(i);
+            try {
+                long remaining = deadline.remaining().toNanos();
+                results.add(CisBatchItemResult.success(i, future.get(remaining, TimeUnit.NANOSECONDS)));
+            } catch (TimeoutException e) {
+                future.cancel(true);
+                logger.warn("CIS pull batch item {} abandoned at the batch deadline of {}", i, deadline.getBudget());
+                results.add(CisBatchItemResult.failure(i, "DEADLINE_EXCEEDED", "Batch deadline exceeded"));
+                failures++;
+            } catch (ExecutionException e) {
+                results.add(failure(i, e.getCause()));
+                failures++;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                futures.forEach(remainingFuture -> remainingFuture.cancel(true));
+                throw new RuntimeException("Interrupted while processing CIS pull batch", e);
+            }
+        }
+
+        logger.info("Processed CIS pull batch: {} succeeded, {} failed", requests.size() - failures, failures);
+        return results;
+    }
+
+    // Callers get a fixed code and message per kind of failure, like the single-pull error responses
+    private CisBatchItemResult failure(int index, Throwable failure) {
+        Throwable root = failure.getCause() != null ? failure.getCause() : failure;
+        logger.warn("CIS pull batch item {} failed: {}{}", index, failure.getMessage(),
+                root != failure ? ": " + root.getMessage() : "");
+        if (failure instanceof CisBackendUnavailableException unavailable) {
+            return CisBatchItemResult.failure(index, unavailable.getReason().name(), "CIS backend unavailable");
+        }
+        if (failure instanceof CisDeadlineExceededException) {
+            return CisBatchItemResult.failure(index, "DEADLINE_EXCEEDED", "Batch deadline exceeded");
+        }
+        if (CisSoapFaultException.isFault(failure)) {
+            return CisBatchItemResult.failure(index, "SOAP_FAULT", "CIS answered with a SOAP fault");
+        }
+        return CisBatchItemResult.failure(index, "BACKEND_ERROR", "CIS pull request failed");
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
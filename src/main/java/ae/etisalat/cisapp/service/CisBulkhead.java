@@ -0,0 +1,237 @@
+package ae.etisalat.cisapp.service;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Caps concurrent backend calls. Callers beyond the limit wait in a FIFO queue of bounded length,
+ * each for at most {@code maxWait}; anyone who would exceed the queue is rejected immediately.
+ * Waiting is expressed as a future so the async path never blocks a thread, and a released permit
+ * is handed straight to the next waiter.
+ * <p>
+ * Each {@link CisCaller} has a queue of its own, bounded by {@code maxQueue}. Released permits go to
+ * the queues by deficit round-robin: a queue's turn lasts for as many permits as its caller's weight,
+ * so while several callers wait, each gets permits in proportion to its weight, and a caller alone
+ * in the queue gets all of them. Calls without a caller share one queue of weight 1.
+ */
+public class CisBulkhead {
+
+    private final int maxConcurrent;
+    private final int maxQueue;
+    private final Duration maxWait;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Map<String, CallerQueue> queues = new HashMap<>();
+    // Queues with waiters, in round-robin order; the first one is taking its turn
+    private final ArrayDeque<CallerQueue> active = new ArrayDeque<>();
+    private int inFlight;
+    private int queued;
+
+    public CisBulkhead(int maxConcurrent, int maxQueue, Duration maxWait) {
+        this.maxConcurrent = maxConcurrent;
+        this.maxQueue = maxQueue;
+        this.maxWait = maxWait;
+    }
+
+    public CompletableFuture<Void> acquire() {
+        return acquire(null);
+    }
+
+    /**
+     * @param caller whose queue to wait in, or {@code null} for the shared one
+     * @return a future completed once a permit is held, or failed with
+     *         {@link CisBackendUnavailableException} if the queue is full or the wait times out
+     */
+    public CompletableFuture<Void> acquire(CisCaller caller) {
+        CallerQueue queue;
+        CompletableFuture<Void> waiter;
+        lock.lock();
+        try {
+            if (inFlight < maxConcurrent) {
+                inFlight++;
+                return CompletableFuture.completedFuture(null);
+            }
+            queue = queues.computeIfAbsent(caller != null ? caller.getName() : "",
+                    name -> new CallerQueue(caller != null ? caller.getWeight() : 1));
+            if (queue.waiters.size() >= maxQueue) {
+                return CompletableFuture.failedFuture(rejection("queue of " + maxQueue + " is full"));
+            }
+            waiter = new CompletableFuture<>();
+            if (queue.waiters.isEmpty()) {
+                active.addLast(queue);
+            }
+            queue.waiters.addLast(waiter);
+            queued++;
+        } finally {
+            lock.unlock();
+        }
+
+        CompletableFuture.delayedExecutor(maxWait.toMillis(), TimeUnit.MILLISECONDS).execute(() -> {
+            // Still queued means release() never handed it a permit
+            if (remove(queue, waiter)) {
+                waiter.completeExceptionally(rejection("no permit within " + maxWait));
+            }
+        });
+        return waiter;
+    }
+
+    /**
+     * Blocking form of {@link #acquire()}; interruptible while queued.
+     */
+    public void acquireBlocking() {
+        acquireBlocking(null);
+    }
+
+    /**
+     * Blocking form of {@link #acquire(CisCaller)}; interruptible while queued.
+     */
+    public void acquireBlocking(CisCaller caller) {
+        CompletableFuture<Void> permit = acquire(caller);
+        try {
+            permit.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            if (permit.cancel(false)) {
+                remove(permit);
+            } else if (!permit.isCompletedExceptionally()) {
+                // The permit was handed over just before the interrupt
+                release();
+            }
+            throw new RuntimeException("Interrupted while waiting for a CIS bulkhead permit", e);
+        }
+    }
+
+    public void release() {
+        while (true) {
+            CompletableFuture<Void> next;
+            lock.lock();
+            try {
+                next = pollNext();
+                if (next == null) {
+                    inFlight--;
+                    return;
+                }
+            } finally {
+                lock.unlock();
+            }
+            // Completed outside the lock, so the waiter's continuations never run while holding it. A waiter
+            // cancelled by an interrupted caller cannot take the permit, which then goes to the next one.
+            if (next.complete(null)) {
+                return;
+            }
+        }
+    }
+
+    private CompletableFuture<Void> pollNext() {
+        CallerQueue queue = active.peekFirst();
+        if (queue == null) {
+            return null;
+        }
+        if (queue.deficit == 0) {
+            // Start of the queue's turn
+            queue.deficit = queue.weight;
+        }
+        CompletableFuture<Void> next = queue.waiters.pollFirst();
+        queued--;
+        queue.deficit--;
+        if (queue.waiters.isEmpty()) {
+            // An idle queue keeps no credit for later
+            active.pollFirst();
+            queue.deficit = 0;
+        } else if (queue.deficit == 0) {
+            active.addLast(active.pollFirst());
+        }
+        return next;
+    }
+
+    private boolean remove(CompletableFuture<Void> waiter) {
+        lock.lock();
+        try {
+            for (CallerQueue queue : active) {
+                if (removeLocked(queue, waiter)) {
+                    return true;
+                }
+            }
+            return false;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private boolean remove(CallerQueue queue, CompletableFuture<Void> waiter) {
+        lock.lock();
+        try {
+            return removeLocked(queue, waiter);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private boolean removeLocked(CallerQueue queue, CompletableFuture<Void> waiter) {
+        if (!queue.waiters.remove(waiter)) {
+            return false;
+        }
+        queued--;
+        if (queue.waiters.isEmpty()) {
+            active.remove(queue);
+            queue.deficit = 0;
+        }
+        return true;
+    }
+
+    private CisBackendUnavailableException rejection(String detail) {
+        return new CisBackendUnavailableException(CisBackendUnavailableException.Reason.BULKHEAD_FULL,
+                "CIS backend bulkhead is saturated: " + detail, maxWait);
+    }
+
+    public int getInFlightCount() {
+        lock.lock();
+        try {
+            return inFlight;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getQueuedCount() {
+        lock.lock();
+        try {
+            return queued;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getQueuedCount(CisCaller caller) {
+        lock.lock();
+        try {
+            CallerQueue queue = queues.get(caller.getName());
+            return queue != null ? queue.waiters.size() : 0;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static final class CallerQueue {
+
+        private final int weight;
+        private final ArrayDeque<CompletableFuture<Void>> waiters = new ArrayDeque<>();
+        // Permits left in the current turn
+        private int deficit;
+
+        CallerQueue(int weight) {
+            this.weight = weight;
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package ae.etisalat.cisapp.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One of the systems sharing this service, as resolved by {@link CisCallerRegistry}. Created once per
+ * known caller and passed down explicitly with each request, like {@link CisDeadline}. Its weight is
+ * its share of bulkhead permits while callers compete for them, and its optional token bucket limits
+ * its request rate.
+ */
+public final class CisCaller {
+
+    private final String name;
+    private final int weight;
+    private final CisTokenBucket rateLimit;
+    private final Timer succeeded;
+    private final Timer failed;
+    private final Counter throttled;
+    private final Timer queueWait;
+
+    /**
+     * @param rateLimit the caller's token bucket, or {@code null} for no rate limit
+     */
+    public CisCaller(String name, int weight, CisTokenBucket rateLimit, MeterRegistry meterRegistry) {
+        if (weight < 1) {
+            throw new IllegalArgumentException("Weight of CIS caller " + name + " must be at least 1, was " + weight);
+        }
+        this.name = name;
+        this.weight = weight;
+        this.rateLimit = rateLimit;
+        this.succeeded = requestTimer(meterRegistry, "success");
+        this.failed = requestTimer(meterRegistry, "failure");
+        this.throttled = Counter.builder("cis.caller.throttled")
+                .description("Requests rejected because the caller exceeded its rate limit")
+                .tag("caller", name)
+                .register(meterRegistry);
+        this.queueWait = Timer.builder("cis.caller.queue.wait")
+                .description("Time the caller's CIS calls waited for a bulkhead permit")
+                .tag("caller", name)
+                .register(meterRegistry);
+    }
+
+    private Timer requestTimer(MeterRegistry meterRegistry, String outcome) {
+        return Timer.builder("cis.caller.requests")
+                .description("Pull requests per caller, from arrival to response")
+                .tags("caller", name, "outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getWeight() {
+        return weight;
+    }
+
+    /**
+     * @return 0 if the caller may make a request costing {@code permits}, otherwise the nanoseconds
+     *         until it may
+     */
+    long tryAcquire(int permits) {
+        if (rateLimit == null) {
+            return 0;
+        }
+        long waitNanos = rateLimit.tryAcquire(permits);
+        if (waitNanos > 0) {
+            throttled.increment();
+        }
+        return waitNanos;
+    }
+
+    void recordRequest(long durationNanos, boolean success) {
+        (success ? succeeded : failed).record(durationNanos, TimeUnit.NANOSECONDS);
+    }
+
+    void recordQueueWait(long durationNanos) {
+        queueWait.record(durationNanos, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
@@ -0,0 +1,194 @@
+package ae.etisalat.cisapp.service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Identifies which of the systems sharing this service sent a request, and applies its rate limit.
+ * A caller is named by the {@code X-API-Key} header when the key is listed in
+ * {@code webservice.cis.callers.api-keys}, otherwise by {@code X-Caller-Id}. Only callers named in the
+ * configuration are told apart, which keeps the metric tags bounded; anyone else is {@code default}.
+ * A caller that has an API key cannot be claimed through {@code X-Caller-Id}.
+ * <p>
+ * Each caller has a weight, its share of bulkhead permits while callers compete for them (see
+ * {@link CisBulkhead}), and an optional rate limit in requests per second, enforced with a token
+ * bucket that holds {@code burst} worth of requests. Request latency and counts are published per
+ * caller. Opt-in with {@code webservice.cis.callers.enabled=true}; when disabled every request is
+ * served as before, in one shared queue.
+ */
+@Component
+public class CisCallerRegistry {
+
+    private static final Logger logger = LoggerFactory.getLogger(CisCallerRegistry.class);
+
+    public static final String CALLER_HEADER = "X-Caller-Id";
+    public static final String API_KEY_HEADER = "X-API-Key";
+
+    public static final String DEFAULT_CALLER = "default";
+
+    private final boolean enabled;
+    private final Map<String, CisCaller> callers = new LinkedHashMap<>();
+    private final Map<String, CisCaller> callersByApiKey = new HashMap<>();
+    private final Set<String> keyedCallers = new HashSet<>();
+
+    @Autowired
+    public CisCallerRegistry(MeterRegistry meterRegistry, CisBackendGuard backendGuard,
+                             @Value("${webservice.cis.callers.enabled:false}") boolean enabled,
+                             @Value("${webservice.cis.callers.api-keys:}") List<String> apiKeys,
+                             @Value("${webservice.cis.callers.weights:}") List<String> weights,
+                             @Value("${webservice.cis.callers.rate-limits:}") List<String> rateLimits,
+                             @Value("${webservice.cis.callers.default-weight:1}") int defaultWeight,
+                             @Value("${webservice.cis.callers.default-rate-limit:0}") double defaultRateLimit,
+                             @Value("${webservice.cis.callers.burst:1s}") Duration burst) {
+        this.enabled = enabled;
+        if (!enabled) {
+            return;
+        }
+
+        Map<String, String> keys = parse("api-keys", apiKeys);
+        Map<String, String> weightByCaller = parse("weights", weights);
+        Map<String, String> rateByCaller = parse("rate-limits", rateLimits);
+        if (!weightByCaller.isEmpty() && !backendGuard.isBulkheadEnabled()) {
+            logger.warn("CIS caller weights configured but webservice.cis.bulkhead.enabled is not true; "
+                    + "weights only apply to the bulkhead queue and are ignored");
+        }
+
+        Set<String> names = new HashSet<>(weightByCaller.keySet());
+        names.addAll(rateByCaller.keySet());
+        names.addAll(keys.values());
+        names.add(DEFAULT_CALLER);
+        for (String name : names.stream().sorted().toList()) {
+            int weight = weightByCaller.containsKey(name) ? Integer.parseInt(weightByCaller.get(name)) : defaultWeight;
+            double rate = rateByCaller.containsKey(name) ? Double.parseDouble(rateByCaller.get(name)) : defaultRateLimit;
+            CisTokenBucket rateLimit = rate > 0
+                    ? new CisTokenBucket(rate, rate * burst.toNanos() / TimeUnit.SECONDS.toNanos(1))
+                    : null;
+            CisCaller caller = new CisCaller(name, weight, rateLimit, meterRegistry);
+            callers.put(name, caller);
+            Gauge.builder("cis.caller.queued", backendGuard.getBulkhead(), bulkhead -> bulkhead.getQueuedCount(caller))
+                    .description("The caller's CIS calls waiting for a bulkhead permit")
+                    .tag("caller", name)
+                    .register(meterRegistry);
+            logger.info("CIS caller {}: weight {}, {}", name, weight,
+                    rateLimit != null ? rate + " requests/s, burst " + (int) rateLimit.getCapacity() : "no rate limit");
+        }
+        keys.forEach((key, name) -> {
+            callersByApiKey.put(key, callers.get(name));
+            keyedCallers.add(name);
+        });
+    }
+
+    // Entries are name=value; keys are caller names, or API keys for api-keys
+    private static Map<String, String> parse(String property, List<String> entries) {
+        Map<String, String> parsed = new LinkedHashMap<>();
+        for (String entry : entries) {
+            if (!StringUtils.hasText(entry)) {
+                continue;
+            }
+            int separator = entry.indexOf('=');
+            if (separator <= 0 || separator == entry.length() - 1) {
+                throw new IllegalArgumentException(
+                        "Invalid webservice.cis.callers." + property + " entry, expected name=value: " + entry);
+            }
+            parsed.put(entry.substring(0, separator).trim(), entry.substring(separator + 1).trim());
+        }
+        return parsed;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * @return the caller named by the headers, {@code default} if they name none, or {@code null}
+     *         when callers are not told apart
+     */
+    public CisCaller resolve(String callerId, String apiKey) {
+        if (!enabled) {
+            return null;
+        }
+        if (StringUtils.hasText(apiKey)) {
+            CisCaller caller = callersByApiKey.get(apiKey.trim());
+            if (caller != null) {
+                return caller;
+            }
+        }
+        if (StringUtils.hasText(callerId)) {
+            CisCaller caller = callers.get(callerId.trim());
+            if (caller != null && !keyedCallers.contains(caller.getName())) {
+                return caller;
+            }
+        }
+        return callers.get(DEFAULT_CALLER);
+    }
+
+    /**
+     * Runs the request if the caller's rate limit allows it, and records its latency.
+     *
+     * @param permits the request's cost against the rate limit, e.g. the number of items in a batch
+     * @throws CisQuotaExceededException when the caller is over its rate limit
+     */
+    public <T> T execute(CisCaller caller, int permits, Supplier<T> request) {
+        if (caller == null) {
+            return request.get();
+        }
+        checkRateLimit(caller, permits);
+        long start = System.nanoTime();
+        try {
+            T result = request.get();
+            caller.recordRequest(System.nanoTime() - start, true);
+            return result;
+        } catch (RuntimeException | Error e) {
+            caller.recordRequest(System.nanoTime() - start, false);
+            throw e;
+        }
+    }
+
+    /**
+     * Non-blocking variant of {@link #execute} for a request costing one permit; a rejection fails
+     * the returned future.
+     */
+    public <T> CompletableFuture<T> executeAsync(CisCaller caller, Supplier<CompletableFuture<T>> request) {
+        if (caller == null) {
+            return request.get();
+        }
+        try {
+            checkRateLimit(caller, 1);
+        } catch (CisQuotaExceededException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        long start = System.nanoTime();
+        CompletableFuture<T> call;
+        try {
+            call = request.get();
+        } catch (RuntimeException e) {
+            call = CompletableFuture.failedFuture(e);
+        }
+        return call.whenComplete((result, ex) -> caller.recordRequest(System.nanoTime() - start, ex == null));
+    }
+
+    private void checkRateLimit(CisCaller caller, int permits) {
+        long waitNanos = caller.tryAcquire(permits);
+        if (waitNanos > 0) {
+            throw new CisQuotaExceededException(caller.getName(),
+                    "Rate limit of CIS caller " + caller.getName() + " exceeded", Duration.ofNanos(waitNanos));
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package ae.etisalat.cisapp.service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+/**
+ * Thrown when writing a streamed response to the caller fails, typically because the caller
+ * disconnected. Not a backend failure, so the circuit breaker ignores it.
+ */
+public class CisClientAbortException extends UncheckedIOException {
+
+    public CisClientAbortException(IOException cause) {
+        super("Writing the CIS pull response to the caller failed: " + cause.getMessage(), cause);
+    }
+}
@@ -0,0 +1,133 @@
+package ae.etisalat.cisapp.service;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Adaptive concurrency limit in the style of a gradient limiter. Every completed request contributes
+ * its latency to a short-term and a long-term moving average; the long-term one approximates latency
+ * without queueing, so their difference is the queueing delay. While the short-term average stays
+ * within {@code tolerance} times the long-term one, the limit grows by a small headroom per sample;
+ * beyond that the target is the limit scaled down by the ratio, to no less than half. Each sample moves
+ * the limit {@code smoothing} of the way to its target. Requests that ended in a timeout or rejection
+ * cut the limit by a tenth. Latency only moves the limit while at least half of it is in use, so an
+ * idle period cannot inflate it. Requests beyond the limit are not queued.
+ */
+public class CisConcurrencyLimiter {
+
+    // Added to the limit on every sample, so it keeps probing for more capacity
+    private static final double HEADROOM = 4;
+    private static final double SHORT_WINDOW = 10;
+    private static final double LONG_WINDOW = 600;
+    private static final double DROP_BACKOFF = 0.9;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final double tolerance;
+    private final double smoothing;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private volatile double limit;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private double shortRttNanos;
+    private double longRttNanos;
+
+    public CisConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit, double tolerance, double smoothing) {
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.tolerance = tolerance;
+        this.smoothing = smoothing;
+        this.limit = Math.max(minLimit, Math.min(maxLimit, initialLimit));
+    }
+
+    /**
+     * @return {@code true} if the request may proceed, in which case exactly one of
+     *         {@link #onSuccess}, {@link #onDropped} or {@link #onIgnored} must follow
+     */
+    public boolean tryAcquire() {
+        while (true) {
+            int current = inFlight.get();
+            if (current >= getLimit()) {
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * The request completed after {@code rttNanos}; its latency feeds the limit.
+     */
+    public void onSuccess(long rttNanos) {
+        int pending = inFlight.getAndDecrement();
+        lock.lock();
+        try {
+            if (longRttNanos == 0) {
+                shortRttNanos = rttNanos;
+                longRttNanos = rttNanos;
+            } else {
+                shortRttNanos += (rttNanos - shortRttNanos) * (2 / (SHORT_WINDOW + 1));
+                longRttNanos += (rttNanos - longRttNanos) * (2 / (LONG_WINDOW + 1));
+            }
+            // When latency falls well below the baseline, e.g. after a slow period, the baseline follows it faster
+            if (longRttNanos > 2 * shortRttNanos) {
+                longRttNanos *= 0.95;
+            }
+            double current = limit;
+            if (pending < current / 2) {
+                return;
+            }
+            double gradient = Math.max(0.5, Math.min(1.0, tolerance * longRttNanos / shortRttNanos));
+            double target = current * gradient + HEADROOM;
+            update(current * (1 - smoothing) + target * smoothing);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * The request timed out or was rejected further down; a sign of overload regardless of latency.
+     */
+    public void onDropped() {
+        inFlight.decrementAndGet();
+        lock.lock();
+        try {
+            update(limit * DROP_BACKOFF);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * The request ended in a way that says nothing about load, e.g. it failed fast.
+     */
+    public void onIgnored() {
+        inFlight.decrementAndGet();
+    }
+
+    private void update(double newLimit) {
+        limit = Math.max(minLimit, Math.min(maxLimit, newLimit));
+    }
+
+    public int getLimit() {
+        return (int) limit;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    /**
+     * Short-term minus long-term latency; zero until the first sample, or while latency is below baseline.
+     */
+    public long getQueueingDelayNanos() {
+        lock.lock();
+        try {
+            return (long) Math.max(0, shortRttNanos - longRttNanos);
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package ae.etisalat.cisapp.service;
+
+import java.time.Duration;
+import java.util.function.Supplier;
+
+/**
+ * Point in time after which nobody is waiting for a CIS response any more. Created once per REST
+ * request and passed down explicitly; around the SOAP call itself it is also bound to the calling
+ * thread so the message senders can shrink their connect and read timeouts to the remaining budget.
+ */
+public final class CisDeadline {
+
+    private static final ThreadLocal<CisDeadline> CURRENT = new ThreadLocal<>();
+
+    private final long expiresAtNanos;
+    private final Duration budget;
+
+    private CisDeadline(long expiresAtNanos, Duration budget) {
+        this.expiresAtNanos = expiresAtNanos;
+        this.budget = budget;
+    }
+
+    public static CisDeadline after(Duration budget) {
+        return new CisDeadline(System.nanoTime() + budget.toNanos(), budget);
+    }
+
+    /**
+     * The deadline bound by {@link #bind} on this thread, or {@code null} outside a CIS call.
+     */
+    public static CisDeadline current() {
+        return CURRENT.get();
+    }
+
+    public Duration remaining() {
+        return Duration.ofNanos(Math.max(0, expiresAtNanos - System.nanoTime()));
+    }
+
+    public boolean isExpired() {
+        return expiresAtNanos - System.nanoTime() <= 0;
+    }
+
+    /**
+     * The shorter of {@code timeout} and the remaining budget, never below one millisecond since
+     * transports treat zero as "no timeout".
+     */
+    public Duration cap(Duration timeout) {
+        Duration remaining = remaining();
+        Duration capped = remaining.compareTo(timeout) < 0 ? remaining : timeout;
+        return capped.toMillis() < 1 ? Duration.ofMillis(1) : capped;
+    }
+
+    /**
+     * @throws CisDeadlineExceededException if the budget is already used up
+     */
+    public void check(String stage) {
+        if (isExpired()) {
+            throw exceeded(stage, null);
+        }
+    }
+
+    public CisDeadlineExceededException exceeded(String stage, Throwable cause) {
+        return new CisDeadlineExceededException("Request budget of " + budget.toMillis() + " ms exhausted " + stage, cause);
+    }
+
+    /**
+     * Runs {@code call} with this deadline bound to the current thread.
+     */
+    public <T> T bind(Supplier<T> call) {
+        CisDeadline previous = CURRENT.get();
+        CURRENT.set(this);
+        try {
+            return call.get();
+        } finally {
+            if (previous != null) {
+                CURRENT.set(previous);
+            } else {
+                CURRENT.remove();
+            }
+        }
+    }
+
+    public Duration getBudget() {
+        return budget;
+    }
+}
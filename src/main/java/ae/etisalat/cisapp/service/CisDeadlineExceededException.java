@@ -0,0 +1,16 @@
+package ae.etisalat.cisapp.service;
+
+/**
+ * Thrown when the caller's request budget ran out, either before the CIS call was sent or while it
+ * was in flight. Not a backend failure, so the circuit breaker ignores it.
+ */
+public class CisDeadlineExceededException extends RuntimeException {
+
+    public CisDeadlineExceededException(String message) {
+        super(message);
+    }
+
+    public CisDeadlineExceededException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
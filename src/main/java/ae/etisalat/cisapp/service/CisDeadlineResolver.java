@@ -0,0 +1,65 @@
+package ae.etisalat.cisapp.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * Turns the caller's {@code X-Request-Timeout} header, or the endpoint's default when it is absent,
+ * into a {@link CisDeadline}. Header values are milliseconds ({@code 1500}) or a duration with a unit
+ * ({@code 1500ms}, {@code 2s}), and are clamped to {@code webservice.cis.deadline.max}.
+ */
+@Component
+public class CisDeadlineResolver {
+
+    public static final String REQUEST_TIMEOUT_HEADER = "X-Request-Timeout";
+
+    public enum Endpoint { PULL, PULL_ASYNC, BATCH }
+
+    private final Duration pullDefault;
+    private final Duration pullAsyncDefault;
+    private final Duration batchDefault;
+    private final Duration max;
+
+    @Autowired
+    public CisDeadlineResolver(@Value("${webservice.cis.deadline.pull:60s}") Duration pullDefault,
+                               @Value("${webservice.cis.deadline.pull-async:60s}") Duration pullAsyncDefault,
+                               @Value("${webservice.cis.batch.deadline:30s}") Duration batchDefault,
+                               @Value("${webservice.cis.deadline.max:120s}") Duration max) {
+        this.pullDefault = pullDefault;
+        this.pullAsyncDefault = pullAsyncDefault;
+        this.batchDefault = batchDefault;
+        this.max = max;
+    }
+
+    /**
+     * @throws IllegalArgumentException if the header is present but not a valid duration
+     */
+    public CisDeadline resolve(Endpoint endpoint, String requestTimeout) {
+        if (requestTimeout == null || requestTimeout.isBlank()) {
+            return CisDeadline.after(defaultFor(endpoint));
+        }
+        Duration budget;
+        try {
+            budget = DurationStyle.detectAndParse(requestTimeout.trim(), ChronoUnit.MILLIS);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid " + REQUEST_TIMEOUT_HEADER + " header: " + requestTimeout, e);
+        }
+        if (budget.isNegative()) {
+            budget = Duration.ZERO;
+        }
+        return CisDeadline.after(budget.compareTo(max) > 0 ? max : budget);
+    }
+
+    private Duration defaultFor(Endpoint endpoint) {
+        return switch (endpoint) {
+            case PULL -> pullDefault;
+            case PULL_ASYNC -> pullAsyncDefault;
+            case BATCH -> batchDefault;
+        };
+    }
+}
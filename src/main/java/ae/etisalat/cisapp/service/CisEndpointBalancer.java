@@ -0,0 +1,287 @@
+package ae.etisalat.cisapp.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import org.apache.hc.client5.http.ConnectTimeoutException;
+import org.apache.hc.core5.http.ConnectionRequestTimeoutException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import java.net.ConnectException;
+import java.net.NoRouteToHostException;
+import java.net.URI;
+import java.net.UnknownHostException;
+import java.net.http.HttpConnectTimeoutException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Spreads outbound CIS calls over the nodes listed in {@code webservice.cis.endpoints}. Each call goes
+ * to the cheaper of two randomly picked endpoints, where cost is the endpoint's peak-EWMA latency times
+ * its outstanding calls plus one: a node that turns slow or starts queueing is avoided at once, and
+ * tried again as its latency estimate decays over {@code decay-time}.
+ * <p>
+ * Health is checked passively. An endpoint whose calls fail {@code failure-threshold} times in a row
+ * (connect errors, timeouts, dropped connections, HTTP errors other than SOAP faults) is ejected for
+ * {@code ejection-time}; after that one more failure ejects it again, while a success clears the count.
+ * When every endpoint is ejected, all of them are used rather than none.
+ * <p>
+ * Without {@code webservice.cis.endpoints} the single {@code webservice.cis.url} is the only endpoint and
+ * the balancer is disabled, so transports are built exactly as before.
+ */
+@Component
+public class CisEndpointBalancer {
+
+    private static final Logger logger = LoggerFactory.getLogger(CisEndpointBalancer.class);
+
+    // Cost of an endpoint that has calls outstanding but has not completed one yet
+    private static final double UNMEASURED_PENALTY = TimeUnit.SECONDS.toNanos(10);
+
+    private final List<Endpoint> endpoints;
+    private final int failureThreshold;
+    private final long ejectionNanos;
+    private final double decayNanos;
+    private final Counter failovers;
+
+    @Autowired
+    public CisEndpointBalancer(MeterRegistry meterRegistry,
+                               @Value("${webservice.cis.url:http://localhost:8080/soap/cis}") String defaultUri,
+                               @Value("${webservice.cis.endpoints:}") List<String> endpointUris,
+                               @Value("${webservice.cis.load-balancing.failure-threshold:5}") int failureThreshold,
+                               @Value("${webservice.cis.load-balancing.ejection-time:30s}") Duration ejectionTime,
+                               @Value("${webservice.cis.load-balancing.decay-time:10s}") Duration decayTime) {
+        List<Endpoint> configured = new ArrayList<>();
+        for (String uri : endpointUris) {
+            if (StringUtils.hasText(uri)) {
+                configured.add(new Endpoint(URI.create(uri.trim())));
+            }
+        }
+        if (configured.isEmpty()) {
+            configured.add(new Endpoint(URI.create(defaultUri)));
+        }
+        this.endpoints = List.copyOf(configured);
+        this.failureThreshold = failureThreshold;
+        this.ejectionNanos = ejectionTime.toNanos();
+        this.decayNanos = decayTime.toNanos();
+
+        this.failovers = Counter.builder("cis.client.endpoint.failovers")
+                .description("CIS calls moved to another endpoint after a connect-stage failure")
+                .register(meterRegistry);
+        for (Endpoint endpoint : endpoints) {
+            String tag = endpoint.uri.getAuthority();
+            Gauge.builder("cis.client.endpoint.outstanding", endpoint, Endpoint::getOutstanding)
+                    .description("CIS calls currently outstanding on the endpoint")
+                    .tag("endpoint", tag)
+                    .register(meterRegistry);
+            TimeGauge.builder("cis.client.endpoint.latency", endpoint, TimeUnit.NANOSECONDS, Endpoint::getLatencyNanos)
+                    .description("Peak-EWMA latency of the endpoint, as used for balancing")
+                    .tag("endpoint", tag)
+                    .register(meterRegistry);
+            Gauge.builder("cis.client.endpoint.ejected", endpoint, e -> e.isEjected() ? 1 : 0)
+                    .description("1 while the endpoint is ejected by passive health checking")
+                    .tag("endpoint", tag)
+                    .register(meterRegistry);
+            endpoint.ejections = Counter.builder("cis.client.endpoint.ejections")
+                    .description("Times the endpoint was ejected by passive health checking")
+                    .tag("endpoint", tag)
+                    .register(meterRegistry);
+        }
+        if (isEnabled()) {
+            logger.info("CIS load balancing over {} endpoints: failureThreshold={}, ejectionTime={}, decayTime={}",
+                    endpoints.size(), failureThreshold, ejectionTime, decayTime);
+        }
+    }
+
+    /**
+     * Whether more than one endpoint is configured.
+     */
+    public boolean isEnabled() {
+        return endpoints.size() > 1;
+    }
+
+    public List<Endpoint> getEndpoints() {
+        return endpoints;
+    }
+
+    /**
+     * Picks the endpoint for the next attempt of a call.
+     *
+     * @param tried endpoints this call already failed on
+     * @return the endpoint, or {@code null} when every endpoint has been tried
+     */
+    public Endpoint choose(Collection<Endpoint> tried) {
+        long now = System.nanoTime();
+        List<Endpoint> candidates = new ArrayList<>(endpoints.size());
+        for (Endpoint endpoint : endpoints) {
+            if (!tried.contains(endpoint) && !endpoint.isEjected(now)) {
+                candidates.add(endpoint);
+            }
+        }
+        if (candidates.isEmpty()) {
+            for (Endpoint endpoint : endpoints) {
+                if (!tried.contains(endpoint)) {
+                    candidates.add(endpoint);
+                }
+            }
+        }
+        if (candidates.size() <= 1) {
+            return candidates.isEmpty() ? null : candidates.get(0);
+        }
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int first = random.nextInt(candidates.size());
+        int second = random.nextInt(candidates.size() - 1);
+        if (second >= first) {
+            second++;
+        }
+        Endpoint a = candidates.get(first);
+        Endpoint b = candidates.get(second);
+        return a.cost(now) <= b.cost(now) ? a : b;
+    }
+
+    /**
+     * Counts a call that is about to be retried on another endpoint.
+     */
+    public void recordFailover(Endpoint from, Endpoint to, Throwable failure) {
+        failovers.increment();
+        logger.warn("CIS endpoint {} unreachable ({}); retrying on {}", from.uri, failure.getMessage(), to.uri);
+    }
+
+    /**
+     * Whether the failure happened before the request could have reached the backend, so that sending it
+     * again elsewhere cannot run it twice: connection refused, no route, unknown host, connect timeout, or
+     * no pooled connection to lease.
+     */
+    public static boolean isSafeToRetry(Throwable failure) {
+        for (Throwable cause = failure; cause != null; cause = cause.getCause()) {
+            if (cause instanceof ConnectException || cause instanceof NoRouteToHostException
+                    || cause instanceof UnknownHostException || cause instanceof ConnectTimeoutException
+                    || cause instanceof HttpConnectTimeoutException || cause instanceof ConnectionRequestTimeoutException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * One backend node and what the balancer has observed of it. Every {@link #begin()} must be
+     * followed by exactly one of {@link #succeeded}, {@link #failed} or {@link #released}.
+     */
+    public final class Endpoint {
+
+        private final URI uri;
+        private final AtomicInteger outstanding = new AtomicInteger();
+        private final AtomicInteger consecutiveFailures = new AtomicInteger();
+        private volatile long ejectedUntil;
+        private Counter ejections;
+
+        private final ReentrantLock lock = new ReentrantLock();
+        private double latencyNanos;
+        private long stamp = System.nanoTime();
+
+        private Endpoint(URI uri) {
+            this.uri = uri;
+        }
+
+        public URI getUri() {
+            return uri;
+        }
+
+        /**
+         * Marks a call as outstanding on this endpoint.
+         *
+         * @return the start time to pass to {@link #succeeded}
+         */
+        public long begin() {
+            outstanding.incrementAndGet();
+            return System.nanoTime();
+        }
+
+        public void succeeded(long startNanos) {
+            outstanding.decrementAndGet();
+            consecutiveFailures.set(0);
+            long now = System.nanoTime();
+            observe(now - startNanos, now);
+        }
+
+        public void failed() {
+            outstanding.decrementAndGet();
+            int failures = consecutiveFailures.incrementAndGet();
+            long now = System.nanoTime();
+            if (failures >= failureThreshold && !isEjected(now)) {
+                ejectedUntil = now + ejectionNanos;
+                ejections.increment();
+                logger.warn("CIS endpoint {} ejected for {} ms after {} consecutive failures", uri,
+                        TimeUnit.NANOSECONDS.toMillis(ejectionNanos), failures);
+            }
+        }
+
+        /**
+         * Ends a call that says nothing about the endpoint's health, e.g. one that failed before sending.
+         */
+        public void released() {
+            outstanding.decrementAndGet();
+        }
+
+        public int getOutstanding() {
+            return outstanding.get();
+        }
+
+        public boolean isEjected() {
+            return isEjected(System.nanoTime());
+        }
+
+        private boolean isEjected(long now) {
+            long until = ejectedUntil;
+            return until != 0 && now - until < 0;
+        }
+
+        public double getLatencyNanos() {
+            lock.lock();
+            try {
+                return latencyNanos;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private double cost(long now) {
+            int pending = outstanding.get();
+            double latency = observe(0, now);
+            if (latency == 0 && pending > 0) {
+                return UNMEASURED_PENALTY + pending;
+            }
+            return latency * (pending + 1);
+        }
+
+        // Jumps up to any slower sample at once and otherwise decays towards recent samples; reading the
+        // cost decays it towards zero, so an endpoint that was slow once gets tried again
+        private double observe(long rttNanos, long now) {
+            lock.lock();
+            try {
+                double weight = Math.exp(-Math.max(now - stamp, 0) / decayNanos);
+                stamp = now;
+                latencyNanos = rttNanos > latencyNanos ? rttNanos : latencyNanos * weight + rttNanos * (1 - weight);
+                return latencyNanos;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        @Override
+        public String toString() {
+            return uri.toString();
+        }
+    }
+}
@@ -0,0 +1,196 @@
+package ae.etisalat.cisapp.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Hedges slow CIS calls: if the primary attempt has not answered within the observed latency
+ * percentile, an identical second attempt is started and whichever succeeds first wins. The loser's
+ * virtual thread is interrupted, which closes its socket. Hedges are paid for from a token budget
+ * that every call tops up by {@code max-hedge-percent}, so they never exceed that share of traffic
+ * even when the backend is uniformly slow.
+ */
+@Component
+public class CisHedgingExecutor {
+
+    private static final Logger logger = LoggerFactory.getLogger(CisHedgingExecutor.class);
+
+    // Budget is kept in thousandths of a hedge so fractional percentages accumulate exactly
+    private static final long TOKENS_PER_HEDGE = 1000;
+
+    private final boolean enabled;
+    private final double percentile;
+    private final long minDelayNanos;
+    private final long initialDelayNanos;
+    private final long tokensPerCall;
+    private final long maxTokens;
+
+    private final CisLatencyTracker latencyTracker;
+    private final AtomicLong hedgeTokens = new AtomicLong();
+    private final Counter hedgesFired;
+    private final Counter hedgesWon;
+    private final Counter hedgesThrottled;
+
+    private final ExecutorService executor = Executors.newThreadPerTaskExecutor(
+            Thread.ofVirtual().name("cis-hedge-", 0).factory());
+
+    @Autowired
+    public CisHedgingExecutor(MeterRegistry meterRegistry,
+                              @Value("${webservice.cis.hedging.enabled:false}") boolean enabled,
+                              @Value("${webservice.cis.hedging.percentile:0.95}") double percentile,
+                              @Value("${webservice.cis.hedging.min-delay:50ms}") Duration minDelay,
+                              @Value("${webservice.cis.hedging.initial-delay:1s}") Duration initialDelay,
+                              @Value("${webservice.cis.hedging.max-hedge-percent:10}") double maxHedgePercent,
+                              @Value("${webservice.cis.hedging.window-size:1000}") int windowSize,
+                              @Value("${webservice.cis.hedging.min-samples:50}") int minSamples) {
+        this.enabled = enabled;
+        this.percentile = percentile;
+        this.minDelayNanos = minDelay.toNanos();
+        this.initialDelayNanos = initialDelay.toNanos();
+        this.tokensPerCall = Math.round(maxHedgePercent * TOKENS_PER_HEDGE / 100);
+        // Allows a short burst of hedges after a quiet period, but no more than ten
+        this.maxTokens = 10 * TOKENS_PER_HEDGE;
+        this.latencyTracker = new CisLatencyTracker(windowSize, minSamples, TimeUnit.SECONDS.toNanos(1));
+
+        this.hedgesFired = Counter.builder("cis.client.hedges.fired")
+                .description("Second CIS attempts started because the first exceeded the hedge delay")
+                .register(meterRegistry);
+        this.hedgesWon = Counter.builder("cis.client.hedges.won")
+                .description("Hedged CIS calls answered by the second attempt")
+                .register(meterRegistry);
+        this.hedgesThrottled = Counter.builder("cis.client.hedges.throttled")
+                .description("Hedges skipped because the hedge budget was exhausted")
+                .register(meterRegistry);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Runs {@code call}, hedging it if it is slow. Each attempt invokes {@code call} independently,
+     * so it must be safe to repeat.
+     */
+    public <T> T execute(Supplier<T> call) {
+        if (!enabled) {
+            return call.get();
+        }
+        addTokens();
+
+        CompletionService<T> completion = new ExecutorCompletionService<>(executor);
+        List<Future<T>> attempts = new ArrayList<>(2);
+        try {
+            Future<T> primary = completion.submit(timed(call));
+            attempts.add(primary);
+
+            long delay = getHedgeDelayNanos();
+            Future<T> first = completion.poll(delay, TimeUnit.NANOSECONDS);
+            if (first == null) {
+                if (tryTakeHedgeToken()) {
+                    hedgesFired.increment();
+                    logger.debug("CIS call exceeded {} ms, sending hedge", TimeUnit.NANOSECONDS.toMillis(delay));
+                    attempts.add(completion.submit(timed(call)));
+                } else {
+                    hedgesThrottled.increment();
+                }
+                first = completion.take();
+            }
+
+            // Fall back to the other attempt if the first to finish failed
+            Future<T> winner = first;
+            ExecutionException failure = null;
+            for (int remaining = attempts.size(); ; ) {
+                try {
+                    T result = winner.get();
+                    if (winner != primary) {
+                        hedgesWon.increment();
+                    }
+                    return result;
+                } catch (ExecutionException e) {
+                    failure = failure != null ? failure : e;
+                    if (--remaining == 0) {
+                        throw unwrap(failure);
+                    }
+                    winner = completion.take();
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while waiting for CIS response", e);
+        } finally {
+            for (Future<T> attempt : attempts) {
+                attempt.cancel(true);
+            }
+        }
+    }
+
+    /**
+     * Current wait before hedging: the configured latency percentile, or {@code initial-delay} until
+     * enough calls have been seen, never below {@code min-delay}.
+     */
+    public long getHedgeDelayNanos() {
+        long observed = latencyTracker.percentile(percentile);
+        return Math.max(minDelayNanos, observed < 0 ? initialDelayNanos : observed);
+    }
+
+    private <T> Callable<T> timed(Supplier<T> call) {
+        return () -> {
+            long start = System.nanoTime();
+            T result = call.get();
+            // Only completed calls are sampled; cancelled losers would otherwise skew the percentile
+            latencyTracker.record(System.nanoTime() - start);
+            return result;
+        };
+    }
+
+    private void addTokens() {
+        hedgeTokens.getAndUpdate(tokens -> Math.min(maxTokens, tokens + tokensPerCall));
+    }
+
+    private boolean tryTakeHedgeToken() {
+        long tokens;
+        do {
+            tokens = hedgeTokens.get();
+            if (tokens < TOKENS_PER_HEDGE) {
+                return false;
+            }
+        } while (!hedgeTokens.compareAndSet(tokens, tokens - TOKENS_PER_HEDGE));
+        return true;
+    }
+
+    private RuntimeException unwrap(ExecutionException e) {
+        Throwable cause = e.getCause();
+        if (cause instanceof RuntimeException runtimeException) {
+            return runtimeException;
+        }
+        if (cause instanceof Error error) {
+            throw error;
+        }
+        return new RuntimeException(cause);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
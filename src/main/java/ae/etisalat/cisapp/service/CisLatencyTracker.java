@@ -0,0 +1,72 @@
+package ae.etisalat.cisapp.service;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Rolling latency distribution over the last {@code windowSize} CIS calls. Recording is a single
+ * array write; percentiles are read from a sorted snapshot that is rebuilt at most once per
+ * {@code refreshNanos} by whichever caller first notices it is stale, so reads stay cheap on the
+ * request path.
+ */
+public class CisLatencyTracker {
+
+    private final AtomicLongArray samples;
+    private final AtomicLong recorded = new AtomicLong();
+    private final int minSamples;
+    private final long refreshNanos;
+
+    private final AtomicBoolean refreshing = new AtomicBoolean();
+    private volatile long[] snapshot = new long[0];
+    private volatile long snapshotTakenAt;
+
+    public CisLatencyTracker(int windowSize, int minSamples, long refreshNanos) {
+        this.samples = new AtomicLongArray(windowSize);
+        this.minSamples = minSamples;
+        this.refreshNanos = refreshNanos;
+        this.snapshotTakenAt = System.nanoTime() - refreshNanos;
+    }
+
+    public void record(long nanos) {
+        long index = recorded.getAndIncrement();
+        samples.set((int) (index % samples.length()), nanos);
+    }
+
+    /**
+     * @param percentile in {@code (0, 1]}
+     * @return the latency in nanoseconds, or {@code -1} until {@code minSamples} calls have been recorded
+     */
+    public long percentile(double percentile) {
+        long[] sorted = currentSnapshot();
+        if (sorted.length < minSamples || sorted.length == 0) {
+            return -1;
+        }
+        int rank = (int) Math.ceil(percentile * sorted.length) - 1;
+        return sorted[Math.min(Math.max(rank, 0), sorted.length - 1)];
+    }
+
+    public long getRecordedCount() {
+        return recorded.get();
+    }
+
+    private long[] currentSnapshot() {
+        long now = System.nanoTime();
+        if (now - snapshotTakenAt >= refreshNanos && refreshing.compareAndSet(false, true)) {
+            try {
+                int size = (int) Math.min(recorded.get(), samples.length());
+                long[] copy = new long[size];
+                for (int i = 0; i < size; i++) {
+                    copy[i] = samples.get(i);
+                }
+                Arrays.sort(copy);
+                snapshot = copy;
+                snapshotTakenAt = now;
+            } finally {
+                refreshing.set(false);
+            }
+        }
+        return snapshot;
+    }
+}
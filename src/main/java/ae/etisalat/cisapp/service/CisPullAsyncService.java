@@ -0,0 +1,157 @@
+package ae.etisalat.cisapp.service;
+
+import ae.etisalat.cisapp.config.AsyncSoapClient;
+import ae.etisalat.cisapp.metrics.CisClientMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.oxm.UnmarshallingFailureException;
+import org.springframework.stereotype.Service;
+import sem.cis.pull.cbcm.GetSubscriptionDtls;
+import sem.cis.pull.cbcm.GetSubscriptionDtlsResponse;
+
+import javax.xml.namespace.QName;
+import jakarta.xml.bind.JAXBElement;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Asynchronous variant of {@link CisPullService}. Applies the same cache and coalescing rules,
+ * but the SOAP round-trip goes through {@link AsyncSoapClient} and no thread waits on it.
+ */
+@Service
+public class CisPullAsyncService {
+
+    private static final Logger logger = LoggerFactory.getLogger(CisPullAsyncService.class);
+
+    private static final QName REQUEST_QNAME = new QName("http://cbcm.pull.cis.sem/", "getSubscriptionDtls");
+
+    private final AsyncSoapClient asyncSoapClient;
+    private final CisResponseCache responseCache;
+    private final CisRequestCoalescer requestCoalescer;
+    private final CisRequestKeyGenerator keyGenerator;
+    private final CisClientMetrics clientMetrics;
+    private final CisBackendGuard backendGuard;
+
+    @Autowired
+    public CisPullAsyncService(AsyncSoapClient asyncSoapClient, CisResponseCache responseCache,
+                               CisRequestCoalescer requestCoalescer, CisRequestKeyGenerator keyGenerator,
+                               CisClientMetrics clientMetrics, CisBackendGuard backendGuard) {
+        this.asyncSoapClient = asyncSoapClient;
+        this.responseCache = responseCache;
+        this.requestCoalescer = requestCoalescer;
+        this.keyGenerator = keyGenerator;
+        this.clientMetrics = clientMetrics;
+        this.backendGuard = backendGuard;
+    }
+
+    public CompletableFuture<GetSubscriptionDtlsResponse> processCisPullRequestAsync(GetSubscriptionDtls request,
+                                                                                     boolean bypassCache) {
+        return processCisPullRequestAsync(request, bypassCache, null);
+    }
+
+    /**
+     * @param deadline the caller's budget, or {@code null} for the client's fixed request timeout
+     */
+    public CompletableFuture<GetSubscriptionDtlsResponse> processCisPullRequestAsync(GetSubscriptionDtls request,
+                                                                                     boolean bypassCache,
+                                                                                     CisDeadline deadline) {
+        return processCisPullRequestAsync(request, bypassCache, deadline, null);
+    }
+
+    /**
+     * @param caller whose share of the bulkhead the SOAP call queues in, or {@code null} for the shared queue
+     */
+    public CompletableFuture<GetSubscriptionDtlsResponse> processCisPullRequestAsync(GetSubscriptionDtls request,
+                                                                                     boolean bypassCache,
+                                                                                     CisDeadline deadline,
+                                                                                     CisCaller caller) {
+        logger.info("Processing async CIS pull request: {}", request);
+
+        String requestKey = null;
+        if (responseCache.isEnabled() || requestCoalescer.isEnabled()) {
+            requestKey = keyGenerator.generate(request);
+        }
+
+        if (responseCache.isEnabled() && !bypassCache) {
+            GetSubscriptionDtlsResponse cached = responseCache.get(requestKey);
+            if (cached != null) {
+                logger.info("Served async CIS pull request from cache");
+                return CompletableFuture.completedFuture(cached);
+            }
+        }
+
+        if (deadline != null && deadline.isExpired()) {
+            return CompletableFuture.failedFuture(deadline.exceeded("before calling CIS", null));
+        }
+
+        String cacheKey = requestKey;
+        return requestCoalescer.executeAsync(requestKey, deadline, () -> callBackend(request, deadline, caller))
+                .handle((soapResponse, ex) -> {
+                    Throwable failure = ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex;
+                    if (failure instanceof TimeoutException && deadline != null && deadline.isExpired()) {
+                        // A coalesced waiter gave up at its own deadline
+                        failure = deadline.exceeded("waiting for coalesced CIS call", failure);
+                    }
+                    if (failure instanceof CisBackendUnavailableException || failure instanceof CisDeadlineExceededException) {
+                        logger.warn("Async CIS pull request rejected: {}", failure.getMessage());
+                        throw (RuntimeException) failure;
+                    }
+                    if (ex != null) {
+                        logger.error("Error processing async CIS pull request: {}", ex.getMessage(), ex);
+                        throw new RuntimeException("Failed to process CIS pull request", ex);
+                    }
+                    if (soapResponse == null) {
+                        logger.warn("Received null SOAP response");
+                        clientMetrics.recordNullResponse();
+                        return new GetSubscriptionDtlsResponse();
+                    }
+                    responseCache.put(cacheKey, soapResponse);
+                    logger.info("Successfully processed async CIS pull request");
+                    return soapResponse;
+                });
+    }
+
+    private CompletableFuture<GetSubscriptionDtlsResponse> callBackend(GetSubscriptionDtls request, CisDeadline deadline,
+                                                                       CisCaller caller) {
+        JAXBElement<GetSubscriptionDtls> requestElement = new JAXBElement<>(
+            REQUEST_QNAME,
+            GetSubscriptionDtls.class,
+            request
+        );
+
+        return backendGuard.executeAsync(caller, () -> send(requestElement, deadline))
+                .thenApply(CisPullAsyncService::responseValue);
+    }
+
+    // An empty body is a null response, as on the blocking path; anything else must be the expected element
+    private static GetSubscriptionDtlsResponse responseValue(Object response) {
+        if (response == null) {
+            return null;
+        }
+        if (response instanceof JAXBElement<?> responseElement
+                && responseElement.getValue() instanceof GetSubscriptionDtlsResponse value) {
+            return value;
+        }
+        throw new UnmarshallingFailureException("Unexpected CIS response " + response.getClass().getName());
+    }
+
+    private CompletableFuture<Object> send(JAXBElement<GetSubscriptionDtls> requestElement, CisDeadline deadline) {
+        if (deadline == null) {
+            return asyncSoapClient.marshalSendAndReceiveAsync(requestElement);
+        }
+        // Time spent queued for a bulkhead permit comes out of the same budget
+        deadline.check("before a CIS connection was available");
+        return asyncSoapClient.marshalSendAndReceiveAsync(requestElement, deadline)
+                .exceptionally(ex -> {
+                    Throwable failure = ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex;
+                    if (deadline.isExpired()) {
+                        throw deadline.exceeded("during CIS call", failure);
+                    }
+                    throw failure instanceof RuntimeException runtimeException
+                            ? runtimeException : new CompletionException(failure);
+                });
+    }
+}
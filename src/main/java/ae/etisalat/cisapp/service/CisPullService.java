@@ -1,5 +1,6 @@
 package ae.etisalat.cisapp.service;
 
+import ae.etisalat.cisapp.metrics.CisClientMetrics;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -16,35 +17,88 @@ public class CisPullService {
 
     private static final Logger logger = LoggerFactory.getLogger(CisPullService.class);
 
+    private static final QName REQUEST_QNAME = new QName("http://cbcm.pull.cis.sem/", "getSubscriptionDtls");
+
     private final WebServiceTemplate webServiceTemplate;
+    private final CisResponseCache responseCache;
+    private final CisRequestCoalescer requestCoalescer;
+    private final CisRequestKeyGenerator keyGenerator;
+    private final CisClientMetrics clientMetrics;
+    private final CisBackendGuard backendGuard;
+    private final CisHedgingExecutor hedgingExecutor;
 
     @Autowired
-    public CisPullService(WebServiceTemplate webServiceTemplate) {
+    public CisPullService(WebServiceTemplate webServiceTemplate, CisResponseCache responseCache,
+                          CisRequestCoalescer requestCoalescer, CisRequestKeyGenerator keyGenerator,
+                          CisClientMetrics clientMetrics, CisBackendGuard backendGuard,
+                          CisHedgingExecutor hedgingExecutor) {
         this.webServiceTemplate = webServiceTemplate;
+        this.responseCache = responseCache;
+        this.requestCoalescer = requestCoalescer;
+        this.keyGenerator = keyGenerator;
+        this.clientMetrics = clientMetrics;
+        this.backendGuard = backendGuard;
+        this.hedgingExecutor = hedgingExecutor;
     }
 
     public GetSubscriptionDtlsResponse processCisPullRequest(GetSubscriptionDtls request) {
+        return processCisPullRequest(request, false);
+    }
+
+    /**
+     * @param bypassCache skip the response cache lookup (e.g. {@code Cache-Control: no-cache});
+     *                    a fresh successful response still replaces the cached entry
+     */
+    public GetSubscriptionDtlsResponse processCisPullRequest(GetSubscriptionDtls request, boolean bypassCache) {
+        return processCisPullRequest(request, bypassCache, null);
+    }
+
+    /**
+     * @param deadline the caller's budget, or {@code null} for the transport's fixed timeouts; the SOAP
+     *                 call's timeouts are capped at whatever remains of it, and an exhausted budget is
+     *                 rejected with {@link CisDeadlineExceededException} without calling the backend
+     */
+    public GetSubscriptionDtlsResponse processCisPullRequest(GetSubscriptionDtls request, boolean bypassCache,
+                                                             CisDeadline deadline) {
+        return processCisPullRequest(request, bypassCache, deadline, null);
+    }
+
+    /**
+     * @param caller whose share of the bulkhead the SOAP call queues in, or {@code null} for the shared
+     *               queue; a coalesced call runs in the share of the caller that started it
+     */
+    public GetSubscriptionDtlsResponse processCisPullRequest(GetSubscriptionDtls request, boolean bypassCache,
+                                                             CisDeadline deadline, CisCaller caller) {
         logger.info("Processing CIS pull request: {}", request);
 
+        String requestKey = null;
+        if (responseCache.isEnabled() || requestCoalescer.isEnabled()) {
+            requestKey = keyGenerator.generate(request);
+        }
+
+        if (responseCache.isEnabled() && !bypassCache) {
+            GetSubscriptionDtlsResponse cached = responseCache.get(requestKey);
+            if (cached != null) {
+                logger.info("Served CIS pull request from cache");
+                return cached;
+            }
+        }
+
         try {
-            // Wrap the request in JAXBElement to provide root element information
-            QName requestQName = new QName("http://cbcm.pull.cis.sem/", "getSubscriptionDtls");
-            JAXBElement<GetSubscriptionDtls> requestElement = new JAXBElement<>(
-                requestQName,
-                GetSubscriptionDtls.class,
-                request
-            );
-
-            // Call SOAP web service with wrapped request
-            JAXBElement<GetSubscriptionDtlsResponse> responseElement =
-                (JAXBElement<GetSubscriptionDtlsResponse>) webServiceTemplate.marshalSendAndReceive(requestElement);
-
-            if (responseElement != null && responseElement.getValue() != null) {
-                GetSubscriptionDtlsResponse soapResponse = responseElement.getValue();
+            if (deadline != null) {
+                deadline.check("before calling CIS");
+            }
+            GetSubscriptionDtlsResponse soapResponse = requestCoalescer.isEnabled()
+                    ? requestCoalescer.execute(requestKey, deadline, () -> callBackend(request, deadline, caller))
+                    : callBackend(request, deadline, caller);
+
+            if (soapResponse != null) {
+                responseCache.put(requestKey, soapResponse);
                 logger.info("Successfully processed CIS pull request");
                 return soapResponse;
             } else {
                 logger.warn("Received null SOAP response");
+                clientMetrics.recordNullResponse();
                 GetSubscriptionDtlsResponse errorResponse = new GetSubscriptionDtlsResponse();
                 // Set error fields based on actual response structure
                 // Note: Replace these with actual field setters based on your SOAP response class
@@ -61,9 +115,53 @@ public class CisPullService {
                 return errorResponse;
             }
 
+        } catch (CisBackendUnavailableException | CisDeadlineExceededException e) {
+            logger.warn("CIS pull request rejected: {}", e.getMessage());
+            throw e;
         } catch (Exception e) {
             logger.error("Error processing CIS pull request: {}", e.getMessage(), e);
             throw new RuntimeException("Failed to process CIS pull request", e);
         }
     }
+
+    /**
+     * Performs the actual SOAP round-trip through the circuit breaker and bulkhead, hedged when
+     * enabled; returns {@code null} when the backend sent no usable body. Each hedge attempt takes
+     * its own bulkhead permit.
+     */
+    private GetSubscriptionDtlsResponse callBackend(GetSubscriptionDtls request, CisDeadline deadline,
+                                                    CisCaller caller) {
+        return hedgingExecutor.execute(() -> backendGuard.execute(caller, () -> sendRequest(request, deadline)));
+    }
+
+    private GetSubscriptionDtlsResponse sendRequest(GetSubscriptionDtls request, CisDeadline deadline) {
+        if (deadline == null) {
+            return sendRequest(request);
+        }
+        // Time spent queued for a bulkhead permit comes out of the same budget
+        deadline.check("before a CIS connection was available");
+        try {
+            return deadline.bind(() -> sendRequest(request));
+        } catch (RuntimeException e) {
+            if (deadline.isExpired()) {
+                throw deadline.exceeded("during CIS call", e);
+            }
+            throw e;
+        }
+    }
+
+    private GetSubscriptionDtlsResponse sendRequest(GetSubscriptionDtls request) {
+        // Wrap the request in JAXBElement to provide root element information
+        JAXBElement<GetSubscriptionDtls> requestElement = new JAXBElement<>(
+            REQUEST_QNAME,
+            GetSubscriptionDtls.class,
+            request
+        );
+
+        // Call SOAP web service with wrapped request
+        JAXBElement<GetSubscriptionDtlsResponse> responseElement =
+            (JAXBElement<GetSubscriptionDtlsResponse>) webServiceTemplate.marshalSendAndReceive(requestElement);
+
+        return responseElement != null ? responseElement.getValue() : null;
+    }
 }
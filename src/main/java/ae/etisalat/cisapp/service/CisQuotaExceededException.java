@@ -0,0 +1,30 @@
+package ae.etisalat.cisapp.service;
+
+import java.time.Duration;
+
+/**
+ * Thrown without calling CIS when a caller has used up its rate limit, so it can be answered with
+ * a 429 telling the caller when tokens will be available again.
+ */
+public class CisQuotaExceededException extends RuntimeException {
+
+    private final String caller;
+    private final Duration retryAfter;
+
+    public CisQuotaExceededException(String caller, String message, Duration retryAfter) {
+        super(message);
+        this.caller = caller;
+        this.retryAfter = retryAfter;
+    }
+
+    public String getCaller() {
+        return caller;
+    }
+
+    /**
+     * Time until the request would have been allowed.
+     */
+    public Duration getRetryAfter() {
+        return retryAfter;
+    }
+}
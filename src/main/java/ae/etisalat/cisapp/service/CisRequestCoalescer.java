@@ -0,0 +1,221 @@
+package ae.etisalat.cisapp.service;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import sem.cis.pull.cbcm.GetSubscriptionDtlsResponse;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Single-flight coalescing of identical in-flight CIS calls. The first caller for a key runs the
+ * backend call on its own thread; concurrent callers with the same key wait for and share that
+ * result (or exception). Each waiter times out independently of the leader and of other waiters.
+ * Leader and coalesced calls are counted as {@code cis.coalescer.calls{role}}, waiter timeouts as
+ * {@code cis.coalescer.waiter.timeouts}.
+ */
+@Component
+public class CisRequestCoalescer {
+
+    private static final Logger logger = LoggerFactory.getLogger(CisRequestCoalescer.class);
+
+    private final boolean enabled;
+    private final Duration waitTimeout;
+    private final ConcurrentHashMap<String, CompletableFuture<GetSubscriptionDtlsResponse>> inFlight = new ConcurrentHashMap<>();
+
+    private final AtomicLong leaderCalls = new AtomicLong();
+    private final AtomicLong coalescedCalls = new AtomicLong();
+    private final AtomicLong waiterTimeouts = new AtomicLong();
+
+    @Autowired
+    public CisRequestCoalescer(MeterRegistry meterRegistry,
+                               @Value("${webservice.cis.coalescing.enabled:true}") boolean enabled,
+                               @Value("${webservice.cis.coalescing.wait-timeout:65s}") Duration waitTimeout) {
+        this.enabled = enabled;
+        this.waitTimeout = waitTimeout;
+        FunctionCounter.builder("cis.coalescer.calls", leaderCalls, AtomicLong::get)
+                .description("CIS pull calls that went to the backend as coalescing leader")
+                .tag("role", "leader")
+                .register(meterRegistry);
+        FunctionCounter.builder("cis.coalescer.calls", coalescedCalls, AtomicLong::get)
+                .description("CIS pull calls served by sharing another caller's in-flight result")
+                .tag("role", "coalesced")
+                .register(meterRegistry);
+        FunctionCounter.builder("cis.coalescer.waiter.timeouts", waiterTimeouts, AtomicLong::get)
+                .description("Coalesced CIS pull calls that gave up waiting for the shared result")
+                .register(meterRegistry);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public GetSubscriptionDtlsResponse execute(String key, Supplier<GetSubscriptionDtlsResponse> backendCall) {
+        return execute(key, null, backendCall);
+    }
+
+    /**
+     * As {@link #execute(String, Supplier)}, but a coalesced caller waits no longer than its own
+     * deadline. The shared call itself runs under the leader's deadline; if that runs out, a waiter
+     * with time left does not inherit the failure but calls again, as leader or onto a newer flight.
+     */
+    public GetSubscriptionDtlsResponse execute(String key, CisDeadline deadline,
+                                               Supplier<GetSubscriptionDtlsResponse> backendCall) {
+        if (!enabled) {
+            return backendCall.get();
+        }
+
+        CompletableFuture<GetSubscriptionDtlsResponse> flight = new CompletableFuture<>();
+        CompletableFuture<GetSubscriptionDtlsResponse> existing = inFlight.putIfAbsent(key, flight);
+        if (existing != null) {
+            coalescedCalls.incrementAndGet();
+            logger.debug("Coalescing CIS pull request onto in-flight call");
+            try {
+                return await(existing, deadline);
+            } catch (CisDeadlineExceededException e) {
+                if (!hasTimeLeft(deadline)) {
+                    throw e;
+                }
+                logger.debug("Coalesced CIS call ran out of the leader's budget; calling again");
+                return execute(key, deadline, backendCall);
+            }
+        }
+
+        leaderCalls.incrementAndGet();
+        GetSubscriptionDtlsResponse response;
+        try {
+            response = backendCall.get();
+        } catch (RuntimeException | Error e) {
+            // Unregister before completing so late arrivals start a fresh call instead of reusing a failure
+            inFlight.remove(key, flight);
+            flight.completeExceptionally(e);
+            throw e;
+        }
+        inFlight.remove(key, flight);
+        flight.complete(response);
+        return response;
+    }
+
+    /**
+     * Non-blocking variant of {@link #execute}. Shares the same in-flight map, so async and blocking
+     * callers for the same key coalesce onto one backend call.
+     */
+    public CompletableFuture<GetSubscriptionDtlsResponse> executeAsync(
+            String key, Supplier<CompletableFuture<GetSubscriptionDtlsResponse>> backendCall) {
+        return executeAsync(key, null, backendCall);
+    }
+
+    public CompletableFuture<GetSubscriptionDtlsResponse> executeAsync(
+            String key, CisDeadline deadline, Supplier<CompletableFuture<GetSubscriptionDtlsResponse>> backendCall) {
+        if (!enabled) {
+            return backendCall.get();
+        }
+
+        CompletableFuture<GetSubscriptionDtlsResponse> flight = new CompletableFuture<>();
+        CompletableFuture<GetSubscriptionDtlsResponse> existing = inFlight.putIfAbsent(key, flight);
+        if (existing != null) {
+            coalescedCalls.incrementAndGet();
+            logger.debug("Coalescing async CIS pull request onto in-flight call");
+            // Time out a copy so one waiter giving up never completes the shared flight
+            return existing.copy()
+                    .orTimeout(maxWait(deadline).toMillis(), TimeUnit.MILLISECONDS)
+                    .whenComplete((response, ex) -> {
+                        if (ex instanceof TimeoutException) {
+                            waiterTimeouts.incrementAndGet();
+                        }
+                    })
+                    .exceptionallyCompose(ex -> {
+                        Throwable cause = ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex;
+                        if (cause instanceof CisDeadlineExceededException && hasTimeLeft(deadline)) {
+                            logger.debug("Coalesced async CIS call ran out of the leader's budget; calling again");
+                            return executeAsync(key, deadline, backendCall);
+                        }
+                        return CompletableFuture.failedFuture(ex);
+                    });
+        }
+
+        leaderCalls.incrementAndGet();
+        CompletableFuture<GetSubscriptionDtlsResponse> call;
+        try {
+            call = backendCall.get();
+        } catch (RuntimeException e) {
+            inFlight.remove(key, flight);
+            flight.completeExceptionally(e);
+            return CompletableFuture.failedFuture(e);
+        }
+        call.whenComplete((response, ex) -> {
+            inFlight.remove(key, flight);
+            if (ex != null) {
+                flight.completeExceptionally(ex);
+            } else {
+                flight.complete(response);
+            }
+        });
+        return flight.copy();
+    }
+
+    private GetSubscriptionDtlsResponse await(CompletableFuture<GetSubscriptionDtlsResponse> flight,
+                                              CisDeadline deadline) {
+        Duration maxWait = maxWait(deadline);
+        try {
+            return flight.get(maxWait.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new RuntimeException("Coalesced CIS call failed", e.getCause());
+        } catch (TimeoutException e) {
+            waiterTimeouts.incrementAndGet();
+            if (deadline != null && deadline.isExpired()) {
+                throw deadline.exceeded("waiting for coalesced CIS call", e);
+            }
+            throw new RuntimeException("Timed out after " + maxWait + " waiting for coalesced CIS call", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while waiting for coalesced CIS call", e);
+        }
+    }
+
+    // A leader's deadline failure only ends a waiter whose own budget is spent as well
+    private static boolean hasTimeLeft(CisDeadline deadline) {
+        return deadline == null || !deadline.isExpired();
+    }
+
+    private Duration maxWait(CisDeadline deadline) {
+        return deadline != null ? deadline.cap(waitTimeout) : waitTimeout;
+    }
+
+    /**
+     * Calls that actually went to the backend.
+     */
+    public long getLeaderCalls() {
+        return leaderCalls.get();
+    }
+
+    /**
+     * Calls that were served by sharing another caller's in-flight result.
+     */
+    public long getCoalescedCalls() {
+        return coalescedCalls.get();
+    }
+
+    public long getWaiterTimeouts() {
+        return waiterTimeouts.get();
+    }
+
+    public int getInFlightCount() {
+        return inFlight.size();
+    }
+}
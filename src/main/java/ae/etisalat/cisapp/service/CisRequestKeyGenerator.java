@@ -0,0 +1,58 @@
+package ae.etisalat.cisapp.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import sem.cis.pull.cbcm.GetSubscriptionDtls;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Builds a normalized key for a {@link GetSubscriptionDtls} request, so that requests that only
+ * differ in field order map to the same key. Values are kept exactly as they are marshalled;
+ * only {@code null} fields, which are not marshalled at all, are left out.
+ */
+@Component
+public class CisRequestKeyGenerator {
+
+    private final ObjectMapper objectMapper;
+
+    @Autowired
+    public CisRequestKeyGenerator(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    public String generate(GetSubscriptionDtls request) {
+        return normalize(objectMapper.valueToTree(request)).toString();
+    }
+
+    private JsonNode normalize(JsonNode node) {
+        if (node.isObject()) {
+            // Sort fields by name; a null field is absent from the SOAP request either way
+            Map<String, JsonNode> fields = new TreeMap<>();
+            Iterator<Map.Entry<String, JsonNode>> iterator = node.fields();
+            while (iterator.hasNext()) {
+                Map.Entry<String, JsonNode> field = iterator.next();
+                JsonNode value = normalize(field.getValue());
+                if (!value.isNull()) {
+                    fields.put(field.getKey(), value);
+                }
+            }
+            ObjectNode normalized = JsonNodeFactory.instance.objectNode();
+            normalized.setAll(fields);
+            return normalized;
+        }
+        if (node.isArray()) {
+            ArrayNode normalized = JsonNodeFactory.instance.arrayNode(node.size());
+            node.forEach(element -> normalized.add(normalize(element)));
+            return normalized;
+        }
+        return node;
+    }
+}
@@ -0,0 +1,96 @@
+package ae.etisalat.cisapp.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import sem.cis.pull.cbcm.GetSubscriptionDtlsResponse;
+
+import java.time.Duration;
+
+/**
+ * Bounded in-memory cache of getSubscriptionDtls responses, keyed by the normalized request.
+ * Eviction is size/weight based (Caffeine W-TinyLFU) with a fixed time-to-live per entry. When enabled,
+ * its statistics are published as the standard {@code cache.*} meters tagged {@code cache=cis.response}.
+ */
+@Component
+public class CisResponseCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(CisResponseCache.class);
+
+    private final boolean enabled;
+    private final ObjectMapper objectMapper;
+    private final Cache<String, GetSubscriptionDtlsResponse> cache;
+
+    @Autowired
+    public CisResponseCache(ObjectMapper objectMapper, MeterRegistry meterRegistry,
+                            @Value("${webservice.cis.cache.enabled:false}") boolean enabled,
+                            @Value("${webservice.cis.cache.ttl:60s}") Duration ttl,
+                            @Value("${webservice.cis.cache.max-entries:10000}") long maxEntries,
+                            @Value("${webservice.cis.cache.max-weight-bytes:0}") long maxWeightBytes) {
+        this.enabled = enabled;
+        this.objectMapper = objectMapper;
+
+        Caffeine<Object, Object> builder = Caffeine.newBuilder()
+                .expireAfterWrite(ttl)
+                .recordStats();
+        // Caffeine bounds either by entry count or by weight; weight wins when configured
+        if (maxWeightBytes > 0) {
+            builder.maximumWeight(maxWeightBytes)
+                    .weigher((String key, GetSubscriptionDtlsResponse value) -> weigh(key, value));
+        } else {
+            builder.maximumSize(maxEntries);
+        }
+        this.cache = builder.build();
+
+        if (enabled) {
+            CaffeineCacheMetrics.monitor(meterRegistry, cache, "cis.response");
+            logger.info("CIS response cache enabled: ttl={}, maxEntries={}, maxWeightBytes={}", ttl, maxEntries, maxWeightBytes);
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public GetSubscriptionDtlsResponse get(String key) {
+        if (!enabled) {
+            return null;
+        }
+        return cache.getIfPresent(key);
+    }
+
+    public void put(String key, GetSubscriptionDtlsResponse response) {
+        if (enabled) {
+            cache.put(key, response);
+        }
+    }
+
+    /**
+     * Hit, miss and eviction counters since startup.
+     */
+    public CacheStats stats() {
+        return cache.stats();
+    }
+
+    public long size() {
+        return cache.estimatedSize();
+    }
+
+    private int weigh(String key, GetSubscriptionDtlsResponse value) {
+        // Approximate the retained size by the JSON form of the response; computed once per insert
+        try {
+            return key.length() * 2 + objectMapper.writeValueAsBytes(value).length;
+        } catch (Exception e) {
+            logger.debug("Could not weigh cache entry: {}", e.getMessage());
+            return key.length() * 2;
+        }
+    }
+}
@@ -0,0 +1,645 @@
+package ae.etisalat.cisapp.service;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.ser.BeanPropertyWriter;
+import com.fasterxml.jackson.databind.ser.BeanSerializer;
+import com.fasterxml.jackson.databind.ser.PropertyWriter;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+import jakarta.xml.bind.DatatypeConverter;
+import jakarta.xml.bind.annotation.XmlAccessType;
+import jakarta.xml.bind.annotation.XmlAccessorType;
+import jakarta.xml.bind.annotation.XmlElement;
+import jakarta.xml.bind.annotation.XmlEnumValue;
+import jakarta.xml.bind.annotation.XmlNsForm;
+import jakarta.xml.bind.annotation.XmlSchema;
+import jakarta.xml.bind.annotation.XmlSchemaType;
+import jakarta.xml.bind.annotation.XmlTransient;
+import jakarta.xml.bind.annotation.XmlType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.oxm.UnmarshallingFailureException;
+import org.springframework.stereotype.Component;
+import sem.cis.pull.cbcm.GetSubscriptionDtlsResponse;
+
+import javax.xml.XMLConstants;
+import javax.xml.datatype.DatatypeConfigurationException;
+import javax.xml.datatype.DatatypeFactory;
+import javax.xml.datatype.XMLGregorianCalendar;
+import javax.xml.namespace.QName;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.ParameterizedType;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Writes a getSubscriptionDtls SOAP response as JSON while reading it with StAX, producing the bytes
+ * the {@link ObjectMapper} would write for the unmarshalled {@link GetSubscriptionDtlsResponse} without
+ * building a DOM or any JAXB objects. The mapping is planned once, from the mapper's own bean
+ * serializers (JSON names, order, and what an absent property serializes as) and the JAXB field
+ * annotations (element names), so it follows the generated classes rather than hard-coded field names.
+ * <p>
+ * Properties are written as their elements arrive when the JSON order matches the schema order, and
+ * buffered per object otherwise. Types that cannot be mapped exactly (attributes, JAXBElement,
+ * wrappers, non-default inclusion, ...) leave {@link #isSupported()} false.
+ */
+@Component
+public class CisResponseTranscoder {
+
+    private static final Logger logger = LoggerFactory.getLogger(CisResponseTranscoder.class);
+
+    private static final QName RESPONSE_QNAME = new QName("http://cbcm.pull.cis.sem/", "getSubscriptionDtlsResponse");
+
+    private static final String SOAP_11_NAMESPACE = "http://schemas.xmlsoap.org/soap/envelope/";
+    private static final String SOAP_12_NAMESPACE = "http://www.w3.org/2003/05/soap-envelope";
+
+    /**
+     * Opened only once the response payload has been found, so a fault or malformed envelope can
+     * still be answered with an error status.
+     */
+    @FunctionalInterface
+    public interface JsonTarget {
+        OutputStream open() throws IOException;
+    }
+
+    private enum Kind { STRING, INT, LONG, SHORT, BYTE, DOUBLE, FLOAT, BOOLEAN, DECIMAL, INTEGER, CALENDAR, ENUM, OBJECT }
+
+    private static final Map<Class<?>, Kind> SCALAR_KINDS = Map.ofEntries(
+            Map.entry(String.class, Kind.STRING),
+            Map.entry(int.class, Kind.INT), Map.entry(Integer.class, Kind.INT),
+            Map.entry(long.class, Kind.LONG), Map.entry(Long.class, Kind.LONG),
+            Map.entry(short.class, Kind.SHORT), Map.entry(Short.class, Kind.SHORT),
+            Map.entry(byte.class, Kind.BYTE), Map.entry(Byte.class, Kind.BYTE),
+            Map.entry(double.class, Kind.DOUBLE), Map.entry(Double.class, Kind.DOUBLE),
+            Map.entry(float.class, Kind.FLOAT), Map.entry(Float.class, Kind.FLOAT),
+            Map.entry(boolean.class, Kind.BOOLEAN), Map.entry(Boolean.class, Kind.BOOLEAN),
+            Map.entry(BigDecimal.class, Kind.DECIMAL),
+            Map.entry(BigInteger.class, Kind.INTEGER),
+            Map.entry(XMLGregorianCalendar.class, Kind.CALENDAR));
+
+    private final ObjectMapper objectMapper;
+    private final ObjectWriter jsonWriter;
+    private final ObjectWriter valueWriter;
+    private final QName rootElement;
+    private final XMLInputFactory inputFactory;
+    private final DatatypeFactory datatypeFactory;
+    private final Map<Class<?>, ObjectPlan> plans = new HashMap<>();
+    private final ObjectPlan rootPlan;
+
+    @Autowired
+    public CisResponseTranscoder(ObjectMapper objectMapper) {
+        this(objectMapper, GetSubscriptionDtlsResponse.class, RESPONSE_QNAME);
+    }
+
+    CisResponseTranscoder(ObjectMapper objectMapper, Class<?> rootType, QName rootElement) {
+        this.objectMapper = objectMapper;
+        this.jsonWriter = objectMapper.writer();
+        this.valueWriter = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        this.rootElement = rootElement;
+
+        this.inputFactory = XMLInputFactory.newFactory();
+        inputFactory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        inputFactory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        try {
+            this.datatypeFactory = DatatypeFactory.newInstance();
+        } catch (DatatypeConfigurationException e) {
+            throw new IllegalStateException("No DatatypeFactory available", e);
+        }
+
+        ObjectPlan plan;
+        try {
+            plan = plan(rootType);
+        } catch (Exception e) {
+            logger.warn("Cannot stream {} as JSON: {}", rootType.getName(), e.getMessage());
+            plan = null;
+        }
+        this.rootPlan = plan;
+    }
+
+    public boolean isSupported() {
+        return rootPlan != null;
+    }
+
+    /**
+     * Reads a SOAP envelope from {@code body} and writes its payload as JSON to {@code target}.
+     *
+     * @return {@code false}, with nothing written, if the SOAP body was empty
+     * @throws CisSoapFaultException if the SOAP body holds a fault
+     * @throws UnmarshallingFailureException if the envelope is malformed or carries another payload
+     * @throws IOException if reading the body or writing to the target fails
+     */
+    public boolean transcode(InputStream body, JsonTarget target) throws IOException {
+        XMLStreamReader reader = null;
+        try {
+            reader = inputFactory.createXMLStreamReader(body);
+            if (!moveToPayload(reader)) {
+                return false;
+            }
+            if (isSoapElement(reader, "Fault")) {
+                throw readFault(reader);
+            }
+            if (!rootElement.getNamespaceURI().equals(reader.getNamespaceURI())
+                    || !rootElement.getLocalPart().equals(reader.getLocalName())) {
+                throw new UnmarshallingFailureException("Unexpected response element " + reader.getName());
+            }
+            JsonGenerator generator = jsonWriter.createGenerator(target.open(), JsonEncoding.UTF8);
+            writeObject(reader, rootPlan, generator);
+            generator.flush();
+            return true;
+        } catch (XMLStreamException e) {
+            // The parser wraps transport failures (read timeouts included); let them surface as I/O errors
+            if (e.getNestedException() instanceof IOException io) {
+                throw io;
+            }
+            throw new UnmarshallingFailureException("Malformed CIS response: " + e.getMessage(), e);
+        } finally {
+            if (reader != null) {
+                try {
+                    reader.close();
+                } catch (XMLStreamException e) {
+                    logger.debug("Could not close XML reader: {}", e.getMessage());
+                }
+            }
+        }
+    }
+
+    /**
+     * Writes what the mapper produces for a response with no content, for calls that returned no body.
+     */
+    public void writeEmpty(JsonTarget target) throws IOException {
+        JsonGenerator generator = jsonWriter.createGenerator(target.open(), JsonEncoding.UTF8);
+        generator.writeStartObject();
+        for (PropertyPlan property : rootPlan.properties) {
+            writeAbsent(property, generator);
+        }
+        generator.writeEndObject();
+        generator.flush();
+    }
+
+    // --- Reading --------------------------------------------------------------------------------
+
+    private boolean moveToPayload(XMLStreamReader reader) throws XMLStreamException {
+        reader.nextTag();
+        if (!isSoapElement(reader, "Envelope")) {
+            throw new UnmarshallingFailureException("Not a SOAP envelope: " + reader.getName());
+        }
+        while (nextChild(reader)) {
+            if (isSoapElement(reader, "Body")) {
+                return nextChild(reader);
+            }
+            skipElement(reader);
+        }
+        return false;
+    }
+
+    private static boolean isSoapElement(XMLStreamReader reader, String localName) {
+        String namespace = reader.getNamespaceURI();
+        return localName.equals(reader.getLocalName())
+                && (SOAP_11_NAMESPACE.equals(namespace) || SOAP_12_NAMESPACE.equals(namespace));
+    }
+
+    /**
+     * Moves to the next child element of the current one, ignoring text, comments and processing
+     * instructions in between as JAXB does; {@code false} once the current element has ended.
+     */
+    private static boolean nextChild(XMLStreamReader reader) throws XMLStreamException {
+        while (reader.hasNext()) {
+            int event = reader.next();
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                return true;
+            }
+            if (event == XMLStreamConstants.END_ELEMENT) {
+                return false;
+            }
+        }
+        return false;
+    }
+
+    private static void skipElement(XMLStreamReader reader) throws XMLStreamException {
+        int depth = 1;
+        while (depth > 0) {
+            int event = reader.next();
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                depth++;
+            } else if (event == XMLStreamConstants.END_ELEMENT) {
+                depth--;
+            }
+        }
+    }
+
+    private static boolean isNil(XMLStreamReader reader) {
+        String nil = reader.getAttributeValue(XMLConstants.W3C_XML_SCHEMA_INSTANCE_NS_URI, "nil");
+        return nil != null && ("true".equals(nil.trim()) || "1".equals(nil.trim()));
+    }
+
+    private static CisSoapFaultException readFault(XMLStreamReader reader) throws XMLStreamException {
+        String code = null;
+        String reason = null;
+        int depth = 1;
+        while (depth > 0) {
+            int event = reader.next();
+            if (event == XMLStreamConstants.END_ELEMENT) {
+                depth--;
+            } else if (event == XMLStreamConstants.START_ELEMENT) {
+                String name = reader.getLocalName();
+                // SOAP 1.1 faultcode/faultstring, SOAP 1.2 Code/Value and Reason/Text
+                if (code == null && ("faultcode".equals(name) || "Value".equals(name))) {
+                    code = reader.getElementText().trim();
+                } else if (reason == null && ("faultstring".equals(name) || "Text".equals(name))) {
+                    reason = reader.getElementText().trim();
+                } else {
+                    depth++;
+                }
+            }
+        }
+        return new CisSoapFaultException(code, reason);
+    }
+
+    // --- Writing --------------------------------------------------------------------------------
+
+    /**
+     * Writes the object whose start element the reader is on, leaving the reader on its end element.
+     */
+    private void writeObject(XMLStreamReader reader, ObjectPlan plan, JsonGenerator generator)
+            throws IOException, XMLStreamException {
+        generator.writeStartObject();
+        if (plan.inSchemaOrder) {
+            writePropertiesInOrder(reader, plan, generator);
+        } else {
+            writePropertiesBuffered(reader, plan, generator);
+        }
+        generator.writeEndObject();
+    }
+
+    private void writePropertiesInOrder(XMLStreamReader reader, ObjectPlan plan, JsonGenerator generator)
+            throws IOException, XMLStreamException {
+        int next = 0;
+        boolean arrayOpen = false;
+        while (nextChild(reader)) {
+            PropertyPlan property = plan.property(reader);
+            if (property == null) {
+                skipElement(reader);
+                continue;
+            }
+            if (arrayOpen && property.index == next - 1) {
+                writeValue(reader, property, generator);
+                continue;
+            }
+            if (property.index < next) {
+                // JAXB would still take it, but the property has already been written
+                throw new UnmarshallingFailureException("Element " + reader.getName() + " out of schema order in "
+                        + plan.type.getSimpleName());
+            }
+            if (arrayOpen) {
+                generator.writeEndArray();
+                arrayOpen = false;
+            }
+            for (; next < property.index; next++) {
+                writeAbsent(plan.properties[next], generator);
+            }
+            generator.writeFieldName(property.jsonName);
+            if (property.list) {
+                generator.writeStartArray();
+                arrayOpen = true;
+            }
+            writeValue(reader, property, generator);
+            next = property.index + 1;
+        }
+        if (arrayOpen) {
+            generator.writeEndArray();
+        }
+        for (; next < plan.properties.length; next++) {
+            writeAbsent(plan.properties[next], generator);
+        }
+    }
+
+    private void writePropertiesBuffered(XMLStreamReader reader, ObjectPlan plan, JsonGenerator generator)
+            throws IOException, XMLStreamException {
+        TokenBuffer[] values = new TokenBuffer[plan.properties.length];
+        while (nextChild(reader)) {
+            PropertyPlan property = plan.property(reader);
+            if (property == null) {
+                skipElement(reader);
+                continue;
+            }
+            TokenBuffer value = values[property.index];
+            if (value == null || !property.list) {
+                // A repeated single-valued element replaces the earlier one, as with JAXB
+                value = new TokenBuffer(objectMapper, false);
+                values[property.index] = value;
+                if (property.list) {
+                    value.writeStartArray();
+                }
+            }
+            writeValue(reader, property, value);
+        }
+        for (PropertyPlan property : plan.properties) {
+            TokenBuffer value = values[property.index];
+            if (value == null) {
+                writeAbsent(property, generator);
+                continue;
+            }
+            if (property.list) {
+                value.writeEndArray();
+            }
+            generator.writeFieldName(property.jsonName);
+            value.serialize(generator);
+        }
+    }
+
+    /**
+     * Writes the value of the element the reader is on, leaving the reader on its end element.
+     */
+    private void writeValue(XMLStreamReader reader, PropertyPlan property, JsonGenerator generator)
+            throws IOException, XMLStreamException {
+        if (isNil(reader)) {
+            skipElement(reader);
+            writeUnset(property, generator);
+            return;
+        }
+        if (property.kind == Kind.OBJECT) {
+            writeObject(reader, property.objectPlan, generator);
+            return;
+        }
+        String text = reader.getElementText();
+        try {
+            switch (property.kind) {
+                case STRING -> generator.writeString(text);
+                case INT -> generator.writeNumber(DatatypeConverter.parseInt(text.trim()));
+                case LONG -> generator.writeNumber(DatatypeConverter.parseLong(text.trim()));
+                case SHORT -> generator.writeNumber(DatatypeConverter.parseShort(text.trim()));
+                case BYTE -> generator.writeNumber(DatatypeConverter.parseByte(text.trim()));
+                case DOUBLE -> generator.writeNumber(DatatypeConverter.parseDouble(text.trim()));
+                case FLOAT -> generator.writeNumber(DatatypeConverter.parseFloat(text.trim()));
+                case BOOLEAN -> generator.writeBoolean(DatatypeConverter.parseBoolean(text.trim()));
+                case DECIMAL -> generator.writeNumber(DatatypeConverter.parseDecimal(text.trim()));
+                case INTEGER -> generator.writeNumber(DatatypeConverter.parseInteger(text.trim()));
+                case CALENDAR -> valueWriter.writeValue(generator, datatypeFactory.newXMLGregorianCalendar(text.trim()));
+                case ENUM -> {
+                    Object constant = property.enumConstants.get(text.trim());
+                    if (constant == null) {
+                        writeUnset(property, generator);
+                    } else {
+                        valueWriter.writeValue(generator, constant);
+                    }
+                }
+                default -> throw new IllegalStateException("Unexpected kind " + property.kind);
+            }
+        } catch (IllegalArgumentException e) {
+            // JAXB reports unparseable values as recoverable errors and leaves the property unset
+            logger.debug("Ignoring unparseable value for {}: {}", property.element, e.getMessage());
+            writeUnset(property, generator);
+        }
+    }
+
+    /**
+     * A nil or unparseable element: {@code null}, or the field's initial value for primitives.
+     */
+    private void writeUnset(PropertyPlan property, JsonGenerator generator) throws IOException {
+        if (property.primitive) {
+            valueWriter.writeValue(generator, property.absentValue);
+        } else {
+            generator.writeNull();
+        }
+    }
+
+    private void writeAbsent(PropertyPlan property, JsonGenerator generator) throws IOException {
+        generator.writeFieldName(property.jsonName);
+        if (property.absentValue == null) {
+            generator.writeNull();
+        } else {
+            valueWriter.writeValue(generator, property.absentValue);
+        }
+    }
+
+    // --- Planning -------------------------------------------------------------------------------
+
+    private ObjectPlan plan(Class<?> type) throws Exception {
+        ObjectPlan existing = plans.get(type);
+        if (existing != null) {
+            return existing;
+        }
+        JsonSerializer<Object> serializer = objectMapper.getSerializerProviderInstance().findValueSerializer(type);
+        if (serializer.getClass() != BeanSerializer.class) {
+            throw new IllegalStateException(type.getName() + " is not serialized as a plain bean");
+        }
+        ObjectPlan plan = new ObjectPlan(type);
+        plans.put(type, plan);
+
+        List<Field> fields = xmlElementFields(type);
+        Object defaults = type.getDeclaredConstructor().newInstance();
+        List<PropertyPlan> properties = new ArrayList<>();
+        int lastFieldIndex = -1;
+        plan.inSchemaOrder = true;
+        for (Iterator<PropertyWriter> it = ((BeanSerializer) serializer).properties(); it.hasNext(); ) {
+            PropertyWriter writer = it.next();
+            if (!(writer instanceof BeanPropertyWriter property) || property.willSuppressNulls()
+                    || property.getTypeSerializer() != null) {
+                throw new IllegalStateException("Property " + writer.getName() + " of " + type.getName()
+                        + " uses custom inclusion or typing");
+            }
+            int fieldIndex = matchField(property, fields, type);
+            if (fieldIndex <= lastFieldIndex) {
+                plan.inSchemaOrder = false;
+            }
+            lastFieldIndex = Math.max(lastFieldIndex, fieldIndex);
+
+            PropertyPlan propertyPlan = planProperty(properties.size(), property, fields.get(fieldIndex), type);
+            propertyPlan.absentValue = property.get(defaults);
+            properties.add(propertyPlan);
+            plan.elements.put(propertyPlan.element, propertyPlan);
+        }
+        plan.properties = properties.toArray(new PropertyPlan[0]);
+        return plan;
+    }
+
+    private PropertyPlan planProperty(int index, BeanPropertyWriter property, Field field, Class<?> owner)
+            throws Exception {
+        JavaType javaType = property.getType();
+        boolean list = javaType.isCollectionLikeType();
+        Class<?> valueType;
+        if (list) {
+            if (!List.class.isAssignableFrom(field.getType())
+                    || !(field.getGenericType() instanceof ParameterizedType parameterized)
+                    || !(parameterized.getActualTypeArguments()[0] instanceof Class<?> elementType)) {
+                throw new IllegalStateException("Unsupported collection " + field.getName() + " in " + owner.getName());
+            }
+            valueType = elementType;
+        } else {
+            valueType = field.getType();
+        }
+
+        PropertyPlan plan = new PropertyPlan(index, new SerializedString(property.getName()), elementName(field, owner),
+                list, valueType.isPrimitive());
+        Kind kind = SCALAR_KINDS.get(valueType);
+        if (kind != null) {
+            plan.kind = kind;
+        } else if (valueType.isEnum()) {
+            plan.kind = Kind.ENUM;
+            plan.enumConstants = new HashMap<>();
+            for (Object constant : valueType.getEnumConstants()) {
+                XmlEnumValue xmlValue = valueType.getField(((Enum<?>) constant).name()).getAnnotation(XmlEnumValue.class);
+                plan.enumConstants.put(xmlValue != null ? xmlValue.value() : ((Enum<?>) constant).name(), constant);
+            }
+        } else if (valueType.isAnnotationPresent(XmlType.class) && !valueType.getName().startsWith("java")) {
+            plan.kind = Kind.OBJECT;
+            plan.objectPlan = plan(valueType);
+        } else {
+            throw new IllegalStateException("Unsupported type " + valueType.getName() + " of " + field.getName()
+                    + " in " + owner.getName());
+        }
+        return plan;
+    }
+
+    /**
+     * The fields JAXB maps to child elements, in schema order: superclass fields first, then
+     * {@code propOrder} where given, declaration order otherwise.
+     */
+    private static List<Field> xmlElementFields(Class<?> type) {
+        XmlAccessorType accessorType = type.getAnnotation(XmlAccessorType.class);
+        if (accessorType == null) {
+            accessorType = type.getPackage().getAnnotation(XmlAccessorType.class);
+        }
+        if (accessorType == null || accessorType.value() != XmlAccessType.FIELD) {
+            throw new IllegalStateException(type.getName() + " does not use field access");
+        }
+
+        List<Field> fields = new ArrayList<>();
+        Class<?> superclass = type.getSuperclass();
+        if (superclass != null && superclass != Object.class) {
+            fields.addAll(xmlElementFields(superclass));
+        }
+        List<Field> declared = new ArrayList<>();
+        for (Field field : type.getDeclaredFields()) {
+            if (Modifier.isStatic(field.getModifiers()) || Modifier.isTransient(field.getModifiers())
+                    || field.isAnnotationPresent(XmlTransient.class)) {
+                continue;
+            }
+            for (Annotation annotation : field.getAnnotations()) {
+                Class<? extends Annotation> annotationType = annotation.annotationType();
+                if (annotationType.getPackageName().startsWith(XmlElement.class.getPackageName())
+                        && annotationType != XmlElement.class && annotationType != XmlSchemaType.class) {
+                    throw new IllegalStateException("Unsupported @" + annotationType.getSimpleName()
+                            + " on " + field.getName() + " in " + type.getName());
+                }
+            }
+            declared.add(field);
+        }
+        XmlType xmlType = type.getAnnotation(XmlType.class);
+        if (xmlType != null && xmlType.propOrder().length > 0 && !xmlType.propOrder()[0].isEmpty()) {
+            List<String> propOrder = Arrays.asList(xmlType.propOrder());
+            declared.sort((a, b) -> Integer.compare(order(propOrder, a), order(propOrder, b)));
+        }
+        fields.addAll(declared);
+        return fields;
+    }
+
+    private static int order(List<String> propOrder, Field field) {
+        int index = propOrder.indexOf(field.getName());
+        return index >= 0 ? index : Integer.MAX_VALUE;
+    }
+
+    /**
+     * Finds the field behind a Jackson property: the field itself, or the one its getter reads,
+     * matched the way the generated names relate ({@code getReturn} to {@code _return},
+     * {@code getMSISDN} to {@code msisdn}).
+     */
+    private static int matchField(BeanPropertyWriter property, List<Field> fields, Class<?> owner) {
+        String memberName = property.getMember().getName();
+        if (property.getMember().getMember() instanceof java.lang.reflect.Method) {
+            memberName = memberName.startsWith("is") ? memberName.substring(2) : memberName.substring(3);
+        }
+        String key = normalize(memberName);
+        int match = -1;
+        for (int i = 0; i < fields.size(); i++) {
+            if (normalize(fields.get(i).getName()).equals(key)) {
+                if (match >= 0) {
+                    throw new IllegalStateException("Ambiguous field for property " + property.getName() + " in " + owner.getName());
+                }
+                match = i;
+            }
+        }
+        if (match < 0) {
+            throw new IllegalStateException("No XML element for property " + property.getName() + " in " + owner.getName());
+        }
+        return match;
+    }
+
+    private static String normalize(String name) {
+        return name.replace("_", "").toLowerCase(Locale.ROOT);
+    }
+
+    private static QName elementName(Field field, Class<?> owner) {
+        XmlElement element = field.getAnnotation(XmlElement.class);
+        String name = element != null && !"##default".equals(element.name()) ? element.name() : field.getName();
+        String namespace;
+        if (element != null && !"##default".equals(element.namespace())) {
+            namespace = element.namespace();
+        } else {
+            XmlSchema schema = owner.getPackage().getAnnotation(XmlSchema.class);
+            namespace = schema != null && schema.elementFormDefault() == XmlNsForm.QUALIFIED ? schema.namespace() : "";
+        }
+        return new QName(namespace, name);
+    }
+
+    private static final class ObjectPlan {
+        private final Class<?> type;
+        private final Map<QName, PropertyPlan> elements = new HashMap<>();
+        private PropertyPlan[] properties;
+        // JSON property order equals schema element order, so values can be written as they arrive
+        private boolean inSchemaOrder;
+
+        ObjectPlan(Class<?> type) {
+            this.type = type;
+        }
+
+        PropertyPlan property(XMLStreamReader reader) {
+            String namespace = reader.getNamespaceURI();
+            return elements.get(new QName(namespace != null ? namespace : "", reader.getLocalName()));
+        }
+    }
+
+    private static final class PropertyPlan {
+        private final int index;
+        private final SerializedString jsonName;
+        private final QName element;
+        private final boolean list;
+        private final boolean primitive;
+        private Kind kind;
+        private ObjectPlan objectPlan;
+        private Map<String, Object> enumConstants;
+        // What the mapper writes when the element is missing: the value in a freshly constructed bean
+        private Object absentValue;
+
+        PropertyPlan(int index, SerializedString jsonName, QName element, boolean list, boolean primitive) {
+            this.index = index;
+            this.jsonName = jsonName;
+            this.element = element;
+            this.list = list;
+            this.primitive = primitive;
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package ae.etisalat.cisapp.service;
+
+import org.springframework.ws.soap.client.SoapFaultClientException;
+
+/**
+ * A SOAP fault read from a streamed CIS response, where there is no SOAP message to wrap in Spring WS's
+ * {@code SoapFaultClientException}.
+ */
+public class CisSoapFaultException extends RuntimeException {
+
+    private final String faultCode;
+    private final String faultString;
+
+    public CisSoapFaultException(String faultCode, String faultString) {
+        super("SOAP fault from CIS: " + faultCode + ": " + faultString);
+        this.faultCode = faultCode;
+        this.faultString = faultString;
+    }
+
+    public String getFaultCode() {
+        return faultCode;
+    }
+
+    public String getFaultString() {
+        return faultString;
+    }
+
+    /**
+     * Whether CIS answered with a SOAP fault, on either path, anywhere in the cause chain; the pull
+     * services wrap whatever the call threw.
+     */
+    public static boolean isFault(Throwable failure) {
+        for (Throwable cause = failure; cause != null; cause = cause.getCause()) {
+            if (cause instanceof SoapFaultClientException || cause instanceof CisSoapFaultException) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
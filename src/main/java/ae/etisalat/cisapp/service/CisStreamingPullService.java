@@ -0,0 +1,163 @@
+package ae.etisalat.cisapp.service;
+
+import ae.etisalat.cisapp.config.StreamingSoapClient;
+import ae.etisalat.cisapp.metrics.CisClientMetrics;
+import jakarta.xml.bind.JAXBElement;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import sem.cis.pull.cbcm.GetSubscriptionDtls;
+
+import javax.xml.namespace.QName;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Streaming variant of {@link CisPullService#processCisPullRequest}: the SOAP response is transcoded
+ * to JSON by {@link CisResponseTranscoder} as it is read, so no DOM or JAXB object graph is built.
+ * Calls go through the same circuit breaker, bulkhead and deadline handling. There is no response
+ * object to cache, share or race, so the response cache, request coalescing and hedging do not apply.
+ */
+@Service
+public class CisStreamingPullService {
+
+    private static final Logger logger = LoggerFactory.getLogger(CisStreamingPullService.class);
+
+    private static final QName REQUEST_QNAME = new QName("http://cbcm.pull.cis.sem/", "getSubscriptionDtls");
+
+    private final StreamingSoapClient streamingSoapClient;
+    private final CisResponseTranscoder transcoder;
+    private final CisBackendGuard backendGuard;
+    private final CisClientMetrics clientMetrics;
+    private final boolean enabled;
+
+    @Autowired
+    public CisStreamingPullService(ObjectProvider<StreamingSoapClient> streamingSoapClient, CisResponseTranscoder transcoder,
+                                   CisBackendGuard backendGuard, CisClientMetrics clientMetrics,
+                                   @Value("${webservice.cis.streaming.enabled:false}") boolean enabled) {
+        this.streamingSoapClient = streamingSoapClient.getIfAvailable();
+        this.transcoder = transcoder;
+        this.backendGuard = backendGuard;
+        this.clientMetrics = clientMetrics;
+        this.enabled = enabled && this.streamingSoapClient != null && transcoder.isSupported();
+
+        if (enabled && !transcoder.isSupported()) {
+            logger.warn("CIS response streaming requested but the response type cannot be streamed; using the unmarshalling path");
+        } else if (this.enabled) {
+            logger.info("Streaming CIS pull responses; cache, coalescing and hedging apply to the async and batch endpoints only");
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Calls CIS and writes the response as JSON to {@code target}, which is opened only once a
+     * getSubscriptionDtls response has been received. An empty response is written as an empty
+     * {@code GetSubscriptionDtlsResponse}, as on the unmarshalling path.
+     *
+     * @param deadline the caller's budget, or {@code null} for the transport's fixed timeouts
+     * @param caller   whose share of the bulkhead the SOAP call queues in, or {@code null} for the shared queue
+     * @throws CisClientAbortException if writing to the target fails; the backend call itself succeeded
+     */
+    public void processCisPullRequest(GetSubscriptionDtls request, CisDeadline deadline, CisCaller caller,
+                                      CisResponseTranscoder.JsonTarget target) {
+        logger.info("Processing streamed CIS pull request: {}", request);
+        CisResponseTranscoder.JsonTarget callerTarget = () -> new CallerOutputStream(target.open());
+        try {
+            if (deadline != null) {
+                deadline.check("before calling CIS");
+            }
+            Boolean written = backendGuard.execute(caller, () -> sendRequest(request, deadline, callerTarget));
+            if (!Boolean.TRUE.equals(written)) {
+                logger.warn("Received null SOAP response");
+                clientMetrics.recordNullResponse();
+                transcoder.writeEmpty(callerTarget);
+            }
+            logger.info("Successfully streamed CIS pull response");
+        } catch (CisBackendUnavailableException | CisDeadlineExceededException | CisClientAbortException e) {
+            logger.warn("Streamed CIS pull request rejected: {}", e.getMessage());
+            throw e;
+        } catch (Exception e) {
+            logger.error("Error processing streamed CIS pull request: {}", e.getMessage(), e);
+            throw new RuntimeException("Failed to process CIS pull request", e);
+        }
+    }
+
+    private Boolean sendRequest(GetSubscriptionDtls request, CisDeadline deadline, CisResponseTranscoder.JsonTarget target) {
+        if (deadline == null) {
+            return sendRequest(request, target);
+        }
+        deadline.check("before a CIS connection was available");
+        try {
+            return deadline.bind(() -> sendRequest(request, target));
+        } catch (CisClientAbortException e) {
+            throw e;
+        } catch (RuntimeException e) {
+            if (deadline.isExpired()) {
+                throw deadline.exceeded("during CIS call", e);
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * @return {@code null} or {@code false} if the backend sent no payload and nothing was written
+     */
+    private Boolean sendRequest(GetSubscriptionDtls request, CisResponseTranscoder.JsonTarget target) {
+        JAXBElement<GetSubscriptionDtls> requestElement = new JAXBElement<>(REQUEST_QNAME, GetSubscriptionDtls.class, request);
+        return streamingSoapClient.marshalSendAndStream(requestElement, body -> {
+            long start = System.nanoTime();
+            try {
+                return transcoder.transcode(body, target);
+            } catch (CisSoapFaultException e) {
+                clientMetrics.recordFault();
+                throw e;
+            } finally {
+                clientMetrics.recordTranscode(System.nanoTime() - start);
+            }
+        });
+    }
+
+    /**
+     * Tells failures writing to the caller apart from failures reading from CIS.
+     */
+    private static final class CallerOutputStream extends FilterOutputStream {
+
+        CallerOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) {
+            try {
+                out.write(b);
+            } catch (IOException e) {
+                throw new CisClientAbortException(e);
+            }
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            try {
+                out.write(b, off, len);
+            } catch (IOException e) {
+                throw new CisClientAbortException(e);
+            }
+        }
+
+        @Override
+        public void flush() {
+            try {
+                out.flush();
+            } catch (IOException e) {
+                throw new CisClientAbortException(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package ae.etisalat.cisapp.service;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Rate limit that refills {@code ratePerSecond} tokens per second up to {@code capacity}, starting
+ * full, so a caller may burst up to the capacity after a quiet period.
+ */
+public class CisTokenBucket {
+
+    private final double tokensPerNano;
+    private final double capacity;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private double tokens;
+    private long refilledAtNanos;
+
+    public CisTokenBucket(double ratePerSecond, double capacity) {
+        this.tokensPerNano = ratePerSecond / TimeUnit.SECONDS.toNanos(1);
+        this.capacity = Math.max(1, capacity);
+        this.tokens = this.capacity;
+        this.refilledAtNanos = System.nanoTime();
+    }
+
+    /**
+     * Takes {@code permits} tokens if they are available. A request for more than the capacity is
+     * allowed once the bucket is full rather than never, and still takes all of its tokens: the
+     * bucket goes into debt, and later requests wait until the refill has paid it off.
+     *
+     * @return 0 if the tokens were taken, otherwise the nanoseconds until enough will have accumulated
+     */
+    public long tryAcquire(int permits) {
+        double needed = Math.min(permits, capacity);
+        lock.lock();
+        try {
+            long now = System.nanoTime();
+            tokens = Math.min(capacity, tokens + (now - refilledAtNanos) * tokensPerNano);
+            refilledAtNanos = now;
+            if (tokens >= needed) {
+                tokens -= permits;
+                return 0;
+            }
+            return (long) Math.ceil((needed - tokens) / tokensPerNano);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public double getCapacity() {
+        return capacity;
+    }
+}
@@ -0,0 +1,85 @@
+package ae.etisalat.cisapp;
+
+import ae.etisalat.cisapp.service.CisAdaptiveTimeout;
+import ae.etisalat.cisapp.support.CisStubServer;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Learns a short read timeout from a fast stub, then checks that a stalled backend call is cut off
+ * at that timeout instead of the fixed 60s one.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "webservice.cis.coalescing.enabled=false",
+        "webservice.cis.adaptive-timeout.enabled=true",
+        "webservice.cis.adaptive-timeout.min=300ms",
+        "webservice.cis.adaptive-timeout.min-samples=10",
+        // Median, so the cold first calls do not dominate the learned value
+        "webservice.cis.adaptive-timeout.percentile=0.5",
+        "logging.level.ae.etisalat.cisapp=WARN",
+        "logging.level.ae.etisalat.cisapp.interceptor.LoggingWebServiceInterceptor=WARN",
+        "logging.level.org.springframework.ws=WARN"
+})
+public class CisAdaptiveTimeoutIntegrationTest {
+
+    private static final Duration STALL = Duration.ofSeconds(3);
+
+    private static final CisStubServer stub = CisStubServer.start(Duration.ZERO);
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private CisAdaptiveTimeout adaptiveTimeout;
+
+    @DynamicPropertySource
+    static void cisProperties(DynamicPropertyRegistry registry) {
+        registry.add("webservice.cis.url", stub::getUrl);
+    }
+
+    @AfterAll
+    static void stopStub() {
+        stub.close();
+    }
+
+    @Test
+    public void testStalledCall_CutOffAtLearnedTimeout() throws Exception {
+        try (HttpClient client = HttpClient.newHttpClient()) {
+            for (int i = 0; i < 10; i++) {
+                assertEquals(200, post(client).statusCode());
+            }
+            // Percentiles are recomputed at most once a second
+            Thread.sleep(1100);
+            assertEquals(Duration.ofMillis(300), adaptiveTimeout.getReadTimeout());
+
+            stub.setLatency(STALL);
+            long start = System.nanoTime();
+            HttpResponse<String> response = post(client);
+            long elapsedMillis = Duration.ofNanos(System.nanoTime() - start).toMillis();
+
+            assertEquals(500, response.statusCode());
+            assertTrue(elapsedMillis < STALL.toMillis(), "Call should time out at the learned timeout, took " + elapsedMillis + "ms");
+        }
+    }
+
+    private HttpResponse<String> post(HttpClient client) throws Exception {
+        return client.send(HttpRequest.newBuilder(URI.create("http://127.0.0.1:" + port + "/cis-pull/api/cis/pull"))
+                        .header("Content-Type", "application/json")
+                        .POST(HttpRequest.BodyPublishers.ofString("{}"))
+                        .build(),
+                HttpResponse.BodyHandlers.ofString());
+    }
+}
@@ -0,0 +1,178 @@
+package ae.etisalat.cisapp;
+
+import ae.etisalat.cisapp.support.CisStubServer;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.context.TestPropertySource;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Floods a slow stub with more concurrent pulls than the admission limit, pinned here so the outcome
+ * does not depend on how fast the limit adapts. The excess must be shed at once with a 503 and
+ * {@code Retry-After}, long before the admitted calls complete; batch items beyond it fail one by one. SOAP faults are answers like any other,
+ * so an unpinned limit keeps adapting while the backend only returns faults.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "webservice.cis.coalescing.enabled=false",
+        "webservice.cis.admission.enabled=true",
+        "webservice.cis.admission.initial-limit=3",
+        "webservice.cis.admission.min-limit=3",
+        "webservice.cis.admission.max-limit=3",
+        "webservice.cis.admission.retry-after=2s",
+        "logging.level.ae.etisalat.cisapp=WARN",
+        "logging.level.ae.etisalat.cisapp.interceptor.LoggingWebServiceInterceptor=WARN",
+        "logging.level.org.springframework.ws=WARN"
+})
+public class CisAdmissionControlIntegrationTest {
+
+    private static final int LIMIT = 3;
+    private static final int REQUESTS = 12;
+    private static final Duration BACKEND_LATENCY = Duration.ofSeconds(2);
+
+    private static final CisStubServer stub = CisStubServer.start(BACKEND_LATENCY);
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @DynamicPropertySource
+    static void cisProperties(DynamicPropertyRegistry registry) {
+        registry.add("webservice.cis.url", stub::getUrl);
+    }
+
+    @AfterAll
+    static void stopStub() {
+        stub.close();
+    }
+
+    @Test
+    public void testOverLimit_ShedWith503AndRetryAfter() {
+        assertSheds("/api/cis/pull");
+    }
+
+    @Test
+    public void testAsyncOverLimit_ShedWith503AndRetryAfter() {
+        assertSheds("/api/cis/pull/async");
+    }
+
+    @Test
+    public void testBatchOverLimit_ItemsShed() {
+        double admitted = count("admitted");
+        double rejected = count("rejected");
+        int requestsBefore = stub.getRequestCount();
+
+        HttpResponse<String> response = post(port, "/api/cis/pull/batch", 1, batchOf(REQUESTS)).get(0);
+
+        assertEquals(200, response.statusCode(), response.body());
+        double shed = count("rejected") - rejected;
+        assertTrue(shed > 0, "Batch items beyond the limit should be shed");
+        assertEquals(REQUESTS, count("admitted") - admitted + shed);
+        assertEquals(REQUESTS - shed, stub.getRequestCount() - requestsBefore);
+        assertTrue(stub.getPeakInFlight() <= LIMIT, "Backend saw " + stub.getPeakInFlight() + " concurrent calls");
+    }
+
+    private static String batchOf(int items) {
+        return "[" + String.join(",", Collections.nCopies(items, "{}")) + "]";
+    }
+
+    private void assertSheds(String path) {
+        double admitted = count("admitted");
+        double rejected = count("rejected");
+
+        List<HttpResponse<String>> responses = post(path);
+
+        List<HttpResponse<String>> shed = responses.stream().filter(response -> response.statusCode() == 503).toList();
+        long ok = responses.stream().filter(response -> response.statusCode() == 200).count();
+        assertEquals(REQUESTS, ok + shed.size());
+        assertTrue(ok >= LIMIT, "Admitted calls should succeed, got " + ok);
+        assertFalse(shed.isEmpty(), "Calls beyond the limit should be shed");
+        for (HttpResponse<String> response : shed) {
+            assertTrue(response.body().contains("LOAD_SHED"), response.body());
+            assertEquals("2", response.headers().firstValue("Retry-After").orElse(null));
+        }
+        assertTrue(stub.getPeakInFlight() <= LIMIT, "Backend saw " + stub.getPeakInFlight() + " concurrent calls");
+        assertEquals(admitted + ok, count("admitted"));
+        assertEquals(rejected + shed.size(), count("rejected"));
+        assertEquals(LIMIT, meterRegistry.get("cis.admission.limit").gauge().value());
+    }
+
+    @Nested
+    @TestPropertySource(properties = "webservice.cis.admission.max-limit=20")
+    class FaultingBackend {
+
+        @LocalServerPort
+        private int port;
+
+        @Autowired
+        private MeterRegistry meterRegistry;
+
+        @AfterEach
+        void restoreStub() {
+            stub.setResponseBody(CisStubServer.EMPTY_RESPONSE);
+            stub.setLatency(BACKEND_LATENCY);
+        }
+
+        @Test
+        public void testFaults_LimitStillAdapts() {
+            stub.setResponseBody(CisStubServer.FAULT_RESPONSE);
+            stub.setLatency(Duration.ofMillis(100));
+            int requestsBefore = stub.getRequestCount();
+
+            for (int round = 0; round < 5; round++) {
+                for (HttpResponse<String> response : post(port, "/api/cis/pull", LIMIT, "{}")) {
+                    assertEquals(500, response.statusCode(), response.body());
+                }
+            }
+
+            assertEquals(5 * LIMIT, stub.getRequestCount() - requestsBefore);
+            assertTrue(meterRegistry.get("cis.admission.limit").gauge().value() > LIMIT,
+                    "Faults should feed the limit like any other answer");
+        }
+    }
+
+    private List<HttpResponse<String>> post(String path) {
+        return post(port, path, REQUESTS, "{}");
+    }
+
+    private static List<HttpResponse<String>> post(int port, String path, int requests, String body) {
+        List<HttpResponse<String>> responses = new ArrayList<>();
+        try (HttpClient client = HttpClient.newHttpClient()) {
+            List<CompletableFuture<HttpResponse<String>>> futures = new ArrayList<>();
+            for (int i = 0; i < requests; i++) {
+                futures.add(client.sendAsync(
+                        HttpRequest.newBuilder(URI.create("http://127.0.0.1:" + port + "/cis-pull" + path))
+                                .header("Content-Type", "application/json")
+                                .POST(HttpRequest.BodyPublishers.ofString(body))
+                                .build(),
+                        HttpResponse.BodyHandlers.ofString()));
+            }
+            futures.forEach(future -> responses.add(future.join()));
+        }
+        return responses;
+    }
+
+    private double count(String outcome) {
+        return meterRegistry.get("cis.admission.requests").tag("outcome", outcome).counter().count();
+    }
+}
@@ -0,0 +1,108 @@
+package ae.etisalat.cisapp;
+
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentMatchers;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.ws.client.core.WebServiceTemplate;
+import sem.cis.pull.cbcm.GetSubscriptionDtlsResponse;
+
+import jakarta.xml.bind.JAXBElement;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.Matchers.*;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+// Coalescing is disabled so that identical batch items each reach the (mocked) backend
+@SpringBootTest(properties = {
+        "webservice.cis.coalescing.enabled=false",
+        "webservice.cis.batch.max-items=5",
+        "webservice.cis.batch.deadline=2s"
+})
+@AutoConfigureMockMvc
+public class CisBatchIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private WebServiceTemplate webServiceTemplate;
+
+    @Test
+    public void testBatchEndpoint_ResultsInInputOrder() throws Exception {
+        JAXBElement<GetSubscriptionDtlsResponse> mockResponseElement = mock(JAXBElement.class);
+        when(mockResponseElement.getValue()).thenReturn(new GetSubscriptionDtlsResponse());
+        when(webServiceTemplate.marshalSendAndReceive(ArgumentMatchers.any(JAXBElement.class)))
+                .thenReturn(mockResponseElement);
+
+        mockMvc.perform(post("/api/cis/pull/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[{}, {}, {}]"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(3)))
+                .andExpect(jsonPath("$[0].index").value(0))
+                .andExpect(jsonPath("$[1].index").value(1))
+                .andExpect(jsonPath("$[2].index").value(2))
+                .andExpect(jsonPath("$[*].status").value(everyItem(is("OK"))));
+
+        verify(webServiceTemplate, times(3)).marshalSendAndReceive(ArgumentMatchers.any(JAXBElement.class));
+    }
+
+    @Test
+    public void testBatchEndpoint_PartialFailure() throws Exception {
+        JAXBElement<GetSubscriptionDtlsResponse> mockResponseElement = mock(JAXBElement.class);
+        when(mockResponseElement.getValue()).thenReturn(new GetSubscriptionDtlsResponse());
+        AtomicInteger calls = new AtomicInteger();
+        when(webServiceTemplate.marshalSendAndReceive(ArgumentMatchers.any(JAXBElement.class)))
+                .thenAnswer(invocation -> {
+                    if (calls.incrementAndGet() == 1) {
+                        throw new RuntimeException("SOAP service unavailable");
+                    }
+                    return mockResponseElement;
+                });
+
+        // One item fails, the batch as a whole still succeeds
+        mockMvc.perform(post("/api/cis/pull/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[{}, {}, {}]"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(3)))
+                .andExpect(jsonPath("$[?(@.status == 'ERROR')]", hasSize(1)))
+                .andExpect(jsonPath("$[?(@.status == 'ERROR')].error").value(hasItem("BACKEND_ERROR")))
+                .andExpect(jsonPath("$[?(@.status == 'ERROR')].message").value(hasItem("CIS pull request failed")))
+                .andExpect(jsonPath("$[?(@.status == 'OK')]", hasSize(2)));
+    }
+
+    @Test
+    public void testBatchEndpoint_DeadlineExceeded() throws Exception {
+        when(webServiceTemplate.marshalSendAndReceive(ArgumentMatchers.any(JAXBElement.class)))
+                .thenAnswer(invocation -> {
+                    Thread.sleep(10_000);
+                    return null;
+                });
+
+        mockMvc.perform(post("/api/cis/pull/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[{}]"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].status").value("ERROR"))
+                .andExpect(jsonPath("$[0].error").value("DEADLINE_EXCEEDED"));
+    }
+
+    @Test
+    public void testBatchEndpoint_TooManyItems() throws Exception {
+        mockMvc.perform(post("/api/cis/pull/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[{}, {}, {}, {}, {}, {}]"))
+                .andExpect(status().isBadRequest());
+
+        verify(webServiceTemplate, never()).marshalSendAndReceive(ArgumentMatchers.any());
+    }
+}
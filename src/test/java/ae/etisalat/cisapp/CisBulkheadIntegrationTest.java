@@ -0,0 +1,83 @@
+package ae.etisalat.cisapp;
+
+import ae.etisalat.cisapp.support.CisStubServer;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Floods a slow stub with more concurrent calls than the bulkhead admits plus its queue; the excess
+ * must be rejected with a 503 and the stub must never see more than the permitted concurrency.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "webservice.cis.coalescing.enabled=false",
+        "webservice.cis.bulkhead.enabled=true",
+        "webservice.cis.bulkhead.max-concurrent=2",
+        "webservice.cis.bulkhead.max-queue=2",
+        "webservice.cis.bulkhead.max-wait=5s",
+        "logging.level.ae.etisalat.cisapp=WARN",
+        "logging.level.ae.etisalat.cisapp.interceptor.LoggingWebServiceInterceptor=WARN",
+        "logging.level.org.springframework.ws=WARN"
+})
+public class CisBulkheadIntegrationTest {
+
+    private static final int MAX_CONCURRENT = 2;
+    private static final int MAX_QUEUE = 2;
+    private static final int REQUESTS = 10;
+
+    private static final CisStubServer stub = CisStubServer.start(Duration.ofSeconds(1));
+
+    @LocalServerPort
+    private int port;
+
+    @DynamicPropertySource
+    static void cisProperties(DynamicPropertyRegistry registry) {
+        registry.add("webservice.cis.url", stub::getUrl);
+    }
+
+    @AfterAll
+    static void stopStub() {
+        stub.close();
+    }
+
+    @Test
+    public void testBulkhead_CapsConcurrencyAndRejectsOverflow() {
+        List<HttpResponse<String>> responses = new ArrayList<>();
+        try (HttpClient client = HttpClient.newHttpClient()) {
+            List<CompletableFuture<HttpResponse<String>>> futures = new ArrayList<>();
+            for (int i = 0; i < REQUESTS; i++) {
+                futures.add(client.sendAsync(
+                        HttpRequest.newBuilder(URI.create("http://127.0.0.1:" + port + "/cis-pull/api/cis/pull"))
+                                .header("Content-Type", "application/json")
+                                .POST(HttpRequest.BodyPublishers.ofString("{}"))
+                                .build(),
+                        HttpResponse.BodyHandlers.ofString()));
+            }
+            futures.forEach(future -> responses.add(future.join()));
+        }
+
+        long ok = responses.stream().filter(response -> response.statusCode() == 200).count();
+        long rejected = responses.stream().filter(response -> response.statusCode() == 503).count();
+        assertEquals(REQUESTS, ok + rejected);
+        assertTrue(ok >= MAX_CONCURRENT + MAX_QUEUE, "Admitted and queued calls should succeed, got " + ok);
+        assertTrue(rejected > 0, "Overflow beyond the queue should be rejected");
+        assertTrue(responses.stream().filter(response -> response.statusCode() == 503)
+                .allMatch(response -> response.body().contains("BULKHEAD_FULL")));
+        assertTrue(stub.getPeakInFlight() <= MAX_CONCURRENT,
+                "Backend saw " + stub.getPeakInFlight() + " concurrent calls");
+    }
+}
@@ -0,0 +1,199 @@
+package ae.etisalat.cisapp;
+
+import ae.etisalat.cisapp.support.CisStubServer;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * A bulk caller fills the bulkhead and its queue while the stub holds every request, then an
+ * interactive caller with a much higher weight queues up behind it. Releasing the stub one request at
+ * a time shows which caller each freed permit went to: the interactive calls must overtake the bulk
+ * backlog instead of waiting behind it, while every bulk call still completes. Also checks the
+ * per-caller rate limit, including that every batch item is charged.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "webservice.cis.coalescing.enabled=false",
+        "webservice.cis.cache.enabled=false",
+        "webservice.cis.bulkhead.enabled=true",
+        "webservice.cis.bulkhead.max-concurrent=2",
+        "webservice.cis.bulkhead.max-queue=50",
+        "webservice.cis.bulkhead.max-wait=30s",
+        "webservice.cis.callers.enabled=true",
+        "webservice.cis.callers.api-keys=interactive-key=interactive",
+        "webservice.cis.callers.weights=interactive=8,bulk=1",
+        "webservice.cis.callers.rate-limits=metered=1,batcher=1",
+        "logging.level.ae.etisalat.cisapp=WARN",
+        "logging.level.ae.etisalat.cisapp.interceptor.LoggingWebServiceInterceptor=WARN",
+        "logging.level.org.springframework.ws=WARN"
+})
+public class CisCallerFairnessIntegrationTest {
+
+    private static final int MAX_CONCURRENT = 2;
+    private static final int BULK_REQUESTS = 12;
+    private static final int INTERACTIVE_REQUESTS = 4;
+
+    private static final CisStubServer stub = CisStubServer.start(Duration.ZERO);
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @DynamicPropertySource
+    static void cisProperties(DynamicPropertyRegistry registry) {
+        registry.add("webservice.cis.url", stub::getUrl);
+    }
+
+    @AfterEach
+    void releaseStub() {
+        stub.releaseAll();
+    }
+
+    @AfterAll
+    static void stopStub() {
+        stub.close();
+    }
+
+    @Test
+    public void testInteractiveCallsOvertakeBulkBacklog() throws Exception {
+        stub.hold();
+        try (HttpClient client = HttpClient.newHttpClient()) {
+            List<CompletableFuture<HttpResponse<String>>> bulk = new ArrayList<>();
+            for (int i = 0; i < BULK_REQUESTS; i++) {
+                bulk.add(client.sendAsync(request("/api/cis/pull", "X-Caller-Id", "bulk", "BULK" + i),
+                        HttpResponse.BodyHandlers.ofString()));
+            }
+            awaitUntil(() -> stub.getHeldRequests().size() == MAX_CONCURRENT
+                    && queued("bulk") == BULK_REQUESTS - MAX_CONCURRENT, "Bulk calls never filled the bulkhead");
+
+            List<CompletableFuture<HttpResponse<String>>> interactive = new ArrayList<>();
+            for (int i = 0; i < INTERACTIVE_REQUESTS; i++) {
+                interactive.add(client.sendAsync(request("/api/cis/pull/async", "X-API-Key", "interactive-key", "INTERACTIVE" + i),
+                        HttpResponse.BodyHandlers.ofString()));
+            }
+            awaitUntil(() -> queued("interactive") == INTERACTIVE_REQUESTS, "Interactive calls never queued up");
+
+            // Free one permit at a time and see whose call takes it
+            List<String> next = new ArrayList<>();
+            for (int released = 1; released <= INTERACTIVE_REQUESTS + 1; released++) {
+                int arrivals = MAX_CONCURRENT + released;
+                stub.releaseOne();
+                awaitUntil(() -> stub.getHeldRequests().size() == arrivals, "No call took the freed permit");
+                next.add(stub.getHeldRequests().get(arrivals - 1).contains("INTERACTIVE") ? "I" : "B");
+            }
+            // The bulk queue was mid-turn; with weight 8, the interactive queue's turn then covers all of its calls.
+            // In arrival order, they would have waited for all ten queued bulk calls.
+            assertEquals(List.of("B", "I", "I", "I", "I"), next);
+            assertEquals(BULK_REQUESTS - MAX_CONCURRENT - 1, queued("bulk"));
+
+            stub.releaseAll();
+            for (CompletableFuture<HttpResponse<String>> response : interactive) {
+                assertEquals(200, response.join().statusCode());
+            }
+            for (CompletableFuture<HttpResponse<String>> response : bulk) {
+                assertEquals(200, response.join().statusCode());
+            }
+        }
+
+        assertEquals(INTERACTIVE_REQUESTS, meterRegistry.get("cis.caller.requests")
+                .tags("caller", "interactive", "outcome", "success").timer().count());
+        assertEquals(BULK_REQUESTS, meterRegistry.get("cis.caller.requests")
+                .tags("caller", "bulk", "outcome", "success").timer().count());
+        assertTrue(meterRegistry.get("cis.caller.queue.wait").tag("caller", "interactive").timer().max(TimeUnit.MILLISECONDS)
+                < meterRegistry.get("cis.caller.queue.wait").tag("caller", "bulk").timer().max(TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void testRateLimit_RejectsWith429AndRetryAfter() throws Exception {
+        try (HttpClient client = HttpClient.newHttpClient()) {
+            assertEquals(200, client.send(request("/api/cis/pull", "X-Caller-Id", "metered"),
+                    HttpResponse.BodyHandlers.ofString()).statusCode());
+
+            for (String path : List.of("/api/cis/pull", "/api/cis/pull/async")) {
+                HttpResponse<String> response = client.send(request(path, "X-Caller-Id", "metered"),
+                        HttpResponse.BodyHandlers.ofString());
+                assertEquals(429, response.statusCode(), path);
+                assertTrue(response.body().contains("QUOTA_EXCEEDED"), response.body());
+                assertEquals("1", response.headers().firstValue("Retry-After").orElse(null));
+            }
+            HttpResponse<String> batch = client.send(HttpRequest.newBuilder(uri("/api/cis/pull/batch"))
+                    .header("Content-Type", "application/json")
+                    .header("X-Caller-Id", "metered")
+                    .POST(HttpRequest.BodyPublishers.ofString("[{},{}]"))
+                    .build(), HttpResponse.BodyHandlers.ofString());
+            assertEquals(429, batch.statusCode());
+
+            // A batch may spend a full bucket at once, but each of its items is charged
+            HttpResponse<String> overdrawn = client.send(HttpRequest.newBuilder(uri("/api/cis/pull/batch"))
+                    .header("Content-Type", "application/json")
+                    .header("X-Caller-Id", "batcher")
+                    .POST(HttpRequest.BodyPublishers.ofString("[{},{},{}]"))
+                    .build(), HttpResponse.BodyHandlers.ofString());
+            assertEquals(200, overdrawn.statusCode());
+            HttpResponse<String> afterBatch = client.send(request("/api/cis/pull", "X-Caller-Id", "batcher"),
+                    HttpResponse.BodyHandlers.ofString());
+            assertEquals(429, afterBatch.statusCode());
+            assertEquals("3", afterBatch.headers().firstValue("Retry-After").orElse(null));
+
+            // Other callers are not affected
+            assertEquals(200, client.send(request("/api/cis/pull", "X-Caller-Id", "bulk"),
+                    HttpResponse.BodyHandlers.ofString()).statusCode());
+        }
+
+        assertEquals(3, meterRegistry.get("cis.caller.throttled").tag("caller", "metered").counter().count());
+    }
+
+    private double queued(String caller) {
+        return meterRegistry.get("cis.caller.queued").tag("caller", caller).gauge().value();
+    }
+
+    private HttpRequest request(String path, String header, String value) {
+        return HttpRequest.newBuilder(uri(path))
+                .header("Content-Type", "application/json")
+                .header(header, value)
+                .POST(HttpRequest.BodyPublishers.ofString("{}"))
+                .build();
+    }
+
+    // The account number tells the calls apart in the SOAP requests the stub receives
+    private HttpRequest request(String path, String header, String value, String accountNumber) {
+        return HttpRequest.newBuilder(uri(path))
+                .header("Content-Type", "application/json")
+                .header(header, value)
+                .POST(HttpRequest.BodyPublishers.ofString("{\"accountNumber\":\"" + accountNumber + "\"}"))
+                .build();
+    }
+
+    private static void awaitUntil(BooleanSupplier condition, String message) throws InterruptedException {
+        long waitUntil = System.nanoTime() + TimeUnit.SECONDS.toNanos(20);
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() < waitUntil, message);
+            Thread.sleep(5);
+        }
+    }
+
+    private URI uri(String path) {
+        return URI.create("http://127.0.0.1:" + port + "/cis-pull" + path);
+    }
+}
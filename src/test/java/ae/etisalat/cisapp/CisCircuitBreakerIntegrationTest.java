@@ -0,0 +1,109 @@
+package ae.etisalat.cisapp;
+
+import ae.etisalat.cisapp.service.CisBackendGuard;
+import ae.etisalat.cisapp.support.CisStubServer;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Trips the circuit breaker on slow calls from a latency-injecting stub, checks that calls then
+ * fail fast with a 503 body without reaching the stub, and that the breaker closes again after
+ * successful half-open probes.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "webservice.cis.coalescing.enabled=false",
+        "webservice.cis.circuit-breaker.enabled=true",
+        "webservice.cis.circuit-breaker.slow-call-duration=100ms",
+        "webservice.cis.circuit-breaker.sliding-window-size=4",
+        "webservice.cis.circuit-breaker.minimum-calls=4",
+        "webservice.cis.circuit-breaker.slow-call-rate-threshold=50",
+        "webservice.cis.circuit-breaker.open-duration=1s",
+        "webservice.cis.circuit-breaker.half-open-calls=2",
+        "logging.level.ae.etisalat.cisapp=WARN",
+        "logging.level.ae.etisalat.cisapp.interceptor.LoggingWebServiceInterceptor=WARN",
+        "logging.level.org.springframework.ws=WARN"
+})
+public class CisCircuitBreakerIntegrationTest {
+
+    private static final Duration SLOW = Duration.ofMillis(300);
+
+    private static final CisStubServer stub = CisStubServer.start(SLOW);
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private CisBackendGuard backendGuard;
+
+    @DynamicPropertySource
+    static void cisProperties(DynamicPropertyRegistry registry) {
+        registry.add("webservice.cis.url", stub::getUrl);
+    }
+
+    @AfterAll
+    static void stopStub() {
+        stub.close();
+    }
+
+    @Test
+    public void testSlowBackend_OpensCircuitFailsFastAndRecovers() throws Exception {
+        try (HttpClient client = HttpClient.newHttpClient()) {
+            for (int i = 0; i < 4; i++) {
+                assertEquals(200, post(client, "/api/cis/pull").statusCode());
+            }
+            assertEquals(CircuitBreaker.State.OPEN, backendGuard.getCircuitBreakerState());
+            int backendCalls = stub.getRequestCount();
+
+            long start = System.nanoTime();
+            HttpResponse<String> rejected = post(client, "/api/cis/pull");
+            long elapsedMillis = Duration.ofNanos(System.nanoTime() - start).toMillis();
+
+            assertEquals(503, rejected.statusCode());
+            assertTrue(rejected.body().contains("\"error\":\"CIRCUIT_OPEN\""), rejected.body());
+            assertTrue(rejected.headers().firstValue("Retry-After").isPresent());
+            assertTrue(elapsedMillis < SLOW.toMillis(), "Rejection should not wait on the backend, took " + elapsedMillis + "ms");
+            assertEquals(backendCalls, stub.getRequestCount());
+
+            HttpResponse<String> rejectedAsync = post(client, "/api/cis/pull/async");
+            assertEquals(503, rejectedAsync.statusCode());
+            assertEquals(backendCalls, stub.getRequestCount());
+
+            // Once the backend is healthy again, the half-open probes close the circuit
+            stub.setLatency(Duration.ZERO);
+            awaitState(CircuitBreaker.State.HALF_OPEN);
+            assertEquals(200, post(client, "/api/cis/pull").statusCode());
+            assertEquals(200, post(client, "/api/cis/pull").statusCode());
+            assertEquals(CircuitBreaker.State.CLOSED, backendGuard.getCircuitBreakerState());
+        }
+    }
+
+    private void awaitState(CircuitBreaker.State state) throws InterruptedException {
+        long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+        while (backendGuard.getCircuitBreakerState() != state && System.nanoTime() < deadline) {
+            Thread.sleep(20);
+        }
+        assertEquals(state, backendGuard.getCircuitBreakerState());
+    }
+
+    private HttpResponse<String> post(HttpClient client, String path) throws Exception {
+        return client.send(HttpRequest.newBuilder(URI.create("http://127.0.0.1:" + port + "/cis-pull" + path))
+                        .header("Content-Type", "application/json")
+                        .POST(HttpRequest.BodyPublishers.ofString("{}"))
+                        .build(),
+                HttpResponse.BodyHandlers.ofString());
+    }
+}
@@ -0,0 +1,145 @@
+package ae.etisalat.cisapp;
+
+import ae.etisalat.cisapp.support.CisStubServer;
+import ae.etisalat.cisapp.support.SampleData;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.xml.bind.JAXBElement;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.oxm.jaxb.Jaxb2Marshaller;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.ws.WebServiceMessage;
+import org.springframework.ws.soap.saaj.SaajSoapMessageFactory;
+import org.springframework.ws.support.MarshallingUtils;
+import sem.cis.pull.cbcm.GetSubscriptionDtlsResponse;
+
+import javax.xml.namespace.QName;
+import java.io.ByteArrayOutputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Compressed CIS responses are decoded on the pooled and async transports, request bodies are
+ * gzipped above the threshold, and the byte counters show the difference between wire and payload.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "webservice.cis.http.compression.request-min-bytes=0",
+        "webservice.cis.cache.enabled=false",
+        "webservice.cis.coalescing.enabled=false",
+        "logging.level.ae.etisalat.cisapp=WARN",
+        "logging.level.org.springframework.ws=WARN"
+})
+public class CisCompressionIntegrationTest {
+
+    private static final CisStubServer stub = CisStubServer.start(Duration.ZERO);
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private Jaxb2Marshaller marshaller;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @DynamicPropertySource
+    static void cisProperties(DynamicPropertyRegistry registry) {
+        registry.add("webservice.cis.url", stub::getUrl);
+    }
+
+    @AfterEach
+    void resetStub() {
+        stub.setResponseBody(CisStubServer.EMPTY_RESPONSE);
+        stub.setResponseEncoding(null);
+    }
+
+    @AfterAll
+    static void stopStub() {
+        stub.close();
+    }
+
+    @Test
+    public void testCompressedResponses_DecodedOnEveryPath() throws Exception {
+        GetSubscriptionDtlsResponse sample = SampleData.populate(GetSubscriptionDtlsResponse.class, 25);
+        stub.setResponseBody(envelope(sample));
+
+        for (String encoding : new String[]{"gzip", "deflate"}) {
+            stub.setResponseEncoding(encoding);
+            for (String path : new String[]{"/api/cis/pull", "/api/cis/pull/async"}) {
+                double wireIn = counter("cis.client.bytes", "in");
+                double payloadIn = counter("cis.client.payload.bytes", "in");
+                double wireOut = counter("cis.client.bytes", "out");
+                double payloadOut = counter("cis.client.payload.bytes", "out");
+
+                HttpResponse<String> response = post(path);
+
+                String call = encoding + " " + path;
+                assertEquals(200, response.statusCode(), call);
+                assertEquals(objectMapper.writeValueAsString(sample), response.body(), call);
+                assertTrue(stub.getLastAcceptEncoding().contains("gzip") && stub.getLastAcceptEncoding().contains("deflate"),
+                        call + ": " + stub.getLastAcceptEncoding());
+                assertEquals("gzip", stub.getLastRequestEncoding(), call);
+                assertTrue(stub.getLastRequestBody().contains("getSubscriptionDtls"), call);
+
+                double wireInDelta = counter("cis.client.bytes", "in") - wireIn;
+                double payloadInDelta = counter("cis.client.payload.bytes", "in") - payloadIn;
+                assertTrue(wireInDelta > 0 && payloadInDelta > 2 * wireInDelta,
+                        call + ": wire " + wireInDelta + ", payload " + payloadInDelta);
+                assertTrue(counter("cis.client.bytes", "out") > wireOut, call);
+                assertTrue(counter("cis.client.payload.bytes", "out") > payloadOut, call);
+            }
+        }
+    }
+
+    @Test
+    public void testCompressedFault_CountedAsFault() throws Exception {
+        stub.setResponseBody(CisStubServer.FAULT_RESPONSE);
+        stub.setResponseEncoding("gzip");
+        double faults = meterRegistry.get("cis.client.faults").counter().count();
+
+        HttpResponse<String> response = post("/api/cis/pull");
+
+        assertEquals(500, response.statusCode());
+        assertEquals(faults + 1, meterRegistry.get("cis.client.faults").counter().count());
+    }
+
+    private double counter(String name, String direction) {
+        return meterRegistry.get(name).tag("direction", direction).counter().count();
+    }
+
+    private String envelope(GetSubscriptionDtlsResponse payload) throws Exception {
+        SaajSoapMessageFactory messageFactory = new SaajSoapMessageFactory();
+        messageFactory.afterPropertiesSet();
+        WebServiceMessage message = messageFactory.createWebServiceMessage();
+        MarshallingUtils.marshal(marshaller, new JAXBElement<>(
+                new QName("http://cbcm.pull.cis.sem/", "getSubscriptionDtlsResponse"), GetSubscriptionDtlsResponse.class, payload), message);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        message.writeTo(out);
+        return out.toString(StandardCharsets.UTF_8);
+    }
+
+    private HttpResponse<String> post(String path) throws Exception {
+        try (HttpClient client = HttpClient.newHttpClient()) {
+            return client.send(HttpRequest.newBuilder(URI.create("http://127.0.0.1:" + port + "/cis-pull" + path))
+                            .header("Content-Type", "application/json")
+                            .POST(HttpRequest.BodyPublishers.ofString("{}"))
+                            .build(),
+                    HttpResponse.BodyHandlers.ofString());
+        }
+    }
+}
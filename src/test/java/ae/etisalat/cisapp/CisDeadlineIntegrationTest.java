@@ -0,0 +1,111 @@
+package ae.etisalat.cisapp;
+
+import ae.etisalat.cisapp.service.CisBackendGuard;
+import ae.etisalat.cisapp.support.CisStubServer;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Checks that an {@code X-Request-Timeout} budget bounds the outbound SOAP call on both the blocking
+ * and async paths, that spent budgets never reach the stub, and that deadline failures do not open
+ * the circuit breaker.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "webservice.cis.coalescing.enabled=false",
+        "webservice.cis.circuit-breaker.enabled=true",
+        "webservice.cis.circuit-breaker.sliding-window-size=2",
+        "webservice.cis.circuit-breaker.minimum-calls=2",
+        "logging.level.ae.etisalat.cisapp=WARN",
+        "logging.level.ae.etisalat.cisapp.interceptor.LoggingWebServiceInterceptor=WARN",
+        "logging.level.org.springframework.ws=WARN"
+})
+public class CisDeadlineIntegrationTest {
+
+    private static final Duration BACKEND_LATENCY = Duration.ofSeconds(2);
+
+    private static final CisStubServer stub = CisStubServer.start(BACKEND_LATENCY);
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private CisBackendGuard backendGuard;
+
+    @DynamicPropertySource
+    static void cisProperties(DynamicPropertyRegistry registry) {
+        registry.add("webservice.cis.url", stub::getUrl);
+    }
+
+    @AfterAll
+    static void stopStub() {
+        stub.close();
+    }
+
+    @Test
+    public void testShortBudget_BoundsBlockingAndAsyncCalls() throws Exception {
+        try (HttpClient client = HttpClient.newHttpClient()) {
+            for (String path : new String[] {"/api/cis/pull", "/api/cis/pull/async", "/api/cis/pull"}) {
+                long start = System.nanoTime();
+                HttpResponse<String> response = post(client, path, "300ms");
+                long elapsedMillis = Duration.ofNanos(System.nanoTime() - start).toMillis();
+
+                assertEquals(504, response.statusCode(), path + ": " + response.body());
+                assertTrue(response.body().contains("\"error\":\"DEADLINE_EXCEEDED\""), response.body());
+                assertTrue(elapsedMillis < BACKEND_LATENCY.toMillis(),
+                        path + " should give up at the caller's budget, took " + elapsedMillis + "ms");
+            }
+            assertEquals(CircuitBreaker.State.CLOSED, backendGuard.getCircuitBreakerState());
+        }
+    }
+
+    @Test
+    public void testSpentBudget_RejectedWithoutCallingBackend() throws Exception {
+        try (HttpClient client = HttpClient.newHttpClient()) {
+            int backendCalls = stub.getRequestCount();
+
+            assertEquals(504, post(client, "/api/cis/pull", "0").statusCode());
+            assertEquals(504, post(client, "/api/cis/pull/async", "0").statusCode());
+            assertEquals(backendCalls, stub.getRequestCount());
+        }
+    }
+
+    @Test
+    public void testInvalidHeader_Returns400() throws Exception {
+        try (HttpClient client = HttpClient.newHttpClient()) {
+            HttpResponse<String> response = post(client, "/api/cis/pull", "soon");
+
+            assertEquals(400, response.statusCode());
+            assertTrue(response.body().contains("\"error\":\"INVALID_REQUEST_TIMEOUT\""), response.body());
+        }
+    }
+
+    @Test
+    public void testSufficientBudget_Succeeds() throws Exception {
+        try (HttpClient client = HttpClient.newHttpClient()) {
+            assertEquals(200, post(client, "/api/cis/pull", "5000").statusCode());
+        }
+    }
+
+    private HttpResponse<String> post(HttpClient client, String path, String requestTimeout) throws Exception {
+        return client.send(HttpRequest.newBuilder(URI.create("http://127.0.0.1:" + port + "/cis-pull" + path))
+                        .header("Content-Type", "application/json")
+                        .header("X-Request-Timeout", requestTimeout)
+                        .POST(HttpRequest.BodyPublishers.ofString("{}"))
+                        .build(),
+                HttpResponse.BodyHandlers.ofString());
+    }
+}
@@ -0,0 +1,86 @@
+package ae.etisalat.cisapp;
+
+import ae.etisalat.cisapp.support.CisStubServer;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Sends a request whose first SOAP attempt stalls on the stub and checks that the hedge answers it
+ * well before the stalled attempt would have.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "webservice.cis.coalescing.enabled=false",
+        "webservice.cis.cache.enabled=false",
+        "webservice.cis.hedging.enabled=true",
+        "webservice.cis.hedging.initial-delay=150ms",
+        "webservice.cis.hedging.max-hedge-percent=100",
+        "logging.level.ae.etisalat.cisapp=WARN",
+        "logging.level.ae.etisalat.cisapp.interceptor.LoggingWebServiceInterceptor=WARN",
+        "logging.level.org.springframework.ws=WARN"
+})
+public class CisHedgingIntegrationTest {
+
+    private static final Duration STALL = Duration.ofSeconds(3);
+
+    private static final CisStubServer stub = CisStubServer.start(Duration.ZERO);
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @DynamicPropertySource
+    static void cisProperties(DynamicPropertyRegistry registry) {
+        registry.add("webservice.cis.url", stub::getUrl);
+    }
+
+    @AfterAll
+    static void stopStub() {
+        stub.close();
+    }
+
+    @Test
+    public void testStalledCall_AnsweredByHedge() throws Exception {
+        try (HttpClient client = HttpClient.newHttpClient()) {
+            // Warm the path so the primary attempt reliably reaches the stub before the hedge is sent
+            assertEquals(200, post(client).statusCode());
+            int backendCalls = stub.getRequestCount();
+            double fired = meterRegistry.counter("cis.client.hedges.fired").count();
+            double won = meterRegistry.counter("cis.client.hedges.won").count();
+            stub.setSlowEvery(2, STALL);
+
+            long start = System.nanoTime();
+            HttpResponse<String> response = post(client);
+            long elapsedMillis = Duration.ofNanos(System.nanoTime() - start).toMillis();
+
+            assertEquals(200, response.statusCode(), response.body());
+            assertTrue(elapsedMillis < STALL.toMillis(), "Hedge should answer before the stalled call, took " + elapsedMillis + "ms");
+            assertEquals(backendCalls + 2, stub.getRequestCount());
+            assertEquals(fired + 1, meterRegistry.counter("cis.client.hedges.fired").count());
+            assertEquals(won + 1, meterRegistry.counter("cis.client.hedges.won").count());
+        }
+    }
+
+    private HttpResponse<String> post(HttpClient client) throws Exception {
+        return client.send(HttpRequest.newBuilder(URI.create("http://127.0.0.1:" + port + "/cis-pull/api/cis/pull"))
+                        .header("Content-Type", "application/json")
+                        .POST(HttpRequest.BodyPublishers.ofString("{}"))
+                        .build(),
+                HttpResponse.BodyHandlers.ofString());
+    }
+}
@@ -0,0 +1,146 @@
+package ae.etisalat.cisapp;
+
+import ae.etisalat.cisapp.support.CisStubServer;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Balances over three local endpoints: two stubs and a port nothing listens on. Calls to the dead one
+ * must fail over without the caller noticing, and a stub that turns slow must be avoided.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "webservice.cis.coalescing.enabled=false",
+        "webservice.cis.cache.enabled=false",
+        "webservice.cis.load-balancing.failure-threshold=2",
+        // Short, so each test sees the dead endpoint back in rotation and fails over again
+        "webservice.cis.load-balancing.ejection-time=200ms",
+        // Short too, so a slow first call while the JVM warms up is soon forgotten
+        "webservice.cis.load-balancing.decay-time=1s",
+        "logging.level.ae.etisalat.cisapp=WARN",
+        "logging.level.ae.etisalat.cisapp.service.CisEndpointBalancer=ERROR",
+        "logging.level.ae.etisalat.cisapp.interceptor.LoggingWebServiceInterceptor=WARN",
+        "logging.level.org.springframework.ws=WARN"
+})
+public class CisLoadBalancingIntegrationTest {
+
+    private static final int REQUESTS = 30;
+
+    private static final CisStubServer first = CisStubServer.start(Duration.ZERO);
+    private static final CisStubServer second = CisStubServer.start(Duration.ZERO);
+    private static final String deadUrl = deadUrl();
+
+    private static final AtomicInteger accounts = new AtomicInteger();
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @DynamicPropertySource
+    static void cisProperties(DynamicPropertyRegistry registry) {
+        registry.add("webservice.cis.endpoints", () -> first.getUrl() + "," + second.getUrl() + "," + deadUrl);
+    }
+
+    @AfterEach
+    void resetStubs() {
+        first.setLatency(Duration.ZERO);
+        second.setLatency(Duration.ZERO);
+    }
+
+    @AfterAll
+    static void stopStubs() {
+        first.close();
+        second.close();
+    }
+
+    @Test
+    public void testDeadEndpoint_FailsOverAndIsEjected() throws Exception {
+        assertFailsOver("/api/cis/pull");
+    }
+
+    @Test
+    public void testDeadEndpoint_AsyncPathFailsOverToo() throws Exception {
+        assertFailsOver("/api/cis/pull/async");
+    }
+
+    @Test
+    public void testSlowEndpoint_GetsLittleTraffic() throws Exception {
+        try (HttpClient client = HttpClient.newHttpClient()) {
+            for (int i = 0; i < 10; i++) {
+                assertEquals(200, post(client, "/api/cis/pull").statusCode());
+            }
+            Thread.sleep(1000);
+            second.setLatency(Duration.ofMillis(300));
+            // Until the balancer has seen the slow call
+            int before = second.getRequestCount();
+            while (second.getRequestCount() == before) {
+                assertEquals(200, post(client, "/api/cis/pull").statusCode());
+            }
+            int slowCalls = second.getRequestCount();
+            int fastCalls = first.getRequestCount();
+
+            for (int i = 0; i < REQUESTS; i++) {
+                assertEquals(200, post(client, "/api/cis/pull").statusCode());
+            }
+
+            assertTrue(second.getRequestCount() - slowCalls <= 2,
+                    "Slow endpoint got " + (second.getRequestCount() - slowCalls) + " of " + REQUESTS + " calls");
+            assertTrue(first.getRequestCount() - fastCalls >= REQUESTS - 2);
+        }
+    }
+
+    private void assertFailsOver(String path) throws Exception {
+        // Let an earlier ejection run out
+        Thread.sleep(250);
+        int served = first.getRequestCount() + second.getRequestCount();
+        double failovers = meterRegistry.counter("cis.client.endpoint.failovers").count();
+
+        try (HttpClient client = HttpClient.newHttpClient()) {
+            for (int i = 0; i < REQUESTS; i++) {
+                HttpResponse<String> response = post(client, path);
+                assertEquals(200, response.statusCode(), response.body());
+            }
+        }
+
+        assertEquals(served + REQUESTS, first.getRequestCount() + second.getRequestCount());
+        // An endpoint that was never measured is the cheapest, so the dead one is picked straight away
+        assertTrue(meterRegistry.counter("cis.client.endpoint.failovers").count() > failovers);
+        String deadAuthority = URI.create(deadUrl).getAuthority();
+        assertTrue(meterRegistry.get("cis.client.endpoint.ejections").tag("endpoint", deadAuthority).counter().count() >= 1);
+        assertEquals(0, meterRegistry.get("cis.client.endpoint.ejections")
+                .tag("endpoint", URI.create(first.getUrl()).getAuthority()).counter().count());
+    }
+
+    private HttpResponse<String> post(HttpClient client, String path) throws Exception {
+        int n = accounts.incrementAndGet();
+        String body = "{\"accountNumber\":\"ACC" + n + "\",\"serviceNumber\":\"0500" + n + "\",\"requestType\":\"FULL\"}";
+        return client.send(HttpRequest.newBuilder(URI.create("http://127.0.0.1:" + port + "/cis-pull" + path))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    // A port that was just in use and is now closed, so connecting to it is refused
+    private static String deadUrl() {
+        try (CisStubServer closed = CisStubServer.start(Duration.ZERO)) {
+            return closed.getUrl();
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package ae.etisalat.cisapp;
+
+import ae.etisalat.cisapp.support.CisStubServer;
+import ae.etisalat.cisapp.support.LatencyDistribution;
+import ae.etisalat.cisapp.support.LoadTestDriver;
+import ae.etisalat.cisapp.support.LoadTestReport;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.net.URI;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * End-to-end load on {@code POST /api/cis/pull} through Tomcat, the real transport, interceptors and
+ * marshalling, against a local CIS stub with long-tailed latency, mixed payload sizes, faults and
+ * dropped connections. Each scenario logs throughput, p50/p99/p999 latency and error rates.
+ * <p>
+ * Runs are short by default so the suite stays part of the build; for a real measurement, scale them
+ * with {@code -Dcis.load.concurrency=...} and {@code -Dcis.load.seconds=...}.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "logging.level.ae.etisalat.cisapp=WARN",
+        "logging.level.ae.etisalat.cisapp.CisLoadTest=INFO",
+        // Injected failures are expected; a stack trace for each would be most of what the run measures
+        "logging.level.ae.etisalat.cisapp.interceptor.LoggingWebServiceInterceptor=OFF",
+        "logging.level.ae.etisalat.cisapp.service.CisPullService=OFF",
+        "logging.level.ae.etisalat.cisapp.controller.CisPullController=OFF",
+        "logging.level.org.springframework.ws=WARN"
+})
+public class CisLoadTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(CisLoadTest.class);
+
+    private static final int CONCURRENCY = Integer.getInteger("cis.load.concurrency", 32);
+    private static final Duration DURATION = Duration.ofSeconds(Long.getLong("cis.load.seconds", 3));
+    private static final Duration WARM_UP = Duration.ofSeconds(2);
+
+    private static final CisStubServer stub = CisStubServer.start(Duration.ZERO);
+
+    @LocalServerPort
+    private int port;
+
+    @DynamicPropertySource
+    static void cisProperties(DynamicPropertyRegistry registry) {
+        registry.add("webservice.cis.url", stub::getUrl);
+    }
+
+    @AfterEach
+    void resetStub() {
+        stub.setLatency(Duration.ZERO);
+        stub.setResponseBody(CisStubServer.EMPTY_RESPONSE);
+        stub.setFaultRate(0);
+        stub.setResetRate(0);
+    }
+
+    @AfterAll
+    static void stopStub() {
+        stub.close();
+    }
+
+    @Test
+    public void testLongTailedBackend_NoErrors() throws Exception {
+        stub.setLatency(LatencyDistribution.logNormal(Duration.ofMillis(20), Duration.ofMillis(150)));
+        stub.setResponseItems(1, 20, 200);
+        warmUp();
+
+        LoadTestReport report = measure("long-tailed backend");
+
+        assertEquals(0, report.errors(), report.summary("long-tailed backend"));
+        assertTrue(report.requests() > CONCURRENCY, report.summary("long-tailed backend"));
+        // Nothing answers faster than the backend it waits for
+        assertTrue(report.percentile(0.5).compareTo(Duration.ofMillis(10)) >= 0, report.summary("long-tailed backend"));
+    }
+
+    @Test
+    public void testFaultsAndDroppedConnections_AnsweredAsErrors() throws Exception {
+        stub.setLatency(LatencyDistribution.uniform(Duration.ofMillis(5), Duration.ofMillis(15)));
+        stub.setResponseItems(20);
+        warmUp();
+        stub.setFaultRate(0.05);
+        stub.setResetRate(0.05);
+        int faults = stub.getFaultCount();
+        int resets = stub.getResetCount();
+
+        LoadTestReport report = measure("faults and dropped connections");
+
+        String summary = report.summary("faults and dropped connections");
+        int injected = stub.getFaultCount() - faults + stub.getResetCount() - resets;
+        // Every injected failure, and nothing else, surfaces as a 500: no hung or dropped client connections
+        assertEquals(injected, report.count("500"), summary);
+        assertEquals(report.count("500"), report.errors(), summary);
+        assertTrue(report.errorRate() > 0.02 && report.errorRate() < 0.25, summary);
+    }
+
+    // JIT, JAXB and the connection pool, so that the measured run is not dominated by first-call costs
+    private void warmUp() throws InterruptedException {
+        try (LoadTestDriver driver = new LoadTestDriver()) {
+            driver.run(uri(), CisLoadTest::request, CONCURRENCY, WARM_UP);
+        }
+    }
+
+    private LoadTestReport measure(String scenario) throws InterruptedException {
+        try (LoadTestDriver driver = new LoadTestDriver()) {
+            LoadTestReport report = driver.run(uri(), CisLoadTest::request, CONCURRENCY, DURATION);
+            logger.info(report.summary(scenario));
+            return report;
+        }
+    }
+
+    private URI uri() {
+        return URI.create("http://127.0.0.1:" + port + "/cis-pull/api/cis/pull");
+    }
+
+    // A distinct account per request, so that neither the response cache nor coalescing serves it
+    private static String request(int n) {
+        return "{\"accountNumber\":\"ACC" + n + "\",\"serviceNumber\":\"0500" + n + "\",\"requestType\":\"FULL\"}";
+    }
+}
@@ -0,0 +1,135 @@
+package ae.etisalat.cisapp;
+
+import ae.etisalat.cisapp.config.PooledJaxb2Marshaller;
+import ae.etisalat.cisapp.support.CisStubServer;
+import ae.etisalat.cisapp.support.SampleData;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.xml.bind.JAXBElement;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.oxm.jaxb.Jaxb2Marshaller;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.ws.WebServiceMessage;
+import org.springframework.ws.client.core.WebServiceTemplate;
+import org.springframework.ws.soap.SoapMessage;
+import org.springframework.ws.soap.saaj.SaajSoapMessageFactory;
+import org.springframework.ws.support.MarshallingUtils;
+import sem.cis.pull.cbcm.GetSubscriptionDtlsResponse;
+
+import javax.xml.namespace.QName;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * With the StAX message factory and pooled JAXB instances, the pull endpoints answer exactly as
+ * with the default SAAJ setup, faults included.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "webservice.cis.marshalling.message-factory=stax",
+        "webservice.cis.marshalling.jaxb-pool.enabled=true",
+        "webservice.cis.cache.enabled=false",
+        "webservice.cis.coalescing.enabled=false",
+        "logging.level.ae.etisalat.cisapp=WARN",
+        "logging.level.org.springframework.ws=WARN"
+})
+public class CisMarshallingModesIntegrationTest {
+
+    private static final CisStubServer stub = CisStubServer.start(Duration.ZERO);
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private Jaxb2Marshaller marshaller;
+
+    @Autowired
+    private WebServiceTemplate webServiceTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @DynamicPropertySource
+    static void cisProperties(DynamicPropertyRegistry registry) {
+        registry.add("webservice.cis.url", stub::getUrl);
+    }
+
+    @AfterEach
+    void resetStub() {
+        stub.setResponseBody(CisStubServer.EMPTY_RESPONSE);
+    }
+
+    @AfterAll
+    static void stopStub() {
+        stub.close();
+    }
+
+    @Test
+    public void testPull_SameJsonAsSaaj() throws Exception {
+        assertInstanceOf(PooledJaxb2Marshaller.class, marshaller);
+        WebServiceMessage parsed = webServiceTemplate.getMessageFactory().createWebServiceMessage(
+                new ByteArrayInputStream(CisStubServer.EMPTY_RESPONSE.getBytes(StandardCharsets.UTF_8)));
+        assertFalse(parsed instanceof SoapMessage, "Responses still parsed by SAAJ");
+        GetSubscriptionDtlsResponse sample = SampleData.populate(GetSubscriptionDtlsResponse.class, 25);
+        stub.setResponseBody(envelope(sample));
+
+        for (String path : new String[]{"/api/cis/pull", "/api/cis/pull/async"}) {
+            HttpResponse<String> response = post(path);
+
+            assertEquals(200, response.statusCode(), path);
+            assertEquals(objectMapper.writeValueAsString(sample), response.body(), path);
+        }
+    }
+
+    @Test
+    public void testFault_CountedAndAnsweredAsWithSaaj() throws Exception {
+        stub.setResponseBody(CisStubServer.FAULT_RESPONSE);
+        double faults = meterRegistry.get("cis.client.faults").counter().count();
+
+        HttpResponse<String> response = post("/api/cis/pull");
+
+        assertEquals(500, response.statusCode());
+        assertEquals(objectMapper.writeValueAsString(new GetSubscriptionDtlsResponse()), response.body());
+        assertEquals(faults + 1, meterRegistry.get("cis.client.faults").counter().count());
+    }
+
+    /**
+     * Serialized with a plain SAAJ factory, since the configured one cannot write responses.
+     */
+    private String envelope(GetSubscriptionDtlsResponse payload) throws Exception {
+        SaajSoapMessageFactory messageFactory = new SaajSoapMessageFactory();
+        messageFactory.afterPropertiesSet();
+        WebServiceMessage message = messageFactory.createWebServiceMessage();
+        MarshallingUtils.marshal(marshaller, new JAXBElement<>(
+                new QName("http://cbcm.pull.cis.sem/", "getSubscriptionDtlsResponse"), GetSubscriptionDtlsResponse.class, payload), message);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        message.writeTo(out);
+        return out.toString(StandardCharsets.UTF_8);
+    }
+
+    private HttpResponse<String> post(String path) throws Exception {
+        try (HttpClient client = HttpClient.newHttpClient()) {
+            return client.send(HttpRequest.newBuilder(URI.create("http://127.0.0.1:" + port + "/cis-pull" + path))
+                            .header("Content-Type", "application/json")
+                            .POST(HttpRequest.BodyPublishers.ofString("{}"))
+                            .build(),
+                    HttpResponse.BodyHandlers.ofString());
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package ae.etisalat.cisapp;
+
+import ae.etisalat.cisapp.metrics.CisClientMetrics;
+import ae.etisalat.cisapp.support.CisStubServer;
+import ae.etisalat.cisapp.support.ConcurrentRequestDriver;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Checks that both transports record every phase of an outbound call and that the meters are
+ * scraped through the Prometheus endpoint.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "webservice.cis.coalescing.enabled=false",
+        "logging.level.ae.etisalat.cisapp=WARN",
+        "logging.level.ae.etisalat.cisapp.interceptor.LoggingWebServiceInterceptor=WARN",
+        "logging.level.org.springframework.ws=WARN"
+})
+@AutoConfigureObservability
+public class CisMetricsIntegrationTest {
+
+    private static final CisStubServer stub = CisStubServer.start(Duration.ofMillis(20));
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @DynamicPropertySource
+    static void cisProperties(DynamicPropertyRegistry registry) {
+        registry.add("webservice.cis.url", stub::getUrl);
+    }
+
+    @AfterEach
+    void resetStub() {
+        stub.setResponseBody(CisStubServer.EMPTY_RESPONSE);
+    }
+
+    @AfterAll
+    static void stopStub() {
+        stub.close();
+    }
+
+    @Test
+    public void testPooledTransport_RecordsEveryPhase() {
+        List<Integer> statuses = post("/api/cis/pull");
+
+        assertEquals(List.of(200), statuses);
+        for (CisClientMetrics.Phase phase : CisClientMetrics.Phase.values()) {
+            assertTrue(phaseTimer(phase).count() > 0, "No samples for phase " + phase.getTagValue());
+        }
+        // The stub's latency falls between the request being written and the response headers arriving
+        assertTrue(phaseTimer(CisClientMetrics.Phase.TIME_TO_FIRST_BYTE).max(TimeUnit.MILLISECONDS) >= 20);
+        assertTrue(meterRegistry.get("cis.client.bytes").tag("direction", "out").counter().count() > 0);
+        assertTrue(meterRegistry.get("cis.client.bytes").tag("direction", "in").counter().count() > 0);
+    }
+
+    @Test
+    public void testAsyncTransport_RecordsTransferPhases() {
+        long before = phaseTimer(CisClientMetrics.Phase.BODY_RECEIVE).count();
+
+        assertEquals(List.of(200), post("/api/cis/pull/async"));
+
+        assertTrue(phaseTimer(CisClientMetrics.Phase.BODY_RECEIVE).count() > before);
+    }
+
+    @Test
+    public void testSoapFault_Counted() {
+        stub.setResponseBody(CisStubServer.FAULT_RESPONSE);
+        double before = meterRegistry.get("cis.client.faults").counter().count();
+
+        assertEquals(List.of(500), post("/api/cis/pull"));
+
+        assertEquals(before + 1, meterRegistry.get("cis.client.faults").counter().count());
+    }
+
+    @Test
+    public void testPrometheusEndpoint_ExposesPhaseHistograms() throws Exception {
+        post("/api/cis/pull");
+
+        try (HttpClient client = HttpClient.newHttpClient()) {
+            HttpResponse<String> response = client.send(
+                    HttpRequest.newBuilder(URI.create("http://127.0.0.1:" + port + "/cis-pull/actuator/prometheus")).build(),
+                    HttpResponse.BodyHandlers.ofString());
+
+            assertEquals(200, response.statusCode());
+            assertTrue(response.body().contains("cis_client_phase_seconds_bucket{"), "Phase histogram not exposed");
+            assertTrue(response.body().contains("phase=\"connection-acquire\""));
+            assertTrue(response.body().contains("cis_client_null_responses_total"));
+        }
+    }
+
+    private Timer phaseTimer(CisClientMetrics.Phase phase) {
+        return meterRegistry.get(CisClientMetrics.PHASE_TIMER).tag("phase", phase.getTagValue()).timer();
+    }
+
+    private List<Integer> post(String path) {
+        try (ConcurrentRequestDriver driver = new ConcurrentRequestDriver()) {
+            return driver.post(URI.create("http://127.0.0.1:" + port + "/cis-pull" + path), "{}", 1);
+        }
+    }
+}
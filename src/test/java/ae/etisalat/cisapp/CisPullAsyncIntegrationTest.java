@@ -0,0 +1,103 @@
+package ae.etisalat.cisapp;
+
+import ae.etisalat.cisapp.support.CisStubServer;
+import ae.etisalat.cisapp.support.ConcurrentRequestDriver;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Drives {@code /api/cis/pull/async} over the real async transport against a local stub. Tomcat is
+ * limited to a handful of platform threads, so concurrency beyond that proves no request thread
+ * is held while the SOAP call is outstanding.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.threads.virtual.enabled=false",
+        "server.tomcat.threads.max=4",
+        "server.tomcat.threads.min-spare=1",
+        "webservice.cis.coalescing.enabled=false",
+        "logging.level.ae.etisalat.cisapp=WARN",
+        "logging.level.ae.etisalat.cisapp.interceptor.LoggingWebServiceInterceptor=WARN",
+        "logging.level.org.springframework.ws=WARN"
+})
+public class CisPullAsyncIntegrationTest {
+
+    private static final int TOMCAT_THREADS = 4;
+
+    private static final CisStubServer stub = CisStubServer.start(Duration.ofMillis(500));
+
+    @LocalServerPort
+    private int port;
+
+    @DynamicPropertySource
+    static void cisProperties(DynamicPropertyRegistry registry) {
+        registry.add("webservice.cis.url", stub::getUrl);
+    }
+
+    @AfterEach
+    void resetStub() {
+        stub.setResponseBody(CisStubServer.EMPTY_RESPONSE);
+    }
+
+    @AfterAll
+    static void stopStub() {
+        stub.close();
+    }
+
+    @Test
+    public void testAsyncPull_Success() {
+        List<Integer> statuses = post(1);
+
+        assertEquals(List.of(200), statuses);
+    }
+
+    @Test
+    public void testAsyncPull_ReleasesRequestThreads() {
+        int concurrentRequests = TOMCAT_THREADS * 10;
+
+        List<Integer> statuses = post(concurrentRequests);
+
+        assertTrue(statuses.stream().allMatch(status -> status == 200), "All requests should succeed");
+        // A blocking handler could never have more backend calls in flight than Tomcat threads
+        assertTrue(stub.getPeakInFlight() > TOMCAT_THREADS,
+                "Expected more than " + TOMCAT_THREADS + " concurrent backend calls, saw " + stub.getPeakInFlight());
+    }
+
+    @Test
+    public void testAsyncPull_SoapFault() {
+        stub.setResponseBody(CisStubServer.FAULT_RESPONSE);
+
+        List<Integer> statuses = post(1);
+
+        assertEquals(List.of(500), statuses);
+    }
+
+    @Test
+    public void testAsyncPull_UnexpectedResponseElement_Fails() {
+        // A well-formed envelope carrying another payload must not turn into an empty 200
+        stub.setResponseBody("<soap:Envelope xmlns:soap=\"http://schemas.xmlsoap.org/soap/envelope/\">" +
+                "<soap:Body><ns2:getSubscriptionDtls xmlns:ns2=\"http://cbcm.pull.cis.sem/\"/></soap:Body>" +
+                "</soap:Envelope>");
+
+        List<Integer> statuses = post(1);
+
+        assertEquals(List.of(500), statuses);
+    }
+
+    private List<Integer> post(int count) {
+        URI uri = URI.create("http://127.0.0.1:" + port + "/cis-pull/api/cis/pull/async");
+        try (ConcurrentRequestDriver driver = new ConcurrentRequestDriver()) {
+            return driver.post(uri, "{}", count);
+        }
+    }
+}
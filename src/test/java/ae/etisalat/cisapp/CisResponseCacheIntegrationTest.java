@@ -0,0 +1,102 @@
+package ae.etisalat.cisapp;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentMatchers;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.ws.client.core.WebServiceTemplate;
+import sem.cis.pull.cbcm.GetSubscriptionDtlsResponse;
+
+import jakarta.xml.bind.JAXBElement;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = "webservice.cis.cache.enabled=true")
+@AutoConfigureMockMvc
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+public class CisResponseCacheIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @MockBean
+    private WebServiceTemplate webServiceTemplate;
+
+    @Test
+    public void testRepeatedRequest_ServedFromCache() throws Exception {
+        mockSuccessfulResponse();
+
+        // Same request with different formatting normalizes to the same key
+        mockMvc.perform(post("/api/cis/pull")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{}"))
+                .andExpect(status().isOk());
+        mockMvc.perform(post("/api/cis/pull")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{ }"))
+                .andExpect(status().isOk());
+
+        verify(webServiceTemplate, times(1)).marshalSendAndReceive(ArgumentMatchers.any(JAXBElement.class));
+        assertEquals(1, cacheGets("hit"));
+        assertEquals(1, cacheGets("miss"));
+        assertEquals(1, meterRegistry.get("cache.size").tag("cache", "cis.response").gauge().value());
+    }
+
+    @Test
+    public void testNoCacheHeader_BypassesCache() throws Exception {
+        mockSuccessfulResponse();
+
+        mockMvc.perform(post("/api/cis/pull")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{}"))
+                .andExpect(status().isOk());
+        mockMvc.perform(post("/api/cis/pull")
+                        .header(HttpHeaders.CACHE_CONTROL, "no-cache")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{}"))
+                .andExpect(status().isOk());
+
+        verify(webServiceTemplate, times(2)).marshalSendAndReceive(ArgumentMatchers.any(JAXBElement.class));
+    }
+
+    @Test
+    public void testNullResponse_NotCached() throws Exception {
+        when(webServiceTemplate.marshalSendAndReceive(ArgumentMatchers.any(JAXBElement.class)))
+                .thenReturn(null);
+
+        mockMvc.perform(post("/api/cis/pull")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{}"))
+                .andExpect(status().isOk());
+        mockMvc.perform(post("/api/cis/pull")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{}"))
+                .andExpect(status().isOk());
+
+        verify(webServiceTemplate, times(2)).marshalSendAndReceive(ArgumentMatchers.any(JAXBElement.class));
+    }
+
+    private double cacheGets(String result) {
+        return meterRegistry.get("cache.gets").tags("cache", "cis.response", "result", result).functionCounter().count();
+    }
+
+    private void mockSuccessfulResponse() {
+        JAXBElement<GetSubscriptionDtlsResponse> mockResponseElement = mock(JAXBElement.class);
+        when(mockResponseElement.getValue()).thenReturn(new GetSubscriptionDtlsResponse());
+        when(webServiceTemplate.marshalSendAndReceive(ArgumentMatchers.any(JAXBElement.class)))
+                .thenReturn(mockResponseElement);
+    }
+}
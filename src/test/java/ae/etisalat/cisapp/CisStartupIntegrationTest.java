@@ -0,0 +1,72 @@
+package ae.etisalat.cisapp;
+
+import ae.etisalat.cisapp.metrics.CisClientMetrics;
+import ae.etisalat.cisapp.support.CisStubServer;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.availability.ApplicationAvailability;
+import org.springframework.boot.availability.ReadinessState;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Checks that the application reports ready once the warm-up has run, through the readiness probe,
+ * and that the warm-up neither calls CIS nor shows up in the client metrics.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "webservice.cis.warmup.iterations=50",
+        "logging.level.ae.etisalat.cisapp=WARN",
+        "logging.level.org.springframework.ws=WARN"
+})
+public class CisStartupIntegrationTest {
+
+    private static final CisStubServer stub = CisStubServer.start(Duration.ZERO);
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private ApplicationAvailability availability;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @DynamicPropertySource
+    static void cisProperties(DynamicPropertyRegistry registry) {
+        registry.add("webservice.cis.url", stub::getUrl);
+    }
+
+    @AfterAll
+    static void stopStub() {
+        stub.close();
+    }
+
+    @Test
+    public void testWarmup_RunsBeforeReadinessWithoutCallingBackend() throws Exception {
+        assertEquals(ReadinessState.ACCEPTING_TRAFFIC, availability.getReadinessState());
+        try (HttpClient client = HttpClient.newHttpClient()) {
+            HttpResponse<String> readiness = client.send(HttpRequest.newBuilder(
+                            URI.create("http://127.0.0.1:" + port + "/cis-pull/actuator/health/readiness")).build(),
+                    HttpResponse.BodyHandlers.ofString());
+
+            assertEquals(200, readiness.statusCode());
+            assertTrue(readiness.body().contains("\"status\":\"UP\""), readiness.body());
+        }
+
+        assertEquals(0, stub.getRequestCount());
+        assertEquals(0, meterRegistry.get(CisClientMetrics.PHASE_TIMER)
+                .tag("phase", CisClientMetrics.Phase.MARSHAL.getTagValue()).timer().count());
+    }
+}
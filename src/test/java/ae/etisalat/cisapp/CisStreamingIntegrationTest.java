@@ -0,0 +1,137 @@
+package ae.etisalat.cisapp;
+
+import ae.etisalat.cisapp.metrics.CisClientMetrics;
+import ae.etisalat.cisapp.support.CisStubServer;
+import ae.etisalat.cisapp.support.SampleData;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.xml.bind.JAXBElement;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.oxm.jaxb.Jaxb2Marshaller;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.ws.WebServiceMessage;
+import org.springframework.ws.client.core.WebServiceTemplate;
+import org.springframework.ws.support.MarshallingUtils;
+import sem.cis.pull.cbcm.GetSubscriptionDtlsResponse;
+
+import javax.xml.namespace.QName;
+import java.io.ByteArrayOutputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * With streaming enabled, /pull answers with the same JSON as the unmarshalling path without
+ * unmarshalling anything, and faults still map to the same error response.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "webservice.cis.streaming.enabled=true",
+        "webservice.cis.coalescing.enabled=false",
+        "webservice.cis.warmup.enabled=false",
+        "logging.level.ae.etisalat.cisapp=WARN",
+        "logging.level.org.springframework.ws=WARN"
+})
+public class CisStreamingIntegrationTest {
+
+    private static final CisStubServer stub = CisStubServer.start(Duration.ZERO);
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private WebServiceTemplate webServiceTemplate;
+
+    @Autowired
+    private Jaxb2Marshaller marshaller;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @DynamicPropertySource
+    static void cisProperties(DynamicPropertyRegistry registry) {
+        registry.add("webservice.cis.url", stub::getUrl);
+    }
+
+    @AfterEach
+    void resetStub() {
+        stub.setResponseBody(CisStubServer.EMPTY_RESPONSE);
+    }
+
+    @AfterAll
+    static void stopStub() {
+        stub.close();
+    }
+
+    @Test
+    public void testPull_StreamsSameJsonWithoutUnmarshalling() throws Exception {
+        GetSubscriptionDtlsResponse sample = SampleData.populate(GetSubscriptionDtlsResponse.class, 25);
+        stub.setResponseBody(envelope(sample));
+        long unmarshalled = phaseCount(CisClientMetrics.Phase.UNMARSHAL.getTagValue());
+        long transcoded = phaseCount("transcode");
+
+        HttpResponse<String> response = post("/api/cis/pull");
+
+        assertEquals(200, response.statusCode());
+        assertEquals("application/json", response.headers().firstValue("Content-Type").orElse(null));
+        assertEquals(objectMapper.writeValueAsString(sample), response.body());
+        assertEquals(unmarshalled, phaseCount(CisClientMetrics.Phase.UNMARSHAL.getTagValue()));
+        assertEquals(transcoded + 1, phaseCount("transcode"));
+    }
+
+    @Test
+    public void testPull_FaultAnsweredAsOnUnmarshallingPath() throws Exception {
+        stub.setResponseBody(CisStubServer.FAULT_RESPONSE);
+        double faults = meterRegistry.get("cis.client.faults").counter().count();
+
+        HttpResponse<String> response = post("/api/cis/pull");
+
+        assertEquals(500, response.statusCode());
+        assertEquals(objectMapper.writeValueAsString(new GetSubscriptionDtlsResponse()), response.body());
+        assertEquals(faults + 1, meterRegistry.get("cis.client.faults").counter().count());
+    }
+
+    @Test
+    public void testAsyncPull_StillUnmarshals() throws Exception {
+        HttpResponse<String> response = post("/api/cis/pull/async");
+
+        assertEquals(200, response.statusCode());
+        assertEquals(objectMapper.writeValueAsString(new GetSubscriptionDtlsResponse()), response.body());
+    }
+
+    private String envelope(GetSubscriptionDtlsResponse payload) throws Exception {
+        WebServiceMessage message = webServiceTemplate.getMessageFactory().createWebServiceMessage();
+        MarshallingUtils.marshal(marshaller, new JAXBElement<>(
+                new QName("http://cbcm.pull.cis.sem/", "getSubscriptionDtlsResponse"), GetSubscriptionDtlsResponse.class, payload), message);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        message.writeTo(out);
+        return out.toString(StandardCharsets.UTF_8);
+    }
+
+    private long phaseCount(String phase) {
+        return meterRegistry.get(CisClientMetrics.PHASE_TIMER).tag("phase", phase).timer().count();
+    }
+
+    private HttpResponse<String> post(String path) throws Exception {
+        try (HttpClient client = HttpClient.newHttpClient()) {
+            return client.send(HttpRequest.newBuilder(URI.create("http://127.0.0.1:" + port + "/cis-pull" + path))
+                            .header("Content-Type", "application/json")
+                            .POST(HttpRequest.BodyPublishers.ofString("{}"))
+                            .build(),
+                    HttpResponse.BodyHandlers.ofString());
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package ae.etisalat.cisapp;
+
+import ae.etisalat.cisapp.logging.PayloadLogWriter;
+import ae.etisalat.cisapp.support.CisStubServer;
+import ae.etisalat.cisapp.support.ConcurrentRequestDriver;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Checks that raw SOAP envelopes are teed off both real transports and written by the background writer.
+ * Requests are gzipped on the wire, and the envelope is still what gets captured.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "webservice.cis.coalescing.enabled=false",
+        "webservice.cis.payload-log.sample-rate=1",
+        "webservice.cis.http.compression.request-min-bytes=0",
+        "logging.level.ae.etisalat.cisapp=WARN",
+        "logging.level.ae.etisalat.cisapp.interceptor.LoggingWebServiceInterceptor=WARN",
+        "logging.level.ae.etisalat.cisapp.logging.PayloadLogWriter=DEBUG",
+        "logging.level.org.springframework.ws=WARN"
+})
+public class PayloadLoggingIntegrationTest {
+
+    private static final CisStubServer stub = CisStubServer.start(Duration.ZERO);
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private PayloadLogWriter payloadLogWriter;
+
+    private final Logger writerLogger = (Logger) LoggerFactory.getLogger(PayloadLogWriter.class);
+    private final ListAppender<ILoggingEvent> appender = new ListAppender<>();
+
+    @DynamicPropertySource
+    static void cisProperties(DynamicPropertyRegistry registry) {
+        registry.add("webservice.cis.url", stub::getUrl);
+    }
+
+    @BeforeEach
+    void attachAppender() {
+        appender.start();
+        writerLogger.addAppender(appender);
+    }
+
+    @AfterEach
+    void detachAppender() {
+        writerLogger.detachAppender(appender);
+    }
+
+    @AfterAll
+    static void stopStub() {
+        stub.close();
+    }
+
+    @Test
+    public void testPooledTransport_RequestAndResponseCaptured() throws Exception {
+        assertEquals(List.of(200), post("/api/cis/pull"));
+        assertEquals("gzip", stub.getLastRequestEncoding());
+
+        List<String> messages = awaitMessages(2);
+        assertTrue(messages.stream().anyMatch(m -> m.contains("REQUEST") && m.contains("getSubscriptionDtls")));
+        assertTrue(messages.stream().anyMatch(m -> m.contains("RESPONSE") && m.contains("getSubscriptionDtlsResponse")));
+    }
+
+    @Test
+    public void testAsyncTransport_RequestAndResponseCaptured() throws Exception {
+        assertEquals(List.of(200), post("/api/cis/pull/async"));
+        assertEquals("gzip", stub.getLastRequestEncoding());
+
+        List<String> messages = awaitMessages(2);
+        assertTrue(messages.stream().anyMatch(m -> m.contains("REQUEST") && m.contains("getSubscriptionDtls")));
+        assertTrue(messages.stream().anyMatch(m -> m.contains("RESPONSE") && m.contains("getSubscriptionDtlsResponse")));
+        assertEquals(0, payloadLogWriter.getDroppedCount());
+    }
+
+    private List<Integer> post(String path) {
+        try (ConcurrentRequestDriver driver = new ConcurrentRequestDriver()) {
+            return driver.post(URI.create("http://127.0.0.1:" + port + "/cis-pull" + path), "{}", 1);
+        }
+    }
+
+    private List<String> awaitMessages(int expected) throws InterruptedException {
+        long deadline = System.nanoTime() + 5_000_000_000L;
+        while (appender.list.size() < expected && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        return appender.list.stream().map(ILoggingEvent::getFormattedMessage).toList();
+    }
+}
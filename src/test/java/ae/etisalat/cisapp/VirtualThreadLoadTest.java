@@ -0,0 +1,87 @@
+package ae.etisalat.cisapp;
+
+import ae.etisalat.cisapp.support.CisStubServer;
+import ae.etisalat.cisapp.support.ConcurrentRequestDriver;
+import ae.etisalat.cisapp.support.PinnedThreadMonitor;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.lang.management.ManagementFactory;
+import java.net.URI;
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Drives thousands of concurrent requests through the real Tomcat, transport and marshalling
+ * stack against a slow local CIS stub, with request handling on virtual threads.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.threads.virtual.enabled=true",
+        "webservice.cis.coalescing.enabled=false",
+        "webservice.cis.http.pool.max-total=2500",
+        "webservice.cis.http.pool.max-per-route=2500",
+        "logging.level.ae.etisalat.cisapp=WARN",
+        "logging.level.ae.etisalat.cisapp.VirtualThreadLoadTest=INFO",
+        "logging.level.ae.etisalat.cisapp.interceptor.LoggingWebServiceInterceptor=WARN",
+        "logging.level.org.springframework.ws=WARN"
+})
+public class VirtualThreadLoadTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(VirtualThreadLoadTest.class);
+
+    private static final int WARM_UP_REQUESTS = 200;
+    private static final int CONCURRENT_REQUESTS = 2000;
+    private static final Duration BACKEND_LATENCY = Duration.ofSeconds(1);
+
+    private static final CisStubServer stub = CisStubServer.start(BACKEND_LATENCY);
+
+    @LocalServerPort
+    private int port;
+
+    @DynamicPropertySource
+    static void cisProperties(DynamicPropertyRegistry registry) {
+        registry.add("webservice.cis.url", stub::getUrl);
+    }
+
+    @AfterAll
+    static void stopStub() {
+        stub.close();
+    }
+
+    @Test
+    public void testThousandsOfConcurrentSlowBackendCalls_Succeed() {
+        URI uri = URI.create("http://127.0.0.1:" + port + "/cis-pull/api/cis/pull");
+        List<Integer> statuses;
+        List<String> pinnedStacks;
+        long elapsedMillis;
+
+        try (ConcurrentRequestDriver driver = new ConcurrentRequestDriver();
+             PinnedThreadMonitor pinnedMonitor = new PinnedThreadMonitor()) {
+            // Warm up JIT, JAXB and the connection pool so the measured run is not dominated by first-call costs
+            driver.post(uri, "{}", WARM_UP_REQUESTS);
+
+            long start = System.nanoTime();
+            statuses = driver.post(uri, "{}", CONCURRENT_REQUESTS);
+            elapsedMillis = Duration.ofNanos(System.nanoTime() - start).toMillis();
+            pinnedStacks = pinnedMonitor.stop();
+        }
+
+        int peakPlatformThreads = ManagementFactory.getThreadMXBean().getPeakThreadCount();
+        logger.info("{} requests against a {}ms backend: {}ms total, stub peak in-flight {}, peak platform threads {}",
+                CONCURRENT_REQUESTS, BACKEND_LATENCY.toMillis(), elapsedMillis, stub.getPeakInFlight(), peakPlatformThreads);
+
+        assertTrue(statuses.stream().allMatch(status -> status == 200), "All requests should succeed");
+        assertEquals(WARM_UP_REQUESTS + CONCURRENT_REQUESTS, stub.getRequestCount());
+        // With Tomcat's default pool of 200 platform threads, no more than 200 backend calls could ever overlap
+        assertTrue(stub.getPeakInFlight() > 200, "Backend calls should not be capped by a platform thread pool");
+        assertTrue(pinnedStacks.isEmpty(), "Virtual threads were pinned:\n" + String.join("\n\n", pinnedStacks));
+    }
+}
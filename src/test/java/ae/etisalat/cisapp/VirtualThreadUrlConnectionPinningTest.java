@@ -0,0 +1,66 @@
+package ae.etisalat.cisapp;
+
+import ae.etisalat.cisapp.support.CisStubServer;
+import ae.etisalat.cisapp.support.ConcurrentRequestDriver;
+import ae.etisalat.cisapp.support.PinnedThreadMonitor;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Checks the legacy HttpURLConnection sender, including its header logging connection wrapper,
+ * for carrier pinning when called from virtual threads.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.threads.virtual.enabled=true",
+        "webservice.cis.coalescing.enabled=false",
+        "webservice.cis.http.pool.enabled=false",
+        "logging.level.ae.etisalat.cisapp=WARN",
+        "logging.level.ae.etisalat.cisapp.config=DEBUG",
+        "logging.level.ae.etisalat.cisapp.interceptor.LoggingWebServiceInterceptor=WARN",
+        "logging.level.org.springframework.ws=WARN"
+})
+public class VirtualThreadUrlConnectionPinningTest {
+
+    private static final int CONCURRENT_REQUESTS = 300;
+
+    private static final CisStubServer stub = CisStubServer.start(Duration.ofMillis(200));
+
+    @LocalServerPort
+    private int port;
+
+    @DynamicPropertySource
+    static void cisProperties(DynamicPropertyRegistry registry) {
+        registry.add("webservice.cis.url", stub::getUrl);
+    }
+
+    @AfterAll
+    static void stopStub() {
+        stub.close();
+    }
+
+    @Test
+    public void testUrlConnectionSendPath_DoesNotPinCarrierThreads() {
+        URI uri = URI.create("http://127.0.0.1:" + port + "/cis-pull/api/cis/pull");
+        List<Integer> statuses;
+        List<String> pinnedStacks;
+
+        try (ConcurrentRequestDriver driver = new ConcurrentRequestDriver();
+             PinnedThreadMonitor pinnedMonitor = new PinnedThreadMonitor()) {
+            statuses = driver.post(uri, "{}", CONCURRENT_REQUESTS);
+            pinnedStacks = pinnedMonitor.stop();
+        }
+
+        assertTrue(statuses.stream().allMatch(status -> status == 200), "All requests should succeed");
+        assertTrue(pinnedStacks.isEmpty(), "Virtual threads were pinned:\n" + String.join("\n\n", pinnedStacks));
+    }
+}
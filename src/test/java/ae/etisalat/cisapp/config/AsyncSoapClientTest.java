@@ -0,0 +1,114 @@
+package ae.etisalat.cisapp.config;
+
+import ae.etisalat.cisapp.support.CisStubServer;
+import jakarta.xml.bind.JAXBElement;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.oxm.jaxb.Jaxb2Marshaller;
+import org.springframework.ws.client.core.WebServiceTemplate;
+import org.springframework.ws.client.support.interceptor.ClientInterceptorAdapter;
+import org.springframework.ws.context.MessageContext;
+import org.springframework.ws.soap.saaj.SaajSoapMessageFactory;
+import sem.cis.pull.cbcm.GetSubscriptionDtls;
+import sem.cis.pull.cbcm.GetSubscriptionDtlsResponse;
+
+import javax.xml.namespace.QName;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.net.http.HttpClient;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The async client honours the {@link WebServiceTemplate} interceptor contract against a local stub.
+ */
+public class AsyncSoapClientTest {
+
+    private static final QName REQUEST_QNAME = new QName("http://cbcm.pull.cis.sem/", "getSubscriptionDtls");
+
+    private final CisStubServer stub = CisStubServer.start(Duration.ZERO);
+
+    @AfterEach
+    void tearDown() {
+        stub.close();
+    }
+
+    @Test
+    public void testInterceptorHandlesRequest_NothingSentAndItsResponseReturned() throws Exception {
+        WebServiceTemplate template = template();
+        AtomicInteger handledResponses = new AtomicInteger();
+        template.setInterceptors(new ClientInterceptorAdapter[]{new ClientInterceptorAdapter() {
+            @Override
+            public boolean handleRequest(MessageContext messageContext) {
+                try {
+                    messageContext.setResponse(template.getMessageFactory().createWebServiceMessage(
+                            new ByteArrayInputStream(CisStubServer.EMPTY_RESPONSE.getBytes(StandardCharsets.UTF_8))));
+                } catch (IOException e) {
+                    throw new IllegalStateException(e);
+                }
+                return false;
+            }
+
+            @Override
+            public boolean handleResponse(MessageContext messageContext) {
+                handledResponses.incrementAndGet();
+                return true;
+            }
+        }});
+
+        Object response = client(template).marshalSendAndReceiveAsync(request()).join();
+
+        assertInstanceOf(GetSubscriptionDtlsResponse.class, ((JAXBElement<?>) response).getValue());
+        assertEquals(1, handledResponses.get());
+        assertEquals(0, stub.getRequestCount());
+    }
+
+    @Test
+    public void testInterceptorHandlesRequestWithoutResponse_NothingSent() {
+        WebServiceTemplate template = template();
+        template.setInterceptors(new ClientInterceptorAdapter[]{new ClientInterceptorAdapter() {
+            @Override
+            public boolean handleRequest(MessageContext messageContext) {
+                return false;
+            }
+        }});
+
+        assertNull(client(template).marshalSendAndReceiveAsync(request()).join());
+        assertEquals(0, stub.getRequestCount());
+    }
+
+    private static AsyncSoapClient client(WebServiceTemplate template) {
+        return new AsyncSoapClient(template, HttpClient.newHttpClient(), Duration.ofSeconds(5));
+    }
+
+    private WebServiceTemplate template() {
+        Jaxb2Marshaller marshaller = cisMarshaller();
+        SaajSoapMessageFactory messageFactory = new SaajSoapMessageFactory();
+        messageFactory.afterPropertiesSet();
+        WebServiceTemplate template = new WebServiceTemplate(messageFactory);
+        template.setMarshaller(marshaller);
+        template.setUnmarshaller(marshaller);
+        template.setDefaultUri(stub.getUrl());
+        return template;
+    }
+
+    private static JAXBElement<GetSubscriptionDtls> request() {
+        return new JAXBElement<>(REQUEST_QNAME, GetSubscriptionDtls.class, new GetSubscriptionDtls());
+    }
+
+    private static Jaxb2Marshaller cisMarshaller() {
+        try {
+            Jaxb2Marshaller marshaller = new Jaxb2Marshaller();
+            marshaller.setClassesToBeBound(GetSubscriptionDtls.class, GetSubscriptionDtlsResponse.class,
+                    Class.forName("sem.cis.pull.cbcm.ObjectFactory"));
+            marshaller.setSupportJaxbElementClass(true);
+            marshaller.afterPropertiesSet();
+            return marshaller;
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package ae.etisalat.cisapp.config;
+
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+import org.springframework.ws.transport.WebServiceConnection;
+import org.springframework.ws.transport.http.HttpUrlConnection;
+import org.springframework.ws.transport.http.HttpUrlConnectionMessageSender;
+
+import java.net.URI;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class HttpHeaderCaptureTest {
+
+    private static final URI CIS_URI = URI.create("http://127.0.0.1:9/cis");
+
+    @Test
+    public void testCaptureRequest_HttpUrlConnection() throws Exception {
+        WebServiceConnection connection = new HttpUrlConnectionMessageSender().createConnection(CIS_URI);
+        ((HttpUrlConnection) connection).getConnection().addRequestProperty("SOAPAction", "\"\"");
+        CapturedHttpHeaders headers = new CapturedHttpHeaders();
+
+        HttpHeaderCapture.captureRequest(connection, headers);
+
+        assertEquals("POST", headers.getMethod());
+        assertEquals(CIS_URI.toString(), headers.getUrl());
+        assertEquals(-1, headers.getStatusCode());
+        assertTrue(containsHeader(headers, "SOAPAction", "\"\""));
+    }
+
+    @Test
+    public void testCaptureRequest_UnwrapsLoggingConnection() throws Exception {
+        WebServiceConnection connection = new HttpUrlConnectionMessageSender().createConnection(CIS_URI);
+        WebServiceConnection wrapped = new HeaderLoggingConnection(connection, LoggerFactory.getLogger(getClass()));
+        CapturedHttpHeaders headers = new CapturedHttpHeaders();
+
+        HttpHeaderCapture.captureRequest(wrapped, headers);
+
+        assertEquals("POST", headers.getMethod());
+        assertEquals(CIS_URI.toString(), headers.getUrl());
+    }
+
+    @Test
+    public void testCapturedHeaders_ReusedAcrossCalls() {
+        CapturedHttpHeaders headers = new CapturedHttpHeaders();
+        for (int i = 0; i < 40; i++) {
+            headers.add("X-Header-" + i, "value-" + i);
+        }
+        headers.setStatusCode(200);
+        assertEquals(40, headers.size());
+        assertEquals("value-39", headers.getValue(39));
+
+        headers.clear();
+
+        assertEquals(0, headers.size());
+        assertEquals(-1, headers.getStatusCode());
+        assertNull(headers.getUrl());
+    }
+
+    private boolean containsHeader(CapturedHttpHeaders headers, String name, String value) {
+        for (int i = 0; i < headers.size(); i++) {
+            if (name.equals(headers.getName(i)) && value.equals(headers.getValue(i))) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
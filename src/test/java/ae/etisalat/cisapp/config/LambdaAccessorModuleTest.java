@@ -0,0 +1,82 @@
+package ae.etisalat.cisapp.config;
+
+import ae.etisalat.cisapp.dto.CisPullRequestDto;
+import ae.etisalat.cisapp.service.CisResponseTranscoder;
+import ae.etisalat.cisapp.support.SampleData;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.ser.BeanPropertyWriter;
+import com.fasterxml.jackson.databind.ser.BeanSerializer;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import sem.cis.pull.cbcm.GetSubscriptionDtlsResponse;
+import sem.cis.pull.cbcm.SubscriptionDetails;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Lambda accessors change how the generated classes' properties are read, never what is written.
+ */
+public class LambdaAccessorModuleTest {
+
+    private static final LambdaAccessorModule MODULE = new LambdaAccessorModule(Set.of("sem.cis.pull.cbcm"));
+
+    @Test
+    public void testOutput_MatchesReflectiveMapper() throws Exception {
+        List<GetSubscriptionDtlsResponse> responses = new ArrayList<>();
+        for (int size : new int[]{0, 1, 25}) {
+            responses.add(SampleData.populate(GetSubscriptionDtlsResponse.class, size));
+        }
+        GetSubscriptionDtlsResponse sparse = SampleData.populate(GetSubscriptionDtlsResponse.class, 2);
+        sparse.getReturn().add(new SubscriptionDetails());
+        sparse.getReturn().get(0).setStatus("");
+        responses.add(sparse);
+
+        for (JsonInclude.Include inclusion : new JsonInclude.Include[]{
+                JsonInclude.Include.USE_DEFAULTS, JsonInclude.Include.NON_NULL, JsonInclude.Include.NON_EMPTY}) {
+            ObjectMapper reflective = mapper(inclusion, false);
+            ObjectMapper lambda = mapper(inclusion, true);
+            for (GetSubscriptionDtlsResponse response : responses) {
+                assertEquals(reflective.writeValueAsString(response), lambda.writeValueAsString(response), inclusion.name());
+            }
+        }
+    }
+
+    @Test
+    public void testOnlyGeneratedClasses_UseLambdaWriters() throws Exception {
+        ObjectMapper mapper = mapper(JsonInclude.Include.USE_DEFAULTS, true);
+
+        List<BeanPropertyWriter> generated = writers(mapper, SubscriptionDetails.class);
+        assertFalse(generated.isEmpty());
+        generated.forEach(writer -> assertInstanceOf(LambdaPropertyWriter.class, writer, writer.getName()));
+        writers(mapper, CisPullRequestDto.class)
+                .forEach(writer -> assertSame(BeanPropertyWriter.class, writer.getClass(), writer.getName()));
+
+        // The transcoder plans from the same bean serializers, reading absent values through the writers
+        assertTrue(new CisResponseTranscoder(mapper).isSupported());
+    }
+
+    private static List<BeanPropertyWriter> writers(ObjectMapper mapper, Class<?> type) throws Exception {
+        JsonSerializer<Object> serializer = mapper.getSerializerProviderInstance().findValueSerializer(type);
+        assertSame(BeanSerializer.class, serializer.getClass());
+        List<BeanPropertyWriter> writers = new ArrayList<>();
+        serializer.properties().forEachRemaining(writer -> writers.add((BeanPropertyWriter) writer));
+        return writers;
+    }
+
+    private static ObjectMapper mapper(JsonInclude.Include inclusion, boolean lambdaAccessors) {
+        Jackson2ObjectMapperBuilder builder = Jackson2ObjectMapperBuilder.json()
+                .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .serializationInclusion(inclusion);
+        if (lambdaAccessors) {
+            builder.modulesToInstall(MODULE);
+        }
+        return builder.build();
+    }
+}
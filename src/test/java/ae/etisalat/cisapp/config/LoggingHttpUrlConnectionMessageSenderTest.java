@@ -0,0 +1,145 @@
+package ae.etisalat.cisapp.config;
+
+import ae.etisalat.cisapp.metrics.CisClientMetrics;
+import ae.etisalat.cisapp.support.CisStubServer;
+import ae.etisalat.cisapp.support.SampleData;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.xml.bind.JAXBElement;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.oxm.jaxb.Jaxb2Marshaller;
+import org.springframework.ws.WebServiceMessage;
+import org.springframework.ws.client.core.WebServiceTemplate;
+import org.springframework.ws.soap.client.SoapFaultClientException;
+import org.springframework.ws.soap.saaj.SaajSoapMessageFactory;
+import org.springframework.ws.support.MarshallingUtils;
+import sem.cis.pull.cbcm.GetSubscriptionDtls;
+import sem.cis.pull.cbcm.GetSubscriptionDtlsResponse;
+
+import javax.xml.namespace.QName;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The HttpURLConnection transport decodes gzip and deflate responses, which Spring WS alone only
+ * does for gzip, and gzips request bodies from the configured size on.
+ */
+public class LoggingHttpUrlConnectionMessageSenderTest {
+
+    private static final QName REQUEST_QNAME = new QName("http://cbcm.pull.cis.sem/", "getSubscriptionDtls");
+    private static final QName RESPONSE_QNAME = new QName("http://cbcm.pull.cis.sem/", "getSubscriptionDtlsResponse");
+
+    private final CisStubServer stub = CisStubServer.start(Duration.ZERO);
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final CisClientMetrics metrics = new CisClientMetrics(registry);
+    private final SaajSoapMessageFactory messageFactory = messageFactory();
+    private final Jaxb2Marshaller marshaller = cisMarshaller();
+
+    @AfterEach
+    void stopStub() {
+        stub.close();
+    }
+
+    @Test
+    public void testCompressedResponses_Decoded() throws Exception {
+        GetSubscriptionDtlsResponse sample = SampleData.populate(GetSubscriptionDtlsResponse.class, 25);
+        String envelope = envelope(sample);
+        stub.setResponseBody(envelope);
+        WebServiceTemplate template = template(-1);
+
+        for (String encoding : new String[]{"gzip", "deflate", null}) {
+            stub.setResponseEncoding(encoding);
+            double wireIn = counter("cis.client.bytes", "in");
+            double payloadIn = counter("cis.client.payload.bytes", "in");
+
+            Object response = template.marshalSendAndReceive(request());
+
+            assertEquals(envelope(((JAXBElement<?>) response).getValue()), envelope, String.valueOf(encoding));
+            assertEquals("gzip, deflate", stub.getLastAcceptEncoding());
+            assertNull(stub.getLastRequestEncoding());
+            double wire = counter("cis.client.bytes", "in") - wireIn;
+            double payload = counter("cis.client.payload.bytes", "in") - payloadIn;
+            assertEquals(envelope.getBytes(StandardCharsets.UTF_8).length, payload, 0.0);
+            if (encoding != null) {
+                assertTrue(payload > 2 * wire, encoding + ": wire " + wire + ", payload " + payload);
+            } else {
+                assertEquals(payload, wire, 0.0);
+            }
+        }
+    }
+
+    @Test
+    public void testRequestCompression_FromThreshold() {
+        WebServiceTemplate template = template(0);
+        template.marshalSendAndReceive(request());
+
+        assertEquals("gzip", stub.getLastRequestEncoding());
+        assertTrue(stub.getLastRequestBody().contains("getSubscriptionDtls"));
+        assertTrue(counter("cis.client.payload.bytes", "out") > counter("cis.client.bytes", "out"));
+
+        template(1 << 20).marshalSendAndReceive(request());
+
+        assertNull(stub.getLastRequestEncoding());
+    }
+
+    @Test
+    public void testCompressedFault_ReportedAsFault() {
+        stub.setResponseBody(CisStubServer.FAULT_RESPONSE);
+        stub.setResponseEncoding("deflate");
+
+        SoapFaultClientException fault = assertThrows(SoapFaultClientException.class,
+                () -> template(-1).marshalSendAndReceive(request()));
+        assertEquals("CIS backend error", fault.getFaultStringOrReason());
+    }
+
+    private WebServiceTemplate template(int requestCompressionThreshold) {
+        LoggingHttpUrlConnectionMessageSender sender = new LoggingHttpUrlConnectionMessageSender();
+        sender.setRequestCompressionThreshold(requestCompressionThreshold);
+        sender.setClientMetrics(metrics);
+        WebServiceTemplate template = new WebServiceTemplate(messageFactory);
+        template.setMarshaller(marshaller);
+        template.setUnmarshaller(marshaller);
+        template.setMessageSender(sender);
+        template.setDefaultUri(stub.getUrl());
+        return template;
+    }
+
+    private double counter(String name, String direction) {
+        return registry.get(name).tag("direction", direction).counter().count();
+    }
+
+    private static JAXBElement<GetSubscriptionDtls> request() {
+        return new JAXBElement<>(REQUEST_QNAME, GetSubscriptionDtls.class, SampleData.populate(GetSubscriptionDtls.class, 1));
+    }
+
+    private String envelope(Object payload) throws Exception {
+        WebServiceMessage message = messageFactory.createWebServiceMessage();
+        MarshallingUtils.marshal(marshaller, new JAXBElement<>(RESPONSE_QNAME, GetSubscriptionDtlsResponse.class,
+                (GetSubscriptionDtlsResponse) payload), message);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        message.writeTo(out);
+        return out.toString(StandardCharsets.UTF_8);
+    }
+
+    private static SaajSoapMessageFactory messageFactory() {
+        SaajSoapMessageFactory factory = new SaajSoapMessageFactory();
+        factory.afterPropertiesSet();
+        return factory;
+    }
+
+    private static Jaxb2Marshaller cisMarshaller() {
+        try {
+            Jaxb2Marshaller marshaller = new Jaxb2Marshaller();
+            marshaller.setClassesToBeBound(GetSubscriptionDtls.class, GetSubscriptionDtlsResponse.class,
+                    Class.forName("sem.cis.pull.cbcm.ObjectFactory"));
+            marshaller.setSupportJaxbElementClass(true);
+            marshaller.afterPropertiesSet();
+            return marshaller;
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
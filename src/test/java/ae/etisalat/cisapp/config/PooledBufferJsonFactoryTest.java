@@ -0,0 +1,85 @@
+package ae.etisalat.cisapp.config;
+
+import ae.etisalat.cisapp.support.SampleData;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import sem.cis.pull.cbcm.GetSubscriptionDtlsResponse;
+
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Pooled Jackson buffers outlive the virtual threads that used them, and are never shared between
+ * concurrent generators.
+ */
+public class PooledBufferJsonFactoryTest {
+
+    private final ObjectMapper reference = Jackson2ObjectMapperBuilder.json().build();
+
+    @Test
+    public void testBuffers_ReusedAcrossVirtualThreads() throws Exception {
+        PooledBufferJsonFactory factory = new PooledBufferJsonFactory(4);
+        ObjectMapper mapper = Jackson2ObjectMapperBuilder.json().factory(factory).build();
+        GetSubscriptionDtlsResponse response = SampleData.populate(GetSubscriptionDtlsResponse.class, 25);
+
+        assertEquals(reference.writeValueAsString(response), onVirtualThread(() -> roundTrip(mapper, response)));
+        int idle = factory.idleCount();
+        assertTrue(idle > 0);
+
+        // Later requests on new threads borrow the same buffers rather than allocating more
+        for (int i = 0; i < 3; i++) {
+            onVirtualThread(() -> roundTrip(mapper, response));
+            assertEquals(idle, factory.idleCount());
+        }
+        assertInstanceOf(PooledBufferJsonFactory.class, mapper.copy().getFactory());
+    }
+
+    @Test
+    public void testConcurrentWrites_MatchUnpooledFactory() throws Exception {
+        PooledBufferJsonFactory factory = new PooledBufferJsonFactory(2);
+        ObjectMapper mapper = Jackson2ObjectMapperBuilder.json().factory(factory).build();
+        List<GetSubscriptionDtlsResponse> responses = new ArrayList<>();
+        for (int i = 0; i < 64; i++) {
+            responses.add(SampleData.populate(GetSubscriptionDtlsResponse.class, i % 30));
+        }
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<String>> results = new ArrayList<>();
+            for (GetSubscriptionDtlsResponse response : responses) {
+                results.add(executor.submit(() -> write(mapper, response)));
+            }
+            for (int i = 0; i < responses.size(); i++) {
+                assertEquals(reference.writeValueAsString(responses.get(i)), results.get(i).get());
+            }
+        }
+        assertTrue(factory.idleCount() <= 2 * 8, "idle buffers are bounded per kind: " + factory.idleCount());
+    }
+
+    // The way the HTTP message converter writes: a generator on the response stream, closed afterwards
+    private static String write(ObjectMapper mapper, Object value) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        mapper.writeValue(out, value);
+        return out.toString();
+    }
+
+    private static String roundTrip(ObjectMapper mapper, GetSubscriptionDtlsResponse response) throws Exception {
+        String json = write(mapper, response);
+        mapper.readValue(json, GetSubscriptionDtlsResponse.class);
+        mapper.writeValueAsBytes(response);
+        return json;
+    }
+
+    private static <T> T onVirtualThread(Callable<T> task) throws Exception {
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            return executor.submit(task).get();
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package ae.etisalat.cisapp.config;
+
+import ae.etisalat.cisapp.service.CisDeadline;
+import ae.etisalat.cisapp.support.CisStubServer;
+import ae.etisalat.cisapp.support.SampleData;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.xml.bind.JAXBElement;
+import org.apache.hc.core5.http.ConnectionRequestTimeoutException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.oxm.jaxb.Jaxb2Marshaller;
+import org.springframework.ws.client.core.WebServiceTemplate;
+import org.springframework.ws.soap.saaj.SaajSoapMessageFactory;
+import sem.cis.pull.cbcm.GetSubscriptionDtls;
+import sem.cis.pull.cbcm.GetSubscriptionDtlsResponse;
+
+import javax.xml.namespace.QName;
+import java.net.SocketTimeoutException;
+import java.net.URI;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The pooled transport against a slow stub: callers beyond the pool wait at most the lease timeout,
+ * the pool is visible through its gauges, and per-call timeouts shrink to the caller's deadline.
+ */
+public class PooledHttpMessageSenderTest {
+
+    private static final QName REQUEST_QNAME = new QName("http://cbcm.pull.cis.sem/", "getSubscriptionDtls");
+    private static final Duration BACKEND_LATENCY = Duration.ofSeconds(1);
+
+    private final CisStubServer stub = CisStubServer.start(BACKEND_LATENCY);
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private PooledHttpMessageSender sender;
+
+    @AfterEach
+    void tearDown() throws Exception {
+        executor.shutdownNow();
+        if (sender != null) {
+            sender.destroy();
+        }
+        stub.close();
+    }
+
+    @Test
+    public void testExhaustedPool_LeaseTimesOutAndGaugesShowIt() throws Exception {
+        WebServiceTemplate template = template(1, Duration.ofMillis(300));
+        String endpoint = URI.create(stub.getUrl()).getAuthority();
+        assertEquals(1, gauge("max", endpoint));
+
+        CompletableFuture<Object> first = CompletableFuture.supplyAsync(() -> template.marshalSendAndReceive(request()), executor);
+        awaitGauge("leased", endpoint, 1);
+
+        long start = System.nanoTime();
+        CompletableFuture<Object> second = CompletableFuture.supplyAsync(() -> template.marshalSendAndReceive(request()), executor);
+        awaitGauge("pending", endpoint, 1);
+        Throwable failure = assertThrows(Exception.class, second::join);
+        long waitedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        assertTrue(hasCause(failure, ConnectionRequestTimeoutException.class), failure.toString());
+        assertTrue(waitedMillis < BACKEND_LATENCY.toMillis(), "Lease wait took " + waitedMillis + " ms");
+        assertEquals(0, gauge("pending", endpoint));
+
+        assertNotNull(first.join());
+        assertEquals(0, gauge("leased", endpoint));
+        assertEquals(1, gauge("available", endpoint));
+        assertEquals(1, stub.getRequestCount());
+    }
+
+    @Test
+    public void testDeadline_CapsResponseTimeout() {
+        WebServiceTemplate template = template(10, Duration.ofSeconds(5));
+
+        long start = System.nanoTime();
+        Throwable failure = assertThrows(Exception.class,
+                () -> CisDeadline.after(Duration.ofMillis(200)).bind(() -> template.marshalSendAndReceive(request())));
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        assertTrue(hasCause(failure, SocketTimeoutException.class), failure.toString());
+        assertTrue(elapsedMillis < BACKEND_LATENCY.toMillis(), "Call took " + elapsedMillis + " ms");
+    }
+
+    @Test
+    public void testReadTimeoutSupplier_AppliesPerCall() {
+        WebServiceTemplate template = template(10, Duration.ofSeconds(5), () -> Duration.ofMillis(200));
+
+        Throwable failure = assertThrows(Exception.class, () -> template.marshalSendAndReceive(request()));
+
+        assertTrue(hasCause(failure, SocketTimeoutException.class), failure.toString());
+    }
+
+    private WebServiceTemplate template(int maxConnections, Duration leaseTimeout) {
+        return template(maxConnections, leaseTimeout, null);
+    }
+
+    private WebServiceTemplate template(int maxConnections, Duration leaseTimeout,
+                                        Supplier<Duration> readTimeoutSupplier) {
+        sender = new PooledHttpMessageSender();
+        sender.setMaxTotalConnections(maxConnections);
+        sender.setMaxConnectionsPerRoute(maxConnections);
+        sender.setConnectionRequestTimeout(leaseTimeout);
+        sender.setReadTimeoutSupplier(readTimeoutSupplier);
+        sender.setMeterRegistry(registry);
+        sender.setEndpointName(URI.create(stub.getUrl()).getAuthority());
+        sender.afterPropertiesSet();
+
+        Jaxb2Marshaller marshaller = cisMarshaller();
+        SaajSoapMessageFactory messageFactory = new SaajSoapMessageFactory();
+        messageFactory.afterPropertiesSet();
+        WebServiceTemplate template = new WebServiceTemplate(messageFactory);
+        template.setMarshaller(marshaller);
+        template.setUnmarshaller(marshaller);
+        template.setMessageSender(sender);
+        template.setDefaultUri(stub.getUrl());
+        return template;
+    }
+
+    private double gauge(String name, String endpoint) {
+        return registry.get("cis.client.pool." + name).tag("endpoint", endpoint).gauge().value();
+    }
+
+    private void awaitGauge(String name, String endpoint, double expected) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (gauge(name, endpoint) != expected) {
+            assertTrue(System.nanoTime() < deadline, "cis.client.pool." + name + " never reached " + expected);
+            Thread.sleep(5);
+        }
+    }
+
+    private static boolean hasCause(Throwable failure, Class<? extends Throwable> type) {
+        for (Throwable cause = failure; cause != null; cause = cause.getCause()) {
+            if (type.isInstance(cause)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static JAXBElement<GetSubscriptionDtls> request() {
+        return new JAXBElement<>(REQUEST_QNAME, GetSubscriptionDtls.class, SampleData.populate(GetSubscriptionDtls.class, 1));
+    }
+
+    private static Jaxb2Marshaller cisMarshaller() {
+        try {
+            Jaxb2Marshaller marshaller = new Jaxb2Marshaller();
+            marshaller.setClassesToBeBound(GetSubscriptionDtls.class, GetSubscriptionDtlsResponse.class,
+                    Class.forName("sem.cis.pull.cbcm.ObjectFactory"));
+            marshaller.setSupportJaxbElementClass(true);
+            marshaller.afterPropertiesSet();
+            return marshaller;
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
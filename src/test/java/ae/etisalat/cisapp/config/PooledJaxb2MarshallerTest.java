@@ -0,0 +1,101 @@
+package ae.etisalat.cisapp.config;
+
+import ae.etisalat.cisapp.support.SampleData;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.xml.bind.JAXBElement;
+import org.junit.jupiter.api.Test;
+import org.springframework.oxm.jaxb.Jaxb2Marshaller;
+import org.springframework.ws.WebServiceMessage;
+import org.springframework.ws.soap.saaj.SaajSoapMessageFactory;
+import org.springframework.ws.support.MarshallingUtils;
+import sem.cis.pull.cbcm.GetSubscriptionDtls;
+import sem.cis.pull.cbcm.GetSubscriptionDtlsResponse;
+
+import javax.xml.namespace.QName;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Pooled JAXB instances are reused without leaking state between concurrent operations.
+ */
+public class PooledJaxb2MarshallerTest {
+
+    private static final QName RESPONSE_QNAME = new QName("http://cbcm.pull.cis.sem/", "getSubscriptionDtlsResponse");
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final SaajSoapMessageFactory messageFactory = messageFactory();
+
+    @Test
+    public void testConcurrentRoundTrips_MatchUnpooledMarshaller() throws Exception {
+        Jaxb2Marshaller unpooled = cisMarshaller(new Jaxb2Marshaller());
+        PooledJaxb2Marshaller pooled = (PooledJaxb2Marshaller) cisMarshaller(new PooledJaxb2Marshaller(2));
+
+        List<GetSubscriptionDtlsResponse> responses = new ArrayList<>();
+        for (int size = 0; size < 8; size++) {
+            responses.add(SampleData.populate(GetSubscriptionDtlsResponse.class, size));
+        }
+        List<byte[]> expected = new ArrayList<>();
+        for (GetSubscriptionDtlsResponse response : responses) {
+            expected.add(roundTrip(unpooled, response));
+        }
+
+        try (ExecutorService executor = Executors.newFixedThreadPool(4)) {
+            List<Future<Boolean>> results = new ArrayList<>();
+            for (int n = 0; n < 200; n++) {
+                int index = n % responses.size();
+                results.add(executor.submit(() -> Arrays.equals(expected.get(index), roundTrip(pooled, responses.get(index)))));
+            }
+            for (Future<Boolean> result : results) {
+                assertTrue(result.get());
+            }
+        }
+        // Only up to max-idle of each are kept
+        assertTrue(pooled.idleCount() > 0 && pooled.idleCount() <= 4, "idle: " + pooled.idleCount());
+    }
+
+    @Test
+    public void testFailedOperation_InstanceNotReturned() throws Exception {
+        PooledJaxb2Marshaller pooled = (PooledJaxb2Marshaller) cisMarshaller(new PooledJaxb2Marshaller(2));
+        WebServiceMessage malformed = messageFactory.createWebServiceMessage(new ByteArrayInputStream((
+                "<soap:Envelope xmlns:soap=\"http://schemas.xmlsoap.org/soap/envelope/\"><soap:Body>"
+                        + "<unknown xmlns=\"urn:x\"/></soap:Body></soap:Envelope>").getBytes()));
+
+        assertThrows(Exception.class, () -> MarshallingUtils.unmarshal(pooled, malformed));
+        assertEquals(0, pooled.idleCount());
+    }
+
+    /**
+     * Marshals the response into a SOAP message and unmarshals it again, returning it as JSON.
+     */
+    private byte[] roundTrip(Jaxb2Marshaller marshaller, GetSubscriptionDtlsResponse response) throws Exception {
+        WebServiceMessage message = messageFactory.createWebServiceMessage();
+        MarshallingUtils.marshal(marshaller, new JAXBElement<>(RESPONSE_QNAME, GetSubscriptionDtlsResponse.class, response), message);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        message.writeTo(out);
+        WebServiceMessage parsed = messageFactory.createWebServiceMessage(new ByteArrayInputStream(out.toByteArray()));
+        Object unmarshalled = ((JAXBElement<?>) MarshallingUtils.unmarshal(marshaller, parsed)).getValue();
+        return objectMapper.writeValueAsBytes(unmarshalled);
+    }
+
+    private static SaajSoapMessageFactory messageFactory() {
+        SaajSoapMessageFactory factory = new SaajSoapMessageFactory();
+        factory.afterPropertiesSet();
+        return factory;
+    }
+
+    private static Jaxb2Marshaller cisMarshaller(Jaxb2Marshaller marshaller) throws Exception {
+        marshaller.setClassesToBeBound(GetSubscriptionDtls.class, GetSubscriptionDtlsResponse.class,
+                Class.forName("sem.cis.pull.cbcm.ObjectFactory"));
+        marshaller.setSupportJaxbElementClass(true);
+        marshaller.afterPropertiesSet();
+        return marshaller;
+    }
+}
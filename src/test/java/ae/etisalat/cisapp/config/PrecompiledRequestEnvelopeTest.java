@@ -0,0 +1,221 @@
+package ae.etisalat.cisapp.config;
+
+import ae.etisalat.cisapp.support.SampleData;
+import jakarta.xml.bind.JAXBElement;
+import org.junit.jupiter.api.Test;
+import org.springframework.oxm.Marshaller;
+import org.springframework.oxm.jaxb.Jaxb2Marshaller;
+import org.springframework.ws.WebServiceMessage;
+import org.springframework.ws.WebServiceMessageFactory;
+import org.springframework.ws.soap.saaj.SaajSoapMessageFactory;
+import org.springframework.ws.support.MarshallingUtils;
+import org.springframework.ws.transport.TransportOutputStream;
+import sem.cis.pull.cbcm.GetSubscriptionDtls;
+import sem.cis.pull.cbcm.GetSubscriptionDtlsResponse;
+
+import javax.xml.namespace.QName;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The precompiled path must put exactly the bytes and transport headers on the wire that SAAJ and JAXB
+ * produce for the same request, and hand anything it cannot reproduce to them.
+ */
+public class PrecompiledRequestEnvelopeTest {
+
+    private static final QName REQUEST_QNAME = new QName("http://cbcm.pull.cis.sem/", "getSubscriptionDtls");
+
+    private final Jaxb2Marshaller marshaller = cisMarshaller();
+    private final SaajSoapMessageFactory saajFactory = saajFactory();
+    private final PrecompiledRequestEnvelope envelope =
+            new PrecompiledRequestEnvelope(saajFactory, marshaller, REQUEST_QNAME, GetSubscriptionDtls.class);
+    private final PrecompiledRequestMessageFactory precompiledFactory = new PrecompiledRequestMessageFactory(saajFactory, envelope);
+    private final PrecompiledEnvelopeMarshaller precompiledMarshaller = new PrecompiledEnvelopeMarshaller(marshaller);
+
+    @Test
+    public void testTypicalRequests_ByteForByteEqualToJaxb() throws Exception {
+        assertTrue(envelope.isSupported());
+
+        List<GetSubscriptionDtls> requests = new ArrayList<>();
+        requests.add(new GetSubscriptionDtls());
+        requests.add(SampleData.populate(GetSubscriptionDtls.class, 1));
+        requests.add(request("", "", ""));
+        requests.add(request("a&b<c>d\"e'f]]>", " \t\n ", null));
+        // Every combination of unset, empty and set fields, for whatever fields the request has
+        int fieldCount = stringFields().size();
+        for (int combination = 0; combination < Math.pow(3, fieldCount); combination++) {
+            String[] values = new String[fieldCount];
+            for (int i = 0, c = combination; i < fieldCount; i++, c /= 3) {
+                values[i] = c % 3 == 0 ? null : c % 3 == 1 ? "" : "971500000" + i;
+            }
+            requests.add(request(values));
+        }
+        Random random = new Random(18);
+        for (int n = 0; n < 200; n++) {
+            String[] values = new String[fieldCount];
+            for (int i = 0; i < fieldCount; i++) {
+                StringBuilder value = new StringBuilder();
+                for (int length = random.nextInt(12); length > 0; length--) {
+                    value.append((char) (random.nextInt(0x7f - 0x20) + 0x20));
+                }
+                values[i] = random.nextInt(5) == 0 ? null : value.toString();
+            }
+            requests.add(request(values));
+        }
+
+        for (GetSubscriptionDtls request : requests) {
+            Written expected = writeWith(saajFactory, marshaller, request);
+            Written actual = writeWith(precompiledFactory, precompiledMarshaller, request);
+
+            assertTrue(actual.precompiled, "Precompiled path not taken for " + expected.body());
+            assertEquals(expected.body(), actual.body());
+            assertArrayEquals(expected.bytes.toByteArray(), actual.bytes.toByteArray());
+            assertEquals(expected.headers, actual.headers);
+        }
+    }
+
+    @Test
+    public void testUnusualRequests_FallBackToJaxb() throws Exception {
+        List<Object> payloads = new ArrayList<>();
+        payloads.add(element(request("café", null, null)));
+        payloads.add(element(request("line\r\nbreak", null, null)));
+        payloads.add(element(request("😀", "1", "2")));
+        payloads.add(element(new GetSubscriptionDtls() {
+        }));
+        payloads.add(new JAXBElement<>(new QName("urn:other", "getSubscriptionDtls"), GetSubscriptionDtls.class, request("1", "2", "3")));
+        JAXBElement<GetSubscriptionDtls> nil = element(null);
+        nil.setNil(true);
+        payloads.add(nil);
+
+        for (Object payload : payloads) {
+            assertNull(envelope.write(payload));
+
+            Written expected = writeWith(saajFactory, marshaller, payload);
+            Written actual = writeWith(precompiledFactory, precompiledMarshaller, payload);
+
+            assertFalse(actual.precompiled);
+            assertArrayEquals(expected.bytes.toByteArray(), actual.bytes.toByteArray(), expected.body());
+            assertEquals(expected.headers, actual.headers);
+        }
+    }
+
+    @Test
+    public void testMessage_ReusableAndReadableLikeSaaj() throws Exception {
+        GetSubscriptionDtls request = SampleData.populate(GetSubscriptionDtls.class, 1);
+        WebServiceMessage message = precompiledFactory.createWebServiceMessage();
+
+        // A plain JAXB marshaller writes through the DOM result, then the message is reused for the fast path
+        MarshallingUtils.marshal(marshaller, element(request), message);
+        assertFalse(((PrecompiledRequestMessageFactory.PrecompiledRequestMessage) message).isPrecompiled());
+        MarshallingUtils.marshal(precompiledMarshaller, element(request), message);
+        assertTrue(((PrecompiledRequestMessageFactory.PrecompiledRequestMessage) message).isPrecompiled());
+
+        JAXBElement<?> payload = (JAXBElement<?>) marshaller.unmarshal(message.getPayloadSource());
+        assertEquals(REQUEST_QNAME, payload.getName());
+        for (Field field : stringFields()) {
+            assertEquals(field.get(request), field.get(payload.getValue()), field.getName());
+        }
+        assertEquals("text/xml; charset=utf-8", ((PrecompiledRequestMessageFactory.PrecompiledRequestMessage) message).getHeader("Content-Type"));
+    }
+
+    @Test
+    public void testUnsupportedPayloadType_NotPrecompiled() {
+        PrecompiledRequestEnvelope unsupported = new PrecompiledRequestEnvelope(saajFactory, marshaller,
+                new QName("http://cbcm.pull.cis.sem/", "getSubscriptionDtlsResponse"), GetSubscriptionDtlsResponse.class);
+
+        assertFalse(unsupported.isSupported());
+        assertNull(unsupported.write(new JAXBElement<>(new QName("http://cbcm.pull.cis.sem/", "getSubscriptionDtlsResponse"),
+                GetSubscriptionDtlsResponse.class, new GetSubscriptionDtlsResponse())));
+    }
+
+    private Written writeWith(WebServiceMessageFactory factory, Marshaller marshaller, Object payload) throws IOException {
+        WebServiceMessage message = factory.createWebServiceMessage();
+        MarshallingUtils.marshal(marshaller, payload instanceof GetSubscriptionDtls request ? element(request) : payload, message);
+        Written written = new Written(message instanceof PrecompiledRequestMessageFactory.PrecompiledRequestMessage precompiled
+                && precompiled.isPrecompiled());
+        message.writeTo(written);
+        return written;
+    }
+
+    private static JAXBElement<GetSubscriptionDtls> element(GetSubscriptionDtls request) {
+        return new JAXBElement<>(REQUEST_QNAME, GetSubscriptionDtls.class, request);
+    }
+
+    /**
+     * Sets the request's string fields in declaration order, without depending on their names.
+     */
+    private static GetSubscriptionDtls request(String... values) throws IllegalAccessException {
+        GetSubscriptionDtls request = new GetSubscriptionDtls();
+        List<Field> fields = stringFields();
+        for (int i = 0; i < values.length && i < fields.size(); i++) {
+            fields.get(i).set(request, values[i]);
+        }
+        return request;
+    }
+
+    private static List<Field> stringFields() {
+        List<Field> fields = new ArrayList<>();
+        for (Field field : GetSubscriptionDtls.class.getDeclaredFields()) {
+            if (!Modifier.isStatic(field.getModifiers()) && field.getType() == String.class) {
+                field.setAccessible(true);
+                fields.add(field);
+            }
+        }
+        return fields;
+    }
+
+    private static Jaxb2Marshaller cisMarshaller() {
+        try {
+            Jaxb2Marshaller marshaller = new Jaxb2Marshaller();
+            marshaller.setClassesToBeBound(GetSubscriptionDtls.class, GetSubscriptionDtlsResponse.class,
+                    Class.forName("sem.cis.pull.cbcm.ObjectFactory"));
+            marshaller.setSupportJaxbElementClass(true);
+            marshaller.afterPropertiesSet();
+            return marshaller;
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static SaajSoapMessageFactory saajFactory() {
+        SaajSoapMessageFactory factory = new SaajSoapMessageFactory();
+        factory.afterPropertiesSet();
+        return factory;
+    }
+
+    /**
+     * What a message puts on the wire: headers in the order added, then the body.
+     */
+    private static final class Written extends TransportOutputStream {
+        private final boolean precompiled;
+        private final List<String> headers = new ArrayList<>();
+        private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+        Written(boolean precompiled) {
+            this.precompiled = precompiled;
+        }
+
+        String body() {
+            return bytes.toString(StandardCharsets.UTF_8);
+        }
+
+        @Override
+        public void addHeader(String name, String value) {
+            headers.add(name + ": " + value);
+        }
+
+        @Override
+        protected OutputStream createOutputStream() {
+            return bytes;
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package ae.etisalat.cisapp.config;
+
+import ae.etisalat.cisapp.support.CisStubServer;
+import ae.etisalat.cisapp.support.SampleData;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import jakarta.xml.bind.JAXBElement;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.oxm.jaxb.Jaxb2Marshaller;
+import org.springframework.ws.WebServiceMessage;
+import org.springframework.ws.soap.SoapMessage;
+import org.springframework.ws.soap.saaj.SaajSoapMessageFactory;
+import org.springframework.ws.support.MarshallingUtils;
+import org.springframework.ws.transport.TransportInputStream;
+import sem.cis.pull.cbcm.GetSubscriptionDtls;
+import sem.cis.pull.cbcm.GetSubscriptionDtlsResponse;
+
+import javax.xml.namespace.QName;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Responses read through {@link StaxSoapMessageFactory} must unmarshal to the same objects as through
+ * SAAJ, and everything that is not a plain payload must come out as the SAAJ message it was before.
+ */
+public class StaxSoapMessageFactoryTest {
+
+    private static final QName RESPONSE_QNAME = new QName("http://cbcm.pull.cis.sem/", "getSubscriptionDtlsResponse");
+
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json()
+            .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+            .build();
+    private final SaajSoapMessageFactory saajFactory = saajFactory();
+    private final StaxSoapMessageFactory staxFactory = new StaxSoapMessageFactory(saajFactory);
+    private final Jaxb2Marshaller marshaller = cisMarshaller(new Jaxb2Marshaller());
+
+    @Test
+    public void testPayloadResponses_UnmarshalLikeSaaj() throws Exception {
+        Jaxb2Marshaller pooled = cisMarshaller(new PooledJaxb2Marshaller(4));
+        for (int size : new int[]{0, 1, 25}) {
+            String envelope = envelope(SampleData.populate(GetSubscriptionDtlsResponse.class, size));
+            // Prefixes declared on the envelope, a header and formatting must not matter
+            String noisy = envelope
+                    .replaceFirst("<SOAP-ENV:Envelope ", "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n<!-- c -->"
+                            + "<SOAP-ENV:Envelope xmlns:ns5=\"http://cbcm.pull.cis.sem/\" ")
+                    .replaceFirst("<SOAP-ENV:Header/>", "\n <SOAP-ENV:Header><h:trace xmlns:h=\"urn:h\"><h:id>1</h:id></h:trace></SOAP-ENV:Header>\n ");
+
+            for (String xml : List.of(envelope, noisy)) {
+                String expected = json(MarshallingUtils.unmarshal(marshaller, saajFactory.createWebServiceMessage(stream(xml))));
+
+                WebServiceMessage message = staxFactory.createWebServiceMessage(stream(xml));
+                assertInstanceOf(StaxSoapMessageFactory.StaxPayloadMessage.class, message);
+                assertEquals(expected, json(MarshallingUtils.unmarshal(marshaller, message)), xml);
+                assertEquals(expected, json(MarshallingUtils.unmarshal(pooled,
+                        staxFactory.createWebServiceMessage(transportStream(xml, "text/xml; charset=utf-8")))));
+            }
+        }
+    }
+
+    @Test
+    public void testPayloadSource_ReadOnce() throws Exception {
+        WebServiceMessage message = staxFactory.createWebServiceMessage(stream(CisStubServer.EMPTY_RESPONSE));
+
+        assertNotNull(message.getPayloadSource());
+        assertThrows(IllegalStateException.class, message::getPayloadSource);
+        assertThrows(UnsupportedOperationException.class, () -> message.writeTo(new ByteArrayOutputStream()));
+
+        String emptyBody = "<soap:Envelope xmlns:soap=\"http://schemas.xmlsoap.org/soap/envelope/\"><soap:Body/></soap:Envelope>";
+        assertNull(MarshallingUtils.unmarshal(marshaller, staxFactory.createWebServiceMessage(stream(emptyBody))));
+    }
+
+    @Test
+    public void testFaultsAndOtherMessages_CreatedBySaaj() throws Exception {
+        WebServiceMessage fault = staxFactory.createWebServiceMessage(
+                transportStream(CisStubServer.FAULT_RESPONSE, "text/xml; charset=utf-8"));
+
+        SoapMessage soapFault = assertInstanceOf(SoapMessage.class, fault);
+        assertTrue(soapFault.hasFault());
+        assertEquals("CIS backend error", soapFault.getFaultReason());
+
+        // A fault after a large header is replayed from more than the parser's first read
+        String header = "<soap:Header><h:pad xmlns:h=\"urn:h\">" + "x".repeat(64 * 1024) + "</h:pad></soap:Header>";
+        WebServiceMessage padded = staxFactory.createWebServiceMessage(stream(
+                CisStubServer.FAULT_RESPONSE.replace("<soap:Body>", header + "<soap:Body>")));
+        assertEquals("CIS backend error", assertInstanceOf(SoapMessage.class, padded).getFaultReason());
+
+        String soap12 = "<env:Envelope xmlns:env=\"http://www.w3.org/2003/05/soap-envelope\"><env:Body>"
+                + "<ns2:getSubscriptionDtlsResponse xmlns:ns2=\"http://cbcm.pull.cis.sem/\"/></env:Body></env:Envelope>";
+        assertThrows(Exception.class, () -> saajFactory.createWebServiceMessage(stream(soap12)).getPayloadSource());
+        assertThrows(Exception.class, () -> staxFactory.createWebServiceMessage(stream(soap12)).getPayloadSource());
+    }
+
+    private String json(Object unmarshalled) throws IOException {
+        return objectMapper.writeValueAsString(((JAXBElement<?>) unmarshalled).getValue());
+    }
+
+    private String envelope(GetSubscriptionDtlsResponse payload) throws IOException {
+        WebServiceMessage message = saajFactory.createWebServiceMessage();
+        MarshallingUtils.marshal(marshaller, new JAXBElement<>(RESPONSE_QNAME, GetSubscriptionDtlsResponse.class, payload), message);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        message.writeTo(out);
+        return out.toString(StandardCharsets.UTF_8);
+    }
+
+    private static InputStream stream(String xml) {
+        return new ByteArrayInputStream(xml.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static TransportInputStream transportStream(String xml, String contentType) {
+        return new TransportInputStream() {
+            @Override
+            protected InputStream createInputStream() {
+                return stream(xml);
+            }
+
+            @Override
+            public Iterator<String> getHeaderNames() {
+                return List.of("Content-Type").iterator();
+            }
+
+            @Override
+            public Iterator<String> getHeaders(String name) {
+                return "Content-Type".equalsIgnoreCase(name) ? List.of(contentType).iterator() : List.<String>of().iterator();
+            }
+        };
+    }
+
+    private static SaajSoapMessageFactory saajFactory() {
+        SaajSoapMessageFactory factory = new SaajSoapMessageFactory();
+        factory.afterPropertiesSet();
+        return factory;
+    }
+
+    private static Jaxb2Marshaller cisMarshaller(Jaxb2Marshaller marshaller) {
+        try {
+            marshaller.setClassesToBeBound(GetSubscriptionDtls.class, GetSubscriptionDtlsResponse.class,
+                    Class.forName("sem.cis.pull.cbcm.ObjectFactory"));
+            marshaller.setSupportJaxbElementClass(true);
+            marshaller.afterPropertiesSet();
+            return marshaller;
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package ae.etisalat.cisapp.logging;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BoundedRingBufferTest {
+
+    @Test
+    public void testOfferAndPoll_FifoOrder() {
+        BoundedRingBuffer<Integer> buffer = new BoundedRingBuffer<>(4);
+
+        for (int i = 0; i < 4; i++) {
+            assertTrue(buffer.offer(i));
+        }
+
+        for (int i = 0; i < 4; i++) {
+            assertEquals(i, buffer.poll());
+        }
+        assertNull(buffer.poll());
+    }
+
+    @Test
+    public void testOffer_RejectsWhenFull() {
+        BoundedRingBuffer<Integer> buffer = new BoundedRingBuffer<>(3);
+        assertEquals(4, buffer.capacity());
+
+        for (int i = 0; i < 4; i++) {
+            assertTrue(buffer.offer(i));
+        }
+        assertFalse(buffer.offer(99));
+        assertEquals(4, buffer.size());
+
+        // Space frees up once the consumer catches up
+        assertEquals(0, buffer.poll());
+        assertTrue(buffer.offer(4));
+    }
+
+    @Test
+    public void testConcurrentProducers_NoLossOrDuplication() throws Exception {
+        BoundedRingBuffer<Integer> buffer = new BoundedRingBuffer<>(64);
+        int producers = 8;
+        int perProducer = 2_000;
+        Set<Integer> consumed = new HashSet<>();
+
+        try (ExecutorService executor = Executors.newFixedThreadPool(producers)) {
+            for (int p = 0; p < producers; p++) {
+                int base = p * perProducer;
+                executor.submit(() -> {
+                    for (int i = 0; i < perProducer; i++) {
+                        while (!buffer.offer(base + i)) {
+                            Thread.yield();
+                        }
+                    }
+                });
+            }
+
+            while (consumed.size() < producers * perProducer) {
+                Integer value = buffer.poll();
+                if (value != null) {
+                    assertTrue(consumed.add(value), "Duplicate element " + value);
+                } else {
+                    Thread.yield();
+                }
+            }
+        }
+
+        assertNull(buffer.poll());
+        assertEquals(producers * perProducer, consumed.size());
+    }
+}
@@ -0,0 +1,133 @@
+package ae.etisalat.cisapp.logging;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PayloadCapturePolicyTest {
+
+    private static final byte[] REQUEST = ("<soap:Envelope><soap:Body><getSubscriptionDtls>"
+            + "<msisdn>971501234567</msisdn></getSubscriptionDtls></soap:Body></soap:Envelope>")
+            .getBytes(StandardCharsets.UTF_8);
+    private static final byte[] RESPONSE = "<soap:Envelope/>".getBytes(StandardCharsets.UTF_8);
+
+    private final Logger writerLogger = (Logger) LoggerFactory.getLogger(PayloadLogWriter.class);
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private Level originalLevel;
+    private PayloadLogWriter writer;
+    private final AtomicInteger requestReads = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() {
+        originalLevel = writerLogger.getLevel();
+        writerLogger.setLevel(Level.DEBUG);
+        writer = new PayloadLogWriter(meterRegistry, true, 1024, 16);
+    }
+
+    @AfterEach
+    void tearDown() {
+        writer.shutdown();
+        writerLogger.setLevel(originalLevel);
+    }
+
+    @Test
+    public void testSampleRateOne_CapturesRequestAndResponse() {
+        PayloadCapturePolicy policy = policy(1, false, Duration.ZERO);
+
+        PayloadExchange exchange = begin(policy);
+        assertEquals(PayloadExchange.CaptureReason.SAMPLED, exchange.getReason());
+        assertTrue(exchange.onResponse(200));
+        exchange.captureResponse(RESPONSE, RESPONSE.length, null);
+        exchange.complete(null);
+
+        assertEquals(2, writer.getSubmittedCount());
+    }
+
+    @Test
+    public void testPendingExchange_DiscardedWithoutReadingRequest() {
+        PayloadCapturePolicy policy = policy(0, true, Duration.ofMinutes(1));
+
+        PayloadExchange exchange = begin(policy);
+        assertNotNull(exchange);
+        assertFalse(exchange.onResponse(200));
+        exchange.captureResponse(RESPONSE, RESPONSE.length, null);
+        exchange.complete(null);
+
+        assertEquals(0, writer.getSubmittedCount());
+        assertEquals(0, requestReads.get());
+    }
+
+    @Test
+    public void testFaultStatus_PromotesPendingExchange() {
+        PayloadCapturePolicy policy = policy(0, true, Duration.ZERO);
+
+        PayloadExchange exchange = begin(policy);
+        assertTrue(exchange.onResponse(500));
+        assertEquals(PayloadExchange.CaptureReason.FAULT, exchange.getReason());
+        exchange.captureResponse(RESPONSE, RESPONSE.length, null);
+
+        assertEquals(2, writer.getSubmittedCount());
+    }
+
+    @Test
+    public void testException_PromotesPendingExchange() {
+        PayloadCapturePolicy policy = policy(0, true, Duration.ZERO);
+
+        PayloadExchange exchange = begin(policy);
+        exchange.complete(new IOException("Read timed out"));
+
+        assertEquals(PayloadExchange.CaptureReason.EXCEPTION, exchange.getReason());
+        assertEquals(1, writer.getSubmittedCount());
+    }
+
+    @Test
+    public void testSlowResponse_PromotesPendingExchange() throws Exception {
+        PayloadCapturePolicy policy = policy(0, false, Duration.ofMillis(20));
+
+        PayloadExchange exchange = begin(policy);
+        Thread.sleep(30);
+
+        assertTrue(exchange.onResponse(200));
+        assertEquals(PayloadExchange.CaptureReason.SLOW, exchange.getReason());
+    }
+
+    @Test
+    public void testAllowlist_MatchesElementTextOnly() {
+        assertEquals(PayloadExchange.CaptureReason.ALLOWLIST,
+                begin(policy(0, false, Duration.ZERO, "971501234567")).getReason());
+        // A prefix of the value is not a match, and with no other rule there is nothing to track
+        assertNull(begin(policy(0, false, Duration.ZERO, "97150123")));
+    }
+
+    @Test
+    public void testLoggerAboveDebug_NoExchange() {
+        writerLogger.setLevel(Level.INFO);
+
+        assertNull(begin(policy(1, true, Duration.ofSeconds(1))));
+        assertEquals(0, requestReads.get());
+    }
+
+    private PayloadCapturePolicy policy(int sampleRate, boolean captureFaults, Duration slowThreshold,
+                                        String... allowlist) {
+        return new PayloadCapturePolicy(writer, sampleRate, captureFaults, slowThreshold, allowlist);
+    }
+
+    private PayloadExchange begin(PayloadCapturePolicy policy) {
+        return policy.begin(maxBytes -> {
+            requestReads.incrementAndGet();
+            return REQUEST.clone();
+        }, REQUEST.length, null);
+    }
+}
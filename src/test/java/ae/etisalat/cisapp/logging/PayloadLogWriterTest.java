@@ -0,0 +1,109 @@
+package ae.etisalat.cisapp.logging;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PayloadLogWriterTest {
+
+    private final Logger writerLogger = (Logger) LoggerFactory.getLogger(PayloadLogWriter.class);
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private Level originalLevel;
+    private PayloadLogWriter writer;
+
+    @BeforeEach
+    void setUp() {
+        originalLevel = writerLogger.getLevel();
+        writerLogger.setLevel(Level.DEBUG);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (writer != null) {
+            writer.shutdown();
+        }
+        writerLogger.setLevel(originalLevel);
+    }
+
+    @Test
+    public void testCapture_TruncatesToMaxBytes() throws Exception {
+        writer = new PayloadLogWriter(meterRegistry, true, 8, 16);
+        byte[] payload = "<soap:Envelope/>".getBytes(StandardCharsets.UTF_8);
+
+        writer.capture("cis-1", PayloadLogEntry.Direction.REQUEST, payload, payload.length, null);
+
+        awaitWritten(1);
+        assertEquals(1, writer.getTruncatedCount());
+        assertEquals(0, writer.getDroppedCount());
+        assertEquals(1, meterRegistry.get("cis.payload.log.truncated").functionCounter().count());
+    }
+
+    @Test
+    public void testSubmit_DropsInsteadOfBlockingWhenFull() throws Exception {
+        writer = new PayloadLogWriter(meterRegistry, true, 1024, 2);
+        int attempts = 10_000;
+        byte[] payload = new byte[64];
+
+        for (int i = 0; i < attempts; i++) {
+            writer.capture("cis-" + i, PayloadLogEntry.Direction.RESPONSE, payload, payload.length, null);
+        }
+
+        // Every entry is either queued or counted as dropped; queued ones are eventually written
+        assertEquals(attempts, writer.getSubmittedCount() + writer.getDroppedCount());
+        assertTrue(writer.getDroppedCount() > 0, "A two-slot ring should overflow");
+        assertEquals(writer.getDroppedCount(), meterRegistry.get("cis.payload.log.dropped").functionCounter().count());
+        awaitWritten(writer.getSubmittedCount());
+    }
+
+    @Test
+    public void testIdleWriter_ParksUntilNextSubmission() throws Exception {
+        writer = new PayloadLogWriter(meterRegistry, true, 1024, 16);
+        byte[] payload = new byte[16];
+
+        for (int i = 1; i <= 3; i++) {
+            awaitWriterState(Thread.State.WAITING);
+            writer.capture("cis-" + i, PayloadLogEntry.Direction.REQUEST, payload, payload.length, null);
+            awaitWritten(i);
+        }
+    }
+
+    @Test
+    public void testDisabled_CapturesNothing() {
+        writer = new PayloadLogWriter(meterRegistry, false, 1024, 16);
+
+        assertFalse(writer.isCapturing());
+        writer.capture("cis-1", PayloadLogEntry.Direction.REQUEST, new byte[4], 4, null);
+        assertEquals(0, writer.getSubmittedCount());
+    }
+
+    // Parked without a timeout is WAITING; a timed park would show TIMED_WAITING
+    private static void awaitWriterState(Thread.State expected) throws InterruptedException {
+        long deadline = System.nanoTime() + 5_000_000_000L;
+        while (!writerThreadIn(expected) && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        assertTrue(writerThreadIn(expected), "Writer thread never reached " + expected);
+    }
+
+    private static boolean writerThreadIn(Thread.State state) {
+        return Thread.getAllStackTraces().keySet().stream()
+                .anyMatch(thread -> thread.getName().equals("cis-payload-log") && thread.getState() == state);
+    }
+
+    private void awaitWritten(long expected) throws InterruptedException {
+        long deadline = System.nanoTime() + 5_000_000_000L;
+        while (writer.getWrittenCount() < expected && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        assertEquals(expected, writer.getWrittenCount());
+    }
+}
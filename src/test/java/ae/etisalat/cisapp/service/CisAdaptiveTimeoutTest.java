@@ -0,0 +1,54 @@
+package ae.etisalat.cisapp.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CisAdaptiveTimeoutTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    private CisAdaptiveTimeout create(boolean enabled) {
+        return new CisAdaptiveTimeout(registry, enabled, 0.99, 3, Duration.ofMillis(200), Duration.ofSeconds(10), 100, 5);
+    }
+
+    private static void recordMillis(CisAdaptiveTimeout timeout, long millis, int count) {
+        for (int i = 0; i < count; i++) {
+            timeout.record(TimeUnit.MILLISECONDS.toNanos(millis));
+        }
+    }
+
+    @Test
+    public void testReadTimeout_MaxUntilEnoughSamplesOrWhenDisabled() {
+        CisAdaptiveTimeout disabled = create(false);
+        recordMillis(disabled, 100, 10);
+        assertEquals(Duration.ofSeconds(10), disabled.getReadTimeout());
+        // The fixed read timeout applies, so there is no adaptive value to report
+        assertNull(registry.find("cis.client.read.timeout").timeGauge());
+
+        CisAdaptiveTimeout enabled = create(true);
+        recordMillis(enabled, 100, 4);
+        assertEquals(Duration.ofSeconds(10), enabled.getReadTimeout());
+    }
+
+    @Test
+    public void testReadTimeout_MultipleOfPercentileWithinBounds() {
+        CisAdaptiveTimeout timeout = create(true);
+        recordMillis(timeout, 500, 10);
+
+        assertEquals(Duration.ofMillis(1500), timeout.getReadTimeout());
+        assertEquals(1.5, registry.get("cis.client.read.timeout").timeGauge().value(TimeUnit.SECONDS), 0.001);
+    }
+
+    @Test
+    public void testReadTimeout_ClampedToMin() {
+        CisAdaptiveTimeout timeout = create(true);
+        recordMillis(timeout, 10, 10);
+
+        assertEquals(Duration.ofMillis(200), timeout.getReadTimeout());
+    }
+}
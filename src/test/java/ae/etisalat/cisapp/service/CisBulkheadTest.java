@@ -0,0 +1,153 @@
+package ae.etisalat.cisapp.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CisBulkheadTest {
+
+    @Test
+    public void testRelease_HandsPermitToNextWaiterInOrder() {
+        CisBulkhead bulkhead = new CisBulkhead(1, 2, Duration.ofSeconds(5));
+
+        assertTrue(bulkhead.acquire().isDone());
+        CompletableFuture<Void> first = bulkhead.acquire();
+        CompletableFuture<Void> second = bulkhead.acquire();
+        assertFalse(first.isDone());
+        assertEquals(2, bulkhead.getQueuedCount());
+
+        bulkhead.release();
+        assertTrue(first.isDone());
+        assertFalse(second.isDone());
+        assertEquals(1, bulkhead.getInFlightCount());
+
+        bulkhead.release();
+        bulkhead.release();
+        assertTrue(second.isDone());
+        assertEquals(0, bulkhead.getInFlightCount());
+    }
+
+    @Test
+    public void testRelease_CompletesWaiterOutsideTheLock() {
+        CisBulkhead bulkhead = new CisBulkhead(1, 2, Duration.ofSeconds(5));
+        bulkhead.acquire();
+        CompletableFuture<Void> waiter = bulkhead.acquire();
+        // Another thread can only read the bulkhead from the waiter's continuation if release() has let go of the lock
+        CompletableFuture<Integer> readFromContinuation = waiter.thenApply(ignored ->
+                CompletableFuture.supplyAsync(bulkhead::getInFlightCount).completeOnTimeout(-1, 1, TimeUnit.SECONDS).join());
+
+        bulkhead.release();
+
+        assertEquals(1, readFromContinuation.join());
+    }
+
+    @Test
+    public void testRelease_SkipsCancelledWaiter() {
+        CisBulkhead bulkhead = new CisBulkhead(1, 2, Duration.ofSeconds(5));
+        bulkhead.acquire();
+        CompletableFuture<Void> cancelled = bulkhead.acquire();
+        CompletableFuture<Void> next = bulkhead.acquire();
+        cancelled.cancel(false);
+
+        bulkhead.release();
+
+        assertTrue(next.isDone() && !next.isCompletedExceptionally());
+        assertEquals(1, bulkhead.getInFlightCount());
+    }
+
+    @Test
+    public void testAcquire_RejectsWhenQueueFull() {
+        CisBulkhead bulkhead = new CisBulkhead(1, 1, Duration.ofSeconds(5));
+        bulkhead.acquire();
+        bulkhead.acquire();
+
+        CompletableFuture<Void> rejected = bulkhead.acquire();
+
+        CompletionException e = assertThrows(CompletionException.class, rejected::join);
+        CisBackendUnavailableException cause = assertInstanceOf(CisBackendUnavailableException.class, e.getCause());
+        assertEquals(CisBackendUnavailableException.Reason.BULKHEAD_FULL, cause.getReason());
+    }
+
+    @Test
+    public void testAcquire_WaiterTimesOutAndLeavesQueue() {
+        CisBulkhead bulkhead = new CisBulkhead(1, 1, Duration.ofMillis(50));
+        bulkhead.acquire();
+
+        assertThrows(CisBackendUnavailableException.class, bulkhead::acquireBlocking);
+        assertEquals(0, bulkhead.getQueuedCount());
+
+        // The timed-out waiter must not swallow the permit
+        bulkhead.release();
+        assertEquals(0, bulkhead.getInFlightCount());
+        assertTrue(bulkhead.acquire().isDone());
+    }
+
+    @Test
+    public void testRelease_SharesPermitsBetweenCallersByWeight() {
+        CisBulkhead bulkhead = new CisBulkhead(1, 10, Duration.ofSeconds(5));
+        CisCaller bulk = caller("bulk", 1);
+        CisCaller interactive = caller("interactive", 3);
+        bulkhead.acquire(bulk);
+
+        List<CompletableFuture<Void>> bulkWaiters = new ArrayList<>();
+        List<CompletableFuture<Void>> interactiveWaiters = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            bulkWaiters.add(bulkhead.acquire(bulk));
+        }
+        for (int i = 0; i < 6; i++) {
+            interactiveWaiters.add(bulkhead.acquire(interactive));
+        }
+        assertEquals(6, bulkhead.getQueuedCount(interactive));
+
+        // Bulk queued first and takes one permit per turn, interactive three
+        StringBuilder order = new StringBuilder();
+        for (int i = 0; i < 8; i++) {
+            bulkhead.release();
+            order.append(next(bulkWaiters, interactiveWaiters));
+        }
+        assertEquals("BIIIBIII", order.toString());
+
+        // Alone in the queue, bulk gets every permit
+        for (int i = 0; i < 4; i++) {
+            bulkhead.release();
+            order.append(next(bulkWaiters, interactiveWaiters));
+        }
+        assertEquals("BIIIBIIIBBBB", order.toString());
+        assertEquals(0, bulkhead.getQueuedCount());
+    }
+
+    @Test
+    public void testAcquire_QueueBoundIsPerCaller() {
+        CisBulkhead bulkhead = new CisBulkhead(1, 1, Duration.ofSeconds(5));
+        bulkhead.acquire(caller("bulk", 1));
+        bulkhead.acquire(caller("bulk", 1));
+
+        assertTrue(bulkhead.acquire(caller("bulk", 1)).isCompletedExceptionally());
+        CompletableFuture<Void> interactive = bulkhead.acquire(caller("interactive", 1));
+        assertFalse(interactive.isDone());
+        assertEquals(2, bulkhead.getQueuedCount());
+    }
+
+    private static CisCaller caller(String name, int weight) {
+        return new CisCaller(name, weight, null, new SimpleMeterRegistry());
+    }
+
+    // Which of the two callers was just handed the permit
+    private static String next(List<CompletableFuture<Void>> bulk, List<CompletableFuture<Void>> interactive) {
+        if (!bulk.isEmpty() && bulk.get(0).isDone()) {
+            bulk.remove(0);
+            return "B";
+        }
+        assertTrue(interactive.get(0).isDone());
+        interactive.remove(0);
+        return "I";
+    }
+}
@@ -0,0 +1,79 @@
+package ae.etisalat.cisapp.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CisCallerRegistryTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    public void testResolve_ByApiKeyThenHeaderThenDefault() {
+        CisCallerRegistry registry = registry(List.of("secret=crm"), List.of("crm=8", "reports=2"), List.of());
+
+        assertEquals("crm", registry.resolve(null, "secret").getName());
+        assertEquals(8, registry.resolve(null, "secret").getWeight());
+        assertEquals("reports", registry.resolve("reports", null).getName());
+        assertEquals("reports", registry.resolve("reports", "unknown-key").getName());
+        assertEquals(CisCallerRegistry.DEFAULT_CALLER, registry.resolve("someone-else", null).getName());
+        assertEquals(CisCallerRegistry.DEFAULT_CALLER, registry.resolve(null, null).getName());
+    }
+
+    @Test
+    public void testResolve_CallerWithApiKeyCannotBeClaimedByHeader() {
+        CisCallerRegistry registry = registry(List.of("secret=crm"), List.of(), List.of());
+
+        assertEquals(CisCallerRegistry.DEFAULT_CALLER, registry.resolve("crm", null).getName());
+    }
+
+    @Test
+    public void testExecute_RejectsOverRateLimitAndCountsPerCaller() {
+        CisCallerRegistry registry = registry(List.of(), List.of(), List.of("bulk=1"));
+        CisCaller bulk = registry.resolve("bulk", null);
+
+        assertEquals("ok", registry.execute(bulk, 1, () -> "ok"));
+        CisQuotaExceededException e = assertThrows(CisQuotaExceededException.class,
+                () -> registry.execute(bulk, 1, () -> fail("must not run over the rate limit")));
+        assertEquals("bulk", e.getCaller());
+        assertTrue(e.getRetryAfter().compareTo(Duration.ZERO) > 0);
+
+        // The default caller has no rate limit
+        CisCaller other = registry.resolve(null, null);
+        for (int i = 0; i < 5; i++) {
+            registry.execute(other, 1, () -> "ok");
+        }
+
+        assertEquals(1, meterRegistry.get("cis.caller.throttled").tag("caller", "bulk").counter().count());
+        assertEquals(1, meterRegistry.get("cis.caller.requests").tags("caller", "bulk", "outcome", "success").timer().count());
+        assertEquals(5, meterRegistry.get("cis.caller.requests").tags("caller", "default", "outcome", "success").timer().count());
+    }
+
+    @Test
+    public void testDisabled_NoCaller() {
+        CisCallerRegistry registry = new CisCallerRegistry(meterRegistry, guard(), false, List.of(), List.of("crm=8"),
+                List.of(), 1, 0, Duration.ofSeconds(1));
+
+        assertNull(registry.resolve("crm", null));
+        assertEquals("ok", registry.execute(null, 1, () -> "ok"));
+    }
+
+    @Test
+    public void testInvalidEntry_FailsAtStartup() {
+        assertThrows(IllegalArgumentException.class, () -> registry(List.of(), List.of("crm"), List.of()));
+    }
+
+    private CisCallerRegistry registry(List<String> apiKeys, List<String> weights, List<String> rateLimits) {
+        return new CisCallerRegistry(meterRegistry, guard(), true, apiKeys, weights, rateLimits, 1, 0,
+                Duration.ofSeconds(1));
+    }
+
+    private CisBackendGuard guard() {
+        return new CisBackendGuard(meterRegistry, null, false, 50, 80, Duration.ofSeconds(5), 50, 20,
+                Duration.ofSeconds(30), 5, true, 10, 10, Duration.ofSeconds(1));
+    }
+}
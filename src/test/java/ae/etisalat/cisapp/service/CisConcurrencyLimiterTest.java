@@ -0,0 +1,88 @@
+package ae.etisalat.cisapp.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CisConcurrencyLimiterTest {
+
+    private static final long FAST = TimeUnit.MILLISECONDS.toNanos(10);
+    private static final long SLOW = TimeUnit.MILLISECONDS.toNanos(100);
+
+    @Test
+    public void testTryAcquire_RejectsAtLimit() {
+        CisConcurrencyLimiter limiter = new CisConcurrencyLimiter(2, 1, 10, 1.5, 0.2);
+
+        assertTrue(limiter.tryAcquire());
+        assertTrue(limiter.tryAcquire());
+        assertFalse(limiter.tryAcquire());
+
+        limiter.onIgnored();
+        assertTrue(limiter.tryAcquire());
+        assertEquals(2, limiter.getInFlight());
+    }
+
+    @Test
+    public void testSteadyLatencyAtFullUse_LimitGrows() {
+        CisConcurrencyLimiter limiter = new CisConcurrencyLimiter(10, 1, 100, 1.5, 0.2);
+
+        runFull(limiter, FAST, 50);
+
+        assertTrue(limiter.getLimit() > 20, "limit " + limiter.getLimit());
+    }
+
+    @Test
+    public void testRisingLatency_LimitShrinksAndQueueingDelayShows() {
+        CisConcurrencyLimiter limiter = new CisConcurrencyLimiter(50, 5, 50, 1.5, 0.2);
+        runFull(limiter, FAST, 100);
+        assertEquals(50, limiter.getLimit());
+
+        runFull(limiter, SLOW, 20);
+
+        assertTrue(limiter.getLimit() < 20, "limit " + limiter.getLimit());
+        assertTrue(limiter.getQueueingDelayNanos() > FAST, "queueing delay " + limiter.getQueueingDelayNanos());
+    }
+
+    @Test
+    public void testMostlyIdle_LimitStays() {
+        CisConcurrencyLimiter limiter = new CisConcurrencyLimiter(10, 1, 100, 1.5, 0.2);
+
+        for (int i = 0; i < 50; i++) {
+            assertTrue(limiter.tryAcquire());
+            limiter.onSuccess(FAST);
+        }
+
+        assertEquals(10, limiter.getLimit());
+    }
+
+    @Test
+    public void testDropped_CutsLimitByATenthDownToMin() {
+        CisConcurrencyLimiter limiter = new CisConcurrencyLimiter(20, 15, 100, 1.5, 0.2);
+
+        limiter.tryAcquire();
+        limiter.onDropped();
+        assertEquals(18, limiter.getLimit());
+
+        for (int i = 0; i < 10; i++) {
+            limiter.tryAcquire();
+            limiter.onDropped();
+        }
+        assertEquals(15, limiter.getLimit());
+        assertEquals(0, limiter.getInFlight());
+    }
+
+    // Keeps every slot of the limit in use and completes one request per sample
+    private static void runFull(CisConcurrencyLimiter limiter, long rttNanos, int samples) {
+        for (int i = 0; i < samples; i++) {
+            while (limiter.tryAcquire()) {
+                // fill up to the current limit
+            }
+            limiter.onSuccess(rttNanos);
+        }
+        while (limiter.getInFlight() > 0) {
+            limiter.onIgnored();
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package ae.etisalat.cisapp.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CisDeadlineResolverTest {
+
+    private final CisDeadlineResolver resolver = new CisDeadlineResolver(Duration.ofSeconds(60), Duration.ofSeconds(45),
+            Duration.ofSeconds(30), Duration.ofSeconds(120));
+
+    @Test
+    public void testResolve_ParsesMillisAndUnits() {
+        assertEquals(Duration.ofMillis(1500), resolver.resolve(CisDeadlineResolver.Endpoint.PULL, "1500").getBudget());
+        assertEquals(Duration.ofSeconds(2), resolver.resolve(CisDeadlineResolver.Endpoint.PULL, " 2s ").getBudget());
+    }
+
+    @Test
+    public void testResolve_UsesEndpointDefaultAndClampsToMax() {
+        assertEquals(Duration.ofSeconds(45), resolver.resolve(CisDeadlineResolver.Endpoint.PULL_ASYNC, null).getBudget());
+        assertEquals(Duration.ofSeconds(30), resolver.resolve(CisDeadlineResolver.Endpoint.BATCH, "").getBudget());
+        assertEquals(Duration.ofSeconds(120), resolver.resolve(CisDeadlineResolver.Endpoint.PULL, "1h").getBudget());
+    }
+
+    @Test
+    public void testResolve_SpentAndInvalidBudgets() {
+        assertTrue(resolver.resolve(CisDeadlineResolver.Endpoint.PULL, "0").isExpired());
+        assertTrue(resolver.resolve(CisDeadlineResolver.Endpoint.PULL, "-5").isExpired());
+        assertThrows(IllegalArgumentException.class, () -> resolver.resolve(CisDeadlineResolver.Endpoint.PULL, "soon"));
+    }
+}
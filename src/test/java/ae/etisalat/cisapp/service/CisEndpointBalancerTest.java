@@ -0,0 +1,113 @@
+package ae.etisalat.cisapp.service;
+
+import ae.etisalat.cisapp.service.CisEndpointBalancer.Endpoint;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.hc.client5.http.ConnectTimeoutException;
+import org.apache.hc.core5.http.ConnectionRequestTimeoutException;
+import org.junit.jupiter.api.Test;
+import org.springframework.ws.client.WebServiceIOException;
+
+import java.net.ConnectException;
+import java.net.SocketTimeoutException;
+import java.net.http.HttpConnectTimeoutException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CisEndpointBalancerTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    public void testChoose_PrefersFasterEndpointUntilItQueues() {
+        CisEndpointBalancer balancer = balancer(5, Duration.ofMinutes(1), "http://a/cis", "http://b/cis");
+        Endpoint slow = balancer.getEndpoints().get(0);
+        Endpoint fast = balancer.getEndpoints().get(1);
+        complete(slow, 100);
+        complete(fast, 1);
+
+        for (int i = 0; i < 20; i++) {
+            assertSame(fast, balancer.choose(List.of()));
+        }
+
+        // Cost is latency times outstanding calls plus one, so enough queueing outweighs the latency gap
+        for (int i = 0; i < 200; i++) {
+            fast.begin();
+        }
+        assertSame(slow, balancer.choose(List.of()));
+    }
+
+    @Test
+    public void testFailed_EjectsAfterThresholdUntilEjectionTimeIsUp() throws InterruptedException {
+        CisEndpointBalancer balancer = balancer(2, Duration.ofMillis(100), "http://a/cis", "http://b/cis");
+        Endpoint failing = balancer.getEndpoints().get(0);
+        Endpoint healthy = balancer.getEndpoints().get(1);
+
+        failing.begin();
+        failing.failed();
+        assertFalse(failing.isEjected());
+        failing.begin();
+        failing.failed();
+
+        assertTrue(failing.isEjected());
+        assertEquals(1, meterRegistry.get("cis.client.endpoint.ejected").tag("endpoint", "a").gauge().value());
+        for (int i = 0; i < 20; i++) {
+            assertSame(healthy, balancer.choose(List.of()));
+        }
+
+        Thread.sleep(150);
+        assertFalse(failing.isEjected());
+        // Still failing: one more failure is enough to eject it again
+        failing.begin();
+        failing.failed();
+        assertTrue(failing.isEjected());
+        assertEquals(2, meterRegistry.get("cis.client.endpoint.ejections").tag("endpoint", "a").counter().count());
+        assertEquals(0, failing.getOutstanding());
+    }
+
+    @Test
+    public void testChoose_UsesEjectedEndpointsWhenNothingElseIsLeft() {
+        CisEndpointBalancer balancer = balancer(1, Duration.ofMinutes(1), "http://a/cis", "http://b/cis");
+        Endpoint a = balancer.getEndpoints().get(0);
+        Endpoint b = balancer.getEndpoints().get(1);
+        a.begin();
+        a.failed();
+        b.begin();
+        b.failed();
+
+        assertNotNull(balancer.choose(List.of()));
+        assertSame(b, balancer.choose(List.of(a)));
+        assertNull(balancer.choose(List.of(a, b)));
+    }
+
+    @Test
+    public void testNoEndpoints_FallsBackToSingleUrl() {
+        CisEndpointBalancer balancer = balancer(5, Duration.ofMinutes(1));
+
+        assertFalse(balancer.isEnabled());
+        assertEquals("http://default/cis", balancer.getEndpoints().get(0).getUri().toString());
+    }
+
+    @Test
+    public void testIsSafeToRetry_OnlyBeforeTheRequestCouldHaveBeenSent() {
+        assertTrue(CisEndpointBalancer.isSafeToRetry(new WebServiceIOException("I/O error", new ConnectException("refused"))));
+        assertTrue(CisEndpointBalancer.isSafeToRetry(new ConnectTimeoutException("connect timed out")));
+        assertTrue(CisEndpointBalancer.isSafeToRetry(new HttpConnectTimeoutException("connect timed out")));
+        assertTrue(CisEndpointBalancer.isSafeToRetry(new ConnectionRequestTimeoutException("lease timed out")));
+
+        assertFalse(CisEndpointBalancer.isSafeToRetry(new SocketTimeoutException("read timed out")));
+        assertFalse(CisEndpointBalancer.isSafeToRetry(new WebServiceIOException("I/O error")));
+    }
+
+    private CisEndpointBalancer balancer(int failureThreshold, Duration ejectionTime, String... endpoints) {
+        return new CisEndpointBalancer(meterRegistry, "http://default/cis", List.of(endpoints), failureThreshold,
+                ejectionTime, Duration.ofSeconds(10));
+    }
+
+    private static void complete(Endpoint endpoint, long latencyMillis) {
+        endpoint.begin();
+        endpoint.succeeded(System.nanoTime() - TimeUnit.MILLISECONDS.toNanos(latencyMillis));
+    }
+}
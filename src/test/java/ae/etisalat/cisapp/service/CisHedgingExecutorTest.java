@@ -0,0 +1,115 @@
+package ae.etisalat.cisapp.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CisHedgingExecutorTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private CisHedgingExecutor executor;
+
+    @AfterEach
+    public void shutdown() {
+        if (executor != null) {
+            executor.shutdown();
+        }
+    }
+
+    private CisHedgingExecutor create(boolean enabled, double maxHedgePercent, int minSamples) {
+        executor = new CisHedgingExecutor(registry, enabled, 0.95, Duration.ofMillis(10),
+                Duration.ofMillis(50), maxHedgePercent, 100, minSamples);
+        return executor;
+    }
+
+    private double count(String name) {
+        return registry.counter(name).count();
+    }
+
+    @Test
+    public void testExecute_DisabledRunsOnCallerThread() {
+        CisHedgingExecutor hedging = create(false, 100, 1);
+        Thread caller = Thread.currentThread();
+
+        assertSame(caller, hedging.execute(Thread::currentThread));
+        assertEquals(0, count("cis.client.hedges.fired"));
+    }
+
+    @Test
+    public void testExecute_SlowPrimaryIsHedgedAndCancelled() throws Exception {
+        CisHedgingExecutor hedging = create(true, 100, 1000);
+        AtomicInteger attempts = new AtomicInteger();
+        CountDownLatch primaryInterrupted = new CountDownLatch(1);
+
+        String result = hedging.execute(() -> {
+            if (attempts.incrementAndGet() == 1) {
+                try {
+                    Thread.sleep(5_000);
+                } catch (InterruptedException e) {
+                    primaryInterrupted.countDown();
+                    throw new RuntimeException(e);
+                }
+                return "primary";
+            }
+            return "hedge";
+        });
+
+        assertEquals("hedge", result);
+        assertTrue(primaryInterrupted.await(2, TimeUnit.SECONDS), "losing attempt should be cancelled");
+        assertEquals(1, count("cis.client.hedges.fired"));
+        assertEquals(1, count("cis.client.hedges.won"));
+    }
+
+    @Test
+    public void testExecute_FailedFirstAttemptFallsBackToOther() {
+        CisHedgingExecutor hedging = create(true, 100, 1000);
+        AtomicInteger attempts = new AtomicInteger();
+
+        String result = hedging.execute(() -> {
+            if (attempts.incrementAndGet() == 1) {
+                sleep(200);
+                return "primary";
+            }
+            throw new IllegalStateException("hedge failed");
+        });
+
+        assertEquals("primary", result);
+        assertEquals(0, count("cis.client.hedges.won"));
+    }
+
+    @Test
+    public void testExecute_HedgesCappedByBudget() {
+        CisHedgingExecutor hedging = create(true, 10, 1000);
+
+        for (int i = 0; i < 30; i++) {
+            hedging.execute(() -> sleep(60));
+        }
+
+        assertEquals(3, count("cis.client.hedges.fired"));
+        assertEquals(27, count("cis.client.hedges.throttled"));
+    }
+
+    @Test
+    public void testHedgeDelay_UsesInitialDelayUntilEnoughSamples() {
+        CisHedgingExecutor hedging = create(true, 0, 5);
+
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(50), hedging.getHedgeDelayNanos());
+    }
+
+    private static Boolean sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        }
+        return Boolean.TRUE;
+    }
+}
@@ -0,0 +1,32 @@
+package ae.etisalat.cisapp.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CisLatencyTrackerTest {
+
+    @Test
+    public void testPercentile_UnknownUntilMinSamples() {
+        CisLatencyTracker tracker = new CisLatencyTracker(10, 3, 0);
+        tracker.record(100);
+        tracker.record(200);
+
+        assertEquals(-1, tracker.percentile(0.95));
+
+        tracker.record(300);
+        assertEquals(300, tracker.percentile(0.95));
+        assertEquals(200, tracker.percentile(0.5));
+    }
+
+    @Test
+    public void testPercentile_OnlyCoversRollingWindow() {
+        CisLatencyTracker tracker = new CisLatencyTracker(4, 1, 0);
+        for (long sample : new long[] {1_000, 1_000, 1_000, 1_000, 10, 20, 30, 40}) {
+            tracker.record(sample);
+        }
+
+        assertEquals(40, tracker.percentile(0.99));
+        assertEquals(8, tracker.getRecordedCount());
+    }
+}
@@ -0,0 +1,197 @@
+package ae.etisalat.cisapp.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import sem.cis.pull.cbcm.GetSubscriptionDtlsResponse;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CisRequestCoalescerTest {
+
+    @Test
+    public void testConcurrentIdenticalCalls_ShareOneBackendCall() throws Exception {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        CisRequestCoalescer coalescer = new CisRequestCoalescer(registry, true, Duration.ofSeconds(5));
+        GetSubscriptionDtlsResponse response = new GetSubscriptionDtlsResponse();
+        AtomicInteger backendCalls = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<GetSubscriptionDtlsResponse>> results = new ArrayList<>();
+            for (int i = 0; i < 20; i++) {
+                results.add(executor.submit(() -> coalescer.execute("same-key", () -> {
+                    backendCalls.incrementAndGet();
+                    await(release);
+                    return response;
+                })));
+            }
+
+            // Let every caller register before the leader's call returns
+            while (coalescer.getCoalescedCalls() < 19) {
+                Thread.sleep(5);
+            }
+            release.countDown();
+
+            for (Future<GetSubscriptionDtlsResponse> result : results) {
+                assertSame(response, result.get(5, TimeUnit.SECONDS));
+            }
+        }
+
+        assertEquals(1, backendCalls.get());
+        assertEquals(1, coalescer.getLeaderCalls());
+        assertEquals(19, coalescer.getCoalescedCalls());
+        assertEquals(0, coalescer.getInFlightCount());
+        assertEquals(1, registry.get("cis.coalescer.calls").tag("role", "leader").functionCounter().count());
+        assertEquals(19, registry.get("cis.coalescer.calls").tag("role", "coalesced").functionCounter().count());
+    }
+
+    @Test
+    public void testLeaderException_PropagatedToWaiters() throws Exception {
+        CisRequestCoalescer coalescer = new CisRequestCoalescer(new SimpleMeterRegistry(), true, Duration.ofSeconds(5));
+        CountDownLatch release = new CountDownLatch(1);
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            Future<GetSubscriptionDtlsResponse> leader = executor.submit(() -> coalescer.execute("key", () -> {
+                await(release);
+                throw new IllegalStateException("backend down");
+            }));
+            while (coalescer.getInFlightCount() == 0) {
+                Thread.sleep(5);
+            }
+            Future<GetSubscriptionDtlsResponse> waiter = executor.submit(() ->
+                    coalescer.execute("key", () -> fail("waiter must not call the backend")));
+            while (coalescer.getCoalescedCalls() == 0) {
+                Thread.sleep(5);
+            }
+            release.countDown();
+
+            Exception leaderFailure = assertThrows(Exception.class, () -> leader.get(5, TimeUnit.SECONDS));
+            Exception waiterFailure = assertThrows(Exception.class, () -> waiter.get(5, TimeUnit.SECONDS));
+            assertEquals("backend down", leaderFailure.getCause().getMessage());
+            assertEquals("backend down", waiterFailure.getCause().getMessage());
+        }
+    }
+
+    @Test
+    public void testWaiterTimesOut_Independently() throws Exception {
+        CisRequestCoalescer coalescer = new CisRequestCoalescer(new SimpleMeterRegistry(), true, Duration.ofMillis(50));
+        CountDownLatch release = new CountDownLatch(1);
+        GetSubscriptionDtlsResponse response = new GetSubscriptionDtlsResponse();
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            Future<GetSubscriptionDtlsResponse> leader = executor.submit(() -> coalescer.execute("key", () -> {
+                await(release);
+                return response;
+            }));
+            while (coalescer.getInFlightCount() == 0) {
+                Thread.sleep(5);
+            }
+
+            assertThrows(RuntimeException.class, () -> coalescer.execute("key", () -> response));
+            assertEquals(1, coalescer.getWaiterTimeouts());
+
+            // The leader is unaffected by its waiter giving up
+            release.countDown();
+            assertSame(response, leader.get(5, TimeUnit.SECONDS));
+        }
+    }
+
+    @Test
+    public void testAsyncAndBlockingCalls_ShareOneBackendCall() throws Exception {
+        CisRequestCoalescer coalescer = new CisRequestCoalescer(new SimpleMeterRegistry(), true, Duration.ofSeconds(5));
+        GetSubscriptionDtlsResponse response = new GetSubscriptionDtlsResponse();
+        CompletableFuture<GetSubscriptionDtlsResponse> backendCall = new CompletableFuture<>();
+
+        CompletableFuture<GetSubscriptionDtlsResponse> asyncLeader = coalescer.executeAsync("key", () -> backendCall);
+        CompletableFuture<GetSubscriptionDtlsResponse> asyncWaiter =
+                coalescer.executeAsync("key", () -> fail("waiter must not call the backend"));
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            Future<GetSubscriptionDtlsResponse> blockingWaiter = executor.submit(() ->
+                    coalescer.execute("key", () -> fail("waiter must not call the backend")));
+            while (coalescer.getCoalescedCalls() < 2) {
+                Thread.sleep(5);
+            }
+
+            // Nothing completes until the single backend call does
+            assertFalse(asyncLeader.isDone());
+            backendCall.complete(response);
+
+            assertSame(response, asyncLeader.get(5, TimeUnit.SECONDS));
+            assertSame(response, asyncWaiter.get(5, TimeUnit.SECONDS));
+            assertSame(response, blockingWaiter.get(5, TimeUnit.SECONDS));
+        }
+
+        assertEquals(1, coalescer.getLeaderCalls());
+        assertEquals(0, coalescer.getInFlightCount());
+    }
+
+    @Test
+    public void testLeaderDeadlineExceeded_WaiterWithTimeLeftCallsAgain() throws Exception {
+        CisRequestCoalescer coalescer = new CisRequestCoalescer(new SimpleMeterRegistry(), true, Duration.ofSeconds(5));
+        CisDeadline leaderDeadline = CisDeadline.after(Duration.ofMillis(1));
+        CountDownLatch release = new CountDownLatch(1);
+        GetSubscriptionDtlsResponse response = new GetSubscriptionDtlsResponse();
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            Future<GetSubscriptionDtlsResponse> leader = executor.submit(() -> coalescer.execute("key", leaderDeadline, () -> {
+                await(release);
+                throw leaderDeadline.exceeded("during CIS call", null);
+            }));
+            while (coalescer.getInFlightCount() == 0) {
+                Thread.sleep(5);
+            }
+            Future<GetSubscriptionDtlsResponse> waiter = executor.submit(() ->
+                    coalescer.execute("key", CisDeadline.after(Duration.ofSeconds(5)), () -> response));
+            while (coalescer.getCoalescedCalls() < 1) {
+                Thread.sleep(5);
+            }
+            release.countDown();
+
+            Exception leaderFailure = assertThrows(Exception.class, () -> leader.get(5, TimeUnit.SECONDS));
+            assertInstanceOf(CisDeadlineExceededException.class, leaderFailure.getCause());
+            assertSame(response, waiter.get(5, TimeUnit.SECONDS));
+        }
+
+        assertEquals(2, coalescer.getLeaderCalls());
+        assertEquals(0, coalescer.getInFlightCount());
+    }
+
+    @Test
+    public void testAsyncLeaderDeadlineExceeded_WaiterWithTimeLeftCallsAgain() {
+        CisRequestCoalescer coalescer = new CisRequestCoalescer(new SimpleMeterRegistry(), true, Duration.ofSeconds(5));
+        CisDeadline leaderDeadline = CisDeadline.after(Duration.ofMillis(1));
+        CompletableFuture<GetSubscriptionDtlsResponse> leaderCall = new CompletableFuture<>();
+        GetSubscriptionDtlsResponse response = new GetSubscriptionDtlsResponse();
+
+        CompletableFuture<GetSubscriptionDtlsResponse> leader = coalescer.executeAsync("key", leaderDeadline, () -> leaderCall);
+        CompletableFuture<GetSubscriptionDtlsResponse> waiter = coalescer.executeAsync("key",
+                CisDeadline.after(Duration.ofSeconds(5)), () -> CompletableFuture.completedFuture(response));
+        leaderCall.completeExceptionally(leaderDeadline.exceeded("during CIS call", null));
+
+        Exception leaderFailure = assertThrows(Exception.class, leader::join);
+        assertInstanceOf(CisDeadlineExceededException.class, leaderFailure.getCause());
+        assertSame(response, waiter.join());
+        assertEquals(2, coalescer.getLeaderCalls());
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+}
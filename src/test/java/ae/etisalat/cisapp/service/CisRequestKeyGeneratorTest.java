@@ -0,0 +1,32 @@
+package ae.etisalat.cisapp.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import sem.cis.pull.cbcm.GetSubscriptionDtls;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CisRequestKeyGeneratorTest {
+
+    private final CisRequestKeyGenerator generator = new CisRequestKeyGenerator(new ObjectMapper());
+
+    @Test
+    public void testSameValues_SameKey() {
+        assertEquals(generator.generate(request("1001", "971501234567")), generator.generate(request("1001", "971501234567")));
+    }
+
+    @Test
+    public void testWhitespaceAndEmptyValues_DifferentKeys() {
+        // The backend sees these values as sent, so they must not share a cached or coalesced response
+        assertNotEquals(generator.generate(request("1001", null)), generator.generate(request(" 1001 ", null)));
+        assertNotEquals(generator.generate(request("1001", null)), generator.generate(request("1001", "")));
+        assertNotEquals(generator.generate(request("1001", "")), generator.generate(request("1001", " ")));
+    }
+
+    private static GetSubscriptionDtls request(String accountNumber, String serviceNumber) {
+        GetSubscriptionDtls request = new GetSubscriptionDtls();
+        request.setAccountNumber(accountNumber);
+        request.setServiceNumber(serviceNumber);
+        return request;
+    }
+}
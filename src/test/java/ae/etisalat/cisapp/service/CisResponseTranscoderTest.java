@@ -0,0 +1,239 @@
+package ae.etisalat.cisapp.service;
+
+import ae.etisalat.cisapp.support.CisStubServer;
+import ae.etisalat.cisapp.support.SampleData;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import jakarta.xml.bind.JAXBContext;
+import jakarta.xml.bind.JAXBElement;
+import jakarta.xml.bind.annotation.XmlAccessType;
+import jakarta.xml.bind.annotation.XmlAccessorType;
+import jakarta.xml.bind.annotation.XmlAttribute;
+import jakarta.xml.bind.annotation.XmlElement;
+import jakarta.xml.bind.annotation.XmlEnum;
+import jakarta.xml.bind.annotation.XmlEnumValue;
+import jakarta.xml.bind.annotation.XmlSchemaType;
+import jakarta.xml.bind.annotation.XmlType;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.oxm.UnmarshallingFailureException;
+import org.springframework.oxm.jaxb.Jaxb2Marshaller;
+import org.springframework.ws.WebServiceMessage;
+import org.springframework.ws.soap.saaj.SaajSoapMessageFactory;
+import org.springframework.ws.support.MarshallingUtils;
+import sem.cis.pull.cbcm.GetSubscriptionDtls;
+import sem.cis.pull.cbcm.GetSubscriptionDtlsResponse;
+
+import javax.xml.datatype.XMLGregorianCalendar;
+import javax.xml.namespace.QName;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Conformance of the streaming path with the unmarshalling one: for the same SOAP response, the
+ * transcoder must write exactly the bytes the ObjectMapper writes for the JAXB-unmarshalled object.
+ */
+public class CisResponseTranscoderTest {
+
+    private static final QName RESPONSE_QNAME = new QName("http://cbcm.pull.cis.sem/", "getSubscriptionDtlsResponse");
+    private static final QName ACCOUNT_QNAME = new QName("urn:test", "account");
+
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json()
+            .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+            .build();
+    private final SaajSoapMessageFactory messageFactory = newMessageFactory();
+
+    @Test
+    public void testSampleResponses_MatchUnmarshallingPath() throws Exception {
+        Jaxb2Marshaller marshaller = cisMarshaller();
+        CisResponseTranscoder transcoder = new CisResponseTranscoder(objectMapper);
+        assertTrue(transcoder.isSupported());
+
+        for (int size : new int[]{0, 1, 25}) {
+            GetSubscriptionDtlsResponse response = SampleData.populate(GetSubscriptionDtlsResponse.class, size);
+            String envelope = envelope(marshaller, new JAXBElement<>(RESPONSE_QNAME, GetSubscriptionDtlsResponse.class, response));
+
+            assertConforms(marshaller, transcoder, envelope);
+            // Formatting, a SOAP header, comments and elements JAXB does not know must not matter either
+            String noisy = envelope
+                    .replaceFirst("<SOAP-ENV:Body>", "<SOAP-ENV:Header><h:trace xmlns:h=\"urn:h\">1</h:trace></SOAP-ENV:Header>\n  <SOAP-ENV:Body>\n    ")
+                    .replaceAll("(<[^/!?][^>]*>)", "$1<!-- c -->")
+                    .replaceFirst("(<ns\\d?:getSubscriptionDtlsResponse[^>]*>)", "$1\n      <unknown><nested>x</nested></unknown>\n");
+            assertTrue(noisy.contains("<SOAP-ENV:Header>") && noisy.contains("<unknown>"), noisy);
+            assertConforms(marshaller, transcoder, noisy);
+        }
+    }
+
+    @Test
+    public void testScalarsNilsAndOrdering_MatchUnmarshallingPath() throws Exception {
+        JAXBContext context = JAXBContext.newInstance(Account.class);
+        CisResponseTranscoder transcoder = new CisResponseTranscoder(objectMapper, Account.class, ACCOUNT_QNAME);
+        assertTrue(transcoder.isSupported());
+
+        assertConforms(context, transcoder, account(
+                "<id> 42 </id><return>r &amp; <![CDATA[<cdata>]]></return><balance>1234.5600</balance><active>1</active>"
+                        + "<since>2024-02-29T10:15:30.250+04:00</since><tier>gold</tier>"
+                        + "<lines><msisdn>971500000001</msisdn><count>3</count><status>ACTIVE</status></lines>"
+                        + "<lines><msisdn>971500000002</msisdn></lines>"
+                        + "<notes>first</notes><notes xsi:nil=\"true\"/><notes>  spaced  </notes>"));
+        // Missing and nil elements, an empty string, an unknown enum value and an unparseable number
+        assertConforms(context, transcoder, account(
+                "<id xsi:nil=\"true\"/><balance xsi:nil=\"true\"/><tier>platinum</tier>"
+                        + "<lines><msisdn/><count>many</count></lines>"));
+        assertConforms(context, transcoder, account(""));
+    }
+
+    @Test
+    public void testFault_ThrowsWithoutOpeningTarget() {
+        CisResponseTranscoder transcoder = new CisResponseTranscoder(objectMapper);
+
+        CisSoapFaultException fault = assertThrows(CisSoapFaultException.class,
+                () -> transcoder.transcode(stream(CisStubServer.FAULT_RESPONSE), () -> fail("Target opened for a fault")));
+
+        assertEquals("soap:Server", fault.getFaultCode());
+        assertEquals("CIS backend error", fault.getFaultString());
+        assertThrows(UnmarshallingFailureException.class, () -> transcoder.transcode(
+                stream(CisStubServer.EMPTY_RESPONSE.replace("getSubscriptionDtlsResponse", "somethingElse")),
+                () -> fail("Target opened for an unexpected payload")));
+    }
+
+    @Test
+    public void testEmptyBody_WritesEmptyResponse() throws Exception {
+        CisResponseTranscoder transcoder = new CisResponseTranscoder(objectMapper);
+        String emptyBody = "<soap:Envelope xmlns:soap=\"http://schemas.xmlsoap.org/soap/envelope/\"><soap:Body/></soap:Envelope>";
+
+        assertFalse(transcoder.transcode(stream(emptyBody), () -> fail("Target opened for an empty body")));
+
+        ByteArrayOutputStream json = new ByteArrayOutputStream();
+        transcoder.writeEmpty(() -> json);
+        assertEquals(objectMapper.writeValueAsString(new GetSubscriptionDtlsResponse()), json.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void testUnmappableType_NotSupported() {
+        assertFalse(new CisResponseTranscoder(objectMapper, WithAttribute.class, new QName("urn:test", "x")).isSupported());
+    }
+
+    private void assertConforms(Jaxb2Marshaller marshaller, CisResponseTranscoder transcoder, String envelope) throws Exception {
+        WebServiceMessage message = messageFactory.createWebServiceMessage(stream(envelope));
+        assertConforms(((JAXBElement<?>) MarshallingUtils.unmarshal(marshaller, message)).getValue(), transcoder, envelope);
+    }
+
+    private void assertConforms(JAXBContext context, CisResponseTranscoder transcoder, String envelope) throws Exception {
+        WebServiceMessage message = messageFactory.createWebServiceMessage(stream(envelope));
+        // The fixtures have no ObjectFactory, so the root element is unmarshalled by declared type
+        assertConforms(context.createUnmarshaller().unmarshal(message.getPayloadSource(), Account.class).getValue(),
+                transcoder, envelope);
+    }
+
+    private void assertConforms(Object unmarshalled, CisResponseTranscoder transcoder, String envelope) throws Exception {
+        String expected = objectMapper.writeValueAsString(unmarshalled);
+
+        ByteArrayOutputStream json = new ByteArrayOutputStream();
+        assertTrue(transcoder.transcode(stream(envelope), () -> json));
+
+        assertEquals(expected, json.toString(StandardCharsets.UTF_8), "Streamed JSON differs for " + envelope);
+    }
+
+    private String envelope(Jaxb2Marshaller marshaller, Object payload) throws IOException {
+        WebServiceMessage message = messageFactory.createWebServiceMessage();
+        MarshallingUtils.marshal(marshaller, payload, message);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        message.writeTo(out);
+        return out.toString(StandardCharsets.UTF_8);
+    }
+
+    private static String account(String content) {
+        return "<soap:Envelope xmlns:soap=\"http://schemas.xmlsoap.org/soap/envelope/\"><soap:Body>"
+                + "<t:account xmlns:t=\"urn:test\" xmlns:xsi=\"http://www.w3.org/2001/XMLSchema-instance\">" + content
+                + "</t:account></soap:Body></soap:Envelope>";
+    }
+
+    private static ByteArrayInputStream stream(String xml) {
+        return new ByteArrayInputStream(xml.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static SaajSoapMessageFactory newMessageFactory() {
+        SaajSoapMessageFactory factory = new SaajSoapMessageFactory();
+        factory.afterPropertiesSet();
+        return factory;
+    }
+
+    private static Jaxb2Marshaller cisMarshaller() throws Exception {
+        Jaxb2Marshaller marshaller = new Jaxb2Marshaller();
+        marshaller.setClassesToBeBound(GetSubscriptionDtls.class, GetSubscriptionDtlsResponse.class,
+                Class.forName("sem.cis.pull.cbcm.ObjectFactory"));
+        marshaller.setSupportJaxbElementClass(true);
+        marshaller.afterPropertiesSet();
+        return marshaller;
+    }
+
+    @XmlEnum
+    public enum Tier {
+        @XmlEnumValue("gold") GOLD,
+        @XmlEnumValue("silver") SILVER
+    }
+
+    /**
+     * Shaped like xjc output; {@code _return} sorts differently in JSON than in the schema.
+     */
+    @XmlAccessorType(XmlAccessType.FIELD)
+    @XmlType(name = "account", propOrder = {"id", "_return", "balance", "active", "since", "tier", "lines", "notes"})
+    public static class Account {
+        protected long id;
+        @XmlElement(name = "return")
+        protected String _return;
+        protected BigDecimal balance;
+        protected boolean active;
+        @XmlSchemaType(name = "dateTime")
+        protected XMLGregorianCalendar since;
+        protected Tier tier;
+        protected List<Line> lines;
+        @XmlElement(nillable = true)
+        protected List<String> notes;
+
+        public long getId() { return id; }
+        public String getReturn() { return _return; }
+        public BigDecimal getBalance() { return balance; }
+        public boolean isActive() { return active; }
+        public XMLGregorianCalendar getSince() { return since; }
+        public Tier getTier() { return tier; }
+        public List<Line> getLines() {
+            if (lines == null) { lines = new ArrayList<>(); }
+            return lines;
+        }
+        public List<String> getNotes() {
+            if (notes == null) { notes = new ArrayList<>(); }
+            return notes;
+        }
+    }
+
+    @XmlAccessorType(XmlAccessType.FIELD)
+    @XmlType(name = "line", propOrder = {"msisdn", "count", "status"})
+    public static class Line {
+        @XmlElement(name = "msisdn")
+        protected String msisdn;
+        protected Integer count;
+        protected String status;
+
+        public String getMSISDN() { return msisdn; }
+        public Integer getCount() { return count; }
+        public String getStatus() { return status; }
+    }
+
+    @XmlAccessorType(XmlAccessType.FIELD)
+    @XmlType(name = "withAttribute")
+    public static class WithAttribute {
+        @XmlAttribute
+        protected String code;
+
+        public String getCode() { return code; }
+    }
+}
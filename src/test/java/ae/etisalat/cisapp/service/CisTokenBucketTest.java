@@ -0,0 +1,42 @@
+package ae.etisalat.cisapp.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CisTokenBucketTest {
+
+    @Test
+    public void testTryAcquire_AllowsBurstThenReportsWait() {
+        CisTokenBucket bucket = new CisTokenBucket(1, 3);
+
+        assertEquals(0, bucket.tryAcquire(1));
+        assertEquals(0, bucket.tryAcquire(2));
+
+        long wait = bucket.tryAcquire(1);
+        assertTrue(wait > TimeUnit.MILLISECONDS.toNanos(900) && wait <= TimeUnit.SECONDS.toNanos(1), "wait " + wait);
+    }
+
+    @Test
+    public void testTryAcquire_RefillsOverTime() throws InterruptedException {
+        CisTokenBucket bucket = new CisTokenBucket(100, 1);
+        assertEquals(0, bucket.tryAcquire(1));
+        assertTrue(bucket.tryAcquire(1) > 0);
+
+        Thread.sleep(30);
+
+        assertEquals(0, bucket.tryAcquire(1));
+    }
+
+    @Test
+    public void testTryAcquire_MoreThanCapacityAllowedOnAFullBucketButChargedInFull() {
+        CisTokenBucket bucket = new CisTokenBucket(1, 2);
+
+        assertEquals(0, bucket.tryAcquire(10));
+        // 8 tokens of debt to pay off before the next one
+        long wait = bucket.tryAcquire(1);
+        assertTrue(wait > TimeUnit.MILLISECONDS.toNanos(8900) && wait <= TimeUnit.SECONDS.toNanos(9), "wait " + wait);
+    }
+}
@@ -0,0 +1,382 @@
+package ae.etisalat.cisapp.support;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import jakarta.xml.bind.JAXBContext;
+import jakarta.xml.bind.JAXBElement;
+import jakarta.xml.bind.JAXBException;
+import jakarta.xml.bind.Marshaller;
+import sem.cis.pull.cbcm.GetSubscriptionDtlsResponse;
+
+import javax.xml.namespace.QName;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.StringWriter;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Minimal CIS SOAP backend served over real HTTP on localhost, for tests that exercise the
+ * actual transport, interceptors and marshalling instead of a mocked WebServiceTemplate.
+ * <p>
+ * Besides fixed responses it can draw each response's latency from a {@link LatencyDistribution},
+ * its payload from a set of bodies of different sizes, and answer a share of requests with a SOAP
+ * fault or by dropping the connection without a response. Requests can also be held until the test
+ * releases them one at a time, to observe in which order they reach the backend.
+ */
+public class CisStubServer implements AutoCloseable {
+
+    public static final String EMPTY_RESPONSE =
+            "<soap:Envelope xmlns:soap=\"http://schemas.xmlsoap.org/soap/envelope/\">" +
+            "<soap:Body>" +
+            "<ns2:getSubscriptionDtlsResponse xmlns:ns2=\"http://cbcm.pull.cis.sem/\"/>" +
+            "</soap:Body>" +
+            "</soap:Envelope>";
+
+    public static final String FAULT_RESPONSE =
+            "<soap:Envelope xmlns:soap=\"http://schemas.xmlsoap.org/soap/envelope/\">" +
+            "<soap:Body>" +
+            "<soap:Fault><faultcode>soap:Server</faultcode><faultstring>CIS backend error</faultstring></soap:Fault>" +
+            "</soap:Body>" +
+            "</soap:Envelope>";
+
+    private static final QName RESPONSE_QNAME = new QName("http://cbcm.pull.cis.sem/", "getSubscriptionDtlsResponse");
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private volatile LatencyDistribution latency;
+    private volatile int slowEvery;
+    private volatile int slowFrom;
+    private volatile Duration slowLatency = Duration.ZERO;
+    private volatile ResponseBody[] responseBodies;
+    private volatile double faultRate;
+    private volatile double resetRate;
+    private volatile String responseEncoding;
+    private volatile String lastAcceptEncoding;
+    private volatile String lastRequestEncoding;
+    private volatile byte[] lastRequestBody;
+    private final AtomicInteger requestCount = new AtomicInteger();
+    private final AtomicInteger faultCount = new AtomicInteger();
+    private final AtomicInteger resetCount = new AtomicInteger();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger peakInFlight = new AtomicInteger();
+
+    private final ReentrantLock holdLock = new ReentrantLock();
+    private boolean holding;
+    private final ArrayDeque<CountDownLatch> held = new ArrayDeque<>();
+    private final List<String> heldRequests = new ArrayList<>();
+
+    private CisStubServer(Duration latency, String responseBody) throws IOException {
+        this.latency = LatencyDistribution.fixed(latency);
+        setResponseBody(responseBody);
+        this.executor = Executors.newVirtualThreadPerTaskExecutor();
+        this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 4096);
+        this.server.setExecutor(executor);
+        this.server.createContext("/", this::handle);
+        this.server.start();
+    }
+
+    public static CisStubServer start(Duration latency) {
+        return start(latency, EMPTY_RESPONSE);
+    }
+
+    public static CisStubServer start(Duration latency, String responseBody) {
+        try {
+            return new CisStubServer(latency, responseBody);
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not start CIS stub server", e);
+        }
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        int requestNumber = requestCount.incrementAndGet();
+        peakInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+        try {
+            byte[] requestBody = exchange.getRequestBody().readAllBytes();
+            lastAcceptEncoding = exchange.getRequestHeaders().getFirst("Accept-Encoding");
+            lastRequestEncoding = exchange.getRequestHeaders().getFirst("Content-Encoding");
+            byte[] decodedBody = "gzip".equals(lastRequestEncoding)
+                    ? new GZIPInputStream(new ByteArrayInputStream(requestBody)).readAllBytes() : requestBody;
+            lastRequestBody = decodedBody;
+            awaitRelease(decodedBody);
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            int every = slowEvery;
+            Duration delay = every > 0 && (requestNumber - slowFrom) % every == 1 % every
+                    ? slowLatency : latency.next(random);
+            if (delay.isPositive()) {
+                Thread.sleep(delay);
+            }
+            if (random.nextDouble() < resetRate) {
+                // Closing the exchange before any response has been sent closes the connection
+                resetCount.incrementAndGet();
+                return;
+            }
+            exchange.getResponseHeaders().add("Content-Type", "text/xml; charset=utf-8");
+            ResponseBody response;
+            if (random.nextDouble() < faultRate) {
+                faultCount.incrementAndGet();
+                response = ResponseBody.FAULT;
+            } else {
+                ResponseBody[] bodies = responseBodies;
+                response = bodies[bodies.length == 1 ? 0 : random.nextInt(bodies.length)];
+            }
+            byte[] payload = response.bytes();
+            int status = response.status();
+            String encoding = responseEncoding;
+            if (encoding != null && lastAcceptEncoding != null && lastAcceptEncoding.contains(encoding)) {
+                exchange.getResponseHeaders().add("Content-Encoding", encoding);
+                payload = compress(payload, encoding);
+            }
+            exchange.sendResponseHeaders(status, payload.length);
+            try (OutputStream body = exchange.getResponseBody()) {
+                body.write(payload);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            inFlight.decrementAndGet();
+            exchange.close();
+        }
+    }
+
+    private void awaitRelease(byte[] requestBody) throws InterruptedException {
+        CountDownLatch release;
+        holdLock.lock();
+        try {
+            if (!holding) {
+                return;
+            }
+            release = new CountDownLatch(1);
+            held.addLast(release);
+            heldRequests.add(new String(requestBody, StandardCharsets.UTF_8));
+        } finally {
+            holdLock.unlock();
+        }
+        release.await();
+    }
+
+    private static byte[] compress(byte[] payload, String encoding) throws IOException {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        try (OutputStream out = "gzip".equals(encoding) ? new GZIPOutputStream(compressed) : new DeflaterOutputStream(compressed)) {
+            out.write(payload);
+        }
+        return compressed.toByteArray();
+    }
+
+    /**
+     * Changes the latency injected before subsequent responses, e.g. to let a degraded backend recover.
+     */
+    public void setLatency(Duration latency) {
+        setLatency(LatencyDistribution.fixed(latency));
+    }
+
+    /**
+     * Draws the latency of each subsequent response from the distribution.
+     */
+    public void setLatency(LatencyDistribution latency) {
+        this.latency = latency;
+    }
+
+    /**
+     * Makes the next request, and every nth one after it, wait {@code slowLatency} instead, to simulate
+     * tail latency.
+     */
+    public void setSlowEvery(int n, Duration slowLatency) {
+        this.slowLatency = slowLatency;
+        this.slowFrom = requestCount.get();
+        this.slowEvery = n;
+    }
+
+    /**
+     * Replaces the body served to subsequent requests, e.g. to switch to a SOAP fault mid-test.
+     */
+    public void setResponseBody(String responseBody) {
+        this.responseBodies = new ResponseBody[]{ResponseBody.of(responseBody)};
+    }
+
+    /**
+     * Serves each subsequent request a response with one of the given numbers of subscriptions, picked
+     * at random, to mix payload sizes.
+     */
+    public void setResponseItems(int... items) {
+        ResponseBody[] bodies = new ResponseBody[items.length];
+        for (int i = 0; i < items.length; i++) {
+            bodies[i] = ResponseBody.of(responseEnvelope(items[i]));
+        }
+        this.responseBodies = bodies;
+    }
+
+    /**
+     * Answers this share of subsequent requests with {@link #FAULT_RESPONSE}.
+     */
+    public void setFaultRate(double faultRate) {
+        this.faultRate = faultRate;
+    }
+
+    /**
+     * Closes the connection without any response for this share of subsequent requests, after their
+     * latency, as a crashing or overloaded backend node would.
+     */
+    public void setResetRate(double resetRate) {
+        this.resetRate = resetRate;
+    }
+
+    /**
+     * A SOAP response envelope with {@code items} populated subscriptions, as CIS would send it.
+     */
+    public static String responseEnvelope(int items) {
+        GetSubscriptionDtlsResponse response = SampleData.populate(GetSubscriptionDtlsResponse.class, items);
+        StringWriter out = new StringWriter();
+        out.write("<soap:Envelope xmlns:soap=\"http://schemas.xmlsoap.org/soap/envelope/\"><soap:Body>");
+        try {
+            Marshaller marshaller = JAXBContext.newInstance(GetSubscriptionDtlsResponse.class).createMarshaller();
+            marshaller.setProperty(Marshaller.JAXB_FRAGMENT, true);
+            marshaller.marshal(new JAXBElement<>(RESPONSE_QNAME, GetSubscriptionDtlsResponse.class, response), out);
+        } catch (JAXBException e) {
+            throw new IllegalStateException("Could not marshal a sample CIS response", e);
+        }
+        out.write("</soap:Body></soap:Envelope>");
+        return out.toString();
+    }
+
+    /**
+     * Compresses subsequent responses with {@code gzip} or {@code deflate} (zlib) when the request
+     * accepts it; {@code null} serves them as they are.
+     */
+    public void setResponseEncoding(String responseEncoding) {
+        this.responseEncoding = responseEncoding;
+    }
+
+    public String getLastAcceptEncoding() {
+        return lastAcceptEncoding;
+    }
+
+    public String getLastRequestEncoding() {
+        return lastRequestEncoding;
+    }
+
+    /**
+     * The last request body, decompressed if it was sent gzipped.
+     */
+    public String getLastRequestBody() {
+        byte[] body = lastRequestBody;
+        return body != null ? new String(body, StandardCharsets.UTF_8) : null;
+    }
+
+    /**
+     * Holds subsequent requests, before their latency, until {@link #releaseOne()} or {@link #releaseAll()}.
+     */
+    public void hold() {
+        holdLock.lock();
+        try {
+            holding = true;
+        } finally {
+            holdLock.unlock();
+        }
+    }
+
+    /**
+     * Lets the longest-held request go on to its response.
+     */
+    public void releaseOne() {
+        holdLock.lock();
+        try {
+            CountDownLatch release = held.pollFirst();
+            if (release == null) {
+                throw new IllegalStateException("No request is held");
+            }
+            release.countDown();
+        } finally {
+            holdLock.unlock();
+        }
+    }
+
+    /**
+     * Lets every held request go and stops holding new ones.
+     */
+    public void releaseAll() {
+        holdLock.lock();
+        try {
+            holding = false;
+            CountDownLatch release;
+            while ((release = held.pollFirst()) != null) {
+                release.countDown();
+            }
+        } finally {
+            holdLock.unlock();
+        }
+    }
+
+    /**
+     * Bodies of every request held so far, decompressed, in the order they arrived.
+     */
+    public List<String> getHeldRequests() {
+        holdLock.lock();
+        try {
+            return List.copyOf(heldRequests);
+        } finally {
+            holdLock.unlock();
+        }
+    }
+
+    public String getUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort() + "/cis";
+    }
+
+    public int getRequestCount() {
+        return requestCount.get();
+    }
+
+    /**
+     * Requests answered with an injected fault.
+     */
+    public int getFaultCount() {
+        return faultCount.get();
+    }
+
+    /**
+     * Requests whose connection was dropped without a response.
+     */
+    public int getResetCount() {
+        return resetCount.get();
+    }
+
+    /**
+     * Highest number of requests the stub was serving at the same time.
+     */
+    public int getPeakInFlight() {
+        return peakInFlight.get();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    private record ResponseBody(byte[] bytes, int status) {
+
+        static final ResponseBody FAULT = of(FAULT_RESPONSE);
+
+        static ResponseBody of(String body) {
+            // SOAP 1.1 over HTTP reports faults with a 500
+            return new ResponseBody(body.getBytes(StandardCharsets.UTF_8), body.contains(":Fault>") ? 500 : 200);
+        }
+    }
+}
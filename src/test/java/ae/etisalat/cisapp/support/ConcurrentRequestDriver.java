@@ -0,0 +1,47 @@
+package ae.etisalat.cisapp.support;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Fires a burst of identical JSON POSTs at once and collects the status codes in send order.
+ */
+public class ConcurrentRequestDriver implements AutoCloseable {
+
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final HttpClient client = HttpClient.newBuilder()
+            .executor(executor)
+            .connectTimeout(Duration.ofSeconds(10))
+            .build();
+
+    public List<Integer> post(URI uri, String json, int count) {
+        HttpRequest request = HttpRequest.newBuilder(uri)
+                .header("Content-Type", "application/json")
+                .timeout(Duration.ofMinutes(2))
+                .POST(HttpRequest.BodyPublishers.ofString(json))
+                .build();
+
+        List<CompletableFuture<HttpResponse<String>>> responses = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            responses.add(client.sendAsync(request, HttpResponse.BodyHandlers.ofString()));
+        }
+        List<Integer> statuses = new ArrayList<>(count);
+        for (CompletableFuture<HttpResponse<String>> response : responses) {
+            statuses.add(response.join().statusCode());
+        }
+        return statuses;
+    }
+
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+}
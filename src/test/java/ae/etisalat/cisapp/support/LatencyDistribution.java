@@ -0,0 +1,41 @@
+package ae.etisalat.cisapp.support;
+
+import java.time.Duration;
+import java.util.random.RandomGenerator;
+
+/**
+ * Service time the {@link CisStubServer} injects before each response.
+ */
+@FunctionalInterface
+public interface LatencyDistribution {
+
+    /**
+     * z-score of the 99th percentile of the standard normal distribution.
+     */
+    double Z_99 = 2.3263478740408408;
+
+    Duration next(RandomGenerator random);
+
+    static LatencyDistribution fixed(Duration latency) {
+        return random -> latency;
+    }
+
+    static LatencyDistribution uniform(Duration min, Duration max) {
+        long minNanos = min.toNanos();
+        long maxNanos = max.toNanos();
+        return random -> Duration.ofNanos(minNanos == maxNanos ? minNanos : random.nextLong(minNanos, maxNanos + 1));
+    }
+
+    /**
+     * Long-tailed service times, as real backends show: half of the calls take less than {@code median}
+     * and one in a hundred takes longer than {@code p99}.
+     */
+    static LatencyDistribution logNormal(Duration median, Duration p99) {
+        if (p99.compareTo(median) < 0 || median.isZero() || median.isNegative()) {
+            throw new IllegalArgumentException("Need 0 < median <= p99, got " + median + " and " + p99);
+        }
+        double mu = Math.log(median.toNanos());
+        double sigma = (Math.log(p99.toNanos()) - mu) / Z_99;
+        return random -> Duration.ofNanos(Math.round(Math.exp(mu + sigma * random.nextGaussian())));
+    }
+}
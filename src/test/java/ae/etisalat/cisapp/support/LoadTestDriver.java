@@ -0,0 +1,117 @@
+package ae.etisalat.cisapp.support;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntFunction;
+
+/**
+ * Closed-loop load generator: {@code concurrency} virtual threads each send a JSON POST, wait for the
+ * response and send the next, until the run's duration is up. Every response time is kept, so the
+ * report's percentiles are exact rather than bucketed.
+ */
+public class LoadTestDriver implements AutoCloseable {
+
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final HttpClient client = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .executor(executor)
+            .connectTimeout(Duration.ofSeconds(10))
+            .build();
+    private final AtomicInteger sequence = new AtomicInteger();
+
+    /**
+     * @param body request body for the nth request sent by this driver, so that runs can avoid the
+     *             response cache and request coalescing
+     */
+    public LoadTestReport run(URI uri, IntFunction<String> body, int concurrency, Duration duration)
+            throws InterruptedException {
+        long start = System.nanoTime();
+        long end = start + duration.toNanos();
+        List<Future<Worker>> futures = new ArrayList<>(concurrency);
+        for (int i = 0; i < concurrency; i++) {
+            Worker worker = new Worker(uri, body, end);
+            futures.add(executor.submit(() -> {
+                worker.run();
+                return worker;
+            }));
+        }
+        List<Worker> workers = new ArrayList<>(concurrency);
+        for (Future<Worker> future : futures) {
+            try {
+                workers.add(future.get());
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("Load worker failed", e.getCause());
+            }
+        }
+        Duration elapsed = Duration.ofNanos(System.nanoTime() - start);
+        return LoadTestReport.of(concurrency, elapsed, workers.stream().map(Worker::result).toList());
+    }
+
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+
+    private final class Worker {
+
+        private final URI uri;
+        private final IntFunction<String> body;
+        private final long end;
+        private long[] latencies = new long[1024];
+        private int count;
+        private final Map<String, Integer> outcomes = new TreeMap<>();
+
+        Worker(URI uri, IntFunction<String> body, long end) {
+            this.uri = uri;
+            this.body = body;
+            this.end = end;
+        }
+
+        void run() {
+            while (System.nanoTime() < end) {
+                HttpRequest request = HttpRequest.newBuilder(uri)
+                        .header("Content-Type", "application/json")
+                        .timeout(Duration.ofMinutes(1))
+                        .POST(HttpRequest.BodyPublishers.ofString(body.apply(sequence.getAndIncrement())))
+                        .build();
+                long sent = System.nanoTime();
+                String outcome;
+                try {
+                    outcome = Integer.toString(client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode());
+                } catch (IOException e) {
+                    outcome = e.getClass().getSimpleName();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                record(System.nanoTime() - sent, outcome);
+            }
+        }
+
+        private void record(long latencyNanos, String outcome) {
+            if (count == latencies.length) {
+                latencies = Arrays.copyOf(latencies, count * 2);
+            }
+            latencies[count++] = latencyNanos;
+            outcomes.merge(outcome, 1, Integer::sum);
+        }
+
+        LoadTestReport.Sample result() {
+            return new LoadTestReport.Sample(Arrays.copyOf(latencies, count), outcomes);
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package ae.etisalat.cisapp.support;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Outcome of one {@link LoadTestDriver} run. Outcomes are HTTP status codes, or the simple name of the
+ * exception when no response came back at all; anything but a 2xx counts as an error.
+ */
+public record LoadTestReport(int concurrency, Duration elapsed, long[] sortedLatencyNanos, Map<String, Integer> outcomes) {
+
+    /**
+     * What one worker saw.
+     */
+    record Sample(long[] latencyNanos, Map<String, Integer> outcomes) {
+    }
+
+    static LoadTestReport of(int concurrency, Duration elapsed, List<Sample> samples) {
+        long[] latencies = samples.stream().flatMapToLong(sample -> Arrays.stream(sample.latencyNanos())).sorted().toArray();
+        Map<String, Integer> outcomes = new TreeMap<>();
+        samples.forEach(sample -> sample.outcomes().forEach((outcome, n) -> outcomes.merge(outcome, n, Integer::sum)));
+        return new LoadTestReport(concurrency, elapsed, latencies, Collections.unmodifiableMap(outcomes));
+    }
+
+    public int requests() {
+        return sortedLatencyNanos.length;
+    }
+
+    public int count(String outcome) {
+        return outcomes.getOrDefault(outcome, 0);
+    }
+
+    public int errors() {
+        return outcomes.entrySet().stream()
+                .filter(entry -> !entry.getKey().startsWith("2"))
+                .mapToInt(Map.Entry::getValue)
+                .sum();
+    }
+
+    public double errorRate() {
+        return requests() == 0 ? 0 : (double) errors() / requests();
+    }
+
+    /**
+     * Completed requests per second, failed ones included.
+     */
+    public double throughput() {
+        return requests() / (elapsed.toNanos() / 1e9);
+    }
+
+    /**
+     * Nearest-rank percentile of the response times, e.g. {@code 0.999} for p999.
+     */
+    public Duration percentile(double quantile) {
+        if (sortedLatencyNanos.length == 0) {
+            return Duration.ZERO;
+        }
+        int rank = (int) Math.ceil(quantile * sortedLatencyNanos.length);
+        return Duration.ofNanos(sortedLatencyNanos[Math.clamp(rank - 1, 0, sortedLatencyNanos.length - 1)]);
+    }
+
+    public String summary(String name) {
+        return String.format("%s: %d requests at concurrency %d in %.1fs, %.0f req/s, p50 %.1fms, p99 %.1fms, "
+                        + "p999 %.1fms, max %.1fms, errors %.2f%% %s",
+                name, requests(), concurrency, elapsed.toNanos() / 1e9, throughput(), millis(0.5), millis(0.99),
+                millis(0.999), millis(1), 100 * errorRate(), outcomes);
+    }
+
+    private double millis(double quantile) {
+        return percentile(quantile).toNanos() / 1e6;
+    }
+}
@@ -0,0 +1,50 @@
+package ae.etisalat.cisapp.support;
+
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordingStream;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Collectors;
+
+/**
+ * Records JFR {@code jdk.VirtualThreadPinned} events, i.e. virtual threads that blocked while
+ * pinned to their carrier (typically inside a {@code synchronized} block or a native frame).
+ */
+public class PinnedThreadMonitor implements AutoCloseable {
+
+    private final RecordingStream stream = new RecordingStream();
+    private final List<String> pinnedStacks = new CopyOnWriteArrayList<>();
+
+    public PinnedThreadMonitor() {
+        stream.enable("jdk.VirtualThreadPinned").withStackTrace().withThreshold(Duration.ZERO);
+        stream.onEvent("jdk.VirtualThreadPinned", this::record);
+        stream.startAsync();
+    }
+
+    private void record(RecordedEvent event) {
+        if (event.getStackTrace() == null) {
+            pinnedStacks.add("<no stack trace>");
+            return;
+        }
+        pinnedStacks.add(event.getStackTrace().getFrames().stream()
+                .map(RecordedFrame::getMethod)
+                .map(method -> method.getType().getName() + "." + method.getName())
+                .collect(Collectors.joining("\n  at ")));
+    }
+
+    /**
+     * Stops recording and returns the stack of every pinned event observed.
+     */
+    public List<String> stop() {
+        stream.stop();
+        return List.copyOf(pinnedStacks);
+    }
+
+    @Override
+    public void close() {
+        stream.close();
+    }
+}
@@ -0,0 +1,126 @@
+package ae.etisalat.cisapp.support;
+
+import javax.xml.datatype.DatatypeConfigurationException;
+import javax.xml.datatype.DatatypeFactory;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.GregorianCalendar;
+import java.util.List;
+
+/**
+ * Fills JAXB-generated beans with deterministic sample values by reflecting over their fields, so
+ * tests and benchmarks get realistic payloads without hard-coding the CIS client's field names.
+ */
+public final class SampleData {
+
+    private static final int MAX_DEPTH = 4;
+
+    private SampleData() {
+    }
+
+    /**
+     * @param listSize number of elements generated for every list property
+     */
+    public static <T> T populate(Class<T> type, int listSize) {
+        return type.cast(create(type, type, type.getSimpleName(), listSize, 0));
+    }
+
+    private static Object create(Class<?> type, Type genericType, String name, int listSize, int depth) {
+        if (type == String.class) {
+            return name + "-sample";
+        }
+        if (type == int.class || type == Integer.class) {
+            return 42 + depth;
+        }
+        if (type == long.class || type == Long.class) {
+            return 971500000000L + depth;
+        }
+        if (type == short.class || type == Short.class) {
+            return (short) 7;
+        }
+        if (type == byte.class || type == Byte.class) {
+            return (byte) 1;
+        }
+        if (type == boolean.class || type == Boolean.class) {
+            return Boolean.TRUE;
+        }
+        if (type == double.class || type == Double.class) {
+            return 12.5d;
+        }
+        if (type == float.class || type == Float.class) {
+            return 3.25f;
+        }
+        if (type == BigDecimal.class) {
+            return new BigDecimal("199.99");
+        }
+        if (type == BigInteger.class) {
+            return BigInteger.valueOf(123456789L);
+        }
+        if (type == byte[].class) {
+            return new byte[]{1, 2, 3, 4};
+        }
+        if (type == Date.class) {
+            return new Date(1700000000000L);
+        }
+        if (type == javax.xml.datatype.XMLGregorianCalendar.class) {
+            try {
+                GregorianCalendar calendar = new GregorianCalendar();
+                calendar.setTime(new Date(1700000000000L));
+                return DatatypeFactory.newInstance().newXMLGregorianCalendar(calendar);
+            } catch (DatatypeConfigurationException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+        if (type.isEnum()) {
+            Object[] constants = type.getEnumConstants();
+            return constants.length > 0 ? constants[0] : null;
+        }
+        if (Collection.class.isAssignableFrom(type)) {
+            List<Object> list = new ArrayList<>();
+            if (genericType instanceof ParameterizedType parameterized
+                    && parameterized.getActualTypeArguments()[0] instanceof Class<?> elementType) {
+                for (int i = 0; i < listSize; i++) {
+                    Object element = create(elementType, elementType, name + i, listSize, depth + 1);
+                    if (element != null) {
+                        list.add(element);
+                    }
+                }
+            }
+            return list;
+        }
+        if (depth >= MAX_DEPTH || type.isInterface() || type.isPrimitive() || type.getName().startsWith("java")
+                || Modifier.isAbstract(type.getModifiers())) {
+            return null;
+        }
+        return createBean(type, listSize, depth);
+    }
+
+    private static Object createBean(Class<?> type, int listSize, int depth) {
+        try {
+            Object bean = type.getDeclaredConstructor().newInstance();
+            for (Class<?> current = type; current != null && current != Object.class; current = current.getSuperclass()) {
+                for (Field field : current.getDeclaredFields()) {
+                    if (Modifier.isStatic(field.getModifiers()) || Modifier.isFinal(field.getModifiers())) {
+                        continue;
+                    }
+                    Object value = create(field.getType(), field.getGenericType(), field.getName(), listSize, depth + 1);
+                    if (value != null) {
+                        field.setAccessible(true);
+                        field.set(bean, value);
+                    }
+                }
+            }
+            return bean;
+        } catch (ReflectiveOperationException e) {
+            // Types without a no-arg constructor (e.g. JAXBElement) are left unset
+            return null;
+        }
+    }
+}